@@ -19,6 +19,7 @@ import com.esotericsoftware.minlog.Log;
 import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
 import org.scify.jedai.datamodel.*;
+import org.scify.jedai.utilities.ParallelRangeExecutor;
 
 import java.util.*;
 
@@ -40,8 +41,11 @@ public abstract class AbstractBlockBuilding implements IBlockBuilding {
     protected Map<String, TIntList> invertedIndexD2;
     protected AttributeClusters[] schemaClusters;
 
+    protected int noOfThreads;
+
     public AbstractBlockBuilding() {
         isUsingEntropy = false;
+        noOfThreads = 1;
     }
 
     protected void buildBlocks() {
@@ -60,6 +64,11 @@ public abstract class AbstractBlockBuilding implements IBlockBuilding {
         }
     }
 
+    protected interface BlockingKeysExtractor {
+
+        Set<String> getKeys(EntityProfile profile, int profileId);
+    }
+
     protected abstract Set<String> getBlockingKeys(String attributeValue);
 
     @Override
@@ -110,42 +119,67 @@ public abstract class AbstractBlockBuilding implements IBlockBuilding {
         return noOfEntitiesD1 + noOfEntitiesD2;
     }
 
-    protected void indexEntities(Map<String, TIntList> index, List<EntityProfile> entities) {
-        int counter = 0;
-        for (EntityProfile profile : entities) {
-            final Set<String> allKeys = new HashSet<>();
-            profile.getAttributes().forEach((attribute) -> {
+    protected Set<String> getEntityKeys(EntityProfile profile, AttributeClusters schemaClusters) {
+        final Set<String> allKeys = new HashSet<>();
+        profile.getAttributes().forEach((attribute) -> {
+            if (schemaClusters == null) {
                 getBlockingKeys(attribute.getValue().toLowerCase()).stream().map((key) -> key.trim()).filter((normalizedKey) -> (0 < normalizedKey.length())).forEachOrdered((normalizedKey) -> {
                     allKeys.add(normalizedKey);
                 });
-            });
-
-            for (String key : allKeys) {
-                TIntList entityList = index.get(key);
-                if (entityList == null) {
-                    entityList = new TIntArrayList();
-                    index.put(key, entityList);
-                }
-                entityList.add(counter);
+            } else {
+                int clusterId = schemaClusters.getClusterId(attribute.getName());
+                getBlockingKeys(attribute.getValue().toLowerCase()).stream().map((key) -> key.trim()).filter((normalizedKey) -> (0 < normalizedKey.length())).forEachOrdered((normalizedKey) -> {
+                    allKeys.add(normalizedKey + CLUSTER_PREFIX + clusterId + CLUSTER_PREFIX + schemaClusters.getClusterEntropy(clusterId));
+                });
             }
-            counter++;
-        }
+        });
+        return allKeys;
+    }
+
+    public int getNoOfThreads() {
+        return noOfThreads;
+    }
+
+    protected void indexEntities(Map<String, TIntList> index, List<EntityProfile> entities) {
+        indexKeys(index, entities, (profile, profileId) -> getEntityKeys(profile, null));
     }
 
     protected void indexEntities(Map<String, TIntList> index, List<EntityProfile> entities, AttributeClusters schemaClusters) {
         isUsingEntropy = true;
+        indexKeys(index, entities, (profile, profileId) -> getEntityKeys(profile, schemaClusters));
+    }
 
-        int counter = 0;
-        for (EntityProfile profile : entities) {
-            final Set<String> allKeys = new HashSet<>();
-            profile.getAttributes().forEach((attribute) -> {
-                int clusterId = schemaClusters.getClusterId(attribute.getName());
-                getBlockingKeys(attribute.getValue().toLowerCase()).stream().map((key) -> key.trim()).filter((normalizedKey) -> (0 < normalizedKey.length())).forEachOrdered((normalizedKey) -> {
-                    allKeys.add(normalizedKey + CLUSTER_PREFIX + clusterId + CLUSTER_PREFIX + schemaClusters.getClusterEntropy(clusterId));
-                });
+    // with multiple threads, every thread indexes a contiguous range of entities into a local index;
+    // the local indices are then merged in the order of their ranges, so that both the entity lists
+    // and the insertion order of the keys are identical to those of the single-threaded indexing
+    protected void indexKeys(Map<String, TIntList> index, List<EntityProfile> entities, BlockingKeysExtractor extractor) {
+        if (noOfThreads <= 1) {
+            addToIndex(index, entities, 0, extractor);
+            return;
+        }
+
+        final List<Map<String, TIntList>> partialIndices = ParallelRangeExecutor.execute(noOfThreads, entities.size(), (partitionId, startId, endId) -> {
+            final Map<String, TIntList> localIndex = new LinkedHashMap<>();
+            addToIndex(localIndex, entities.subList(startId, endId), startId, extractor);
+            return localIndex;
+        });
+
+        for (Map<String, TIntList> localIndex : partialIndices) {
+            localIndex.forEach((key, localList) -> {
+                final TIntList entityList = index.get(key);
+                if (entityList == null) {
+                    index.put(key, localList);
+                } else {
+                    entityList.addAll(localList);
+                }
             });
+        }
+    }
 
-            for (String key : allKeys) {
+    private void addToIndex(Map<String, TIntList> index, List<EntityProfile> entities, int firstId, BlockingKeysExtractor extractor) {
+        int counter = firstId;
+        for (EntityProfile profile : entities) {
+            for (String key : extractor.getKeys(profile, counter)) {
                 TIntList entityList = index.get(key);
                 if (entityList == null) {
                     entityList = new TIntArrayList();
@@ -199,4 +233,15 @@ public abstract class AbstractBlockBuilding implements IBlockBuilding {
 
         return blocks;
     }
+
+    /**
+     * Sets the number of threads that build the inverted indices. The blocks
+     * are identical to those of the default, single-threaded indexing.
+     *
+     * @param threads the number of indexing threads; values lower than 2
+     * restore the single-threaded indexing
+     */
+    public void setNoOfThreads(int threads) {
+        noOfThreads = Math.max(1, threads);
+    }
 }
@@ -64,18 +64,13 @@ public class LSHMinHashBlocking extends LSHSuperBitBlocking {
 
     @Override
     protected ITextModel getModel(String instanceName) {
-        return new MinHashUnigrams(instanceName);
+        return new MinHashUnigrams(instanceName, statistics);
     }
 
     @Override
     protected void initializeLshFunctions() {
-        Log.info("Dimensionality\t:\t" + MinHashUnigrams.getCorpusDimensionality());
-        minhash = new MinHash(bandSize * bandsNumber, MinHashUnigrams.getCorpusDimensionality());
-    }
-
-    @Override
-    protected void resetModel() {
-        MinHashUnigrams.resetGlobalValues(DATASET_1);
+        Log.info("Dimensionality\t:\t" + statistics.getNoOfTerms());
+        minhash = new MinHash(bandSize * bandsNumber, statistics.getNoOfTerms());
     }
 
     @Override
@@ -17,7 +17,6 @@ package org.scify.jedai.blockbuilding;
 
 import com.esotericsoftware.minlog.Log;
 import gnu.trove.list.TIntList;
-import gnu.trove.list.array.TIntArrayList;
 import info.debatty.java.lsh.SuperBit;
 import java.util.HashSet;
 import java.util.List;
@@ -30,6 +29,7 @@ import org.scify.jedai.configuration.randomsearch.IntRandomSearchConfiguration;
 import org.scify.jedai.datamodel.AbstractBlock;
 import org.scify.jedai.datamodel.Attribute;
 import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.textmodels.CorpusStatistics;
 import org.scify.jedai.textmodels.ITextModel;
 import org.scify.jedai.textmodels.SuperBitUnigrams;
 
@@ -49,6 +49,7 @@ public class LSHSuperBitBlocking extends AbstractBlockBuilding {
     protected final IntRandomSearchConfiguration randomBndNumber;
     protected final IntRandomSearchConfiguration randomBndSize;
 
+    protected CorpusStatistics statistics;
     protected SuperBit superbit;
     protected ITextModel[][] models;
 
@@ -123,7 +124,7 @@ public class LSHSuperBitBlocking extends AbstractBlockBuilding {
     }
     
     protected ITextModel getModel(String instanceName) {
-        return new SuperBitUnigrams(instanceName);
+        return new SuperBitUnigrams(instanceName, statistics);
     }
 
     @Override
@@ -136,25 +137,16 @@ public class LSHSuperBitBlocking extends AbstractBlockBuilding {
         int datasetId = d1Indexed ? DATASET_2 : DATASET_1;
         d1Indexed = true;
 
-        for (int profileId = 0; profileId < entities.size(); profileId++) {
-            for (String key : getBlockingKeys(datasetId, profileId)) {
-                TIntList entityList = index.get(key);
-                if (entityList == null) {
-                    entityList = new TIntArrayList();
-                    index.put(key, entityList);
-                }
-                entityList.add(profileId);
-            }
-        }
+        indexKeys(index, entities, (profile, profileId) -> getBlockingKeys(datasetId, profileId));
     }
     
     protected void initializeLshFunctions() {
-        Log.info("Dimensionality\t:\t" + SuperBitUnigrams.getCorpusDimensionality());
-        superbit = new SuperBit(SuperBitUnigrams.getCorpusDimensionality(), bandsNumber, bandSize);
+        Log.info("Dimensionality\t:\t" + statistics.getNoOfTerms());
+        superbit = new SuperBit(statistics.getNoOfTerms(), bandsNumber, bandSize);
     }
     
     protected void resetModel() {
-        SuperBitUnigrams.resetGlobalValues(DATASET_1);
+        statistics = new CorpusStatistics();
     }
 
     @Override
@@ -209,12 +209,14 @@ public class BlockFiltering extends AbstractBlockProcessing {
     public List<AbstractBlock> refineBlocks(List<AbstractBlock> blocks) {
         Log.info("Applying " + getMethodName() + " with the following configuration : " + getMethodConfiguration());
 
-        printOriginalStatistics(blocks);
-        countEntities(blocks);
-        sortBlocks(blocks);
-        getLimits(blocks);
+        // the blocks are sorted in a copy, so that the input remains intact
+        final List<AbstractBlock> sortedBlocks = new ArrayList<>(blocks);
+        printOriginalStatistics(sortedBlocks);
+        countEntities(sortedBlocks);
+        sortBlocks(sortedBlocks);
+        getLimits(sortedBlocks);
         initializeCounters();
-        return restructureBlocks(blocks);
+        return restructureBlocks(sortedBlocks);
     }
 
     protected List<AbstractBlock> restructureBilateraBlocks(List<AbstractBlock> blocks) {
@@ -20,6 +20,7 @@ import org.scify.jedai.blockprocessing.IBlockProcessing;
 import org.scify.jedai.datamodel.AbstractBlock;
 import org.scify.jedai.datamodel.BilateralBlock;
 import org.scify.jedai.datamodel.DecomposedBlock;
+import org.scify.jedai.datamodel.PrunedBlockingGraph;
 import org.scify.jedai.datamodel.UnilateralBlock;
 import org.scify.jedai.utilities.datastructures.EntityIndex;
 
@@ -27,6 +28,7 @@ import com.esotericsoftware.minlog.Log;
 
 import gnu.trove.TIntCollection;
 import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 
@@ -38,20 +40,31 @@ import java.util.List;
  */
 
 public abstract class AbstractComparisonCleaning implements IBlockProcessing {
+
+    // the maximum number of comparisons in a pruned blocking graph, so that
+    // the graphs can be distributed among the threads of entity matching
+    protected final static int MAX_GRAPH_COMPARISONS = 1 << 16;
     
     protected boolean cleanCleanER;
+    protected boolean prunedGraphOutput;
 
     protected int datasetLimit;
+    protected int graphFirstEntity;
     protected int noOfBlocks;
     protected int noOfEntities;
 
     protected EntityIndex entityIndex;
     protected BilateralBlock[] bBlocks;
-    protected final TIntSet validEntities;
+    protected TIntList graphNeighbors;
+    protected TIntList graphRowOffsets;
+    protected TIntList graphWeights;
+    protected TIntSet validEntities;
     protected UnilateralBlock[] uBlocks;
 
     public AbstractComparisonCleaning() {
+        prunedGraphOutput = false;
         validEntities = new TIntHashSet();
+        resetPrunedGraph();
     }
 
     protected void addDecomposedBlock(int entityId, TIntList neighbors, TIntList neighborWeights, List<AbstractBlock> newBlocks) {
@@ -59,6 +72,11 @@ public abstract class AbstractComparisonCleaning implements IBlockProcessing {
             return;
         }
 
+        if (prunedGraphOutput) {
+            addGraphRow(entityId, neighbors, neighborWeights, newBlocks);
+            return;
+        }
+
         final int[] entityIds1 = replicateId(entityId, neighbors.size());
         newBlocks.add(new DecomposedBlock(cleanCleanER, entityIds1, neighbors.toArray(), neighborWeights.toArray()));
     }
@@ -68,12 +86,70 @@ public abstract class AbstractComparisonCleaning implements IBlockProcessing {
             return;
         }
 
+        if (prunedGraphOutput) { // the rows of D2 entities follow those of D1
+            addGraphRow(entityId + datasetLimit, neighbors, neighborWeights, newBlocks);
+            return;
+        }
+
         final int[] entityIds2 = replicateId(entityId, neighbors.size());
         newBlocks.add(new DecomposedBlock(cleanCleanER, neighbors.toArray(), entityIds2, neighborWeights.toArray()));
     }
     
+    // the rows are appended in increasing entity id, with the skipped entities
+    // receiving empty rows; an entity out of order starts a new graph, while
+    // null weights denote unweighted comparisons
+    protected void addGraphRow(int entityId, TIntCollection neighbors, TIntCollection neighborWeights, List<AbstractBlock> newBlocks) {
+        if (!graphRowOffsets.isEmpty() && entityId < graphFirstEntity + graphRowOffsets.size() - 1) {
+            flushPrunedGraph(newBlocks);
+        }
+
+        if (graphRowOffsets.isEmpty()) {
+            graphFirstEntity = entityId;
+            graphRowOffsets.add(0);
+        }
+
+        while (graphRowOffsets.size() - 1 < entityId - graphFirstEntity) {
+            graphRowOffsets.add(graphNeighbors.size());
+        }
+        graphNeighbors.addAll(neighbors);
+        if (neighborWeights == null) {
+            for (int i = 0; i < neighbors.size(); i++) {
+                graphWeights.add(-1);
+            }
+        } else {
+            graphWeights.addAll(neighborWeights);
+        }
+        graphRowOffsets.add(graphNeighbors.size());
+
+        if (MAX_GRAPH_COMPARISONS <= graphNeighbors.size()) {
+            flushPrunedGraph(newBlocks);
+        }
+    }
+
     protected abstract List<AbstractBlock> applyMainProcessing();
 
+    /**
+     * Adds the rows appended so far to the given blocks as a pruned blocking
+     * graph. It has to be called after the last entity of a sequence of
+     * addDecomposedBlock calls; it has no effect if pruned graph output is
+     * disabled.
+     *
+     * @param newBlocks the output of comparison cleaning
+     */
+    protected void flushPrunedGraph(List<AbstractBlock> newBlocks) {
+        if (graphRowOffsets.isEmpty()) {
+            return;
+        }
+
+        newBlocks.add(new PrunedBlockingGraph(cleanCleanER, datasetLimit, graphFirstEntity,
+                graphRowOffsets.toArray(), graphNeighbors.toArray(), graphWeights.toArray()));
+        resetPrunedGraph();
+    }
+
+    public boolean isPrunedGraphOutput() {
+        return prunedGraphOutput;
+    }
+
     @Override
     public List<AbstractBlock> refineBlocks(List<AbstractBlock> blocks) {
         Log.info("Applying " + getMethodName() + " with the following configuration : " + getMethodConfiguration());
@@ -90,6 +166,12 @@ public abstract class AbstractComparisonCleaning implements IBlockProcessing {
         return applyMainProcessing();
     }
     
+    protected final void resetPrunedGraph() {
+        graphNeighbors = new TIntArrayList();
+        graphRowOffsets = new TIntArrayList();
+        graphWeights = new TIntArrayList();
+    }
+
     protected int[] replicateId(int entityId, int times) {
         int counter = 0;
         final int[] array = new int[times];
@@ -98,4 +180,18 @@ public abstract class AbstractComparisonCleaning implements IBlockProcessing {
         }
         return array;
     }
+
+    /**
+     * Determines the form of the retained comparisons. By default, every entity
+     * yields a DecomposedBlock with its retained comparisons. If enabled, they
+     * are stored in a few PrunedBlockingGraphs, instead, which require less
+     * memory and are scanned faster. Both forms are supported by entity
+     * matching, BlocksPerformance and prioritization.
+     *
+     * @param prunedGraphOutput true for pruned blocking graphs, false for
+     * decomposed blocks
+     */
+    public void setPrunedGraphOutput(boolean prunedGraphOutput) {
+        this.prunedGraphOutput = prunedGraphOutput;
+    }
 }
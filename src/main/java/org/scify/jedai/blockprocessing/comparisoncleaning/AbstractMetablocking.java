@@ -17,7 +17,6 @@ package org.scify.jedai.blockprocessing.comparisoncleaning;
 
 import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
-import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 import org.apache.commons.math3.stat.inference.ChiSquareTest;
 import org.apache.jena.atlas.json.JsonArray;
@@ -25,20 +24,26 @@ import org.apache.jena.atlas.json.JsonObject;
 import org.scify.jedai.datamodel.AbstractBlock;
 import org.scify.jedai.datamodel.BilateralBlock;
 import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.IComparisonStream;
 import org.scify.jedai.datamodel.UnilateralBlock;
 import org.scify.jedai.utilities.IConstants;
+import org.scify.jedai.utilities.ParallelRangeExecutor;
 import org.scify.jedai.utilities.enumerations.WeightingScheme;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  *
  * @author G.A.P. II
  */
-public abstract class AbstractMetablocking extends AbstractComparisonCleaning implements IConstants {
+public abstract class AbstractMetablocking extends AbstractComparisonCleaning implements Cloneable, IConstants {
 
     protected boolean nodeCentric;
 
+    protected int currentStamp;
+    protected int noOfThreads;
     protected int[] flags;
 
     protected float threshold;
@@ -48,13 +53,14 @@ public abstract class AbstractMetablocking extends AbstractComparisonCleaning im
     protected float[] counters;
 
     protected ChiSquareTest chiSquaredTest;
-    protected final TIntList neighbors;
-    protected final TIntList retainedNeighbors;
-    protected final TIntList retainedNeighborsWeights;
+    protected TIntList neighbors;
+    protected TIntList retainedNeighbors;
+    protected TIntList retainedNeighborsWeights;
     protected WeightingScheme weightingScheme;
 
     public AbstractMetablocking(WeightingScheme wScheme) {
         super();
+        noOfThreads = 1;
         neighbors = new TIntArrayList();
         retainedNeighbors = new TIntArrayList();
         retainedNeighborsWeights = new TIntArrayList();
@@ -64,6 +70,11 @@ public abstract class AbstractMetablocking extends AbstractComparisonCleaning im
         }
     }
 
+    protected interface EntityProcessor<T extends AbstractMetablocking> {
+
+        void process(T worker, int entityId, List<AbstractBlock> newBlocks);
+    }
+
     protected abstract List<AbstractBlock> pruneEdges();
 
     protected abstract void setThreshold();
@@ -71,6 +82,9 @@ public abstract class AbstractMetablocking extends AbstractComparisonCleaning im
     @Override
     protected List<AbstractBlock> applyMainProcessing() {
         counters = new float[noOfEntities];
+        flags = new int[noOfEntities];
+        Arrays.fill(flags, -1);
+        currentStamp = -1;
 
         blockAssingments = 0;
         if (cleanCleanER) {
@@ -86,6 +100,10 @@ public abstract class AbstractMetablocking extends AbstractComparisonCleaning im
         if (weightingScheme.equals(WeightingScheme.EJS)) {
             setStatistics();
         }
+        // the weighting scheme may have been changed by a configuration method after the construction
+        if (weightingScheme.equals(WeightingScheme.PEARSON_X2) && chiSquaredTest == null) {
+            chiSquaredTest = new ChiSquareTest();
+        }
 
         setThreshold();
         return pruneEdges();
@@ -96,21 +114,38 @@ public abstract class AbstractMetablocking extends AbstractComparisonCleaning im
     }
 
     protected Comparison getComparison(int entityId, int neighborId) {
+        final long pair = getPair(entityId, neighborId);
+        return new Comparison(cleanCleanER, IComparisonStream.getEntityId1(pair), IComparisonStream.getEntityId2(pair));
+    }
+
+    // the ids of the compared entities, packed in the same order as in getComparison
+    protected long getPair(int entityId, int neighborId) {
         if (!cleanCleanER) {
             if (entityId < neighborId) {
-                return new Comparison(cleanCleanER, entityId, neighborId);
+                return IComparisonStream.pack(entityId, neighborId);
             } else {
-                return new Comparison(cleanCleanER, neighborId, entityId);
+                return IComparisonStream.pack(neighborId, entityId);
             }
         } else {
             if (entityId < datasetLimit) {
-                return new Comparison(cleanCleanER, entityId, neighborId - datasetLimit);
+                return IComparisonStream.pack(entityId, neighborId - datasetLimit);
             } else {
-                return new Comparison(cleanCleanER, neighborId, entityId - datasetLimit);
+                return IComparisonStream.pack(neighborId, entityId - datasetLimit);
             }
         }
     }
 
+    // every neighborhood gets a new stamp, so that a neighbor is visited for the
+    // first time iff its flag differs from the current stamp; this way, the flags
+    // are initialized once per run, rather than once per entity
+    protected int getNextStamp() {
+        if (currentStamp == Integer.MAX_VALUE) {
+            Arrays.fill(flags, -1);
+            currentStamp = -1;
+        }
+        return ++currentStamp;
+    }
+
     @Override
     public String getMethodParameters() {
         return getMethodName() + " involves a single parameter:\n"
@@ -128,6 +163,10 @@ public abstract class AbstractMetablocking extends AbstractComparisonCleaning im
         return uBlocks[blockIndex].getEntities();
     }
 
+    public int getNoOfThreads() {
+        return noOfThreads;
+    }
+
     @Override
     public JsonArray getParameterConfiguration() {
         final JsonObject obj1 = new JsonObject();
@@ -164,6 +203,27 @@ public abstract class AbstractMetablocking extends AbstractComparisonCleaning im
         }
     }
 
+    // a worker shares all read-only information (blocks, entity index, thresholds) with
+    // this instance, but owns the scratch buffers that accumulate an entity's neighborhood
+    protected AbstractMetablocking getWorker() {
+        final AbstractMetablocking worker;
+        try {
+            worker = (AbstractMetablocking) clone();
+        } catch (CloneNotSupportedException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        worker.counters = new float[noOfEntities];
+        worker.flags = new int[noOfEntities];
+        Arrays.fill(worker.flags, -1);
+        worker.currentStamp = -1;
+        if (chiSquaredTest != null) {
+            worker.chiSquaredTest = new ChiSquareTest();
+        }
+        worker.resetNeighborhoodBuffers();
+        return worker;
+    }
+
     protected float getWeight(int entityId, int neighborId) {
         switch (weightingScheme) {
             case ARCS:
@@ -191,6 +251,59 @@ public abstract class AbstractMetablocking extends AbstractComparisonCleaning im
         return -1;
     }
 
+    // with multiple threads, the entity range is split into partitions that are processed by
+    // per-thread workers; every partition starts with fresh neighborhood buffers and the new
+    // blocks are concatenated in the order of the partitions, so that the output is independent
+    // of thread scheduling
+    @SuppressWarnings("unchecked")
+    protected <T extends AbstractMetablocking> List<AbstractBlock> processEntities(int firstId, int lastId, EntityProcessor<T> processor) {
+        if (noOfThreads <= 1) {
+            final List<AbstractBlock> newBlocks = new ArrayList<>();
+            for (int i = firstId; i < lastId; i++) {
+                processor.process((T) this, i, newBlocks);
+            }
+            flushPrunedGraph(newBlocks);
+            return newBlocks;
+        }
+
+        final ThreadLocal<T> workers = ThreadLocal.withInitial(() -> (T) getWorker());
+        final List<List<AbstractBlock>> partialBlocks = ParallelRangeExecutor.execute(noOfThreads, 4 * noOfThreads, lastId - firstId, (partitionId, startId, endId) -> {
+            final T worker = workers.get();
+            worker.resetNeighborhoodBuffers();
+
+            final List<AbstractBlock> localBlocks = new ArrayList<>();
+            for (int i = firstId + startId; i < firstId + endId; i++) {
+                processor.process(worker, i, localBlocks);
+            }
+            worker.flushPrunedGraph(localBlocks);
+            return localBlocks;
+        });
+
+        final List<AbstractBlock> newBlocks = new ArrayList<>();
+        partialBlocks.forEach(newBlocks::addAll);
+        return newBlocks;
+    }
+
+    protected void resetNeighborhoodBuffers() {
+        neighbors = new TIntArrayList();
+        retainedNeighbors = new TIntArrayList();
+        retainedNeighborsWeights = new TIntArrayList();
+        validEntities = new TIntHashSet();
+        resetPrunedGraph();
+    }
+
+    /**
+     * Sets the number of threads that process the entity neighborhoods in the
+     * blocking graph. It applies to the node-centric methods and to the pruning
+     * phase of Weighted Edge Pruning; the rest are always single-threaded.
+     *
+     * @param threads the number of threads; values lower than 2 restore the
+     * single-threaded processing
+     */
+    public void setNoOfThreads(int threads) {
+        noOfThreads = Math.max(1, threads);
+    }
+
     protected void setNormalizedNeighborEntities(int blockIndex, int entityId) {
         neighbors.clear();
         if (cleanCleanER) {
@@ -223,17 +336,21 @@ public abstract class AbstractMetablocking extends AbstractComparisonCleaning im
     protected void setStatistics() {
         distinctComparisons = 0;
         comparisonsPerEntity = new float[noOfEntities];
-        final TIntSet distinctNeighbors = new TIntHashSet();
         for (int i = 0; i < noOfEntities; i++) {
             final int[] associatedBlocks = entityIndex.getEntityBlocks(i, 0);
             if (associatedBlocks.length != 0) {
-                distinctNeighbors.clear();
+                int distinctNeighbors = 0;
+                int stamp = getNextStamp();
                 for (int blockIndex : associatedBlocks) {
                     for (int neighborId : getNeighborEntities(blockIndex, i)) {
-                        distinctNeighbors.add(neighborId);
+                        int normalizedId = cleanCleanER && i < datasetLimit ? neighborId + datasetLimit : neighborId;
+                        if (flags[normalizedId] != stamp) {
+                            flags[normalizedId] = stamp;
+                            distinctNeighbors++;
+                        }
                     }
                 }
-                comparisonsPerEntity[i] = distinctNeighbors.size();
+                comparisonsPerEntity[i] = distinctNeighbors;
                 if (!cleanCleanER) {
                     comparisonsPerEntity[i]--;
                 }
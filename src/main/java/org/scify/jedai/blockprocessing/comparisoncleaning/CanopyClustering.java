@@ -21,15 +21,15 @@ import org.scify.jedai.utilities.enumerations.WeightingScheme;
 import gnu.trove.iterator.TIntIterator;
 import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntFloatMap;
+import gnu.trove.map.hash.TIntFloatHashMap;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
-import java.util.HashSet;
 
 import java.util.List;
 import java.util.Random;
 import org.apache.jena.atlas.json.JsonArray;
 import org.apache.jena.atlas.json.JsonObject;
-import org.scify.jedai.datamodel.Comparison;
 
 /**
  *
@@ -148,7 +148,7 @@ public class CanopyClustering extends CardinalityNodePruning {
         final TIntIterator iterator = entityIds.iterator();
 
         excludedEntities = new TIntHashSet();
-        nearestEntities = new HashSet[noOfEntities];
+        nearestEntities = new TIntFloatMap[noOfEntities];
         if (weightingScheme.equals(WeightingScheme.ARCS)) {
             while (iterator.hasNext()) {
                 int currentId = iterator.next();
@@ -172,7 +172,7 @@ public class CanopyClustering extends CardinalityNodePruning {
 
     @Override
     protected void verifyValidEntities(int entityId) {
-        nearestEntities[entityId] = new HashSet<>();
+        nearestEntities[entityId] = new TIntFloatHashMap();
         for (TIntIterator tIterator = validEntities.iterator(); tIterator.hasNext();) {
             int neighborId = tIterator.next();
             if (excludedEntities.contains(neighborId)) {
@@ -184,8 +184,7 @@ public class CanopyClustering extends CardinalityNodePruning {
                 if (exclusiveThreshold < weight) {
                     excludedEntities.add(neighborId);
                 }
-                final Comparison retainedComparison = new Comparison(cleanCleanER, -1, neighborId);
-                nearestEntities[entityId].add(retainedComparison);
+                nearestEntities[entityId].put(neighborId, -1);
             }
         }
     }
@@ -16,18 +16,16 @@
 package org.scify.jedai.blockprocessing.comparisoncleaning;
 
 import org.scify.jedai.datamodel.AbstractBlock;
-import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.DecomposedBlock;
-import org.scify.jedai.utilities.comparators.IncComparisonWeightComparator;
+import org.scify.jedai.datamodel.IComparisonStream;
+import org.scify.jedai.utilities.datastructures.ComparisonHeap;
 import org.scify.jedai.utilities.enumerations.WeightingScheme;
 import com.esotericsoftware.minlog.Log;
 import gnu.trove.iterator.TIntIterator;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Queue;
 
 /**
  *
@@ -37,7 +35,7 @@ public class CardinalityEdgePruning extends WeightedEdgePruning {
 
     protected float minimumWeight;
     
-    protected Queue<Comparison> topKEdges;
+    protected ComparisonHeap topKEdges;
 
     public CardinalityEdgePruning() {
         super(WeightingScheme.ARCS);
@@ -48,26 +46,68 @@ public class CardinalityEdgePruning extends WeightedEdgePruning {
         nodeCentric = false;
     }
 
-    protected void addDecomposedBlock(Collection<Comparison> comparisons, List<AbstractBlock> newBlocks) {
-        if (comparisons.isEmpty()) {
+    protected void addDecomposedBlock(ComparisonHeap comparisons, List<AbstractBlock> newBlocks) {
+        if (comparisons.size() == 0) {
+            return;
+        }
+
+        if (prunedGraphOutput) {
+            addPrunedGraph(comparisons, newBlocks);
             return;
         }
 
         final int[] entityIds1 = new int[comparisons.size()];
         final int[] entityIds2 = new int[comparisons.size()];
         final int[] weights = new int[comparisons.size()];
-        
-        int index = 0;
-        for (Comparison comparison : comparisons) {
-            entityIds1[index] = comparison.getEntityId1();
-            entityIds2[index] = comparison.getEntityId2();
-            weights[index] = discretizeComparisonWeight(comparison.getUtilityMeasure());
-            index++;
+        for (int i = 0; i < comparisons.size(); i++) {
+            final long pair = comparisons.getPair(i);
+            entityIds1[i] = IComparisonStream.getEntityId1(pair);
+            entityIds2[i] = IComparisonStream.getEntityId2(pair);
+            weights[i] = discretizeComparisonWeight(comparisons.getWeight(i));
         }
 
         newBlocks.add(new DecomposedBlock(cleanCleanER, entityIds1, entityIds2, weights));
     }
 
+    // the comparisons are grouped by their first entity, which forms a row of the graph;
+    // they are sorted as longs that pack the first entity id with the heap position
+    private void addPrunedGraph(ComparisonHeap comparisons, List<AbstractBlock> newBlocks) {
+        final long[] sortedPositions = new long[comparisons.size()];
+        for (int i = 0; i < comparisons.size(); i++) {
+            sortedPositions[i] = IComparisonStream.pack(IComparisonStream.getEntityId1(comparisons.getPair(i)), i);
+        }
+        Arrays.sort(sortedPositions);
+
+        retainedNeighbors.clear();
+        retainedNeighborsWeights.clear();
+        for (int i = 0; i < sortedPositions.length; i++) {
+            final int entityId1 = IComparisonStream.getEntityId1(sortedPositions[i]);
+            final int position = IComparisonStream.getEntityId2(sortedPositions[i]);
+            retainedNeighbors.add(IComparisonStream.getEntityId2(comparisons.getPair(position)));
+            retainedNeighborsWeights.add(discretizeComparisonWeight(comparisons.getWeight(position)));
+            if (i == sortedPositions.length - 1 || entityId1 != IComparisonStream.getEntityId1(sortedPositions[i + 1])) {
+                addDecomposedBlock(entityId1, retainedNeighbors, retainedNeighborsWeights, newBlocks);
+                retainedNeighbors.clear();
+                retainedNeighborsWeights.clear();
+            }
+        }
+        flushPrunedGraph(newBlocks);
+    }
+
+    @Override
+    protected AbstractMetablocking getWorker() {
+        final CardinalityEdgePruning worker = (CardinalityEdgePruning) super.getWorker();
+        worker.topKEdges = getTopKEdgesHeap();
+        return worker;
+    }
+
+    // a min-heap with room for the top-K edges and the one that is added before the lowest is removed
+    protected ComparisonHeap getTopKEdgesHeap() {
+        final ComparisonHeap heap = new ComparisonHeap(cleanCleanER, (int) threshold + 1);
+        heap.setMinHeap();
+        return heap;
+    }
+
     @Override
     public String getMethodInfo() {
         return getMethodName() + ": a Meta-blocking method that retains the comparisons "
@@ -89,7 +129,7 @@ public class CardinalityEdgePruning extends WeightedEdgePruning {
 
     protected void setTopKEdges() {
         minimumWeight = Float.MIN_VALUE;
-        topKEdges = new PriorityQueue<>((int) (2 * threshold), new IncComparisonWeightComparator());
+        topKEdges = getTopKEdgesHeap();
 
         int limit = cleanCleanER ? datasetLimit : noOfEntities;
         if (weightingScheme.equals(WeightingScheme.ARCS)) {
@@ -117,12 +157,11 @@ public class CardinalityEdgePruning extends WeightedEdgePruning {
             int neighborId = iterator.next();
             float weight = getWeight(entityId, neighborId);
             if (!(weight < minimumWeight)) {
-                final Comparison comparison = getComparison(entityId, neighborId);
-                comparison.setUtilityMeasure(weight);
-                topKEdges.add(comparison);
+                final long pair = getPair(entityId, neighborId);
+                topKEdges.add(IComparisonStream.getEntityId1(pair), IComparisonStream.getEntityId2(pair), weight);
                 if (threshold < topKEdges.size()) {
-                    final Comparison lastComparison = topKEdges.poll();
-                    minimumWeight = lastComparison.getUtilityMeasure();
+                    topKEdges.nextPair(); // removes the comparison of the lowest weight
+                    minimumWeight = topKEdges.getWeight();
                 }
             }
         }
@@ -16,19 +16,18 @@
 package org.scify.jedai.blockprocessing.comparisoncleaning;
 
 import org.scify.jedai.datamodel.AbstractBlock;
-import org.scify.jedai.datamodel.Comparison;
-import org.scify.jedai.utilities.comparators.IncComparisonWeightComparator;
+import org.scify.jedai.datamodel.IComparisonStream;
+import org.scify.jedai.utilities.datastructures.ComparisonHeap;
 import org.scify.jedai.utilities.enumerations.WeightingScheme;
 
 import com.esotericsoftware.minlog.Log;
 
+import gnu.trove.iterator.TIntFloatIterator;
 import gnu.trove.iterator.TIntIterator;
+import gnu.trove.map.TIntFloatMap;
+import gnu.trove.map.hash.TIntFloatHashMap;
 
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Set;
 
 /**
  *
@@ -39,7 +38,9 @@ public class CardinalityNodePruning extends CardinalityEdgePruning {
     protected int firstId;
     protected int lastId;
     
-    protected Set<Comparison>[] nearestEntities;
+    // the top-k neighbors of every entity, mapped to the weights of their edges
+    protected TIntFloatMap[] nearestEntities;
+    protected ComparisonHeap topKNeighbors;
 
     public CardinalityNodePruning() {
         this(WeightingScheme.JS);
@@ -57,6 +58,13 @@ public class CardinalityNodePruning extends CardinalityEdgePruning {
                 + "the comparisons that correspond to its top-k weighted edges in the blocking graph.";
     }
 
+    @Override
+    protected AbstractMetablocking getWorker() {
+        final CardinalityNodePruning worker = (CardinalityNodePruning) super.getWorker();
+        worker.topKNeighbors = new ComparisonHeap(cleanCleanER, (int) threshold);
+        return worker;
+    }
+
     @Override
     public String getMethodName() {
         return "Cardinality Node Pruning";
@@ -67,7 +75,7 @@ public class CardinalityNodePruning extends CardinalityEdgePruning {
             return true;
         }
 
-        if (nearestEntities[neighborId].contains(new Comparison(cleanCleanER, -1, entityId))) {
+        if (nearestEntities[neighborId].containsKey(entityId)) {
             return entityId < neighborId;
         }
 
@@ -76,40 +84,48 @@ public class CardinalityNodePruning extends CardinalityEdgePruning {
 
     @Override
     protected List<AbstractBlock> pruneEdges() {
-        nearestEntities = new HashSet[noOfEntities];
-        topKEdges = new PriorityQueue<>((int) (2 * threshold), new IncComparisonWeightComparator());
+        nearestEntities = new TIntFloatMap[noOfEntities];
+        topKNeighbors = new ComparisonHeap(cleanCleanER, (int) threshold);
         if (weightingScheme.equals(WeightingScheme.ARCS)) {
-            for (int i = 0; i < noOfEntities; i++) {
-                processArcsEntity(i);
-                verifyValidEntities(i);
-            }
+            this.<CardinalityNodePruning>processEntities(0, noOfEntities, (worker, entityId, newBlocks) -> {
+                worker.processArcsEntity(entityId);
+                worker.verifyValidEntities(entityId);
+            });
         } else {
-            for (int i = 0; i < noOfEntities; i++) {
-                processEntity(i);
-                verifyValidEntities(i);
-            }
+            this.<CardinalityNodePruning>processEntities(0, noOfEntities, (worker, entityId, newBlocks) -> {
+                worker.processEntity(entityId);
+                worker.verifyValidEntities(entityId);
+            });
         }
 
         return retainValidComparisons();
     }
 
     protected List<AbstractBlock> retainValidComparisons() {
-        final List<AbstractBlock> newBlocks = new ArrayList<>();
-        final List<Comparison> retainedComparisons = new ArrayList<>();
-        for (int i = 0; i < noOfEntities; i++) {
-            if (nearestEntities[i] != null) {
-                retainedComparisons.clear();
-                for (Comparison c : nearestEntities[i]) {
-                    if (isValidComparison(i, c.getEntityId2())) {
-                        final Comparison correctComparison = getComparison(i, c.getEntityId2());
-                        correctComparison.setUtilityMeasure(c.getUtilityMeasure());
-                        retainedComparisons.add(correctComparison);
-                    }
-                }
-                addDecomposedBlock(retainedComparisons, newBlocks);
+        return this.<CardinalityNodePruning>processEntities(0, noOfEntities, (worker, entityId, newBlocks) -> worker.retainValidComparisons(entityId, newBlocks));
+    }
+
+    protected void retainValidComparisons(int entityId, List<AbstractBlock> newBlocks) {
+        if (nearestEntities[entityId] == null) {
+            return;
+        }
+
+        retainedNeighbors.clear();
+        retainedNeighborsWeights.clear();
+        final int neighborOffset = cleanCleanER && entityId < datasetLimit ? datasetLimit : 0;
+        for (TIntFloatIterator iterator = nearestEntities[entityId].iterator(); iterator.hasNext();) {
+            iterator.advance();
+            if (isValidComparison(entityId, iterator.key())) {
+                retainedNeighbors.add(iterator.key() - neighborOffset);
+                retainedNeighborsWeights.add(discretizeComparisonWeight(iterator.value()));
             }
         }
-        return newBlocks;
+
+        if (cleanCleanER && datasetLimit <= entityId) {
+            addReversedDecomposedBlock(entityId - datasetLimit, retainedNeighbors, retainedNeighborsWeights, newBlocks);
+        } else {
+            addDecomposedBlock(entityId, retainedNeighbors, retainedNeighborsWeights, newBlocks);
+        }
     }
 
     protected void setLimits() {
@@ -129,22 +145,19 @@ public class CardinalityNodePruning extends CardinalityEdgePruning {
             return;
         }
 
-        topKEdges.clear();
-        minimumWeight = Float.MIN_VALUE;
+        topKNeighbors.clear();
+        topKNeighbors.setMinHeap();
         for (TIntIterator iterator = validEntities.iterator(); iterator.hasNext();) {
             int neighborId = iterator.next();
             float weight = getWeight(entityId, neighborId);
-            if (!(weight < minimumWeight)) {
-                final Comparison comparison = new Comparison(cleanCleanER, -1, neighborId);
-                comparison.setUtilityMeasure(weight);
-                topKEdges.add(comparison);
-                if (threshold < topKEdges.size()) {
-                    Comparison lastComparison = topKEdges.poll();
-                    minimumWeight = lastComparison.getUtilityMeasure();
-                }
+            if (!(weight < Float.MIN_VALUE)) {
+                topKNeighbors.offer(-1, neighborId, weight, (int) threshold);
             }
         }
 
-        nearestEntities[entityId] = new HashSet<>(topKEdges);
+        nearestEntities[entityId] = new TIntFloatHashMap(topKNeighbors.size());
+        for (int i = 0; i < topKNeighbors.size(); i++) {
+            nearestEntities[entityId].put(IComparisonStream.getEntityId2(topKNeighbors.getPair(i)), topKNeighbors.getWeight(i));
+        }
     }
 }
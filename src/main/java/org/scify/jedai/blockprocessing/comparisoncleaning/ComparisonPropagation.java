@@ -35,6 +35,11 @@ public class ComparisonPropagation extends AbstractComparisonCleaning {
     }
 
     protected void addDecomposedBlock(int entityId, List<AbstractBlock> newBlocks) {
+        if (prunedGraphOutput) {
+            addGraphRow(entityId, validEntities, null, newBlocks);
+            return;
+        }
+
         final int[] entityIds = replicateId(entityId, validEntities.size());
         final int[] neighborIds = validEntities.toArray();
         final int[] dummyWeights = replicateId(-1, validEntities.size());
@@ -49,6 +54,7 @@ public class ComparisonPropagation extends AbstractComparisonCleaning {
         } else {
             processUnilateralBlocks(newBlocks);
         }
+        flushPrunedGraph(newBlocks);
         return newBlocks;
     }
 
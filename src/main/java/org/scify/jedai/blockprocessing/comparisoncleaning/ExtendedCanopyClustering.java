@@ -17,23 +17,23 @@ package org.scify.jedai.blockprocessing.comparisoncleaning;
 
 import com.esotericsoftware.minlog.Log;
 import org.scify.jedai.datamodel.AbstractBlock;
-import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.IComparisonStream;
+import org.scify.jedai.utilities.datastructures.ComparisonHeap;
 import org.scify.jedai.utilities.enumerations.WeightingScheme;
 
 
 import gnu.trove.iterator.TIntIterator;
 import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntFloatMap;
+import gnu.trove.map.hash.TIntFloatHashMap;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
-import java.util.HashSet;
 
 import java.util.List;
-import java.util.PriorityQueue;
 import java.util.Random;
 import org.apache.jena.atlas.json.JsonArray;
 import org.apache.jena.atlas.json.JsonObject;
-import org.scify.jedai.utilities.comparators.IncComparisonWeightComparator;
 
 /**
  *
@@ -132,8 +132,8 @@ public class ExtendedCanopyClustering extends CardinalityNodePruning {
         final TIntIterator iterator = entityIds.iterator();
         
         excludedEntities = new TIntHashSet();
-        nearestEntities = new HashSet[noOfEntities];
-        topKEdges = new PriorityQueue<>((int) (2 * inclusiveThreshold), new IncComparisonWeightComparator());
+        nearestEntities = new TIntFloatMap[noOfEntities];
+        topKNeighbors = new ComparisonHeap(cleanCleanER, inclusiveThreshold);
         if (weightingScheme.equals(WeightingScheme.ARCS)) {
             while (iterator.hasNext()) {
                 int currentId = iterator.next();
@@ -161,8 +161,8 @@ public class ExtendedCanopyClustering extends CardinalityNodePruning {
             return;
         }
 
-        topKEdges.clear();
-        minimumWeight = Float.MIN_VALUE;
+        topKNeighbors.clear();
+        topKNeighbors.setMinHeap();
         for (TIntIterator iterator = validEntities.iterator(); iterator.hasNext();) {
             int neighborId = iterator.next();
             if (excludedEntities.contains(neighborId)) {
@@ -170,24 +170,18 @@ public class ExtendedCanopyClustering extends CardinalityNodePruning {
             }
             
             float weight = getWeight(entityId, neighborId);
-            if (!(weight < minimumWeight)) {
-                final Comparison comparison = new Comparison(cleanCleanER, -1, neighborId);
-                comparison.setUtilityMeasure(weight);
-                topKEdges.add(comparison);
-                if (inclusiveThreshold < topKEdges.size()) {
-                    Comparison lastComparison = topKEdges.poll();
-                    minimumWeight = lastComparison.getUtilityMeasure();
-                }
+            if (!(weight < Float.MIN_VALUE)) {
+                topKNeighbors.offer(-1, neighborId, weight, inclusiveThreshold);
             }
         }
 
-        int counter = 0;
         int freedEntities = inclusiveThreshold - exclusiveThreshold;
-        nearestEntities[entityId] = new HashSet<>(topKEdges);
-        for (Comparison comparison : topKEdges) {
-            counter++;
-            if (freedEntities < counter) {
-                excludedEntities.add(comparison.getEntityId2());
+        nearestEntities[entityId] = new TIntFloatHashMap(topKNeighbors.size());
+        for (int i = 0; i < topKNeighbors.size(); i++) {
+            int neighborId = IComparisonStream.getEntityId2(topKNeighbors.getPair(i));
+            nearestEntities[entityId].put(neighborId, topKNeighbors.getWeight(i));
+            if (freedEntities < i + 1) {
+                excludedEntities.add(neighborId);
             }
         }
     }
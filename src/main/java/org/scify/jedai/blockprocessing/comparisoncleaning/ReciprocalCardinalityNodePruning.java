@@ -15,7 +15,6 @@
  */
 package org.scify.jedai.blockprocessing.comparisoncleaning;
 
-import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.utilities.enumerations.WeightingScheme;
 
 /**
@@ -50,7 +49,7 @@ public class ReciprocalCardinalityNodePruning extends CardinalityNodePruning {
             return false;
         }
 
-        if (nearestEntities[neighborId].contains(new Comparison(cleanCleanER, -1, entityId))) {
+        if (nearestEntities[neighborId].containsKey(entityId)) {
             return entityId < neighborId;
         }
 
@@ -21,7 +21,6 @@ import org.scify.jedai.utilities.enumerations.WeightingScheme;
 import com.esotericsoftware.minlog.Log;
 import gnu.trove.iterator.TIntIterator;
 
-import java.util.ArrayList;
 import java.util.List;
 import org.scify.jedai.configuration.gridsearch.IntGridSearchConfiguration;
 import org.scify.jedai.configuration.randomsearch.IntRandomSearchConfiguration;
@@ -72,11 +71,8 @@ public class WeightedEdgePruning extends AbstractMetablocking {
 
     protected void processArcsEntity(int entityId) {
         validEntities.clear();
-        flags = new int[noOfEntities];
-        for (int i = 0; i < noOfEntities; i++) {
-            flags[i] = -1;
-        }
-        
+        final int stamp = getNextStamp();
+
         final int[] associatedBlocks = entityIndex.getEntityBlocks(entityId, 0);
         if (associatedBlocks.length == 0) {
             return;
@@ -87,24 +83,21 @@ public class WeightedEdgePruning extends AbstractMetablocking {
             setNormalizedNeighborEntities(blockIndex, entityId);
             for (TIntIterator tIterator = neighbors.iterator(); tIterator.hasNext();) {
                 int neighborId = tIterator.next();
-                if (flags[neighborId] != entityId) {
+                if (flags[neighborId] != stamp) {
                     counters[neighborId] = 0;
-                    flags[neighborId] = entityId;
+                    flags[neighborId] = stamp;
+                    validEntities.add(neighborId);
                 }
 
                 counters[neighborId] += 1 / blockComparisons;
-                validEntities.add(neighborId);
             }
         }
     }
 
     protected void processEntity(int entityId) {
         validEntities.clear();
-        flags = new int[noOfEntities];
-        for (int i = 0; i < noOfEntities; i++) {
-            flags[i] = -1;
-        }
-        
+        final int stamp = getNextStamp();
+
         final int[] associatedBlocks = entityIndex.getEntityBlocks(entityId, 0);
         if (associatedBlocks.length == 0) {
             return;
@@ -114,33 +107,30 @@ public class WeightedEdgePruning extends AbstractMetablocking {
             setNormalizedNeighborEntities(blockIndex, entityId);
             for (TIntIterator tIterator = neighbors.iterator(); tIterator.hasNext();) {
                 int neighborId = tIterator.next();
-                if (flags[neighborId] != entityId) {
+                if (flags[neighborId] != stamp) {
                     counters[neighborId] = 0;
-                    flags[neighborId] = entityId;
+                    flags[neighborId] = stamp;
+                    validEntities.add(neighborId);
                 }
 
                 counters[neighborId]++;
-                validEntities.add(neighborId);
             }
         }
     }
 
     @Override
     protected List<AbstractBlock> pruneEdges() {
-        final List<AbstractBlock> newBlocks = new ArrayList<>();
         int limit = cleanCleanER ? datasetLimit : noOfEntities;
         if (weightingScheme.equals(WeightingScheme.ARCS)) {
-            for (int i = 0; i < limit; i++) {
-                processArcsEntity(i);
-                verifyValidEntities(i, newBlocks);
-            }
-        } else {
-            for (int i = 0; i < limit; i++) {
-                processEntity(i);
-                verifyValidEntities(i, newBlocks);
-            }
+            return this.<WeightedEdgePruning>processEntities(0, limit, (worker, entityId, newBlocks) -> {
+                worker.processArcsEntity(entityId);
+                worker.verifyValidEntities(entityId, newBlocks);
+            });
         }
-        return newBlocks;
+        return this.<WeightedEdgePruning>processEntities(0, limit, (worker, entityId, newBlocks) -> {
+            worker.processEntity(entityId);
+            worker.verifyValidEntities(entityId, newBlocks);
+        });
     }
 
     @Override
@@ -19,7 +19,6 @@ import org.scify.jedai.datamodel.AbstractBlock;
 import org.scify.jedai.utilities.enumerations.WeightingScheme;
 import gnu.trove.iterator.TIntIterator;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -69,19 +68,16 @@ public class WeightedNodePruning extends WeightedEdgePruning {
 
     @Override
     protected List<AbstractBlock> pruneEdges() {
-        final List<AbstractBlock> newBlocks = new ArrayList<>();
         if (weightingScheme.equals(WeightingScheme.ARCS)) {
-            for (int i = 0; i < noOfEntities; i++) {
-                processArcsEntity(i);
-                verifyValidEntities(i, newBlocks);
-            }
-        } else {
-            for (int i = 0; i < noOfEntities; i++) {
-                processEntity(i);
-                verifyValidEntities(i, newBlocks);
-            }
+            return this.<WeightedNodePruning>processEntities(0, noOfEntities, (worker, entityId, newBlocks) -> {
+                worker.processArcsEntity(entityId);
+                worker.verifyValidEntities(entityId, newBlocks);
+            });
         }
-        return newBlocks;
+        return this.<WeightedNodePruning>processEntities(0, noOfEntities, (worker, entityId, newBlocks) -> {
+            worker.processEntity(entityId);
+            worker.verifyValidEntities(entityId, newBlocks);
+        });
     }
 
     protected void setLimits() {
@@ -93,17 +89,17 @@ public class WeightedNodePruning extends WeightedEdgePruning {
     protected void setThreshold() {
         averageWeight = new float[noOfEntities];
         if (weightingScheme.equals(WeightingScheme.ARCS)) {
-            for (int i = 0; i < noOfEntities; i++) {
-                processArcsEntity(i);
-                setThreshold(i);
-                averageWeight[i] = threshold;
-            }
+            this.<WeightedNodePruning>processEntities(0, noOfEntities, (worker, entityId, newBlocks) -> {
+                worker.processArcsEntity(entityId);
+                worker.setThreshold(entityId);
+                averageWeight[entityId] = worker.threshold;
+            });
         } else {
-            for (int i = 0; i < noOfEntities; i++) {
-                processEntity(i);
-                setThreshold(i);
-                averageWeight[i] = threshold;
-            }
+            this.<WeightedNodePruning>processEntities(0, noOfEntities, (worker, entityId, newBlocks) -> {
+                worker.processEntity(entityId);
+                worker.setThreshold(entityId);
+                averageWeight[entityId] = worker.threshold;
+            });
         }
     }
 
@@ -0,0 +1,72 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.configuration;
+
+/**
+ * The best configuration found by a ConfigurationSearch: the number of the
+ * grid configuration of every stage, in the order the stages were added, along
+ * with its score.
+ *
+ * @author gap2
+ */
+public class ConfigurationResult {
+
+    private final double score;
+
+    private final int noOfEvaluations;
+    private final int[] configurationIds;
+
+    private final String methodConfigurations;
+
+    public ConfigurationResult(int[] configurationIds, double score, int noOfEvaluations, String methodConfigurations) {
+        this.configurationIds = configurationIds;
+        this.methodConfigurations = methodConfigurations;
+        this.noOfEvaluations = noOfEvaluations;
+        this.score = score;
+    }
+
+    /**
+     * @param stageId the position of the stage in the workflow
+     * @return the number of the grid configuration of the given stage, which
+     * can be passed to its setNumberedGridConfiguration
+     */
+    public int getConfigurationId(int stageId) {
+        return configurationIds[stageId];
+    }
+
+    public int[] getConfigurationIds() {
+        return configurationIds;
+    }
+
+    /**
+     * @return the configuration of every stage in a separate line
+     */
+    public String getMethodConfigurations() {
+        return methodConfigurations;
+    }
+
+    /**
+     * @return the number of workflow executions, including those on a partial
+     * budget
+     */
+    public int getNoOfEvaluations() {
+        return noOfEvaluations;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,414 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.configuration;
+
+import org.scify.jedai.utilities.ParallelRangeExecutor;
+
+import com.esotericsoftware.minlog.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleFunction;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Tunes a workflow of consecutive stages holistically, by searching the
+ * cartesian product of their grid configurations for the one that maximizes
+ * a score of the final output, e.g., the F-Measure of the equivalence
+ * clusters. It supports grid search, random search over the same grid and
+ * successive halving.
+ *
+ * The configurations are evaluated in parallel, with every thread using its
+ * own method instances. The output of a stage depends only on the
+ * configurations of the stages up to it, so it is computed once for all
+ * configurations that share them and is discarded as soon as none of the
+ * remaining configurations needs it. For this reason, the stages should not
+ * modify their input.
+ *
+ * Grid and random search stop early, if the score reaches a target or it does
+ * not improve for a number of consecutive configurations. Successive halving
+ * evaluates many configurations on a small budget, e.g., a sample of the input
+ * entities, and promotes the best of them to larger budgets, until the entire
+ * input is used.
+ *
+ * @author gap2
+ * @param <I> the type of the workflow input
+ * @param <O> the type of the output of the last stage
+ */
+public class ConfigurationSearch<I, O> {
+
+    protected double targetScore;
+
+    protected int noOfThreads;
+    protected int patience;
+
+    protected final DoubleFunction<I> budgetedInput;
+    protected final List<ConfigurationStage<?, ?, ?>> stages;
+    protected final ToDoubleFunction<O> evaluator;
+
+    public ConfigurationSearch(I input, ToDoubleFunction<O> evaluator) {
+        this(budget -> input, evaluator);
+    }
+
+    /**
+     * @param budgetedInput returns the input that corresponds to the given
+     * budget, which lies in (0, 1], e.g., the corresponding portion of the
+     * entity profiles
+     * @param evaluator the score of the final output, which should be
+     * maximized
+     */
+    public ConfigurationSearch(DoubleFunction<I> budgetedInput, ToDoubleFunction<O> evaluator) {
+        this.budgetedInput = budgetedInput;
+        this.evaluator = evaluator;
+        noOfThreads = 1;
+        patience = 0;
+        stages = new ArrayList<>();
+        targetScore = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Appends a stage to the workflow. Its input should be the output of the
+     * previous stage, or the workflow input for the first one, and the output
+     * of the last stage should be of type O.
+     *
+     * @param stage the next stage of the workflow
+     */
+    public void addStage(ConfigurationStage<?, ?, ?> stage) {
+        stages.add(stage);
+    }
+
+    // the input of every stage is the output of the previous one, as addStage requires
+    private static <T> Object applyStage(ConfigurationStage<?, T, ?> stage, int configurationId, Object input) {
+        @SuppressWarnings("unchecked")
+        final T stageInput = (T) input;
+        return stage.apply(configurationId, stageInput);
+    }
+
+    private int[] decode(long candidate) {
+        final int[] configurationIds = new int[stages.size()];
+        for (int i = stages.size() - 1; 0 <= i; i--) {
+            final int radix = stages.get(i).getNumberOfGridConfigurations();
+            configurationIds[i] = (int) (candidate % radix);
+            candidate /= radix;
+        }
+        return configurationIds;
+    }
+
+    private ConfigurationResult evaluate(long[] candidates, double budget, boolean earlyStopping, double[] scores) {
+        if (candidates.length == 0) {
+            throw new IllegalArgumentException("No configuration to evaluate!");
+        }
+
+        final SearchRun run = new SearchRun(candidates, budget);
+        final int batchSize = earlyStopping ? 4 * noOfThreads : candidates.length;
+
+        int bestCandidate = -1;
+        int noOfEvaluations = 0;
+        int sinceImprovement = 0;
+        for (int batchStart = 0; batchStart < candidates.length; batchStart += batchSize) {
+            final int batchEnd = Math.min(candidates.length, batchStart + batchSize);
+            final int firstCandidate = batchStart;
+            final List<double[]> partialScores = ParallelRangeExecutor.execute(noOfThreads, batchEnd - batchStart, batchEnd - batchStart, (partitionId, startId, endId) -> {
+                final double[] batchScores = new double[endId - startId];
+                for (int i = startId; i < endId; i++) {
+                    batchScores[i - startId] = run.evaluate(firstCandidate + i);
+                }
+                return batchScores;
+            });
+
+            // the scores are examined in the order of the candidates, so that the outcome does not depend on the number of threads
+            int candidateId = batchStart;
+            for (double[] batchScores : partialScores) {
+                for (double score : batchScores) {
+                    scores[candidateId] = score;
+                    noOfEvaluations++;
+                    if (bestCandidate < 0 || scores[bestCandidate] < score) {
+                        bestCandidate = candidateId;
+                        sinceImprovement = 0;
+                    } else {
+                        sinceImprovement++;
+                    }
+
+                    if (earlyStopping && (targetScore <= scores[bestCandidate] || (0 < patience && patience <= sinceImprovement))) {
+                        Log.info("Search stopped early after " + noOfEvaluations + " configurations");
+                        return getResult(candidates[bestCandidate], scores[bestCandidate], noOfEvaluations);
+                    }
+                    candidateId++;
+                }
+            }
+        }
+
+        return getResult(candidates[bestCandidate], scores[bestCandidate], noOfEvaluations);
+    }
+
+    /**
+     * Evaluates every configuration in the grid, in lexicographic order, so
+     * that the configurations sharing the upstream stages are adjacent.
+     *
+     * @return the configuration with the highest score
+     */
+    public ConfigurationResult getBestGridConfiguration() {
+        final long[] candidates = new long[getNumberOfGridConfigurations()];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = i;
+        }
+        return evaluate(candidates, 1.0, true, new double[candidates.length]);
+    }
+
+    /**
+     * Evaluates a random sample of the grid configurations. Unlike
+     * setNextRandomConfiguration, the sample is reproducible across method
+     * instances and threads, as it is drawn from the numbered grid
+     * configurations of every stage.
+     *
+     * @param noOfConfigurations the maximum number of configurations to be evaluated
+     * @param seed the seed of the random sample
+     * @return the configuration with the highest score
+     */
+    public ConfigurationResult getBestRandomConfiguration(int noOfConfigurations, long seed) {
+        final long[] candidates = getRandomCandidates(noOfConfigurations, seed);
+        return evaluate(candidates, 1.0, true, new double[candidates.length]);
+    }
+
+    /**
+     * Applies successive halving to a random sample of the grid
+     * configurations: all of them are evaluated on the minimum budget, the
+     * best 1/eta of them are evaluated on an eta times larger budget and so
+     * on, until the budget covers the entire input.
+     *
+     * @param noOfConfigurations the number of configurations evaluated on the minimum budget
+     * @param seed the seed of the random sample
+     * @param minBudget the initial budget, in (0, 1]
+     * @param eta the factor that reduces the configurations and increases the budget in every round
+     * @return the configuration with the highest score on the entire input
+     */
+    public ConfigurationResult getBestConfigurationBySuccessiveHalving(int noOfConfigurations, long seed, double minBudget, int eta) {
+        if (eta < 2 || minBudget <= 0 || 1 < minBudget) {
+            throw new IllegalArgumentException("The budget should lie in (0, 1] and eta should be at least 2!");
+        }
+
+        long[] candidates = getRandomCandidates(noOfConfigurations, seed);
+        double budget = minBudget;
+        int noOfEvaluations = 0;
+        while (true) {
+            final double[] scores = new double[candidates.length];
+            final ConfigurationResult result = evaluate(candidates, budget, false, scores);
+            noOfEvaluations += result.getNoOfEvaluations();
+            Log.info("Evaluated " + candidates.length + " configurations on budget " + budget);
+            if (1.0 <= budget) {
+                return new ConfigurationResult(result.getConfigurationIds(), result.getScore(), noOfEvaluations, result.getMethodConfigurations());
+            }
+
+            // promote the best candidates, breaking ties in favor of the earlier ones
+            final int noOfPromoted = Math.max(1, (candidates.length + eta - 1) / eta);
+            final Integer[] order = new Integer[candidates.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (i, j) -> Double.compare(scores[j], scores[i]));
+
+            final long[] promoted = new long[noOfPromoted];
+            for (int i = 0; i < noOfPromoted; i++) {
+                promoted[i] = candidates[order[i]];
+            }
+            candidates = promoted;
+            budget = noOfPromoted == 1 ? 1.0 : Math.min(1.0, budget * eta);
+        }
+    }
+
+    public int getNoOfThreads() {
+        return noOfThreads;
+    }
+
+    public int getNumberOfGridConfigurations() {
+        long noOfConfigurations = 1;
+        for (ConfigurationStage<?, ?, ?> stage : stages) {
+            noOfConfigurations *= stage.getNumberOfGridConfigurations();
+            if (Integer.MAX_VALUE < noOfConfigurations) {
+                throw new IllegalStateException("Too many grid configurations!");
+            }
+        }
+        return (int) noOfConfigurations;
+    }
+
+    private long[] getRandomCandidates(int noOfConfigurations, long seed) {
+        final int noOfGridConfigurations = getNumberOfGridConfigurations();
+        final Random random = new Random(seed);
+        if (noOfGridConfigurations <= noOfConfigurations) { // all configurations in random order
+            final long[] candidates = new long[noOfGridConfigurations];
+            for (int i = 0; i < candidates.length; i++) {
+                candidates[i] = i;
+            }
+            for (int i = candidates.length - 1; 0 < i; i--) {
+                int j = random.nextInt(i + 1);
+                long temp = candidates[i];
+                candidates[i] = candidates[j];
+                candidates[j] = temp;
+            }
+            return candidates;
+        }
+
+        final Set<Long> sample = new LinkedHashSet<>();
+        while (sample.size() < noOfConfigurations) {
+            sample.add((long) random.nextInt(noOfGridConfigurations));
+        }
+        return sample.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private ConfigurationResult getResult(long candidate, double score, int noOfEvaluations) {
+        final int[] configurationIds = decode(candidate);
+        final StringBuilder methodConfigurations = new StringBuilder();
+        for (int i = 0; i < stages.size(); i++) {
+            if (0 < i) {
+                methodConfigurations.append("\n");
+            }
+            methodConfigurations.append(stages.get(i).getMethodConfiguration(configurationIds[i]));
+        }
+        return new ConfigurationResult(configurationIds, score, noOfEvaluations, methodConfigurations.toString());
+    }
+
+    /**
+     * Sets the number of consecutive configurations without improvement, after
+     * which grid and random search stop.
+     *
+     * @param patience the number of configurations, or 0 for no limit
+     */
+    public void setPatience(int patience) {
+        this.patience = Math.max(0, patience);
+    }
+
+    /**
+     * Sets the number of threads that evaluate configurations in parallel.
+     *
+     * @param noOfThreads the number of threads that apply independent method instances
+     */
+    public void setNoOfThreads(int noOfThreads) {
+        this.noOfThreads = Math.max(1, noOfThreads);
+    }
+
+    /**
+     * Sets the score, after which grid and random search stop.
+     *
+     * @param targetScore the score that is considered sufficient
+     */
+    public void setTargetScore(double targetScore) {
+        this.targetScore = targetScore;
+    }
+
+    // the state of the evaluation of the given candidates on the given budget
+    private class SearchRun {
+
+        private final long[] candidates;
+        private final Object input;
+
+        // the outputs of all stages but the last one, along with the number of candidates that still need them
+        private final List<Map<Long, CompletableFuture<Object>>> cachedOutputs;
+        private final List<Map<Long, AtomicInteger>> pendingCandidates;
+
+        SearchRun(long[] candidates, double budget) {
+            this.candidates = candidates;
+            input = budgetedInput.apply(budget);
+
+            cachedOutputs = new ArrayList<>();
+            pendingCandidates = new ArrayList<>();
+            for (int i = 0; i < stages.size() - 1; i++) {
+                cachedOutputs.add(new ConcurrentHashMap<>());
+                pendingCandidates.add(new ConcurrentHashMap<>());
+            }
+
+            for (long candidate : candidates) {
+                final long[] prefixes = getPrefixes(decode(candidate));
+                for (int i = 0; i < stages.size() - 1; i++) {
+                    pendingCandidates.get(i).computeIfAbsent(prefixes[i], key -> new AtomicInteger()).incrementAndGet();
+                }
+            }
+        }
+
+        double evaluate(int candidateId) {
+            final int[] configurationIds = decode(candidates[candidateId]);
+            final long[] prefixes = getPrefixes(configurationIds);
+
+            Object output = input;
+            for (int i = 0; i < stages.size() && output != null; i++) {
+                if (i == stages.size() - 1) {
+                    output = applyStage(stages.get(i), configurationIds[i], output);
+                } else {
+                    output = getOutput(i, prefixes[i], configurationIds[i], output);
+                }
+            }
+
+            double score = Double.NEGATIVE_INFINITY;
+            if (output != null) {
+                // the last stage returns the workflow output, as addStage requires
+                @SuppressWarnings("unchecked")
+                final O workflowOutput = (O) output;
+                score = evaluator.applyAsDouble(workflowOutput);
+            }
+
+            // release the outputs that are no longer needed
+            for (int i = 0; i < stages.size() - 1; i++) {
+                if (pendingCandidates.get(i).get(prefixes[i]).decrementAndGet() == 0) {
+                    cachedOutputs.get(i).remove(prefixes[i]);
+                }
+            }
+            return score;
+        }
+
+        // the i-th prefix identifies the configurations of the stages [0, i]
+        private long[] getPrefixes(int[] configurationIds) {
+            final long[] prefixes = new long[stages.size()];
+            long prefix = 0;
+            for (int i = 0; i < stages.size(); i++) {
+                prefix = prefix * stages.get(i).getNumberOfGridConfigurations() + configurationIds[i];
+                prefixes[i] = prefix;
+            }
+            return prefixes;
+        }
+
+        private Object getOutput(int stageId, long prefix, int configurationId, Object stageInput) {
+            final CompletableFuture<Object> newOutput = new CompletableFuture<>();
+            final CompletableFuture<Object> cachedOutput = cachedOutputs.get(stageId).putIfAbsent(prefix, newOutput);
+            if (cachedOutput != null) { // computed, or being computed, by another candidate
+                try {
+                    return cachedOutput.join();
+                } catch (CompletionException ex) {
+                    if (ex.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) ex.getCause();
+                    }
+                    throw ex;
+                }
+            }
+
+            try {
+                final Object output = applyStage(stages.get(stageId), configurationId, stageInput);
+                newOutput.complete(output);
+                return output;
+            } catch (RuntimeException ex) {
+                newOutput.completeExceptionally(ex);
+                throw ex;
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.configuration;
+
+import org.scify.jedai.utilities.IDocumentation;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * A step of a workflow that is tuned by a ConfigurationSearch, e.g., Block
+ * Building or Entity Matching. It applies a method with a numbered grid
+ * configuration to the output of the previous step. As the methods are not
+ * thread-safe, every concurrent application uses a separate instance, which
+ * is created by the given factory and reused by subsequent applications.
+ *
+ * The input of a stage is the output of the previous one, which is shared by
+ * all configurations and threads that use the same upstream configurations,
+ * so the function should not modify it. The block cleaning methods work on a
+ * copy of the input blocks, which BlockFiltering and ComparisonsBasedBlockPurging
+ * sort, while the comparison cleaning, entity matching and entity clustering
+ * methods only read their input. In contrast, ProgressiveBlockScheduling sorts
+ * and numbers the input blocks in place, so it should only be applied to
+ * blocks that are not used by any other configuration.
+ *
+ * @author gap2
+ * @param <M> the type of the method
+ * @param <I> the type of the input, e.g., the entity profiles or the blocks
+ * @param <O> the type of the output, e.g., the blocks or the similarity pairs
+ */
+public class ConfigurationStage<M extends IConfiguration & IDocumentation, I, O> {
+
+    private final int noOfGridConfigurations;
+
+    private final BiFunction<M, I, O> function;
+    private final M prototype;
+    private final Queue<M> idleMethods;
+    private final Supplier<M> methodFactory;
+
+    /**
+     * @param methodFactory creates a new, independent instance of the method
+     * @param function applies the given instance to the given input, e.g.,
+     * (bp, blocks) -> bp.refineBlocks(blocks); it may return null to discard
+     * the current configuration
+     */
+    public ConfigurationStage(Supplier<M> methodFactory, BiFunction<M, I, O> function) {
+        this.function = function;
+        this.methodFactory = methodFactory;
+        idleMethods = new ConcurrentLinkedQueue<>();
+        prototype = methodFactory.get();
+        noOfGridConfigurations = prototype.getNumberOfGridConfigurations();
+    }
+
+    /**
+     * Applies the method with the given configuration to the given input.
+     * The input may be shared with other threads, so it should not be
+     * modified, as explained above.
+     *
+     * @param configurationId the number of the grid configuration
+     * @param input the output of the previous stage
+     * @return the output of the method
+     */
+    public O apply(int configurationId, I input) {
+        M method = idleMethods.poll();
+        if (method == null) {
+            method = methodFactory.get();
+        }
+
+        try {
+            method.setNumberedGridConfiguration(configurationId);
+            return function.apply(method, input);
+        } finally {
+            idleMethods.add(method);
+        }
+    }
+
+    /**
+     * @param configurationId the number of the grid configuration
+     * @return a new instance of the method with the given configuration
+     */
+    public M getConfiguredMethod(int configurationId) {
+        final M method = methodFactory.get();
+        method.setNumberedGridConfiguration(configurationId);
+        return method;
+    }
+
+    public synchronized String getMethodConfiguration(int configurationId) {
+        prototype.setNumberedGridConfiguration(configurationId);
+        return prototype.getMethodConfiguration();
+    }
+
+    public String getMethodName() {
+        return prototype.getMethodName();
+    }
+
+    public int getNumberOfGridConfigurations() {
+        return noOfGridConfigurations;
+    }
+}
@@ -24,15 +24,18 @@ import java.util.Iterator;
  *
  * @author G.A.P. II
  */
-public class ComparisonIterator implements IConstants, Iterator<Comparison> {
+public class ComparisonIterator implements IComparisonStream, IConstants, Iterator<Comparison> {
 
     private float executedComparisons;
     private final float totalComparisons;
 
+    private int currentEntityId1;
+    private int currentEntityId2;
     private int innerLoop;
     private int innerLimit;
     private int outerLoop;
     private int outerLimit;
+    private float currentWeight;
 
     private final AbstractBlock block;
 
@@ -58,22 +61,23 @@ public class ComparisonIterator implements IConstants, Iterator<Comparison> {
             innerLimit = -1;
             outerLoop = -1; // so that counting in function next() starts from 0
             outerLimit = -1;
+        } else if (block instanceof PrunedBlockingGraph) {
+            innerLoop = -1; // the position of the current comparison
+            innerLimit = -1;
+            outerLoop = 0; // the row of the current comparison
+            outerLimit = ((PrunedBlockingGraph) block).getNoOfRows() - 1;
         }
     }
 
-    @Override
-    public boolean hasNext() {
-        return executedComparisons < totalComparisons;
-    }
-
-    @Override
-    public Comparison next() {
+    // moves to the next comparison, storing its entity ids and weight in primitive fields
+    private boolean advance() {
         if (totalComparisons <= executedComparisons) {
             Log.error("All comparisons were already executed!");
-            return null;
+            return false;
         }
 
         executedComparisons++;
+        currentWeight = -1;
         if (block instanceof BilateralBlock) {
             BilateralBlock bilBlock = (BilateralBlock) block;
             innerLoop++;
@@ -82,11 +86,13 @@ public class ComparisonIterator implements IConstants, Iterator<Comparison> {
                 outerLoop++;
                 if (outerLimit < outerLoop) {
                     Log.error("All comparisons were already executed!");
-                    return null;
+                    return false;
                 }
             }
 
-            return new Comparison(true, bilBlock.getIndex1Entities()[outerLoop], bilBlock.getIndex2Entities()[innerLoop]);
+            currentEntityId1 = bilBlock.getIndex1Entities()[outerLoop];
+            currentEntityId2 = bilBlock.getIndex2Entities()[innerLoop];
+            return true;
         } else if (block instanceof UnilateralBlock) {
             UnilateralBlock uniBlock = (UnilateralBlock) block;
             innerLoop++;
@@ -94,33 +100,85 @@ public class ComparisonIterator implements IConstants, Iterator<Comparison> {
                 outerLoop++;
                 if (outerLimit < outerLoop) {
                     Log.error("All comparisons were already executed!");
-                    return null;
+                    return false;
                 }
                 innerLoop = outerLoop + 1;
             }
 
-            if (uniBlock.getEntities()[outerLoop] < uniBlock.getEntities()[innerLoop]) {
-                return new Comparison(false, uniBlock.getEntities()[outerLoop], uniBlock.getEntities()[innerLoop]);
-            } else if (uniBlock.getEntities()[innerLoop] < uniBlock.getEntities()[outerLoop]) {
-                return new Comparison(false, uniBlock.getEntities()[innerLoop], uniBlock.getEntities()[outerLoop]);
-            }
+            return setEntityIds(uniBlock.getEntities()[outerLoop], uniBlock.getEntities()[innerLoop], false);
         } else if (block instanceof DecomposedBlock) {
             DecomposedBlock deBlock = (DecomposedBlock) block;
             outerLoop++;
-            Comparison c = null;
-            if (deBlock.isCleanCleanER()) {
-                c = new Comparison(deBlock.isCleanCleanER(), deBlock.getEntities1()[outerLoop], deBlock.getEntities2()[outerLoop]);
-            } else {
-                if (deBlock.getEntities1()[outerLoop] < deBlock.getEntities2()[outerLoop]) {
-                    c = new Comparison(deBlock.isCleanCleanER(), deBlock.getEntities1()[outerLoop], deBlock.getEntities2()[outerLoop]);
-                } else if (deBlock.getEntities2()[outerLoop] < deBlock.getEntities1()[outerLoop]) {
-                    c = new Comparison(deBlock.isCleanCleanER(), deBlock.getEntities2()[outerLoop], deBlock.getEntities1()[outerLoop]);
-                }
+            currentWeight = ((float) deBlock.getWeights()[outerLoop]) / DISCRETIZATION_FACTOR;
+            return setEntityIds(deBlock.getEntities1()[outerLoop], deBlock.getEntities2()[outerLoop], deBlock.isCleanCleanER());
+        } else if (block instanceof PrunedBlockingGraph) {
+            PrunedBlockingGraph graph = (PrunedBlockingGraph) block;
+            innerLoop++;
+            while (graph.getRowEnd(outerLoop) <= innerLoop) { // skips the exhausted and the empty rows
+                outerLoop++;
             }
-            c.setUtilityMeasure(deBlock.getWeights()[outerLoop] / DISCRETIZATION_FACTOR);
-            return c;
+
+            final long pair = graph.getPair(outerLoop, innerLoop);
+            currentWeight = ((float) graph.getWeights()[innerLoop]) / DISCRETIZATION_FACTOR;
+            return setEntityIds(IComparisonStream.getEntityId1(pair), IComparisonStream.getEntityId2(pair), graph.isCleanCleanER());
         }
 
-        return null;
+        return false;
+    }
+
+    @Override
+    public float getWeight() {
+        return currentWeight;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return executedComparisons < totalComparisons;
+    }
+
+    @Override
+    public Comparison next() {
+        if (!advance()) {
+            return null;
+        }
+
+        final Comparison comparison = new Comparison(isCleanCleanER(), currentEntityId1, currentEntityId2);
+        comparison.setUtilityMeasure(currentWeight);
+        return comparison;
+    }
+
+    /**
+     * Advances to the next comparison without creating a Comparison object.
+     * A pair of the same entity, for which next returns null, is returned as
+     * such.
+     *
+     * @return the ids of the entities of the next comparison, packed into a
+     * long
+     */
+    @Override
+    public long nextPair() {
+        advance();
+        return IComparisonStream.pack(currentEntityId1, currentEntityId2);
+    }
+
+    private boolean isCleanCleanER() {
+        if (block instanceof DecomposedBlock) {
+            return ((DecomposedBlock) block).isCleanCleanER();
+        }
+        if (block instanceof PrunedBlockingGraph) {
+            return ((PrunedBlockingGraph) block).isCleanCleanER();
+        }
+        return block instanceof BilateralBlock;
+    }
+
+    private boolean setEntityIds(int entityId1, int entityId2, boolean cleanCleanER) {
+        if (cleanCleanER || entityId1 < entityId2) {
+            currentEntityId1 = entityId1;
+            currentEntityId2 = entityId2;
+        } else {
+            currentEntityId1 = entityId2;
+            currentEntityId2 = entityId1;
+        }
+        return cleanCleanER || entityId1 != entityId2;
     }
 }
@@ -0,0 +1,55 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.datamodel;
+
+/**
+ * Emits a sequence of comparisons without allocating an object per
+ * comparison: the ids of the two entities are packed into a single long and
+ * the weight of the current comparison is read separately. It is the
+ * allocation-free counterpart of an Iterator over Comparison objects, while
+ * ISimilarityConsumer is the one of a collection of them.
+ *
+ * @author gap2
+ */
+public interface IComparisonStream {
+
+    boolean hasNext();
+
+    /**
+     * Advances to the next comparison.
+     *
+     * @return the ids of its entities, packed into a long
+     */
+    long nextPair();
+
+    /**
+     * @return the weight of the comparison returned by the last call to
+     * nextPair, or -1 if it carries no weight
+     */
+    float getWeight();
+
+    static int getEntityId1(long pair) {
+        return (int) (pair >>> 32);
+    }
+
+    static int getEntityId2(long pair) {
+        return (int) pair;
+    }
+
+    static long pack(int entityId1, int entityId2) {
+        return ((long) entityId1) << 32 | (entityId2 & 0xFFFFFFFFL);
+    }
+}
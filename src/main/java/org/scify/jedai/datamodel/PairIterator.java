@@ -23,7 +23,7 @@ import java.util.Iterator;
  * @author G.A.P. II
  */
 
-public class PairIterator implements Iterator<Comparison> {
+public class PairIterator implements IComparisonStream, Iterator<Comparison> {
 
     private int currentIndex;
     private final SimilarityPairs similarityPairs;
@@ -32,6 +32,11 @@ public class PairIterator implements Iterator<Comparison> {
         similarityPairs = sPairs;
     }
     
+    @Override
+    public float getWeight() {
+        return similarityPairs.getSimilarities()[currentIndex - 1];
+    }
+
     @Override
     public boolean hasNext() {
         return currentIndex < similarityPairs.getNoOfComparisons();
@@ -46,5 +51,12 @@ public class PairIterator implements Iterator<Comparison> {
         currentIndex++;
         return comparison;
     }
+
+    @Override
+    public long nextPair() {
+        final long pair = IComparisonStream.pack(similarityPairs.getEntityIds1()[currentIndex], similarityPairs.getEntityIds2()[currentIndex]);
+        currentIndex++;
+        return pair;
+    }
     
 }
\ No newline at end of file
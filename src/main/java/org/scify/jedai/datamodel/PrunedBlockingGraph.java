@@ -0,0 +1,126 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.datamodel;
+
+/**
+ * The comparisons retained by a comparison cleaning method for a range of
+ * consecutive entities, stored as a pruned blocking graph in Compressed Sparse
+ * Row (CSR) format: the neighbors of the i-th entity and the weights of the
+ * corresponding edges are stored in the positions [rowOffsets[i],
+ * rowOffsets[i+1]) of neighborIds and weights. Unlike a DecomposedBlock per
+ * entity, the id of every entity is stored only once.
+ *
+ * The entity of row i has the id firstEntityId+i in the entity index. In
+ * Clean-Clean ER, this means that the ids of D2 are increased by
+ * datasetLimit, whereas the neighbor ids always belong to the other dataset
+ * and are not increased. Like in a DecomposedBlock, every comparison appears
+ * once and the weights are discretized.
+ *
+ * @author gap2
+ */
+public class PrunedBlockingGraph extends AbstractBlock {
+
+    private final boolean cleanCleanER;
+
+    private final int datasetLimit;
+    private final int firstEntityId;
+    private final int[] neighborIds;
+    private final int[] rowOffsets;
+    private final int[] weights;
+
+    public PrunedBlockingGraph(boolean ccER, int datasetLimit, int firstEntityId, int[] rowOffsets, int[] neighborIds, int[] weights) {
+        super(1.0f);
+        cleanCleanER = ccER;
+        this.datasetLimit = datasetLimit;
+        this.firstEntityId = firstEntityId;
+        this.neighborIds = neighborIds;
+        this.rowOffsets = rowOffsets;
+        this.weights = weights;
+    }
+
+    public int getEntityId(int row) {
+        return firstEntityId + row;
+    }
+
+    public int[] getNeighborIds() {
+        return neighborIds;
+    }
+
+    @Override
+    public float getNoOfComparisons() {
+        return neighborIds.length;
+    }
+
+    public int getNoOfRows() {
+        return rowOffsets.length - 1;
+    }
+
+    /**
+     * Returns the comparison stored in the given position, in the same form as
+     * a DecomposedBlock: the id of the first entity refers to D1 and the id of
+     * the second one to D2 in Clean-Clean ER, while in Dirty ER they are
+     * returned as stored.
+     *
+     * @param row the row that contains the given position
+     * @param position the position of the comparison in neighborIds
+     * @return the ids of the compared entities, packed into a long
+     */
+    public long getPair(int row, int position) {
+        final int entityId = firstEntityId + row;
+        if (cleanCleanER && datasetLimit <= entityId) {
+            return IComparisonStream.pack(neighborIds[position], entityId - datasetLimit);
+        }
+        return IComparisonStream.pack(entityId, neighborIds[position]);
+    }
+
+    public int getRowEnd(int row) {
+        return rowOffsets[row + 1];
+    }
+
+    public int getRowStart(int row) {
+        return rowOffsets[row];
+    }
+
+    @Override
+    public float getTotalBlockAssignments() {
+        return 2 * neighborIds.length;
+    }
+
+    public int[] getWeights() {
+        return weights;
+    }
+
+    public boolean isCleanCleanER() {
+        return cleanCleanER;
+    }
+
+    /**
+     * Every non-empty row is a block that compares its entity with its
+     * neighbors, whose utility is the inverse of their number, like in a
+     * BilateralBlock. The graph gets the inverse of the average row size,
+     * i.e., the ratio of its non-empty rows to its comparisons.
+     */
+    @Override
+    public void setUtilityMeasure() {
+        int noOfNonEmptyRows = 0;
+        for (int row = 0; row < getNoOfRows(); row++) {
+            if (rowOffsets[row] < rowOffsets[row + 1]) {
+                noOfNonEmptyRows++;
+            }
+        }
+        utilityMeasure = neighborIds.length == 0 ? 0 : ((float) noOfNonEmptyRows) / neighborIds.length;
+    }
+}
@@ -25,7 +25,7 @@ import org.scify.jedai.utilities.IConstants;
  *
  * @author G.A.P. II
  */
-public class SimilarityPairs implements IConstants, Serializable {
+public class SimilarityPairs implements IConstants, ISimilarityConsumer, Serializable {
 
     private final boolean isCleanCleanER;
     private int currentIndex;
@@ -56,6 +56,13 @@ public class SimilarityPairs implements IConstants, Serializable {
         similarities[currentIndex++] = (float) comparison.getUtilityMeasure();
     }
 
+    @Override
+    public void addSimilarity(int entityId1, int entityId2, float similarity) {
+        entityIds1[currentIndex] = entityId1;
+        entityIds2[currentIndex] = entityId2;
+        similarities[currentIndex++] = similarity;
+    }
+
     private float countComparisons(List<AbstractBlock> blocks) {
         float comparisons = 0;
         comparisons = blocks.stream().map((block) -> block.getNoOfComparisons()).reduce(comparisons, (accumulator, _item) -> accumulator + _item);
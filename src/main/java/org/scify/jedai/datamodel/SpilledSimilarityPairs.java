@@ -0,0 +1,153 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.datamodel;
+
+import com.esotericsoftware.minlog.Log;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.scify.jedai.utilities.IConstants;
+
+/**
+ * Similarity pairs that are spilled to a binary file as fixed-size records
+ * (entity id 1, entity id 2, similarity), instead of being kept in memory.
+ * The pairs can be read back lazily, after closing the file.
+ *
+ * @author gap2
+ */
+public class SpilledSimilarityPairs implements Closeable, IConstants, ISimilarityConsumer {
+
+    private final static int BUFFER_SIZE = 1 << 16;
+
+    private final boolean isCleanCleanER;
+    private long noOfComparisons;
+    private DataOutputStream output;
+    private final File spillFile;
+
+    public SpilledSimilarityPairs(boolean ccer, File file) throws IOException {
+        isCleanCleanER = ccer;
+        noOfComparisons = 0;
+        spillFile = file;
+        output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile), BUFFER_SIZE));
+    }
+
+    @Override
+    public void addSimilarity(int entityId1, int entityId2, float similarity) {
+        try {
+            output.writeInt(entityId1);
+            output.writeInt(entityId2);
+            output.writeFloat(similarity);
+            noOfComparisons++;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Error in writing to the spill file " + spillFile, ex);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (output != null) {
+            output.close();
+            output = null;
+        }
+    }
+
+    public long getNoOfComparisons() {
+        return noOfComparisons;
+    }
+
+    public Iterator<Comparison> getPairIterator() throws IOException {
+        if (output != null) {
+            Log.warn("The spill file is still open! Closing it before reading the similarity pairs.");
+            close();
+        }
+
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(spillFile), BUFFER_SIZE));
+        return new Iterator<Comparison>() {
+
+            private long readComparisons = 0;
+
+            @Override
+            public boolean hasNext() {
+                if (readComparisons < noOfComparisons) {
+                    return true;
+                }
+                closeQuietly();
+                return false;
+            }
+
+            @Override
+            public Comparison next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("All similarity pairs were already read!");
+                }
+
+                try {
+                    final Comparison comparison = new Comparison(isCleanCleanER, input.readInt(), input.readInt());
+                    comparison.setUtilityMeasure(input.readFloat());
+                    readComparisons++;
+                    return comparison;
+                } catch (EOFException ex) {
+                    closeQuietly();
+                    throw new NoSuchElementException("The spill file " + spillFile + " is truncated!");
+                } catch (IOException ex) {
+                    closeQuietly();
+                    throw new UncheckedIOException("Error in reading the spill file " + spillFile, ex);
+                }
+            }
+
+            private void closeQuietly() {
+                try {
+                    input.close();
+                } catch (IOException ex) {
+                    Log.error("Error in closing the spill file " + spillFile, ex);
+                }
+            }
+        };
+    }
+
+    public File getSpillFile() {
+        return spillFile;
+    }
+
+    public boolean isCleanCleanER() {
+        return isCleanCleanER;
+    }
+
+    // loads the spilled pairs into memory, provided that they do not exceed the maximum number of comparisons
+    public SimilarityPairs toSimilarityPairs() throws IOException {
+        if (MAX_COMPARISONS < noOfComparisons) {
+            Log.error("Too many similarity pairs to be loaded in memory! "
+                    + "Maximum allowed number is : " + MAX_COMPARISONS);
+            return null;
+        }
+
+        final SimilarityPairs simPairs = new SimilarityPairs(isCleanCleanER, (int) noOfComparisons);
+        for (Iterator<Comparison> iterator = getPairIterator(); iterator.hasNext();) {
+            simPairs.addComparison(iterator.next());
+        }
+        return simPairs;
+    }
+}
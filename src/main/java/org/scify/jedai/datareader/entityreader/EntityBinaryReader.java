@@ -0,0 +1,379 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.datareader.entityreader;
+
+import com.esotericsoftware.minlog.Log;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import org.apache.jena.atlas.json.JsonArray;
+import org.apache.jena.atlas.json.JsonObject;
+import org.scify.jedai.datamodel.Attribute;
+import org.scify.jedai.datamodel.EntityProfile;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads entity profiles from a compact binary file, which is created by
+ * storeEntityProfiles. The file consists of:
+ * 1) a header with the number of profiles and attribute names as well as the
+ * offsets of the following sections,
+ * 2) the profiles, each one comprising its url, its number of attributes and
+ * the id of the name and the value of every attribute,
+ * 3) the dictionary of the distinct attribute names, and
+ * 4) the offset of every profile.
+ * All strings are stored in UTF-8, prefixed with their length in bytes. The
+ * file is memory-mapped, so profiles can be iterated or accessed by id without
+ * deserializing the entire file.
+ *
+ * @author gap2
+ */
+public class EntityBinaryReader extends AbstractEntityReader {
+
+    private final static int FORMAT_VERSION = 1;
+    private final static int HEADER_SIZE = 32;
+    private final static int MAGIC_NUMBER = 0x4A454450; // "JEDP"
+    private final static int MAX_WINDOW_SIZE = 1 << 30;
+
+    private int noOfProfiles;
+    private int[] windowFirstProfiles;
+    private long[] profileOffsets;
+    private long[] windowOffsets;
+    private ByteBuffer[] windows;
+    private String[] attributeNames;
+
+    public EntityBinaryReader(String filePath) {
+        super(filePath);
+        noOfProfiles = -1;
+    }
+
+    /**
+     * Returns the profile with the given id, i.e., position in the file,
+     * decoding only its own bytes.
+     *
+     * @param profileId the id of the requested profile
+     * @return the entity profile, or null if the file cannot be read
+     */
+    public EntityProfile getEntityProfile(int profileId) {
+        if (!openStore()) {
+            return null;
+        }
+
+        if (profileId < 0 || noOfProfiles <= profileId) {
+            throw new IllegalArgumentException("Invalid profile id : " + profileId);
+        }
+
+        int windowId = Arrays.binarySearch(windowFirstProfiles, profileId);
+        if (windowId < 0) {
+            windowId = -windowId - 2;
+        }
+
+        final ByteBuffer buffer = windows[windowId].duplicate();
+        buffer.position((int) (profileOffsets[profileId] - windowOffsets[windowId]));
+        return readProfile(buffer);
+    }
+
+    @Override
+    public List<EntityProfile> getEntityProfiles() {
+        if (!entityProfiles.isEmpty()) {
+            return entityProfiles;
+        }
+
+        if (!openStore()) {
+            return null;
+        }
+
+        final Iterator<EntityProfile> iterator = getProfileIterator();
+        while (iterator.hasNext()) {
+            entityProfiles.add(iterator.next());
+        }
+        return entityProfiles;
+    }
+
+    @Override
+    public String getMethodConfiguration() {
+        return getParameterName(0) + "=" + inputFilePath;
+    }
+
+    @Override
+    public String getMethodInfo() {
+        return getMethodName() + ": it loads a binary file with entity profiles that was created by storeEntityProfiles.";
+    }
+
+    @Override
+    public String getMethodName() {
+        return "Binary Reader";
+    }
+
+    @Override
+    public String getMethodParameters() {
+        return getMethodName() + " involves a single parameter:\n"
+                + "1)" + getParameterDescription(0) + ".";
+    }
+
+    public int getNoOfProfiles() {
+        if (!openStore()) {
+            return -1;
+        }
+        return noOfProfiles;
+    }
+
+    @Override
+    public JsonArray getParameterConfiguration() {
+        final JsonObject obj1 = new JsonObject();
+        obj1.put("class", "java.lang.String");
+        obj1.put("name", getParameterName(0));
+        obj1.put("defaultValue", "-");
+        obj1.put("minValue", "-");
+        obj1.put("maxValue", "-");
+        obj1.put("stepValue", "-");
+        obj1.put("description", getParameterDescription(0));
+
+        final JsonArray array = new JsonArray();
+        array.add(obj1);
+        return array;
+    }
+
+    @Override
+    public String getParameterDescription(int parameterId) {
+        switch (parameterId) {
+            case 0:
+                return "The " + getParameterName(0) + " determines the absolute path to the binary file that will be read into main memory.";
+            default:
+                return "invalid parameter id";
+        }
+    }
+
+    @Override
+    public String getParameterName(int parameterId) {
+        switch (parameterId) {
+            case 0:
+                return "File Path";
+            default:
+                return "invalid parameter id";
+        }
+    }
+
+    /**
+     * Returns an iterator that decodes the profiles one by one, in the order
+     * of their ids, without retaining them in memory.
+     *
+     * @return an iterator over all profiles of the file
+     */
+    public Iterator<EntityProfile> getProfileIterator() {
+        if (!openStore()) {
+            return null;
+        }
+
+        return new Iterator<EntityProfile>() {
+
+            private int nextProfileId = 0;
+            private int windowId = -1;
+            private ByteBuffer buffer;
+
+            @Override
+            public boolean hasNext() {
+                return nextProfileId < noOfProfiles;
+            }
+
+            @Override
+            public EntityProfile next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                if (windowId + 1 < windows.length && windowFirstProfiles[windowId + 1] == nextProfileId) {
+                    windowId++;
+                    buffer = windows[windowId].duplicate();
+                }
+                nextProfileId++;
+                return readProfile(buffer);
+            }
+        };
+    }
+
+    // maps the file into windows of whole profiles and loads the attribute names and the profile offsets
+    private boolean openStore() {
+        if (windows != null) {
+            return true;
+        }
+
+        if (inputFilePath == null) {
+            Log.error("Input file path has not been set!");
+            return false;
+        }
+
+        try (final RandomAccessFile file = new RandomAccessFile(inputFilePath, "r");
+             final FileChannel channel = file.getChannel()) {
+            final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC_NUMBER || header.getInt() != FORMAT_VERSION) {
+                Log.error("The input file is not a binary file of entity profiles!");
+                return false;
+            }
+
+            final int profilesNo = header.getInt();
+            final int noOfAttributeNames = header.getInt();
+            final long dictionaryOffset = header.getLong();
+            final long indexOffset = header.getLong();
+
+            final ByteBuffer dictionary = channel.map(FileChannel.MapMode.READ_ONLY, dictionaryOffset, indexOffset - dictionaryOffset);
+            attributeNames = new String[noOfAttributeNames];
+            for (int i = 0; i < noOfAttributeNames; i++) {
+                attributeNames[i] = readString(dictionary);
+            }
+
+            profileOffsets = new long[profilesNo + 1];
+            final ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, 8L * profilesNo);
+            for (int i = 0; i < profilesNo; i++) {
+                profileOffsets[i] = index.getLong();
+            }
+            profileOffsets[profilesNo] = dictionaryOffset;
+
+            final List<Integer> firstProfiles = new ArrayList<>();
+            for (int i = 0; i < profilesNo; i++) {
+                if (firstProfiles.isEmpty() || MAX_WINDOW_SIZE < profileOffsets[i + 1] - profileOffsets[firstProfiles.get(firstProfiles.size() - 1)]) {
+                    firstProfiles.add(i);
+                }
+            }
+
+            windowFirstProfiles = new int[firstProfiles.size()];
+            windowOffsets = new long[firstProfiles.size()];
+            windows = new ByteBuffer[firstProfiles.size()];
+            for (int i = 0; i < windows.length; i++) {
+                windowFirstProfiles[i] = firstProfiles.get(i);
+                windowOffsets[i] = profileOffsets[windowFirstProfiles[i]];
+                long windowEnd = i + 1 < windows.length ? profileOffsets[firstProfiles.get(i + 1)] : dictionaryOffset;
+                if (MAX_WINDOW_SIZE < windowEnd - windowOffsets[i]) {
+                    Log.error("Too large entity profile with id " + windowFirstProfiles[i] + "!");
+                    windows = null;
+                    return false;
+                }
+                windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, windowOffsets[i], windowEnd - windowOffsets[i]);
+            }
+            noOfProfiles = profilesNo;
+        } catch (IOException ex) {
+            Log.error("Error in entities reading!", ex);
+            windows = null;
+            return false;
+        }
+        return true;
+    }
+
+    private EntityProfile readProfile(ByteBuffer buffer) {
+        final EntityProfile profile = new EntityProfile(readString(buffer));
+        int noOfAttributes = buffer.getInt();
+        for (int i = 0; i < noOfAttributes; i++) {
+            final String name = attributeNames[buffer.getInt()];
+            profile.addAttribute(name, readString(buffer));
+        }
+        return profile;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Stores the given profiles in the binary format that is read by this
+     * class. The id of every profile is its position in the given list.
+     *
+     * @param profiles the entity profiles to be stored
+     * @param outputPath the path of the binary file
+     */
+    public static void storeEntityProfiles(List<EntityProfile> profiles, String outputPath) {
+        final List<String> attributeNames = new ArrayList<>();
+        final TObjectIntMap<String> attributeNameIds = new TObjectIntHashMap<>(10, 0.5f, -1);
+        final long[] profileOffsets = new long[profiles.size()];
+        try (final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outputPath)))) {
+            // the offsets of the header are filled in after writing the rest of the file
+            output.write(new byte[HEADER_SIZE]);
+            long position = HEADER_SIZE;
+
+            for (int i = 0; i < profiles.size(); i++) {
+                profileOffsets[i] = position;
+                final EntityProfile profile = profiles.get(i);
+                position += writeString(output, profile.getEntityUrl());
+
+                output.writeInt(profile.getProfileSize());
+                position += 4;
+                for (Attribute attribute : profile.getAttributes()) {
+                    int nameId = attributeNameIds.get(attribute.getName());
+                    if (nameId < 0) {
+                        nameId = attributeNames.size();
+                        attributeNames.add(attribute.getName());
+                        attributeNameIds.put(attribute.getName(), nameId);
+                    }
+
+                    output.writeInt(nameId);
+                    position += 4 + writeString(output, attribute.getValue());
+                }
+            }
+
+            final long dictionaryOffset = position;
+            for (String attributeName : attributeNames) {
+                position += writeString(output, attributeName);
+            }
+
+            final long indexOffset = position;
+            for (long profileOffset : profileOffsets) {
+                output.writeLong(profileOffset);
+            }
+            output.flush();
+
+            try (final RandomAccessFile file = new RandomAccessFile(outputPath, "rw")) {
+                file.writeInt(MAGIC_NUMBER);
+                file.writeInt(FORMAT_VERSION);
+                file.writeInt(profiles.size());
+                file.writeInt(attributeNames.size());
+                file.writeLong(dictionaryOffset);
+                file.writeLong(indexOffset);
+            }
+        } catch (IOException ex) {
+            Log.error("Error in storing entity profiles", ex);
+        }
+    }
+
+    // returns the number of bytes written
+    private static int writeString(DataOutputStream output, String text) throws IOException {
+        if (text == null) {
+            output.writeInt(-1);
+            return 4;
+        }
+
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+        return 4 + bytes.length;
+    }
+}
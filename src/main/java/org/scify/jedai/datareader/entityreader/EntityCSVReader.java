@@ -23,20 +23,44 @@ import gnu.trove.set.hash.TIntHashSet;
 import org.apache.jena.atlas.json.JsonArray;
 import org.apache.jena.atlas.json.JsonObject;
 import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.utilities.ParallelRangeExecutor;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 /**
+ * With more than one thread, the input file is memory-mapped and split into
+ * chunks of whole records, which are parsed in parallel. The chunk boundaries
+ * are determined by a single sequential pass over the bytes of the file, which
+ * tracks the opening and closing quotes, so that line breaks inside quoted
+ * values are not mistaken for record boundaries. The profiles of all chunks are
+ * concatenated in their original order, yielding the same entity ids as the
+ * sequential reading. This presumes an ASCII-compatible encoding (e.g., UTF-8),
+ * in which the byte of the line feed never appears inside another character.
+ *
  * @author G.A.P. II
  */
 public class EntityCSVReader extends AbstractEntityReader {
 
+    private final static byte ESCAPE = '\\';
+    private final static byte LINE_FEED = '\n';
+    private final static byte QUOTE = '"';
+    private final static int MAX_CHUNK_SIZE = 1 << 30;
+    private final static int SCAN_WINDOW_SIZE = 1 << 26;
+
     private boolean attributeNamesInFirstRow;
     private int idIndex;
+    private int noOfThreads;
     private char separator;
     private String[] attributeNames;
     private final TIntSet attributesToExclude;
@@ -46,6 +70,7 @@ public class EntityCSVReader extends AbstractEntityReader {
         attributeNamesInFirstRow = false;
         attributeNames = null;
         idIndex = -1;
+        noOfThreads = 1;
         separator = ',';
         attributesToExclude = new TIntHashSet();
     }
@@ -61,6 +86,10 @@ public class EntityCSVReader extends AbstractEntityReader {
             return null;
         }
 
+        if (1 < noOfThreads) {
+            return readEntityProfilesInParallel();
+        }
+
         try (final BufferedReader br = new BufferedReader(new FileReader(inputFilePath));
              final CSVReader csvReader = new CSVReader(br, separator)) {
 
@@ -72,41 +101,23 @@ public class EntityCSVReader extends AbstractEntityReader {
                 return null;
             }
 
-            int noOfAttributes = firstRecord.length;
-            if (noOfAttributes - 1 < idIndex) {
-                Log.error("Id index does not correspond to a valid column index! Counting starts from 0.");
+            if (!setAttributeNames(firstRecord)) {
                 return null;
             }
 
-            // Setting attribute names
             int entityCounter = 0;
-            if (attributeNamesInFirstRow) {
-                attributeNames = Arrays.copyOf(firstRecord, noOfAttributes);
-            } else { // no attribute names in csv file
-                attributeNames = new String[noOfAttributes];
-                for (int i = 0; i < noOfAttributes; i++) {
-                    attributeNames[i] = "attribute" + (i + 1);
-                }
-
+            if (!attributeNamesInFirstRow) {
                 entityCounter++; //first line corresponds to entity
-                readEntity(entityCounter, firstRecord);
+                entityProfiles.add(readEntity(entityCounter, firstRecord));
             }
 
             //read entity profiles
             String[] nextRecord;
             while ((nextRecord = csvReader.readNext()) != null) {
                 entityCounter++;
-
-                if (nextRecord.length < attributeNames.length - 1) {
-                    Log.warn("Line with missing attribute names : " + Arrays.toString(nextRecord));
-                    continue;
-                }
-                if (attributeNames.length < nextRecord.length) {
-                    Log.warn("Line with missing more attributes : " + Arrays.toString(nextRecord));
-                    continue;
+                if (isValidRecord(nextRecord)) {
+                    entityProfiles.add(readEntity(entityCounter, nextRecord));
                 }
-
-                readEntity(entityCounter, nextRecord);
             }
 
             return entityProfiles;
@@ -118,6 +129,56 @@ public class EntityCSVReader extends AbstractEntityReader {
 
     }
 
+    // splits the file from the given position into at most maxNoOfChunks chunks of whole records with roughly the given size
+    private List<CsvChunk> getChunks(FileChannel channel, long startPosition, long chunkSize, int maxNoOfChunks) throws IOException {
+        final List<CsvChunk> chunks = new ArrayList<>();
+
+        boolean escapePending = false;
+        boolean inQuotes = false;
+        int noOfRecords = 0;
+        long chunkStart = startPosition;
+        long fileSize = channel.size();
+        for (long windowStart = startPosition; windowStart < fileSize; windowStart += SCAN_WINDOW_SIZE) {
+            final ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(SCAN_WINDOW_SIZE, fileSize - windowStart));
+            while (window.hasRemaining()) {
+                byte currentByte = window.get();
+                if (escapePending) {
+                    escapePending = false;
+                    if (currentByte == QUOTE || currentByte == ESCAPE) {
+                        continue;
+                    }
+                }
+
+                if (currentByte == QUOTE) {
+                    inQuotes = !inQuotes;
+                } else if (inQuotes && currentByte == ESCAPE) {
+                    escapePending = true;
+                } else if (!inQuotes && currentByte == LINE_FEED) {
+                    noOfRecords++;
+                    long recordEnd = windowStart + window.position();
+                    if (chunkSize <= recordEnd - chunkStart) {
+                        chunks.add(new CsvChunk(chunkStart, recordEnd, noOfRecords));
+                        if (chunks.size() == maxNoOfChunks) {
+                            return chunks;
+                        }
+                        chunkStart = recordEnd;
+                        noOfRecords = 0;
+                    }
+                }
+            }
+        }
+
+        if (chunkStart < fileSize) { // the last record may lack a line break
+            chunks.add(new CsvChunk(chunkStart, fileSize, noOfRecords + 1));
+        }
+        return chunks;
+    }
+
+    private CSVReader getChunkReader(FileChannel channel, CsvChunk chunk) throws IOException {
+        final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, chunk.end - chunk.start);
+        return new CSVReader(new BufferedReader(new InputStreamReader(new ByteBufferInputStream(buffer), Charset.defaultCharset())), separator);
+    }
+
     @Override
     public String getMethodConfiguration() {
         final StringBuilder sb = new StringBuilder();
@@ -250,7 +311,93 @@ public class EntityCSVReader extends AbstractEntityReader {
         }
     }
 
-    private void readEntity(int index, String[] currentLine) {
+    public int getNoOfThreads() {
+        return noOfThreads;
+    }
+
+    private boolean isValidRecord(String[] record) {
+        if (record.length < attributeNames.length - 1) {
+            Log.warn("Line with missing attribute names : " + Arrays.toString(record));
+            return false;
+        }
+        if (attributeNames.length < record.length) {
+            Log.warn("Line with missing more attributes : " + Arrays.toString(record));
+            return false;
+        }
+        return true;
+    }
+
+    private List<EntityProfile> readEntityProfilesInParallel() {
+        try (final RandomAccessFile file = new RandomAccessFile(inputFilePath, "r");
+             final FileChannel channel = file.getChannel()) {
+            // the first chunk comprises the first record, which is read before the rest, as it may contain the attribute names
+            final List<CsvChunk> firstChunk = getChunks(channel, 0, 1, 1);
+            if (firstChunk.isEmpty()) {
+                Log.error("Empty file given as input.");
+                return null;
+            }
+
+            final String[] firstRecord;
+            try (final CSVReader csvReader = getChunkReader(channel, firstChunk.get(0))) {
+                firstRecord = csvReader.readNext();
+            }
+            if (firstRecord == null) {
+                Log.error("Empty file given as input.");
+                return null;
+            }
+
+            if (!setAttributeNames(firstRecord)) {
+                return null;
+            }
+
+            int entityCounter = 0;
+            if (!attributeNamesInFirstRow) {
+                entityCounter++; //first line corresponds to entity
+                entityProfiles.add(readEntity(entityCounter, firstRecord));
+            }
+
+            // more chunks than threads balance the load
+            long remainingBytes = channel.size() - firstChunk.get(0).end;
+            long chunkSize = Math.min(MAX_CHUNK_SIZE / 2, remainingBytes / (4 * noOfThreads) + 1);
+            final List<CsvChunk> chunks = getChunks(channel, firstChunk.get(0).end, chunkSize, Integer.MAX_VALUE);
+            for (CsvChunk chunk : chunks) {
+                if (MAX_CHUNK_SIZE < chunk.end - chunk.start) {
+                    Log.error("Too large record starting at byte " + chunk.start + "!");
+                    return null;
+                }
+                chunk.firstIndex = entityCounter + 1;
+                entityCounter += chunk.noOfRecords;
+            }
+
+            final List<List<EntityProfile>> chunkProfiles = ParallelRangeExecutor.execute(noOfThreads, chunks.size(), chunks.size(), (partitionId, startId, endId) -> {
+                final List<EntityProfile> profiles = new ArrayList<>();
+                for (int chunkId = startId; chunkId < endId; chunkId++) {
+                    final CsvChunk chunk = chunks.get(chunkId);
+                    try (final CSVReader csvReader = getChunkReader(channel, chunk)) {
+                        int index = chunk.firstIndex;
+                        String[] nextRecord;
+                        while ((nextRecord = csvReader.readNext()) != null) {
+                            if (isValidRecord(nextRecord)) {
+                                profiles.add(readEntity(index, nextRecord));
+                            }
+                            index++;
+                        }
+                    } catch (IOException ex) {
+                        throw new IllegalStateException("Error in reading the chunk starting at byte " + chunk.start + "!", ex);
+                    }
+                }
+                return profiles;
+            });
+            chunkProfiles.forEach(entityProfiles::addAll);
+
+            return entityProfiles;
+        } catch (IOException | IllegalStateException e) {
+            Log.error("Error in entities reading!", e);
+            return null;
+        }
+    }
+
+    private EntityProfile readEntity(int index, String[] currentLine) {
         String entityId;
         if (idIndex < 0) {
             entityId = "id" + index;
@@ -267,7 +414,25 @@ public class EntityCSVReader extends AbstractEntityReader {
                 newProfile.addAttribute(attributeNames[i], currentLine[i]);
             }
         }
-        entityProfiles.add(newProfile);
+        return newProfile;
+    }
+
+    private boolean setAttributeNames(String[] firstRecord) {
+        int noOfAttributes = firstRecord.length;
+        if (noOfAttributes - 1 < idIndex) {
+            Log.error("Id index does not correspond to a valid column index! Counting starts from 0.");
+            return false;
+        }
+
+        if (attributeNamesInFirstRow) {
+            attributeNames = Arrays.copyOf(firstRecord, noOfAttributes);
+        } else { // no attribute names in csv file
+            attributeNames = new String[noOfAttributes];
+            for (int i = 0; i < noOfAttributes; i++) {
+                attributeNames[i] = "attribute" + (i + 1);
+            }
+        }
+        return true;
     }
 
     public void setAttributesToExclude(int[] attributesIndicesToExclude) {
@@ -285,7 +450,57 @@ public class EntityCSVReader extends AbstractEntityReader {
         attributesToExclude.add(idIndex);
     }
 
+    /**
+     * Sets the number of threads that parse the input file. With more than one
+     * thread, the file is memory-mapped and its chunks are parsed in parallel.
+     *
+     * @param noOfThreads the number of threads that parse disjoint chunks of records
+     */
+    public void setNoOfThreads(int noOfThreads) {
+        this.noOfThreads = Math.max(1, noOfThreads);
+    }
+
     public void setSeparator(char separator) {
         this.separator = separator;
     }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            int noOfBytes = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, noOfBytes);
+            return noOfBytes;
+        }
+    }
+
+    // a range of bytes [start, end) that contains whole records
+    private static class CsvChunk {
+
+        private final long start;
+        private final long end;
+        private final int noOfRecords;
+        private int firstIndex;
+
+        CsvChunk(long start, long end, int noOfRecords) {
+            this.start = start;
+            this.end = end;
+            this.noOfRecords = noOfRecords;
+        }
+    }
 }
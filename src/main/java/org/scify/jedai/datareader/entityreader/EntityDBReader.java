@@ -19,12 +19,20 @@ import com.esotericsoftware.minlog.Log;
 import org.apache.jena.atlas.json.JsonArray;
 import org.apache.jena.atlas.json.JsonObject;
 import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.utilities.ParallelRangeExecutor;
 
 import java.io.IOException;
+import java.math.BigInteger;
 import java.sql.*;
 import java.util.*;
 
 /**
+ * By default, the entire table is retrieved through a single query, whose
+ * result set is buffered by the driver. With a positive fetch size, the rows
+ * are streamed through a server-side cursor in batches of that size. With a
+ * numeric key column and more than one thread, the table is also split into
+ * equal ranges of key values, which are read in parallel over separate
+ * connections; their profiles are then ordered by key.
  *
  * @author G.A.P. II
  */
@@ -32,6 +40,10 @@ public class EntityDBReader extends AbstractEntityReader {
 
     private boolean ssl;
 
+    private int fetchSize;
+    private int noOfThreads;
+
+    private String keyColumn;
     private String password;
     private String table;
     private String user;
@@ -41,6 +53,9 @@ public class EntityDBReader extends AbstractEntityReader {
     public EntityDBReader(String dbURL) {
         super(dbURL);
 
+        fetchSize = 0;
+        keyColumn = null;
+        noOfThreads = 1;
         password = null;
         ssl = true;
         table = null;
@@ -75,45 +90,26 @@ public class EntityDBReader extends AbstractEntityReader {
                 return null;
             }
 
-            Connection conn;
-            if (inputFilePath.startsWith("mysql")) {
-                conn = getMySQLconnection(inputFilePath);
-            } else if (inputFilePath.startsWith("postgresql")) {
-                conn = getPostgreSQLconnection(inputFilePath);
-            } else {
+            if (!inputFilePath.startsWith("mysql") && !inputFilePath.startsWith("postgresql")) {
                 Log.error("Only MySQL and PostgreSQL are supported for the time being!");
                 return null;
             }
 
-            final Statement stmt = conn.createStatement();
-            final ResultSet rs = stmt.executeQuery("SELECT * FROM " + table);//retrieve the appropriate table
-            final ResultSetMetaData rsmd = rs.getMetaData();
-            int columnsNum = rsmd.getColumnCount();
-            String[] columns = new String[columnsNum];
-            for (int i = 0; i < columnsNum; i++) {
-                columns[i] = rsmd.getColumnName(i + 1);//get attribute names
+            if (1 < noOfThreads && keyColumn != null) {
+                readPartitionsInParallel();
+                return entityProfiles;
             }
 
-            //Extract data from result set
-            while (rs.next()) {
-                //Retrieve by column name
-                final String id = rs.getString(columns[0]);
-                final EntityProfile newProfile = new EntityProfile(id);//create a new profile for each record
-                entityProfiles.add(newProfile);
-                for (int i = 1; i < columnsNum; i++) {
-                    final String attributeName = columns[i];
-                    if (attributesToExclude.contains(attributeName)) {
-                        continue;
-                    }
-
-                    final String value = rs.getString(columns[i]);
-                    if (!rs.wasNull()) {
-                        newProfile.addAttribute(attributeName, value);
-                    }
+            try (final Connection conn = getConnection()) {
+                try (final Statement stmt = getStatement(conn)) {
+                    final ResultSet rs = stmt.executeQuery("SELECT * FROM " + table);//retrieve the appropriate table
+                    readProfiles(rs, entityProfiles);
+                    rs.close();
+                } finally {
+                    endTransaction(conn);
                 }
             }
-            rs.close();
-        } catch (IOException | SQLException ex) {
+        } catch (IOException | SQLException | IllegalStateException ex) {
             Log.error("Error in entities reading!", ex);
             return null;
         }
@@ -121,6 +117,40 @@ public class EntityDBReader extends AbstractEntityReader {
         return entityProfiles;
     }
 
+    // the PostgreSQL cursors run in read-only transactions, which are rolled back before closing the connection
+    private void endTransaction(Connection conn) throws SQLException {
+        if (!conn.getAutoCommit()) {
+            conn.rollback();
+        }
+    }
+
+    private Connection getConnection() throws IOException, SQLException {
+        final Connection conn;
+        if (inputFilePath.startsWith("mysql")) {
+            conn = getMySQLconnection(inputFilePath);
+        } else {
+            conn = getPostgreSQLconnection(inputFilePath);
+        }
+
+        if (conn == null) {
+            throw new SQLException("No connection to " + inputFilePath);
+        }
+
+        // PostgreSQL uses cursors only within transactions
+        if (0 < fetchSize && inputFilePath.startsWith("postgresql")) {
+            conn.setAutoCommit(false);
+        }
+        return conn;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public String getKeyColumn() {
+        return keyColumn;
+    }
+
     @Override
     public String getMethodConfiguration() {
         final StringBuilder sb = new StringBuilder();
@@ -160,13 +190,19 @@ public class EntityDBReader extends AbstractEntityReader {
     private Connection getMySQLconnection(String dbURL) throws IOException {
         try {
             Class.forName("com.mysql.jdbc.Driver");
-            return DriverManager.getConnection("jdbc:" + dbURL + "?user=" + user + "&password=" + password);
+            // without cursor fetch, Connector/J ignores positive fetch sizes and buffers the entire result set
+            final String cursorFetch = 0 < fetchSize ? "&useCursorFetch=true" : "";
+            return DriverManager.getConnection("jdbc:" + dbURL + "?user=" + user + "&password=" + password + cursorFetch);
         } catch (Exception ex) {
             Log.error("Error with database connection!", ex);
             return null;
         }
     }
 
+    public int getNoOfThreads() {
+        return noOfThreads;
+    }
+
     @Override
     public JsonArray getParameterConfiguration() {
         final JsonObject obj1 = new JsonObject();
@@ -292,10 +328,133 @@ public class EntityDBReader extends AbstractEntityReader {
         }
     }
 
+    private Statement getStatement(Connection conn) throws SQLException {
+        final Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        if (0 < fetchSize) {
+            stmt.setFetchSize(fetchSize);
+        }
+        return stmt;
+    }
+
+    private void readPartitionsInParallel() throws IOException, SQLException {
+        final long minKey;
+        final long maxKey;
+        try (final Connection conn = getConnection()) {
+            try (final Statement stmt = conn.createStatement()) {
+                final ResultSet rs = stmt.executeQuery("SELECT MIN(" + keyColumn + "), MAX(" + keyColumn + ") FROM " + table);
+                rs.next();
+                minKey = rs.getLong(1);
+                if (rs.wasNull()) { // empty table
+                    rs.close();
+                    return;
+                }
+                maxKey = rs.getLong(2);
+                rs.close();
+            } finally {
+                endTransaction(conn);
+            }
+        }
+
+        // every partition covers the key range [lowerBound, upperBound] with its own connection;
+        // the bounds are computed with BigInteger, as maxKey - minKey may exceed Long.MAX_VALUE
+        final BigInteger firstKey = BigInteger.valueOf(minKey);
+        final BigInteger lastKey = BigInteger.valueOf(maxKey);
+        final BigInteger rangeSize = lastKey.subtract(firstKey).divide(BigInteger.valueOf(noOfThreads)).add(BigInteger.ONE);
+        final List<List<EntityProfile>> partitions = ParallelRangeExecutor.execute(noOfThreads, noOfThreads, noOfThreads, (partitionId, startId, endId) -> {
+            final List<EntityProfile> profiles = new ArrayList<>();
+            final BigInteger lowerKey = firstKey.add(rangeSize.multiply(BigInteger.valueOf(startId)));
+            if (0 < lowerKey.compareTo(lastKey)) { // fewer keys than partitions
+                return profiles;
+            }
+
+            final long lowerBound = lowerKey.longValue();
+            final long upperBound = endId == noOfThreads ? maxKey
+                    : firstKey.add(rangeSize.multiply(BigInteger.valueOf(endId))).subtract(BigInteger.ONE).min(lastKey).longValue();
+            final String query = "SELECT * FROM " + table + " WHERE " + keyColumn + " >= ? AND " + keyColumn + " <= ? ORDER BY " + keyColumn;
+            try (final Connection conn = getConnection()) {
+                try (final PreparedStatement stmt = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    if (0 < fetchSize) {
+                        stmt.setFetchSize(fetchSize);
+                    }
+                    stmt.setLong(1, lowerBound);
+                    stmt.setLong(2, upperBound);
+                    final ResultSet rs = stmt.executeQuery();
+                    readProfiles(rs, profiles);
+                    rs.close();
+                } finally {
+                    endTransaction(conn);
+                }
+            } catch (IOException | SQLException ex) {
+                throw new IllegalStateException("Error in reading the key range [" + lowerBound + ", " + upperBound + "]!", ex);
+            }
+            return profiles;
+        });
+        partitions.forEach(entityProfiles::addAll);
+    }
+
+    private void readProfiles(ResultSet rs, List<EntityProfile> profiles) throws SQLException {
+        final ResultSetMetaData rsmd = rs.getMetaData();
+        int columnsNum = rsmd.getColumnCount();
+        String[] columns = new String[columnsNum];
+        for (int i = 0; i < columnsNum; i++) {
+            columns[i] = rsmd.getColumnName(i + 1);//get attribute names
+        }
+
+        //Extract data from result set
+        while (rs.next()) {
+            final String id = rs.getString(1);
+            final EntityProfile newProfile = new EntityProfile(id);//create a new profile for each record
+            profiles.add(newProfile);
+            for (int i = 1; i < columnsNum; i++) {
+                final String attributeName = columns[i];
+                if (attributesToExclude.contains(attributeName)) {
+                    continue;
+                }
+
+                final String value = rs.getString(i + 1);
+                if (!rs.wasNull()) {
+                    newProfile.addAttribute(attributeName, value);
+                }
+            }
+        }
+    }
+
     public void setAttributesToExclude(String[] attributesNamesToExclude) {
         attributesToExclude.addAll(Arrays.asList(attributesNamesToExclude));
     }
 
+    /**
+     * Sets the number of rows that are transferred from the database in every
+     * round trip. A positive value streams the rows through a server-side
+     * cursor, instead of buffering the entire table in the driver.
+     *
+     * @param fetchSize the number of rows per batch, or 0 for the driver's default
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = Math.max(0, fetchSize);
+    }
+
+    /**
+     * Sets the numeric column, typically the primary key, whose value range
+     * is split into partitions when reading with multiple threads. Rows with
+     * a null key are not retrieved in that case.
+     *
+     * @param keyColumn the name of the partitioning column
+     */
+    public void setKeyColumn(String keyColumn) {
+        this.keyColumn = keyColumn;
+    }
+
+    /**
+     * Sets the number of connections that read disjoint key ranges in parallel.
+     * It takes effect only if a key column has been set.
+     *
+     * @param noOfThreads the number of parallel connections
+     */
+    public void setNoOfThreads(int noOfThreads) {
+        this.noOfThreads = Math.max(1, noOfThreads);
+    }
+
     public void setPassword(String password) {
         this.password = password;
     }
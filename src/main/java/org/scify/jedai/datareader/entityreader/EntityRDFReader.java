@@ -18,19 +18,31 @@ package org.scify.jedai.datareader.entityreader;
 import com.esotericsoftware.minlog.Log;
 import org.apache.jena.atlas.json.JsonArray;
 import org.apache.jena.atlas.json.JsonObject;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.rdf.model.*;
 import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.sparql.core.Quad;
 import org.scify.jedai.datamodel.EntityProfile;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
+ * By default, the input file is loaded into an in-memory Jena Model. In
+ * streaming mode, the triples are converted into entity profiles while being
+ * parsed, without materializing the Model. If the input is also sorted by
+ * subject, every profile is emitted as soon as its subject changes, so only
+ * one profile is held in memory at a time.
  *
  * @author G.A.P. II
  */
 public class EntityRDFReader extends AbstractEntityReader {
 
+    private boolean streamingMode;
+    private boolean subjectSorted;
     private final Set<String> attributesToExclude;
     private final Map<String, EntityProfile> urlToEntity;
     private String prefix = "";
@@ -54,6 +66,13 @@ public class EntityRDFReader extends AbstractEntityReader {
             return null;
         }
 
+        if (streamingMode) {
+            if (!streamEntityProfiles(entityProfiles::add)) {
+                return null;
+            }
+            return entityProfiles;
+        }
+
         //load the rdf model from the input file
         try {
             final Model model = RDFDataMgr.loadModel(inputFilePath);
@@ -158,12 +177,7 @@ public class EntityRDFReader extends AbstractEntityReader {
                 continue;
             }
 
-            final Resource subject = stmt.getSubject();
-            String sub = subject.toString();
-            if (!prefix.equals(""))
-            {
-            	sub= sub.replace(prefix, "");
-            }
+            final String sub = getSubjectUrl(stmt.getSubject());
 
             final RDFNode object = stmt.getObject();
             final String obj = object.toString();
@@ -182,6 +196,22 @@ public class EntityRDFReader extends AbstractEntityReader {
         }
     }
 
+    private String getSubjectUrl(Resource subject) {
+        String sub = subject.toString();
+        if (!prefix.equals("")) {
+            sub = sub.replace(prefix, "");
+        }
+        return sub;
+    }
+
+    public boolean isStreamingMode() {
+        return streamingMode;
+    }
+
+    public boolean isSubjectSorted() {
+        return subjectSorted;
+    }
+
     public void setAttributesToExclude(String[] attributesNamesToExclude) {
         attributesToExclude.addAll(Arrays.asList(attributesNamesToExclude));
     }
@@ -189,4 +219,113 @@ public class EntityRDFReader extends AbstractEntityReader {
     public void setPrefixOmission(String prefix) {
         this.prefix= prefix ;
     }
+
+    /**
+     * Determines whether getEntityProfiles parses the input file as a stream
+     * of triples, instead of loading it into a Jena Model.
+     *
+     * @param streamingMode true for reading the input file as a stream
+     */
+    public void setStreamingMode(boolean streamingMode) {
+        this.streamingMode = streamingMode;
+    }
+
+    /**
+     * Declares that all triples of the same subject appear consecutively in
+     * the input file (e.g., a sorted N-Triples dump). In this case, streaming
+     * emits every profile as soon as the next subject is encountered. If the
+     * input is not actually sorted, a subject may yield multiple profiles.
+     *
+     * @param subjectSorted true if the input file is grouped by subject
+     */
+    public void setSubjectSorted(boolean subjectSorted) {
+        this.subjectSorted = subjectSorted;
+    }
+
+    /**
+     * Parses the input file as a stream of triples and passes every entity
+     * profile to the given consumer once it is complete. Without subject-sorted
+     * input, the profiles are complete only at the end of the file, and are
+     * then emitted in the order of their first appearance.
+     *
+     * @param consumer the receiver of the entity profiles
+     * @return true if the input file was parsed successfully, false otherwise
+     */
+    public boolean streamEntityProfiles(Consumer<EntityProfile> consumer) {
+        if (inputFilePath == null) {
+            Log.error("Input file path has not been set!");
+            return false;
+        }
+
+        try {
+            RDFDataMgr.parse(new EntityProfileStream(consumer), inputFilePath);
+        } catch (RiotException ex) {
+            Log.error("Error in entities reading!", ex);
+            return false;
+        }
+        return true;
+    }
+
+    private class EntityProfileStream extends StreamRDFBase {
+
+        private final Consumer<EntityProfile> consumer;
+        private EntityProfile currentProfile;
+        private final Map<String, EntityProfile> openProfiles;
+        // an empty model that converts triples into statements, so that their nodes are printed as in the model-based reading
+        private final Model converter;
+
+        EntityProfileStream(Consumer<EntityProfile> consumer) {
+            this.consumer = consumer;
+            converter = ModelFactory.createDefaultModel();
+            openProfiles = new LinkedHashMap<>();
+        }
+
+        @Override
+        public void finish() {
+            if (currentProfile != null) {
+                consumer.accept(currentProfile);
+                currentProfile = null;
+            }
+            openProfiles.values().forEach(consumer);
+            openProfiles.clear();
+        }
+
+        @Override
+        public void quad(Quad quad) {
+            triple(quad.asTriple());
+        }
+
+        @Override
+        public void triple(Triple triple) {
+            final Statement stmt = converter.asStatement(triple);
+
+            final String pred = stmt.getPredicate().toString();
+            if (attributesToExclude.contains(pred)) {
+                return;
+            }
+
+            final String sub = getSubjectUrl(stmt.getSubject());
+            EntityProfile entityProfile;
+            if (subjectSorted) {
+                if (currentProfile == null || !currentProfile.getEntityUrl().equals(sub)) {
+                    if (currentProfile != null) {
+                        consumer.accept(currentProfile);
+                    }
+                    currentProfile = new EntityProfile(sub);
+                }
+                entityProfile = currentProfile;
+            } else {
+                entityProfile = openProfiles.get(sub);
+                if (entityProfile == null) {
+                    entityProfile = new EntityProfile(sub);
+                    openProfiles.put(sub, entityProfile);
+                }
+            }
+
+            final String obj = stmt.getObject().toString();
+            if (!obj.isEmpty()) {
+                entityProfile.addAttribute(pred, obj);
+            }
+        }
+    }
 }
@@ -0,0 +1,257 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.datawriter;
+
+import com.esotericsoftware.minlog.Log;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts the rows of a detailed-results table (url1, url2, pairtype,
+ * Profile1, Profile2) through a prepared statement, in batches of the given
+ * size. Every batch is committed as a separate transaction, so that neither
+ * the client nor the server holds more than one batch at a time. Optionally,
+ * the batches are executed by a background thread, which consumes the rows
+ * from a bounded queue while the caller keeps producing them.
+ *
+ * @author gap2
+ */
+public class BatchedDBWriter implements AutoCloseable {
+
+    public final static int DEFAULT_BATCH_SIZE = 1000;
+
+    private final static String[] END_OF_ROWS = new String[0];
+
+    private final int batchSize;
+    private int pendingRows;
+    private long writtenRows;
+
+    private final BlockingQueue<String[]> queue;
+    private final Connection connection;
+    private volatile SQLException failure;
+    private final PreparedStatement statement;
+    private final Thread writerThread;
+
+    /**
+     * @param connection the connection to the database, which is closed along
+     * with the writer, or immediately if the writer cannot be created
+     * @param table the detailed-results table
+     * @param batchSize the number of rows per batch
+     * @param backgroundWriting true for writing on a background thread
+     * @throws SQLException if the insert statement cannot be prepared
+     */
+    public BatchedDBWriter(Connection connection, String table, int batchSize, boolean backgroundWriting) throws SQLException {
+        this.batchSize = Math.max(1, batchSize);
+        this.connection = connection;
+        try {
+            connection.setAutoCommit(false);
+            statement = connection.prepareStatement("INSERT INTO " + table + " (url1, url2, pairtype, Profile1, Profile2) VALUES (?, ?, ?, ?, ?)");
+        } catch (SQLException ex) {
+            try {
+                connection.close();
+            } catch (SQLException closingEx) {
+                ex.addSuppressed(closingEx);
+            }
+            throw ex;
+        }
+
+        if (backgroundWriting) {
+            queue = new ArrayBlockingQueue<>(2 * this.batchSize);
+            writerThread = new Thread(this::writeQueuedRows, "BatchedDBWriter");
+            writerThread.setDaemon(true);
+            writerThread.start();
+        } else {
+            queue = null;
+            writerThread = null;
+        }
+    }
+
+    public void addRow(String url1, String url2, String pairType, String profile1, String profile2) throws SQLException {
+        final String[] row = {url1, url2, pairType, profile1, profile2};
+        if (queue == null) {
+            writeRow(row);
+        } else {
+            enqueue(row);
+        }
+    }
+
+    private void checkFailure() throws SQLException {
+        if (failure != null) {
+            throw new SQLException("Error in background db writing!", failure);
+        }
+    }
+
+    /**
+     * Writes the remaining rows, waits for the background thread (if any) and
+     * closes the statement and the connection.
+     *
+     * @throws SQLException if any batch failed
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (queue == null) {
+                flush();
+            } else {
+                enqueue(END_OF_ROWS);
+                writerThread.join();
+                checkFailure();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the db writing!", ex);
+        } finally {
+            statement.close();
+            connection.close();
+        }
+    }
+
+    /**
+     * Connects to the given MySQL or PostgreSQL database and creates a writer
+     * for the given table.
+     *
+     * @param dbURL the url of the database, starting with "mysql" or "postgresql"
+     * @param user the database user
+     * @param password the password of the database user
+     * @param ssl true for connecting to PostgreSQL through SSL
+     * @param table the detailed-results table
+     * @param batchSize the number of rows per batch
+     * @param backgroundWriting true for writing on a background thread
+     * @return the writer, or null if the settings are incomplete or no
+     * connection could be established, in which case the error is logged
+     * @throws SQLException if the insert statement cannot be prepared
+     */
+    public static BatchedDBWriter getDBWriter(String dbURL, String user, String password, boolean ssl,
+            String table, int batchSize, boolean backgroundWriting) throws SQLException {
+        if (user == null) {
+            Log.error("Database user has not been set!");
+            return null;
+        }
+        if (password == null) {
+            Log.error("Database password has not been set!");
+            return null;
+        }
+        if (table == null) {
+            Log.error("Database table has not been set!");
+            return null;
+        }
+
+        Connection conn;
+        if (dbURL.startsWith("mysql")) {
+            conn = getMySQLconnection(dbURL, user, password);
+        } else if (dbURL.startsWith("postgresql")) {
+            conn = getPostgreSQLconnection(dbURL, user, password, ssl);
+        } else {
+            Log.error("Only MySQL and PostgreSQL are supported for the time being!");
+            return null;
+        }
+
+        if (conn == null) { // the error has already been logged
+            return null;
+        }
+        return new BatchedDBWriter(conn, table, batchSize, backgroundWriting);
+    }
+
+    private static Connection getMySQLconnection(String dbURL, String user, String password) {
+        try {
+            Class.forName("com.mysql.jdbc.Driver");
+            return DriverManager.getConnection("jdbc:" + dbURL + "?user=" + user + "&password=" + password);
+        } catch (Exception ex) {
+            Log.error("Error with database connection!", ex);
+            return null;
+        }
+    }
+
+    private static Connection getPostgreSQLconnection(String dbURL, String user, String password, boolean ssl) {
+        try {
+            final Properties props = new Properties();
+            props.setProperty("user", user);
+            props.setProperty("password", password);
+            if (ssl) {
+                props.setProperty("ssl", "true");
+            }
+            return DriverManager.getConnection("jdbc:" + dbURL, props);
+        } catch (Exception ex) {
+            Log.error("Error with database connection!", ex);
+            return null;
+        }
+    }
+
+    private void enqueue(String[] row) throws SQLException {
+        try {
+            // the writer thread stops consuming after a failure, so waiting is bounded
+            while (!queue.offer(row, 100, TimeUnit.MILLISECONDS)) {
+                if (!writerThread.isAlive()) {
+                    checkFailure();
+                    throw new SQLException("Background db writing has stopped!");
+                }
+                checkFailure();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while queueing a row for db writing!", ex);
+        }
+        checkFailure();
+    }
+
+    private void flush() throws SQLException {
+        if (0 < pendingRows) {
+            statement.executeBatch();
+            connection.commit();
+            writtenRows += pendingRows;
+            pendingRows = 0;
+        }
+    }
+
+    public long getNoOfWrittenRows() {
+        return writtenRows;
+    }
+
+    private void writeQueuedRows() {
+        try {
+            String[] row;
+            while ((row = queue.take()) != END_OF_ROWS) {
+                writeRow(row);
+            }
+            flush();
+        } catch (SQLException ex) {
+            failure = ex;
+        } catch (InterruptedException ex) {
+            failure = new SQLException("Background db writing was interrupted!", ex);
+        } catch (Throwable ex) { // e.g., a row that does not match the statement
+            failure = new SQLException("Unexpected error in background db writing!", ex);
+        }
+    }
+
+    private void writeRow(String[] row) throws SQLException {
+        for (int i = 0; i < row.length; i++) {
+            statement.setString(i + 1, row[i]);
+        }
+        statement.addBatch();
+
+        pendingRows++;
+        if (batchSize <= pendingRows) {
+            flush();
+        }
+    }
+}
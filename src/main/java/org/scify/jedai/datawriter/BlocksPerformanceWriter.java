@@ -18,10 +18,6 @@ package org.scify.jedai.datawriter;
 import com.esotericsoftware.minlog.Log;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
-import org.apache.jena.update.UpdateExecutionFactory;
-import org.apache.jena.update.UpdateFactory;
-import org.apache.jena.update.UpdateProcessor;
-import org.apache.jena.update.UpdateRequest;
 import org.rdfhdt.hdt.enums.RDFNotation;
 import org.rdfhdt.hdt.exceptions.ParserException;
 import org.rdfhdt.hdt.hdt.HDT;
@@ -36,11 +32,8 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.Statement;
+import java.sql.SQLException;
 import java.util.List;
-import java.util.Properties;
 
 /**
  *
@@ -66,6 +59,10 @@ public class BlocksPerformanceWriter {
     private final List<AbstractBlock> blocks;
     private GroundTruthIndex entityIndex;
 
+    private boolean dbBackgroundWriting;
+    private int dbBatchSize;
+    private int sparqlConcurrentRequests;
+    private int sparqlTriplesPerRequest;
     private String dbpassword;
     private String dbtable;
     private String dbuser;
@@ -77,6 +74,10 @@ public class BlocksPerformanceWriter {
         abstractDP = adp;
         abstractDP.resetDuplicates();
         blocks = bl;
+        dbBackgroundWriting = false;
+        dbBatchSize = BatchedDBWriter.DEFAULT_BATCH_SIZE;
+        sparqlConcurrentRequests = 1;
+        sparqlTriplesPerRequest = SparqlUpdateWriter.DEFAULT_TRIPLES_PER_REQUEST;
     }
 
     public void setPassword(String password) {
@@ -87,6 +88,16 @@ public class BlocksPerformanceWriter {
         this.dbtable = table;
     }
 
+    /**
+     * Sets the number of triples that are inserted into the SPARQL endpoint
+     * by every update request.
+     *
+     * @param triplesPerRequest the number of triples per request
+     */
+    public void setTriplesPerRequest(int triplesPerRequest) {
+        this.sparqlTriplesPerRequest = Math.max(1, triplesPerRequest);
+    }
+
     public void setUser(String user) {
         this.dbuser = user;
     }
@@ -95,6 +106,36 @@ public class BlocksPerformanceWriter {
         this.ssl = ssl;
     }
 
+    /**
+     * Determines whether the rows of the detailed results are inserted into
+     * the database by a background thread, while the next ones are produced.
+     *
+     * @param backgroundWriting true for writing on a background thread
+     */
+    public void setBackgroundWriting(boolean backgroundWriting) {
+        this.dbBackgroundWriting = backgroundWriting;
+    }
+
+    /**
+     * Sets the number of rows of the detailed results that are inserted into
+     * the database and committed together.
+     *
+     * @param batchSize the number of rows per batch
+     */
+    public void setBatchSize(int batchSize) {
+        this.dbBatchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Sets the number of update requests that are posted concurrently to the
+     * SPARQL endpoint by printDetailedResultsToSPARQL.
+     *
+     * @param concurrentRequests the maximum number of requests in flight
+     */
+    public void setConcurrentRequests(int concurrentRequests) {
+        this.sparqlConcurrentRequests = Math.max(1, concurrentRequests);
+    }
+
     public void setEndpointURL(String endpointURL) {
         this.endpointURL = endpointURL;
     }
@@ -103,33 +144,13 @@ public class BlocksPerformanceWriter {
         this.endpointGraph = endpointGraph;
     }
 
-    private Connection getMySQLconnection(String dbURL) throws IOException {
-        try {
-            Class.forName("com.mysql.jdbc.Driver");
-            return DriverManager.getConnection("jdbc:" + dbURL + "?user=" + dbuser + "&password=" + dbpassword);
-        } catch (Exception ex) {
-            Log.error("Error with database connection!", ex);
-            return null;
-        }
-    }
-
-    private Connection getPostgreSQLconnection(String dbURL) throws IOException {
-        try {
-            final Properties props = new Properties();
-            if (!(dbuser == null)) {
-                props.setProperty("user", dbuser);
-            }
-            if (!(dbpassword == null)) {
-                props.setProperty("password", dbpassword);
-            }
-            if (ssl) {
-                props.setProperty("ssl", "true");
-            }
-            return DriverManager.getConnection("jdbc:" + dbURL, props);
-        } catch (Exception ex) {
-            Log.error("Error with database connection!", ex);
-            return null;
-        }
+    private void addSparqlRecord(SparqlUpdateWriter sparqlWriter, String recordId, EntityProfile profile1, EntityProfile profile2, String pairType) {
+        final String subject = "<obj/" + "record/" + recordId + ">";
+        sparqlWriter.addTriple(subject, "<url1>", profile1.getEntityUrl().replace("&", ""));
+        sparqlWriter.addTriple(subject, "<url2>", profile2.getEntityUrl().replace("&", ""));
+        sparqlWriter.addTriple(subject, "<pairType>", pairType);
+        sparqlWriter.addTriple(subject, "<Profile1>", (profile1 + "").replace("&", ""));
+        sparqlWriter.addTriple(subject, "<Profile2>", (profile2 + "").replace("&", ""));
     }
 
     private boolean areCooccurring(boolean cleanCleanER, IdDuplicates pairOfDuplicates) {
@@ -290,6 +311,12 @@ public class BlocksPerformanceWriter {
         }
     }
 
+    // the output of comparison cleaning consists of either decomposed blocks or pruned blocking graphs,
+    // which are both processed through a linear scan of their comparisons
+    private boolean isDecomposed() {
+        return blocks.get(0) instanceof DecomposedBlock || blocks.get(0) instanceof PrunedBlockingGraph;
+    }
+
     public void printDetailedResults(List<EntityProfile> profilesD1, List<EntityProfile> profilesD2) {
         if (blocks.isEmpty()) {
             Log.warn("Empty set of blocks was given as input!");
@@ -299,7 +326,7 @@ public class BlocksPerformanceWriter {
         setType();
 
         List<AbstractBlock> blocksToUse = blocks;
-        if (!(blocks.get(0) instanceof DecomposedBlock)) {
+        if (!isDecomposed()) {
             final ComparisonPropagation cp = new ComparisonPropagation();
             blocksToUse = cp.refineBlocks(blocks);
         }
@@ -362,7 +389,7 @@ public class BlocksPerformanceWriter {
         setType();
 
         List<AbstractBlock> blocksToUse = blocks;
-        if (!(blocks.get(0) instanceof DecomposedBlock)) {
+        if (!isDecomposed()) {
             final ComparisonPropagation cp = new ComparisonPropagation();
             blocksToUse = cp.refineBlocks(blocks);
         }
@@ -430,7 +457,7 @@ public class BlocksPerformanceWriter {
         setType();
 
         List<AbstractBlock> blocksToUse = blocks;
-        if (!(blocks.get(0) instanceof DecomposedBlock)) {
+        if (!isDecomposed()) {
             final ComparisonPropagation cp = new ComparisonPropagation();
             blocksToUse = cp.refineBlocks(blocks);
         }
@@ -558,7 +585,7 @@ public class BlocksPerformanceWriter {
         setType();
 
         List<AbstractBlock> blocksToUse = blocks;
-        if (!(blocks.get(0) instanceof DecomposedBlock)) {
+        if (!isDecomposed()) {
             final ComparisonPropagation cp = new ComparisonPropagation();
             blocksToUse = cp.refineBlocks(blocks);
         }
@@ -693,7 +720,7 @@ public class BlocksPerformanceWriter {
         setType();
 
         List<AbstractBlock> blocksToUse = blocks;
-        if (!(blocks.get(0) instanceof DecomposedBlock)) {
+        if (!isDecomposed()) {
             final ComparisonPropagation cp = new ComparisonPropagation();
             blocksToUse = cp.refineBlocks(blocks);
         }
@@ -842,7 +869,7 @@ public class BlocksPerformanceWriter {
         setType();
 
         List<AbstractBlock> blocksToUse = blocks;
-        if (!(blocks.get(0) instanceof DecomposedBlock)) {
+        if (!isDecomposed()) {
             final ComparisonPropagation cp = new ComparisonPropagation();
             blocksToUse = cp.refineBlocks(blocks);
         }
@@ -972,164 +999,52 @@ public class BlocksPerformanceWriter {
         setType();
 
         List<AbstractBlock> blocksToUse = blocks;
-        if (!(blocks.get(0) instanceof DecomposedBlock)) {
+        if (!isDecomposed()) {
             final ComparisonPropagation cp = new ComparisonPropagation();
             blocksToUse = cp.refineBlocks(blocks);
         }
-        StringBuilder sb = new StringBuilder();
 
-        String sparqlQueryString1 = "INSERT DATA { "
-                + "GRAPH " + GraphName + " { ";
-        sb.append(sparqlQueryString1);
-
-        abstractDP.resetDuplicates();
-        int counter0 = 0;
-        for (AbstractBlock block : blocksToUse) {
-            final ComparisonIterator iterator = block.getComparisonIterator();
-            while (iterator.hasNext()) {
-                final Comparison currentComparison = iterator.next();
-                final EntityProfile profile1 = profilesD1.get(currentComparison.getEntityId1());
-                final EntityProfile profile2 = isCleanCleanER ? profilesD2.get(currentComparison.getEntityId2()) : profilesD1.get(currentComparison.getEntityId2());
-
-                final int originalDuplicates = abstractDP.getNoOfDuplicates();
-                abstractDP.isSuperfluous(currentComparison.getEntityId1(), currentComparison.getEntityId2());
-                final int newDuplicates = abstractDP.getNoOfDuplicates();
-
-                counter0++;
-
-                sb.append("<obj/" + "record/").append(block.toString()).append("> ");
-                sb.append("<url1> ");
-                sb.append("\"").append(profile1.getEntityUrl().replace("&", "")).append("\".\n");
-
-                sb.append("<obj/" + "record/").append(block.toString()).append("> ");
-                sb.append("<url2> ");
-                sb.append("\"").append(profile2.getEntityUrl().replace("&", "")).append("\".\n");
+        // the triples are posted in chunks by concurrent update requests, while the next ones are produced
+        try (final SparqlUpdateWriter sparqlWriter = new SparqlUpdateWriter(endpointURL, GraphName, sparqlTriplesPerRequest, sparqlConcurrentRequests, SparqlUpdateWriter.DEFAULT_MAX_RETRIES)) {
+            abstractDP.resetDuplicates();
+            for (AbstractBlock block : blocksToUse) {
+                final ComparisonIterator iterator = block.getComparisonIterator();
+                while (iterator.hasNext()) {
+                    final Comparison currentComparison = iterator.next();
+                    final EntityProfile profile1 = profilesD1.get(currentComparison.getEntityId1());
+                    final EntityProfile profile2 = isCleanCleanER ? profilesD2.get(currentComparison.getEntityId2()) : profilesD1.get(currentComparison.getEntityId2());
 
-                sb.append("<obj/" + "record/").append(block.toString()).append("> ");
-                sb.append("<pairType> ");
-                if (originalDuplicates == newDuplicates) {
-                    sb.append("\"" + "FP" + "\".\n");//false positive
-                } else { // originalDuplicates < newDuplicates
-                    sb.append("\"" + "TP" + "\".\n"); // true positive
-                }
+                    final int originalDuplicates = abstractDP.getNoOfDuplicates();
+                    abstractDP.isSuperfluous(currentComparison.getEntityId1(), currentComparison.getEntityId2());
+                    final int newDuplicates = abstractDP.getNoOfDuplicates();
 
-                sb.append("<obj/" + "record/").append(block.toString()).append("> ");
-                sb.append("<Profile1> ");
-                sb.append("\"").append((profile1 + "").replace("&", "")).append("\".\n");
-
-                sb.append("<obj/" + "record/").append(block.toString()).append("> ");
-                sb.append("<Profile2> ");
-                sb.append("\"").append((profile2 + "").replace("&", "")).append("\".\n");
-
-                //execute query every 1000 steps
-                if (counter0 % 1000 == 0) {
-                    sb.append("}\n }");
-                    String sparqlQueryString = sb.toString();
-
-                    //System.out.println(sparqlQueryString);
-                    UpdateRequest update = UpdateFactory.create(sparqlQueryString);
-                    UpdateProcessor qexec = UpdateExecutionFactory.createRemote(update, endpointURL);
-                    qexec.execute();
-                    sb.setLength(0);
-                    sb.append(sparqlQueryString1);
+                    final String pairType = originalDuplicates == newDuplicates ? "FP" : "TP"; //false or true positive
+                    addSparqlRecord(sparqlWriter, block.toString(), profile1, profile2, pairType);
                 }
-
             }
-        }
-        if (counter0 % 1000 != 0) {
-            sb.append("}\n }");
-            String sparqlQueryString = sb.toString();
-
-            //System.out.println(sparqlQueryString);
-            UpdateRequest update = UpdateFactory.create(sparqlQueryString);
-            UpdateProcessor qexec = UpdateExecutionFactory.createRemote(update, endpointURL);
-            qexec.execute();
-            sb.setLength(0);
-            sb.append(sparqlQueryString1);
-        }
-
-        int counter1 = 0;
-        for (IdDuplicates duplicatesPair : abstractDP.getFalseNegatives()) {
-            final EntityProfile profile1 = profilesD1.get(duplicatesPair.getEntityId1());
-            final EntityProfile profile2 = isCleanCleanER ? profilesD2.get(duplicatesPair.getEntityId2()) : profilesD1.get(duplicatesPair.getEntityId2());
-
-            counter1++;
-
-            sb.append("<obj/" + "record/").append(duplicatesPair.toString()).append("> ");
-            sb.append("<url1> ");
-            sb.append("\"").append(profile1.getEntityUrl().replace("&", "")).append("\".\n");
-
-            sb.append("<obj/" + "record/").append(duplicatesPair.toString()).append("> ");
-            sb.append("<url2> ");
-            sb.append("\"").append(profile2.getEntityUrl().replace("&", "")).append("\".\n");
-
-            sb.append("<obj/" + "record/").append(duplicatesPair.toString()).append("> ");
-            sb.append("<pairType> ");
-            sb.append("\"" + "FN" + "\".\n"); // false negative
 
-            sb.append("<obj/" + "record/").append(duplicatesPair.toString()).append("> ");
-            sb.append("<Profile1> ");
-            sb.append("\"").append((profile1 + "").replace("&", "")).append("\".\n");
+            for (IdDuplicates duplicatesPair : abstractDP.getFalseNegatives()) {
+                final EntityProfile profile1 = profilesD1.get(duplicatesPair.getEntityId1());
+                final EntityProfile profile2 = isCleanCleanER ? profilesD2.get(duplicatesPair.getEntityId2()) : profilesD1.get(duplicatesPair.getEntityId2());
 
-            sb.append("<obj/" + "record/").append(duplicatesPair.toString()).append("> ");
-            sb.append("<Profile2> ");
-            sb.append("\"").append((profile2 + "").replace("&", "")).append("\".\n");
-
-            //execute query every 1000 steps
-            if (counter1 % 1000 == 0) {
-                sb.append("}\n }");
-                String sparqlQueryString = sb.toString();
-
-                //System.out.println(sparqlQueryString);
-                UpdateRequest update = UpdateFactory.create(sparqlQueryString);
-                UpdateProcessor qexec = UpdateExecutionFactory.createRemote(update, endpointURL);
-                qexec.execute();
-                sb.setLength(0);
-                sb.append(sparqlQueryString1);
+                addSparqlRecord(sparqlWriter, duplicatesPair.toString(), profile1, profile2, "FN"); // false negative
             }
-        }
-
-        if (counter1 % 1000 != 0) {
-            sb.append("}\n }");
-            String sparqlQueryString = sb.toString();
 
-            //System.out.println(sparqlQueryString);
-            UpdateRequest update = UpdateFactory.create(sparqlQueryString);
-            UpdateProcessor qexec = UpdateExecutionFactory.createRemote(update, endpointURL);
-            qexec.execute();
-            sb.setLength(0);
-            sb.append(sparqlQueryString1);
-        }
+            detectedDuplicates = abstractDP.getNoOfDuplicates();
+            pc = ((float) abstractDP.getNoOfDuplicates()) / abstractDP.getExistingDuplicates();
+            pq = abstractDP.getNoOfDuplicates() / aggregateCardinality;
+            if (0 < pc && 0 < pq) {
+                fMeasure = 2 * pc * pq / (pc + pq);
+            } else {
+                fMeasure = 0;
+            }
 
-        detectedDuplicates = abstractDP.getNoOfDuplicates();
-        pc = ((float) abstractDP.getNoOfDuplicates()) / abstractDP.getExistingDuplicates();
-        pq = abstractDP.getNoOfDuplicates() / aggregateCardinality;
-        if (0 < pc && 0 < pq) {
-            fMeasure = 2 * pc * pq / (pc + pq);
-        } else {
-            fMeasure = 0;
+            sparqlWriter.addTriple("<obj/" + "record/" + "STATS" + ">", "<PairsQuality>", Float.toString(pq));
+            sparqlWriter.addTriple("<obj/" + "record/" + "STATS" + ">", "<PairsCompletentess>", Float.toString(pc));
+            sparqlWriter.addTriple("<obj/" + "record/" + "STATS" + ">", "<F-Measure>", Float.toString(fMeasure));
+        } catch (IllegalStateException ex) {
+            Log.error("Error in SPARQL writing!", ex);
         }
-
-        sb.append("<obj/" + "record/" + "STATS" + "> ");
-        sb.append("<PairsQuality> ");
-        sb.append("\"").append(pq).append("\".\n");
-
-        sb.append("<obj/" + "record/" + "STATS" + "> ");
-        sb.append("<PairsCompletentess> ");
-        sb.append("\"").append(pc).append("\".\n");
-
-        sb.append("<obj/" + "record/" + "STATS" + "> ");
-        sb.append("<F-Measure> ");
-        sb.append("\"").append(fMeasure).append("\".\n");
-
-        sb.append("}\n }");
-        String sparqlQueryString = sb.toString();
-
-        //System.out.println(sparqlQueryString);
-        UpdateRequest update = UpdateFactory.create(sparqlQueryString);
-        UpdateProcessor qexec = UpdateExecutionFactory.createRemote(update, endpointURL);
-        qexec.execute();
-
     }
 
     public void printDetailedResultsToDB(List<EntityProfile> profilesD1, List<EntityProfile> profilesD2, String dbURL) throws FileNotFoundException {
@@ -1141,90 +1056,52 @@ public class BlocksPerformanceWriter {
         setType();
 
         List<AbstractBlock> blocksToUse = blocks;
-        if (!(blocks.get(0) instanceof DecomposedBlock)) {
+        if (!isDecomposed()) {
             final ComparisonPropagation cp = new ComparisonPropagation();
             blocksToUse = cp.refineBlocks(blocks);
         }
 
-        StringBuilder sb = new StringBuilder();
-        String dbquery1 = "INSERT INTO " + dbtable + " (url1, url2, pairtype, Profile1, Profile2) VALUES ";
-        sb.append(dbquery1);
-        abstractDP.resetDuplicates();
-        for (AbstractBlock block : blocksToUse) {
-            final ComparisonIterator iterator = block.getComparisonIterator();
-            while (iterator.hasNext()) {
-                final Comparison currentComparison = iterator.next();
-                final EntityProfile profile1 = profilesD1.get(currentComparison.getEntityId1());
-                final EntityProfile profile2 = isCleanCleanER ? profilesD2.get(currentComparison.getEntityId2()) : profilesD1.get(currentComparison.getEntityId2());
+        // the rows are streamed to the database in batches, instead of a single INSERT statement
+        try (final BatchedDBWriter dbWriter = BatchedDBWriter.getDBWriter(dbURL, dbuser, dbpassword, ssl, dbtable, dbBatchSize, dbBackgroundWriting)) {
+            if (dbWriter == null) {
+                return;
+            }
 
-                final int originalDuplicates = abstractDP.getNoOfDuplicates();
-                abstractDP.isSuperfluous(currentComparison.getEntityId1(), currentComparison.getEntityId2());
-                final int newDuplicates = abstractDP.getNoOfDuplicates();
+            abstractDP.resetDuplicates();
+            for (AbstractBlock block : blocksToUse) {
+                final ComparisonIterator iterator = block.getComparisonIterator();
+                while (iterator.hasNext()) {
+                    final Comparison currentComparison = iterator.next();
+                    final EntityProfile profile1 = profilesD1.get(currentComparison.getEntityId1());
+                    final EntityProfile profile2 = isCleanCleanER ? profilesD2.get(currentComparison.getEntityId2()) : profilesD1.get(currentComparison.getEntityId2());
 
-                sb.append("('").append(profile1.getEntityUrl()).append("', ");
-                sb.append("'").append(profile2.getEntityUrl()).append("', ");
+                    final int originalDuplicates = abstractDP.getNoOfDuplicates();
+                    abstractDP.isSuperfluous(currentComparison.getEntityId1(), currentComparison.getEntityId2());
+                    final int newDuplicates = abstractDP.getNoOfDuplicates();
 
-                if (originalDuplicates == newDuplicates) {
-                    sb.append("'" + "FP" + "', "); //false positive
-                } else { // originalDuplicates < newDuplicates
-                    sb.append("'" + "TP" + "', "); //true positive
+                    final String pairType = originalDuplicates == newDuplicates ? "FP" : "TP"; //false or true positive
+                    dbWriter.addRow(profile1.getEntityUrl(), profile2.getEntityUrl(), pairType, profile1.toString(), profile2.toString());
                 }
-                sb.append("'").append(profile1).append("', ");
-                sb.append("'").append(profile2).append("'), ");
             }
-        }
-
-        for (IdDuplicates duplicatesPair : abstractDP.getFalseNegatives()) {
-            final EntityProfile profile1 = profilesD1.get(duplicatesPair.getEntityId1());
-            final EntityProfile profile2 = isCleanCleanER ? profilesD2.get(duplicatesPair.getEntityId2()) : profilesD1.get(duplicatesPair.getEntityId2());
-
-            sb.append("('").append(profile1.getEntityUrl()).append("', ");
-            sb.append("'").append(profile2.getEntityUrl()).append("', ");
-            sb.append("'" + "FN" + "', "); // false negative
-            sb.append("'").append(profile1).append("', ");
-            sb.append("'").append(profile2).append("'), ");
-        }
-
-        detectedDuplicates = abstractDP.getNoOfDuplicates();
-        pc = ((float) abstractDP.getNoOfDuplicates()) / abstractDP.getExistingDuplicates();
-        pq = abstractDP.getNoOfDuplicates() / aggregateCardinality;
-        if (0 < pc && 0 < pq) {
-            fMeasure = 2 * pc * pq / (pc + pq);
-        } else {
-            fMeasure = 0;
-        }
 
-        sb.append("('").append(pq).append("', ");
-        sb.append("'").append(pc).append("', ");
-        sb.append("'").append(fMeasure).append("', ");
-        sb.append("'" + "NULL" + "', ");
-        sb.append("'" + "NULL" + "'); ");
+            for (IdDuplicates duplicatesPair : abstractDP.getFalseNegatives()) {
+                final EntityProfile profile1 = profilesD1.get(duplicatesPair.getEntityId1());
+                final EntityProfile profile2 = isCleanCleanER ? profilesD2.get(duplicatesPair.getEntityId2()) : profilesD1.get(duplicatesPair.getEntityId2());
 
-        String dbquery = sb.toString();
-
-        try {
-            if (dbuser == null) {
-                Log.error("Database user has not been set!");
-            }
-            if (dbpassword == null) {
-                Log.error("Database password has not been set!");
-            }
-            if (dbtable == null) {
-                Log.error("Database table has not been set!");
+                dbWriter.addRow(profile1.getEntityUrl(), profile2.getEntityUrl(), "FN", profile1.toString(), profile2.toString()); // false negative
             }
 
-            Connection conn = null;
-            if (dbURL.startsWith("mysql")) {
-                conn = getMySQLconnection(dbURL);
-            } else if (dbURL.startsWith("postgresql")) {
-                conn = getPostgreSQLconnection(dbURL);
+            detectedDuplicates = abstractDP.getNoOfDuplicates();
+            pc = ((float) abstractDP.getNoOfDuplicates()) / abstractDP.getExistingDuplicates();
+            pq = abstractDP.getNoOfDuplicates() / aggregateCardinality;
+            if (0 < pc && 0 < pq) {
+                fMeasure = 2 * pc * pq / (pc + pq);
             } else {
-                Log.error("Only MySQL and PostgreSQL are supported for the time being!");
+                fMeasure = 0;
             }
 
-            final Statement stmt = conn.createStatement();
-            stmt.executeQuery(dbquery);//retrieve the appropriate table
-        } catch (Exception ex) {
+            dbWriter.addRow(Float.toString(pq), Float.toString(pc), Float.toString(fMeasure), "NULL", "NULL");
+        } catch (SQLException ex) {
             Log.error("Error in db writing!", ex);
         }
     }
@@ -1240,7 +1117,7 @@ public class BlocksPerformanceWriter {
         StringBuilder sb = new StringBuilder();
 
         List<AbstractBlock> blocksToUse = blocks;
-        if (!(blocks.get(0) instanceof DecomposedBlock)) {
+        if (!isDecomposed()) {
             final ComparisonPropagation cp = new ComparisonPropagation();
             blocksToUse = cp.refineBlocks(blocks);
         }
@@ -1276,61 +1153,34 @@ public class BlocksPerformanceWriter {
         }
 
         setType(); // Clean-Clean or Dirty ER?
-        StringBuilder sb = new StringBuilder();
-        String dbquery1 = "INSERT INTO " + dbtable + " (url1, url2, pairtype, Profile1, Profile2) VALUES ";
-        sb.append(dbquery1);
-
-        List<AbstractBlock> blocksToUse = blocks;
-        if (!(blocks.get(0) instanceof DecomposedBlock)) {
-            final ComparisonPropagation cp = new ComparisonPropagation();
-            blocksToUse = cp.refineBlocks(blocks);
-        }
-
-        abstractDP.resetDuplicates();
-        for (AbstractBlock block : blocksToUse) {
-            final ComparisonIterator iterator = block.getComparisonIterator();
-            while (iterator.hasNext()) {
-                final Comparison comp = iterator.next();
-                abstractDP.isSuperfluous(comp.getEntityId1(), comp.getEntityId2());
+        // the rows are streamed to the database in batches, instead of a single INSERT statement
+        try (final BatchedDBWriter dbWriter = BatchedDBWriter.getDBWriter(dbURL, dbuser, dbpassword, ssl, dbtable, dbBatchSize, dbBackgroundWriting)) {
+            if (dbWriter == null) {
+                return;
             }
-        }
-
-        for (IdDuplicates duplicatesPair : abstractDP.getFalseNegatives()) {
-            final EntityProfile profile1 = profilesD1.get(duplicatesPair.getEntityId1());
-            final EntityProfile profile2 = isCleanCleanER ? profilesD2.get(duplicatesPair.getEntityId2()) : profilesD1.get(duplicatesPair.getEntityId2());
-
-            sb.append("('").append(profile1.getEntityUrl()).append("', ");
-            sb.append("'").append(profile2.getEntityUrl()).append("', ");
-            sb.append("'" + "FN" + "', "); // false negative
-            sb.append("'").append(profile1).append("', ");
-            sb.append("'").append(profile2).append("'), ");
-        }
-
-        String dbquery = sb.toString();
 
-        try {
-            if (dbuser == null) {
-                Log.error("Database user has not been set!");
-            }
-            if (dbpassword == null) {
-                Log.error("Database password has not been set!");
-            }
-            if (dbtable == null) {
-                Log.error("Database table has not been set!");
+            List<AbstractBlock> blocksToUse = blocks;
+            if (!isDecomposed()) {
+                final ComparisonPropagation cp = new ComparisonPropagation();
+                blocksToUse = cp.refineBlocks(blocks);
             }
 
-            Connection conn = null;
-            if (dbURL.startsWith("mysql")) {
-                conn = getMySQLconnection(dbURL);
-            } else if (dbURL.startsWith("postgresql")) {
-                conn = getPostgreSQLconnection(dbURL);
-            } else {
-                Log.error("Only MySQL and PostgreSQL are supported for the time being!");
+            abstractDP.resetDuplicates();
+            for (AbstractBlock block : blocksToUse) {
+                final ComparisonIterator iterator = block.getComparisonIterator();
+                while (iterator.hasNext()) {
+                    final Comparison comp = iterator.next();
+                    abstractDP.isSuperfluous(comp.getEntityId1(), comp.getEntityId2());
+                }
             }
 
-            final Statement stmt = conn.createStatement();
-            stmt.executeQuery(dbquery);//retrieve the appropriate table
-        } catch (Exception ex) {
+            for (IdDuplicates duplicatesPair : abstractDP.getFalseNegatives()) {
+                final EntityProfile profile1 = profilesD1.get(duplicatesPair.getEntityId1());
+                final EntityProfile profile2 = isCleanCleanER ? profilesD2.get(duplicatesPair.getEntityId2()) : profilesD1.get(duplicatesPair.getEntityId2());
+
+                dbWriter.addRow(profile1.getEntityUrl(), profile2.getEntityUrl(), "FN", profile1.toString(), profile2.toString()); // false negative
+            }
+        } catch (SQLException ex) {
             Log.error("Error in db writing!", ex);
         }
     }
@@ -1349,7 +1199,7 @@ public class BlocksPerformanceWriter {
         printWriter.println("xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\"");
         printWriter.println("xmlns:obj=\"https://www.w3schools.com/rdf/\">");
         List<AbstractBlock> blocksToUse = blocks;
-        if (!(blocks.get(0) instanceof DecomposedBlock)) {
+        if (!isDecomposed()) {
             final ComparisonPropagation cp = new ComparisonPropagation();
             blocksToUse = cp.refineBlocks(blocks);
         }
@@ -1415,7 +1265,7 @@ public class BlocksPerformanceWriter {
         String objString = "\", Object: \"";
 
         List<AbstractBlock> blocksToUse = blocks;
-        if (!(blocks.get(0) instanceof DecomposedBlock)) {
+        if (!isDecomposed()) {
             final ComparisonPropagation cp = new ComparisonPropagation();
             blocksToUse = cp.refineBlocks(blocks);
         }
@@ -1484,7 +1334,7 @@ public class BlocksPerformanceWriter {
         String xmlnsobj = "https://www.w3schools.com/rdf/";
 
         List<AbstractBlock> blocksToUse = blocks;
-        if (!(blocks.get(0) instanceof DecomposedBlock)) {
+        if (!isDecomposed()) {
             final ComparisonPropagation cp = new ComparisonPropagation();
             blocksToUse = cp.refineBlocks(blocks);
         }
@@ -1572,7 +1422,7 @@ public class BlocksPerformanceWriter {
 
         printWriter.println("<general>");
         List<AbstractBlock> blocksToUse = blocks;
-        if (!(blocks.get(0) instanceof DecomposedBlock)) {
+        if (!isDecomposed()) {
             final ComparisonPropagation cp = new ComparisonPropagation();
             blocksToUse = cp.refineBlocks(blocks);
         }
@@ -1629,14 +1479,9 @@ public class BlocksPerformanceWriter {
         }
 
         setType(); // Clean-Clean or Dirty ER?
-        StringBuilder sb = new StringBuilder();
-
-        String sparqlQueryString1 = "INSERT DATA { "
-                + "GRAPH " + GraphName + " { ";
-        sb.append(sparqlQueryString1);
 
         List<AbstractBlock> blocksToUse = blocks;
-        if (!(blocks.get(0) instanceof DecomposedBlock)) {
+        if (!isDecomposed()) {
             final ComparisonPropagation cp = new ComparisonPropagation();
             blocksToUse = cp.refineBlocks(blocks);
         }
@@ -1650,53 +1495,15 @@ public class BlocksPerformanceWriter {
             }
         }
 
-        int counter = 0;
-        for (IdDuplicates duplicatesPair : abstractDP.getFalseNegatives()) {
-            final EntityProfile profile1 = profilesD1.get(duplicatesPair.getEntityId1());
-            final EntityProfile profile2 = isCleanCleanER ? profilesD2.get(duplicatesPair.getEntityId2()) : profilesD1.get(duplicatesPair.getEntityId2());
+        try (final SparqlUpdateWriter sparqlWriter = new SparqlUpdateWriter(endpointURL, GraphName, sparqlTriplesPerRequest, sparqlConcurrentRequests, SparqlUpdateWriter.DEFAULT_MAX_RETRIES)) {
+            for (IdDuplicates duplicatesPair : abstractDP.getFalseNegatives()) {
+                final EntityProfile profile1 = profilesD1.get(duplicatesPair.getEntityId1());
+                final EntityProfile profile2 = isCleanCleanER ? profilesD2.get(duplicatesPair.getEntityId2()) : profilesD1.get(duplicatesPair.getEntityId2());
 
-            sb.append("<obj/" + "record/").append(duplicatesPair.toString()).append("> ");
-            sb.append("<url1> ");
-            sb.append("\"").append(profile1.getEntityUrl().replace("&", "")).append("\".\n");
-
-            sb.append("<obj/" + "record/").append(duplicatesPair.toString()).append("> ");
-            sb.append("<url2> ");
-            sb.append("\"").append(profile2.getEntityUrl().replace("&", "")).append("\".\n");
-
-            sb.append("<obj/" + "record/").append(duplicatesPair.toString()).append("> ");
-            sb.append("<pairType> ");
-            sb.append("\"" + "FN" + "\".\n"); // false negative
-
-            sb.append("<obj/" + "record/").append(duplicatesPair.toString()).append("> ");
-            sb.append("<Profile1> ");
-            sb.append("\"").append((profile1 + "").replace("&", "")).append("\".\n");
-
-            sb.append("<obj/" + "record/").append(duplicatesPair.toString()).append("> ");
-            sb.append("<Profile2> ");
-            sb.append("\"").append((profile2 + "").replace("&", "")).append("\".\n");
-
-            //execute query every 1000 steps
-            if (counter % 1000 == 0) {
-                sb.append("}\n }");
-                String sparqlQueryString = sb.toString();
-
-                //System.out.println(sparqlQueryString);
-                UpdateRequest update = UpdateFactory.create(sparqlQueryString);
-                UpdateProcessor qexec = UpdateExecutionFactory.createRemote(update, endpointURL);
-                qexec.execute();
-                sb.setLength(0);
-                sb.append(sparqlQueryString1);
+                addSparqlRecord(sparqlWriter, duplicatesPair.toString(), profile1, profile2, "FN"); // false negative
             }
-        }
-
-        if (counter % 1000 != 0) {
-            sb.append("}\n }");
-            String sparqlQueryString = sb.toString();
-
-            //System.out.println(sparqlQueryString);
-            UpdateRequest update = UpdateFactory.create(sparqlQueryString);
-            UpdateProcessor qexec = UpdateExecutionFactory.createRemote(update, endpointURL);
-            qexec.execute();
+        } catch (IllegalStateException ex) {
+            Log.error("Error in SPARQL writing!", ex);
         }
     }
 
@@ -1722,7 +1529,7 @@ public class BlocksPerformanceWriter {
             System.out.println("iBC_1\t:\t" + d1BlockAssignments / noOfD1Entities);
             System.out.println("iBC_2\t:\t" + d2BlockAssignments / noOfD2Entities);
             System.out.println("oBC\t:\t" + ((d1BlockAssignments + d2BlockAssignments) / (noOfD1Entities + noOfD2Entities)));
-        } else if (blocks.get(0) instanceof DecomposedBlock) {
+        } else if (isDecomposed()) {
             if (isCleanCleanER) {
                 System.out.println("Entities in blocks\t:\t" + (noOfD1Entities + noOfD2Entities));
             } else {
@@ -1759,7 +1566,7 @@ public class BlocksPerformanceWriter {
 
         setType();
         setComparisonsCardinality();
-        if (blocks.get(0) instanceof DecomposedBlock) {
+        if (isDecomposed()) {
             getDecomposedBlocksEntities();
         } else {
             entityIndex = new GroundTruthIndex(blocks, abstractDP.getDuplicates());
@@ -1768,7 +1575,7 @@ public class BlocksPerformanceWriter {
         if (blocks.get(0) instanceof BilateralBlock) {
             getBilateralBlockingCardinality();
         }
-        if (blocks.get(0) instanceof DecomposedBlock) {
+        if (isDecomposed()) {
             getDuplicatesOfDecomposedBlocks();
         } else {
             getDuplicatesWithEntityIndex();
@@ -1781,6 +1588,8 @@ public class BlocksPerformanceWriter {
         } else if (blocks.get(0) instanceof DecomposedBlock) {
             DecomposedBlock deBlock = (DecomposedBlock) blocks.get(0);
             isCleanCleanER = deBlock.isCleanCleanER();
+        } else if (blocks.get(0) instanceof PrunedBlockingGraph) {
+            isCleanCleanER = ((PrunedBlockingGraph) blocks.get(0)).isCleanCleanER();
         } else if (blocks.get(0) instanceof UnilateralBlock) {
             isCleanCleanER = false;
         }
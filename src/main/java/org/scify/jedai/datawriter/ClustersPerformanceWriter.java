@@ -22,10 +22,6 @@ import org.rdfhdt.hdt.hdt.HDTManager;
 import org.rdfhdt.hdt.options.HDTSpecification;
 import org.scify.jedai.utilities.datastructures.BilateralDuplicatePropagation;
 import org.scify.jedai.utilities.datastructures.AbstractDuplicatePropagation;
-import org.apache.jena.update.UpdateExecutionFactory;
-import org.apache.jena.update.UpdateFactory;
-import org.apache.jena.update.UpdateProcessor;
-import org.apache.jena.update.UpdateRequest;
 import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.EquivalenceCluster;
 
@@ -35,11 +31,8 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.Statement;
+import java.sql.SQLException;
 import java.util.List;
-import java.util.Properties;
 
 import org.scify.jedai.datamodel.EntityProfile;
 import org.scify.jedai.datamodel.IdDuplicates;
@@ -58,6 +51,10 @@ public class ClustersPerformanceWriter {
     private final AbstractDuplicatePropagation abstractDP;
     private final EquivalenceCluster[] entityClusters;
 
+    private boolean dbBackgroundWriting;
+    private int dbBatchSize;
+    private int sparqlConcurrentRequests;
+    private int sparqlTriplesPerRequest;
     private String dbpassword;
     private String dbtable;
     private String dbuser;
@@ -69,6 +66,10 @@ public class ClustersPerformanceWriter {
         abstractDP = adp;
         abstractDP.resetDuplicates();
         entityClusters = clusters;
+        dbBackgroundWriting = false;
+        dbBatchSize = BatchedDBWriter.DEFAULT_BATCH_SIZE;
+        sparqlConcurrentRequests = 1;
+        sparqlTriplesPerRequest = SparqlUpdateWriter.DEFAULT_TRIPLES_PER_REQUEST;
     }
 
     public void setPassword(String password) {
@@ -79,6 +80,16 @@ public class ClustersPerformanceWriter {
         this.dbtable = table;
     }
 
+    /**
+     * Sets the number of triples that are inserted into the SPARQL endpoint
+     * by every update request.
+     *
+     * @param triplesPerRequest the number of triples per request
+     */
+    public void setTriplesPerRequest(int triplesPerRequest) {
+        this.sparqlTriplesPerRequest = Math.max(1, triplesPerRequest);
+    }
+
     public void setUser(String user) {
         this.dbuser = user;
     }
@@ -87,6 +98,36 @@ public class ClustersPerformanceWriter {
         this.ssl = ssl;
     }
 
+    /**
+     * Determines whether the rows of the detailed results are inserted into
+     * the database by a background thread, while the next ones are produced.
+     *
+     * @param backgroundWriting true for writing on a background thread
+     */
+    public void setBackgroundWriting(boolean backgroundWriting) {
+        this.dbBackgroundWriting = backgroundWriting;
+    }
+
+    /**
+     * Sets the number of rows of the detailed results that are inserted into
+     * the database and committed together.
+     *
+     * @param batchSize the number of rows per batch
+     */
+    public void setBatchSize(int batchSize) {
+        this.dbBatchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Sets the number of update requests that are posted concurrently to the
+     * SPARQL endpoint by printDetailedResultsToSPARQL.
+     *
+     * @param concurrentRequests the maximum number of requests in flight
+     */
+    public void setConcurrentRequests(int concurrentRequests) {
+        this.sparqlConcurrentRequests = Math.max(1, concurrentRequests);
+    }
+
     public void setEndpointURL(String endpointURL) {
         this.endpointURL = endpointURL;
     }
@@ -95,33 +136,13 @@ public class ClustersPerformanceWriter {
         this.endpointGraph = endpointGraph;
     }
 
-    private Connection getMySQLconnection(String dbURL) throws IOException {
-        try {
-            Class.forName("com.mysql.jdbc.Driver");
-            return DriverManager.getConnection("jdbc:" + dbURL + "?user=" + dbuser + "&password=" + dbpassword);
-        } catch (Exception ex) {
-            Log.error("Error with database connection!", ex);
-            return null;
-        }
-    }
-
-    private Connection getPostgreSQLconnection(String dbURL) throws IOException {
-        try {
-            final Properties props = new Properties();
-            if (!(dbuser == null)) {
-                props.setProperty("user", dbuser);
-            }
-            if (!(dbpassword == null)) {
-                props.setProperty("password", dbpassword);
-            }
-            if (ssl) {
-                props.setProperty("ssl", "true");
-            }
-            return DriverManager.getConnection("jdbc:" + dbURL, props);
-        } catch (Exception ex) {
-            Log.error("Error with database connection!", ex);
-            return null;
-        }
+    private void addSparqlRecord(SparqlUpdateWriter sparqlWriter, String recordId, EntityProfile profile1, EntityProfile profile2, String pairType) {
+        final String subject = "<obj/" + "record/" + recordId + ">";
+        sparqlWriter.addTriple(subject, "<url1>", profile1.getEntityUrl().replace("&", ""));
+        sparqlWriter.addTriple(subject, "<url2>", profile2.getEntityUrl().replace("&", ""));
+        sparqlWriter.addTriple(subject, "<pairType>", pairType);
+        sparqlWriter.addTriple(subject, "<Profile1>", (profile1 + "").replace("&", ""));
+        sparqlWriter.addTriple(subject, "<Profile2>", (profile2 + "").replace("&", ""));
     }
 
     public int getDetectedDuplicates() {
@@ -945,289 +966,86 @@ public class ClustersPerformanceWriter {
             return;
         }
 
-        totalMatches = 0;
-        StringBuilder sb = new StringBuilder();
-
-        String sparqlQueryString1 = "INSERT DATA { "
-                + "GRAPH " + GraphName + " { ";
-        sb.append(sparqlQueryString1);
-
-        abstractDP.resetDuplicates();
-        if (abstractDP instanceof BilateralDuplicatePropagation) { // Clean-Clean ER
-            for (EquivalenceCluster cluster : entityClusters) {
-                if (cluster.getEntityIdsD1().size() != 1
-                        || cluster.getEntityIdsD2().size() != 1) {
-                    continue;
-                }
-
-                totalMatches++;
-
-                final int entityId1 = cluster.getEntityIdsD1().get(0);
-                final EntityProfile profile1 = profilesD1.get(entityId1);
-
-                final int entityId2 = cluster.getEntityIdsD2().get(0);
-                final EntityProfile profile2 = profilesD2.get(entityId2);
+        // the triples are posted in chunks by concurrent update requests, while the next ones are produced
+        try (final SparqlUpdateWriter sparqlWriter = new SparqlUpdateWriter(endpointURL, GraphName, sparqlTriplesPerRequest, sparqlConcurrentRequests, SparqlUpdateWriter.DEFAULT_MAX_RETRIES)) {
+            totalMatches = 0;
+            abstractDP.resetDuplicates();
+            if (abstractDP instanceof BilateralDuplicatePropagation) { // Clean-Clean ER
+                for (EquivalenceCluster cluster : entityClusters) {
+                    if (cluster.getEntityIdsD1().size() != 1
+                            || cluster.getEntityIdsD2().size() != 1) {
+                        continue;
+                    }
 
-                final int originalDuplicates = abstractDP.getNoOfDuplicates();
-                abstractDP.isSuperfluous(entityId1, entityId2);
-                final int newDuplicates = abstractDP.getNoOfDuplicates();
+                    totalMatches++;
 
-                sb.append("<obj/" + "record/").append(cluster.toString()).append("> ");
-                sb.append("<url1> ");
-                sb.append("\"").append(profile1.getEntityUrl().replace("&", "")).append("\".\n");
+                    final int entityId1 = cluster.getEntityIdsD1().get(0);
+                    final EntityProfile profile1 = profilesD1.get(entityId1);
 
-                sb.append("<obj/" + "record/").append(cluster.toString()).append("> ");
-                sb.append("<url2> ");
-                sb.append("\"").append(profile2.getEntityUrl().replace("&", "")).append("\".\n");
+                    final int entityId2 = cluster.getEntityIdsD2().get(0);
+                    final EntityProfile profile2 = profilesD2.get(entityId2);
 
-                sb.append("<obj/" + "record/").append(cluster.toString()).append("> ");
-                sb.append("<pairType> ");
-                if (originalDuplicates == newDuplicates) {
-                    sb.append("\"" + "FP" + "\".\n");//false positive
-                } else { // originalDuplicates < newDuplicates
-                    sb.append("\"" + "TP" + "\".\n"); // true positive
-                }
+                    final int originalDuplicates = abstractDP.getNoOfDuplicates();
+                    abstractDP.isSuperfluous(entityId1, entityId2);
+                    final int newDuplicates = abstractDP.getNoOfDuplicates();
 
-                sb.append("<obj/" + "record/").append(cluster.toString()).append("> ");
-                sb.append("<Profile1> ");
-                sb.append("\"").append((profile1 + "").replace("&", "")).append("\".\n");
-
-                sb.append("<obj/" + "record/").append(cluster.toString()).append("> ");
-                sb.append("<Profile2> ");
-                sb.append("\"").append((profile2 + "").replace("&", "")).append("\".\n");
-
-                //execute query every 1000 steps
-                if (totalMatches % 1000 == 0) {
-                    sb.append("}\n }");
-                    String sparqlQueryString = sb.toString();
-
-                    //System.out.println(sparqlQueryString);
-                    UpdateRequest update = UpdateFactory.create(sparqlQueryString);
-                    UpdateProcessor qexec = UpdateExecutionFactory.createRemote(update, endpointURL);
-                    qexec.execute();
-                    sb.setLength(0);
-                    sb.append(sparqlQueryString1);
+                    final String pairType = originalDuplicates == newDuplicates ? "FP" : "TP"; //false or true positive
+                    addSparqlRecord(sparqlWriter, cluster.toString(), profile1, profile2, pairType);
                 }
 
-            }
-
-            if (totalMatches % 1000 != 0) {
-                sb.append("}\n }");
-                String sparqlQueryString = sb.toString();
+                for (IdDuplicates duplicatesPair : abstractDP.getFalseNegatives()) {
+                    final EntityProfile profile1 = profilesD1.get(duplicatesPair.getEntityId1());
+                    final EntityProfile profile2 = profilesD2.get(duplicatesPair.getEntityId2());
 
-                //System.out.println(sparqlQueryString);
-                UpdateRequest update = UpdateFactory.create(sparqlQueryString);
-                UpdateProcessor qexec = UpdateExecutionFactory.createRemote(update, endpointURL);
-                qexec.execute();
-                sb.setLength(0);
-                sb.append(sparqlQueryString1);
-            }
-
-            int counter = 0;
-            for (IdDuplicates duplicatesPair : abstractDP.getFalseNegatives()) {
-                final EntityProfile profile1 = profilesD1.get(duplicatesPair.getEntityId1());
-                final EntityProfile profile2 = profilesD2.get(duplicatesPair.getEntityId2());
-
-                counter++;
-
-                sb.append("<obj/" + "record/").append(duplicatesPair.toString()).append("> ");
-                sb.append("<url1> ");
-                sb.append("\"").append(profile1.getEntityUrl().replace("&", "")).append("\".\n");
-
-                sb.append("<obj/" + "record/").append(duplicatesPair.toString()).append("> ");
-                sb.append("<url2> ");
-                sb.append("\"").append(profile2.getEntityUrl().replace("&", "")).append("\".\n");
-
-                sb.append("<obj/" + "record/").append(duplicatesPair.toString()).append("> ");
-                sb.append("<pairType> ");
-                sb.append("\"" + "FN" + "\".\n"); // false negative
-
-                sb.append("<obj/" + "record/").append(duplicatesPair.toString()).append("> ");
-                sb.append("<Profile1> ");
-                sb.append("\"").append((profile1 + "").replace("&", "")).append("\".\n");
-
-                sb.append("<obj/" + "record/").append(duplicatesPair.toString()).append("> ");
-                sb.append("<Profile2> ");
-                sb.append("\"").append((profile2 + "").replace("&", "")).append("\".\n");
-
-                //execute query every 1000 steps
-                if (counter % 1000 == 0) {
-                    sb.append("}\n }");
-                    String sparqlQueryString = sb.toString();
-
-                    //System.out.println(sparqlQueryString);
-                    UpdateRequest update = UpdateFactory.create(sparqlQueryString);
-                    UpdateProcessor qexec = UpdateExecutionFactory.createRemote(update, endpointURL);
-                    qexec.execute();
-                    sb.setLength(0);
-                    sb.append(sparqlQueryString1);
+                    addSparqlRecord(sparqlWriter, duplicatesPair.toString(), profile1, profile2, "FN"); // false negative
                 }
-            }
-
-            if (counter % 1000 != 0) {
-                sb.append("}\n }");
-                String sparqlQueryString = sb.toString();
-
-                //System.out.println(sparqlQueryString);
-                UpdateRequest update = UpdateFactory.create(sparqlQueryString);
-                UpdateProcessor qexec = UpdateExecutionFactory.createRemote(update, endpointURL);
-                qexec.execute();
-                sb.setLength(0);
-                sb.append(sparqlQueryString1);
-            }
-        } else { // Dirty ER
-            for (EquivalenceCluster cluster : entityClusters) {
-                final int[] duplicatesArray = cluster.getEntityIdsD1().toArray();
-
-                for (int i = 0; i < duplicatesArray.length; i++) {
-                    for (int j = i + 1; j < duplicatesArray.length; j++) {
-                        totalMatches++;
+            } else { // Dirty ER
+                for (EquivalenceCluster cluster : entityClusters) {
+                    final int[] duplicatesArray = cluster.getEntityIdsD1().toArray();
 
-                        final EntityProfile profile1 = profilesD1.get(duplicatesArray[i]);
-                        final EntityProfile profile2 = profilesD1.get(duplicatesArray[j]);
+                    for (int i = 0; i < duplicatesArray.length; i++) {
+                        for (int j = i + 1; j < duplicatesArray.length; j++) {
+                            totalMatches++;
 
-                        final int originalDuplicates = abstractDP.getNoOfDuplicates();
-                        abstractDP.isSuperfluous(duplicatesArray[i], duplicatesArray[j]);
-                        final int newDuplicates = abstractDP.getNoOfDuplicates();
-
-                        sb.append("<obj/" + "record/").append(cluster.toString()).append("> ");
-                        sb.append("<url1> ");
-                        sb.append("\"").append(profile1.getEntityUrl().replace("&", "")).append("\".\n");
+                            final EntityProfile profile1 = profilesD1.get(duplicatesArray[i]);
+                            final EntityProfile profile2 = profilesD1.get(duplicatesArray[j]);
 
-                        sb.append("<obj/" + "record/").append(cluster.toString()).append("> ");
-                        sb.append("<url2> ");
-                        sb.append("\"").append(profile2.getEntityUrl().replace("&", "")).append("\".\n");
+                            final int originalDuplicates = abstractDP.getNoOfDuplicates();
+                            abstractDP.isSuperfluous(duplicatesArray[i], duplicatesArray[j]);
+                            final int newDuplicates = abstractDP.getNoOfDuplicates();
 
-                        sb.append("<obj/" + "record/").append(cluster.toString()).append("> ");
-                        sb.append("<pairType> ");
-                        if (originalDuplicates == newDuplicates) {
-                            sb.append("\"" + "FP" + "\".\n");//false positive
-                        } else { // originalDuplicates < newDuplicates
-                            sb.append("\"" + "TP" + "\".\n"); // true positive
-                        }
-
-                        sb.append("<obj/" + "record/").append(cluster.toString()).append("> ");
-                        sb.append("<Profile1> ");
-                        sb.append("\"").append((profile1 + "").replace("&", "")).append("\".\n");
-
-                        sb.append("<obj/" + "record/").append(cluster.toString()).append("> ");
-                        sb.append("<Profile2> ");
-                        sb.append("\"").append((profile2 + "").replace("&", "")).append("\".\n");
-
-                        //execute query every 1000 steps
-                        if (totalMatches % 1000 == 0) {
-                            sb.append("}\n }");
-                            String sparqlQueryString = sb.toString();
-
-                            //System.out.println(sparqlQueryString);
-                            UpdateRequest update = UpdateFactory.create(sparqlQueryString);
-                            UpdateProcessor qexec = UpdateExecutionFactory.createRemote(update, endpointURL);
-                            qexec.execute();
-                            sb.setLength(0);
-                            sb.append(sparqlQueryString1);
+                            final String pairType = originalDuplicates == newDuplicates ? "FP" : "TP"; //false or true positive
+                            addSparqlRecord(sparqlWriter, cluster.toString(), profile1, profile2, pairType);
                         }
                     }
                 }
 
-                if (totalMatches % 1000 != 0) {
-                    sb.append("}\n }");
-                    String sparqlQueryString = sb.toString();
+                for (IdDuplicates duplicatesPair : abstractDP.getFalseNegatives()) {
+                    final EntityProfile profile1 = profilesD1.get(duplicatesPair.getEntityId1());
+                    final EntityProfile profile2 = profilesD1.get(duplicatesPair.getEntityId2());
 
-                    //System.out.println(sparqlQueryString);
-                    UpdateRequest update = UpdateFactory.create(sparqlQueryString);
-                    UpdateProcessor qexec = UpdateExecutionFactory.createRemote(update, endpointURL);
-                    qexec.execute();
-                    sb.setLength(0);
-                    sb.append(sparqlQueryString1);
+                    addSparqlRecord(sparqlWriter, duplicatesPair.toString(), profile1, profile2, "FN"); // false negative
                 }
             }
 
-            int counter2 = 0;
-
-            for (IdDuplicates duplicatesPair : abstractDP.getFalseNegatives()) {
-                final EntityProfile profile1 = profilesD1.get(duplicatesPair.getEntityId1());
-                final EntityProfile profile2 = profilesD1.get(duplicatesPair.getEntityId2());
-
-                counter2++;
-                sb.append("<obj/" + "record/").append(duplicatesPair.toString()).append("> ");
-                sb.append("<url1> ");
-                sb.append("\"").append(profile1.getEntityUrl().replace("&", "")).append("\".\n");
-
-                sb.append("<obj/" + "record/").append(duplicatesPair.toString()).append("> ");
-                sb.append("<url2> ");
-                sb.append("\"").append(profile2.getEntityUrl().replace("&", "")).append("\".\n");
-
-                sb.append("<obj/" + "record/").append(duplicatesPair.toString()).append("> ");
-                sb.append("<pairType> ");
-                sb.append("\"" + "FN" + "\".\n"); // false negative
-
-                sb.append("<obj/" + "record/").append(duplicatesPair.toString()).append("> ");
-                sb.append("<Profile1> ");
-                sb.append("\"").append((profile1 + "").replace("&", "")).append("\".\n");
-
-                sb.append("<obj/" + "record/").append(duplicatesPair.toString()).append("> ");
-                sb.append("<Profile2> ");
-                sb.append("\"").append((profile2 + "").replace("&", "")).append("\".\n");
-
-                //execute query every 1000 steps
-                if (counter2 % 1000 == 0) {
-                    sb.append("}\n }");
-                    String sparqlQueryString = sb.toString();
-
-                    //System.out.println(sparqlQueryString);
-                    UpdateRequest update = UpdateFactory.create(sparqlQueryString);
-                    UpdateProcessor qexec = UpdateExecutionFactory.createRemote(update, endpointURL);
-                    qexec.execute();
-                    sb.setLength(0);
-                    sb.append(sparqlQueryString1);
-                }
+            if (0 < totalMatches) {
+                precision = abstractDP.getNoOfDuplicates() / totalMatches;
+            } else {
+                precision = 0;
             }
-
-            if (counter2 % 1000 != 0) {
-                sb.append("}\n }");
-                String sparqlQueryString = sb.toString();
-
-                //System.out.println(sparqlQueryString);
-                UpdateRequest update = UpdateFactory.create(sparqlQueryString);
-                UpdateProcessor qexec = UpdateExecutionFactory.createRemote(update, endpointURL);
-                qexec.execute();
-                sb.setLength(0);
-                sb.append(sparqlQueryString1);
+            recall = ((float) abstractDP.getNoOfDuplicates()) / abstractDP.getExistingDuplicates();
+            if (0 < precision && 0 < recall) {
+                fMeasure = 2 * precision * recall / (precision + recall);
+            } else {
+                fMeasure = 0;
             }
-        }
 
-        if (0 < totalMatches) {
-            precision = abstractDP.getNoOfDuplicates() / totalMatches;
-        } else {
-            precision = 0;
-        }
-        recall = ((float) abstractDP.getNoOfDuplicates()) / abstractDP.getExistingDuplicates();
-        if (0 < precision && 0 < recall) {
-            fMeasure = 2 * precision * recall / (precision + recall);
-        } else {
-            fMeasure = 0;
+            sparqlWriter.addTriple("<obj/" + "record/" + "STATS" + ">", "<Precision>", Float.toString(precision));
+            sparqlWriter.addTriple("<obj/" + "record/" + "STATS" + ">", "<Recall>", Float.toString(recall));
+            sparqlWriter.addTriple("<obj/" + "record/" + "STATS" + ">", "<F-Measure>", Float.toString(fMeasure));
+        } catch (IllegalStateException ex) {
+            Log.error("Error in SPARQL writing!", ex);
         }
-
-        sb.append("<obj/" + "record/" + "STATS" + "> ");
-        sb.append("<Precision> ");
-        sb.append("\"").append(precision).append("\".\n");
-
-        sb.append("<obj/" + "record/" + "STATS" + "> ");
-        sb.append("<Recall> ");
-        sb.append("\"").append(recall).append("\".\n");
-
-        sb.append("<obj/" + "record/" + "STATS" + "> ");
-        sb.append("<F-Measure> ");
-        sb.append("\"").append(fMeasure).append("\".\n");
-
-        sb.append("}\n }");
-        String sparqlQueryString = sb.toString();
-
-        //System.out.println(sparqlQueryString);
-        UpdateRequest update = UpdateFactory.create(sparqlQueryString);
-        UpdateProcessor qexec = UpdateExecutionFactory.createRemote(update, endpointURL);
-        qexec.execute();
-
     }
 
     public void printDetailedResultsToXML(List<EntityProfile> profilesD1, List<EntityProfile> profilesD2, String outputFile) throws FileNotFoundException {
@@ -1448,137 +1266,86 @@ public class ClustersPerformanceWriter {
             return;
         }
 
-        totalMatches = 0;
-        StringBuilder sb = new StringBuilder();
-        String dbquery1 = "INSERT INTO " + dbtable + " (url1, url2, pairtype, Profile1, Profile2) VALUES ";
-        sb.append(dbquery1);
-
-        abstractDP.resetDuplicates();
-        if (abstractDP instanceof BilateralDuplicatePropagation) { // Clean-Clean ER
-            for (EquivalenceCluster cluster : entityClusters) {
-                if (cluster.getEntityIdsD1().size() != 1
-                        || cluster.getEntityIdsD2().size() != 1) {
-                    continue;
-                }
+        // the rows are streamed to the database in batches, instead of a single INSERT statement
+        try (final BatchedDBWriter dbWriter = BatchedDBWriter.getDBWriter(dbURL, dbuser, dbpassword, ssl, dbtable, dbBatchSize, dbBackgroundWriting)) {
+            if (dbWriter == null) {
+                return;
+            }
 
-                totalMatches++;
+            totalMatches = 0;
+            abstractDP.resetDuplicates();
+            if (abstractDP instanceof BilateralDuplicatePropagation) { // Clean-Clean ER
+                for (EquivalenceCluster cluster : entityClusters) {
+                    if (cluster.getEntityIdsD1().size() != 1
+                            || cluster.getEntityIdsD2().size() != 1) {
+                        continue;
+                    }
 
-                final int entityId1 = cluster.getEntityIdsD1().get(0);
-                final EntityProfile profile1 = profilesD1.get(entityId1);
+                    totalMatches++;
 
-                final int entityId2 = cluster.getEntityIdsD2().get(0);
-                final EntityProfile profile2 = profilesD2.get(entityId2);
+                    final int entityId1 = cluster.getEntityIdsD1().get(0);
+                    final EntityProfile profile1 = profilesD1.get(entityId1);
 
-                final int originalDuplicates = abstractDP.getNoOfDuplicates();
-                abstractDP.isSuperfluous(entityId1, entityId2);
-                final int newDuplicates = abstractDP.getNoOfDuplicates();
+                    final int entityId2 = cluster.getEntityIdsD2().get(0);
+                    final EntityProfile profile2 = profilesD2.get(entityId2);
 
-                sb.append("('").append(profile1.getEntityUrl()).append("', ");
-                sb.append("'").append(profile2.getEntityUrl()).append("', ");
+                    final int originalDuplicates = abstractDP.getNoOfDuplicates();
+                    abstractDP.isSuperfluous(entityId1, entityId2);
+                    final int newDuplicates = abstractDP.getNoOfDuplicates();
 
-                if (originalDuplicates == newDuplicates) {
-                    sb.append("'" + "FP" + "', "); //false positive
-                } else { // originalDuplicates < newDuplicates
-                    sb.append("'" + "TP" + "', "); //true positive
+                    final String pairType = originalDuplicates == newDuplicates ? "FP" : "TP"; //false or true positive
+                    dbWriter.addRow(profile1.getEntityUrl(), profile2.getEntityUrl(), pairType, profile1.toString(), profile2.toString());
                 }
-                sb.append("'").append(profile1).append("', ");
-                sb.append("'").append(profile2).append("'), ");
-            }
 
-            for (IdDuplicates duplicatesPair : abstractDP.getFalseNegatives()) {
-                final EntityProfile profile1 = profilesD1.get(duplicatesPair.getEntityId1());
-                final EntityProfile profile2 = profilesD2.get(duplicatesPair.getEntityId2());
+                for (IdDuplicates duplicatesPair : abstractDP.getFalseNegatives()) {
+                    final EntityProfile profile1 = profilesD1.get(duplicatesPair.getEntityId1());
+                    final EntityProfile profile2 = profilesD2.get(duplicatesPair.getEntityId2());
 
-                sb.append("('").append(profile1.getEntityUrl()).append("', ");
-                sb.append("'").append(profile2.getEntityUrl()).append("', ");
-                sb.append("'" + "FN" + "', "); // false negative
-                sb.append("'").append(profile1).append("', ");
-                sb.append("'").append(profile2).append("'), ");
-            }
-        } else { // Dirty ER
-            for (EquivalenceCluster cluster : entityClusters) {
-                final int[] duplicatesArray = cluster.getEntityIdsD1().toArray();
+                    dbWriter.addRow(profile1.getEntityUrl(), profile2.getEntityUrl(), "FN", profile1.toString(), profile2.toString()); // false negative
+                }
+            } else { // Dirty ER
+                for (EquivalenceCluster cluster : entityClusters) {
+                    final int[] duplicatesArray = cluster.getEntityIdsD1().toArray();
 
-                for (int i = 0; i < duplicatesArray.length; i++) {
-                    for (int j = i + 1; j < duplicatesArray.length; j++) {
-                        totalMatches++;
+                    for (int i = 0; i < duplicatesArray.length; i++) {
+                        for (int j = i + 1; j < duplicatesArray.length; j++) {
+                            totalMatches++;
 
-                        final EntityProfile profile1 = profilesD1.get(duplicatesArray[i]);
-                        final EntityProfile profile2 = profilesD1.get(duplicatesArray[j]);
-
-                        final int originalDuplicates = abstractDP.getNoOfDuplicates();
-                        abstractDP.isSuperfluous(duplicatesArray[i], duplicatesArray[j]);
-                        final int newDuplicates = abstractDP.getNoOfDuplicates();
+                            final EntityProfile profile1 = profilesD1.get(duplicatesArray[i]);
+                            final EntityProfile profile2 = profilesD1.get(duplicatesArray[j]);
 
-                        sb.append("('").append(profile1.getEntityUrl()).append("', ");
-                        sb.append("'").append(profile2.getEntityUrl()).append("', ");
+                            final int originalDuplicates = abstractDP.getNoOfDuplicates();
+                            abstractDP.isSuperfluous(duplicatesArray[i], duplicatesArray[j]);
+                            final int newDuplicates = abstractDP.getNoOfDuplicates();
 
-                        if (originalDuplicates == newDuplicates) {
-                            sb.append("'" + "FP" + "', "); //false positive
-                        } else { // originalDuplicates < newDuplicates
-                            sb.append("'" + "TP" + "', "); //true positive
+                            final String pairType = originalDuplicates == newDuplicates ? "FP" : "TP"; //false or true positive
+                            dbWriter.addRow(profile1.getEntityUrl(), profile2.getEntityUrl(), pairType, profile1.toString(), profile2.toString());
                         }
-                        sb.append("'").append(profile1).append("', ");
-                        sb.append("'").append(profile2).append("'), ");
                     }
                 }
-            }
 
-            for (IdDuplicates duplicatesPair : abstractDP.getFalseNegatives()) {
-                final EntityProfile profile1 = profilesD1.get(duplicatesPair.getEntityId1());
-                final EntityProfile profile2 = profilesD1.get(duplicatesPair.getEntityId2());
+                for (IdDuplicates duplicatesPair : abstractDP.getFalseNegatives()) {
+                    final EntityProfile profile1 = profilesD1.get(duplicatesPair.getEntityId1());
+                    final EntityProfile profile2 = profilesD1.get(duplicatesPair.getEntityId2());
 
-                sb.append("('").append(profile1.getEntityUrl()).append("', ");
-                sb.append("'").append(profile2.getEntityUrl()).append("', ");
-                sb.append("'" + "FN" + "', "); // false negative
-                sb.append("'").append(profile1).append("', ");
-                sb.append("'").append(profile2).append("'), ");
+                    dbWriter.addRow(profile1.getEntityUrl(), profile2.getEntityUrl(), "FN", profile1.toString(), profile2.toString()); // false negative
+                }
             }
-        }
 
-        if (0 < totalMatches) {
-            precision = abstractDP.getNoOfDuplicates() / totalMatches;
-        } else {
-            precision = 0;
-        }
-        recall = ((float) abstractDP.getNoOfDuplicates()) / abstractDP.getExistingDuplicates();
-        if (0 < precision && 0 < recall) {
-            fMeasure = 2 * precision * recall / (precision + recall);
-        } else {
-            fMeasure = 0;
-        }
-
-        sb.append("('").append(precision).append("', ");
-        sb.append("'").append(recall).append("', ");
-        sb.append("'").append(fMeasure).append("', ");
-        sb.append("'" + "NULL" + "', ");
-        sb.append("'" + "NULL" + "'); ");
-
-        String dbquery = sb.toString();
-
-        try {
-            if (dbuser == null) {
-                Log.error("Database user has not been set!");
-            }
-            if (dbpassword == null) {
-                Log.error("Database password has not been set!");
-            }
-            if (dbtable == null) {
-                Log.error("Database table has not been set!");
+            if (0 < totalMatches) {
+                precision = abstractDP.getNoOfDuplicates() / totalMatches;
+            } else {
+                precision = 0;
             }
-
-            Connection conn = null;
-            if (dbURL.startsWith("mysql")) {
-                conn = getMySQLconnection(dbURL);
-            } else if (dbURL.startsWith("postgresql")) {
-                conn = getPostgreSQLconnection(dbURL);
+            recall = ((float) abstractDP.getNoOfDuplicates()) / abstractDP.getExistingDuplicates();
+            if (0 < precision && 0 < recall) {
+                fMeasure = 2 * precision * recall / (precision + recall);
             } else {
-                Log.error("Only MySQL and PostgreSQL are supported for the time being!");
+                fMeasure = 0;
             }
 
-            final Statement stmt = conn.createStatement();
-            stmt.executeQuery(dbquery);//retrieve the appropriate table
-        } catch (Exception ex) {
+            dbWriter.addRow(Float.toString(precision), Float.toString(recall), Float.toString(fMeasure), "NULL", "NULL");
+        } catch (SQLException ex) {
             Log.error("Error in db writing!", ex);
         }
     }
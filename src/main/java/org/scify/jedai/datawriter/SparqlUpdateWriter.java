@@ -0,0 +1,201 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.datawriter;
+
+import com.esotericsoftware.minlog.Log;
+import org.apache.jena.atlas.web.HttpException;
+import org.apache.jena.update.UpdateExecutionFactory;
+import org.apache.jena.update.UpdateFactory;
+import org.apache.jena.update.UpdateRequest;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Posts triples with literal objects to a SPARQL endpoint through INSERT DATA
+ * requests of the given number of triples. The requests are executed by a
+ * pool of threads, so that several of them are in flight while the next ones
+ * are being produced; at most twice as many requests as threads are pending,
+ * which bounds the memory consumption. Requests failing due to connection
+ * errors, timeouts, throttling or server errors are retried with exponential
+ * backoff.
+ *
+ * @author gap2
+ */
+public class SparqlUpdateWriter implements AutoCloseable {
+
+    public final static int DEFAULT_MAX_RETRIES = 3;
+    public final static int DEFAULT_TRIPLES_PER_REQUEST = 5000;
+
+    private final static long RETRY_DELAY = 500; // in milliseconds, doubled after every attempt
+
+    private final int maxRetries;
+    private final int triplesPerRequest;
+    private int pendingTriples;
+    private long endTime;
+    private final long startTime;
+
+    private final AtomicLong writtenTriples;
+    private final ExecutorService executor;
+    private volatile RuntimeException failure;
+    private final Semaphore availableSlots;
+    private final String endpointURL;
+    private final String requestPrefix;
+    private final StringBuilder request;
+
+    public SparqlUpdateWriter(String endpointURL, String graphName, int triplesPerRequest, int noOfConcurrentRequests, int maxRetries) {
+        this.endpointURL = endpointURL;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.triplesPerRequest = Math.max(1, triplesPerRequest);
+
+        int noOfThreads = Math.max(1, noOfConcurrentRequests);
+        executor = Executors.newFixedThreadPool(noOfThreads);
+        availableSlots = new Semaphore(2 * noOfThreads);
+
+        requestPrefix = "INSERT DATA { " + "GRAPH " + graphName + " { ";
+        request = new StringBuilder(requestPrefix);
+        writtenTriples = new AtomicLong();
+        startTime = System.currentTimeMillis();
+        endTime = -1;
+    }
+
+    /**
+     * Adds the triple "subject predicate "object"." to the current request,
+     * which is posted as soon as it reaches the given number of triples.
+     *
+     * @param subject the subject in SPARQL syntax, e.g., &lt;obj/record/1&gt;
+     * @param predicate the predicate in SPARQL syntax, e.g., &lt;url1&gt;
+     * @param object the value of the literal object
+     */
+    public void addTriple(String subject, String predicate, String object) {
+        request.append(subject).append(" ").append(predicate).append(" ");
+        request.append("\"").append(object).append("\".\n");
+
+        pendingTriples++;
+        if (triplesPerRequest <= pendingTriples) {
+            flush();
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new IllegalStateException("Error in SPARQL update!", failure);
+        }
+    }
+
+    /**
+     * Posts the remaining triples and waits for all pending requests.
+     *
+     * @throws IllegalStateException if any request failed after all retries
+     */
+    @Override
+    public void close() {
+        try {
+            flush();
+        } finally {
+            executor.shutdown();
+        }
+
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+            throw new IllegalStateException("Interrupted while waiting for the SPARQL updates!", ex);
+        }
+        endTime = System.currentTimeMillis();
+
+        checkFailure();
+        Log.info("Posted " + writtenTriples.get() + " triples to " + endpointURL + " at " + getTriplesPerSecond() + " triples/sec");
+    }
+
+    private void execute(String requestText, int noOfTriples) {
+        final UpdateRequest update = UpdateFactory.create(requestText);
+        for (int attempt = 0;; attempt++) {
+            try {
+                UpdateExecutionFactory.createRemote(update, endpointURL).execute();
+                writtenTriples.addAndGet(noOfTriples);
+                return;
+            } catch (HttpException ex) {
+                if (maxRetries <= attempt || !isTransient(ex.getResponseCode())) {
+                    throw ex;
+                }
+                Log.warn("SPARQL update failed (" + ex.getMessage() + "), retrying...");
+            }
+
+            try {
+                Thread.sleep(RETRY_DELAY << attempt);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while retrying a SPARQL update!", ex);
+            }
+        }
+    }
+
+    private void flush() {
+        if (pendingTriples == 0) {
+            return;
+        }
+
+        request.append("}\n }");
+        final String requestText = request.toString();
+        final int noOfTriples = pendingTriples;
+        request.setLength(0);
+        request.append(requestPrefix);
+        pendingTriples = 0;
+
+        checkFailure();
+        try {
+            availableSlots.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing a SPARQL update!", ex);
+        }
+
+        executor.submit(() -> {
+            try {
+                if (failure == null) {
+                    execute(requestText, noOfTriples);
+                }
+            } catch (RuntimeException ex) {
+                failure = ex;
+            } finally {
+                availableSlots.release();
+            }
+        });
+    }
+
+    public long getNoOfTriples() {
+        return writtenTriples.get();
+    }
+
+    /**
+     * @return the throughput of the writer, from its creation until it is
+     * closed, or until now, if it is still open
+     */
+    public double getTriplesPerSecond() {
+        long currentTime = endTime < 0 ? System.currentTimeMillis() : endTime;
+        return 1000.0 * writtenTriples.get() / Math.max(1, currentTime - startTime);
+    }
+
+    // connection errors (no response code), timeouts, throttling and server errors
+    private static boolean isTransient(int responseCode) {
+        return responseCode <= 0 || responseCode == 408 || responseCode == 429 || 500 <= responseCode;
+    }
+}
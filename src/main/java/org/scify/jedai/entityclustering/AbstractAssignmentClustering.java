@@ -0,0 +1,208 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.entityclustering;
+
+import org.scify.jedai.datamodel.SimilarityPairs;
+import org.scify.jedai.utilities.ParallelRangeExecutor;
+import org.scify.jedai.utilities.graph.SparseAssignment;
+import org.scify.jedai.utilities.graph.UnionFind;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The common functionality of the clustering methods that solve the assignment
+ * problem between the entities of D1 and D2. By default, they work on a dense
+ * similarity matrix of the two datasets. Optionally, they solve it exactly on
+ * the thresholded similarity graph, instead: every connected component forms
+ * an independent assignment problem, which is solved through a sparse
+ * Hungarian method, with the components distributed among threads.
+ *
+ * @author gap2
+ */
+public abstract class AbstractAssignmentClustering extends AbstractCcerEntityClustering {
+
+    protected boolean sparseAssignment;
+
+    protected int noOfThreads;
+
+    public AbstractAssignmentClustering(float simTh) {
+        super(simTh);
+        noOfThreads = 1;
+        sparseAssignment = false;
+    }
+
+    // solves the assignment problem of the given component, adding the matched pairs to the given list
+    private void assignComponent(int[] edgeIds, int firstEdge, int lastEdge, int[] localIds, SimilarityPairs simPairs, TIntList matchedPairs) {
+        final int[] entityIds1 = simPairs.getEntityIds1();
+        final int[] entityIds2 = simPairs.getEntityIds2();
+        final float[] similarities = simPairs.getSimilarities();
+        if (lastEdge - firstEdge == 1) {
+            matchedPairs.add(entityIds1[edgeIds[firstEdge]]);
+            matchedPairs.add(entityIds2[edgeIds[firstEdge]]);
+            return;
+        }
+
+        // the entities of D1 form the rows and those of D2 the columns
+        int noOfRows = 0;
+        int noOfColumns = 0;
+        final int noOfEdges = lastEdge - firstEdge;
+        final int[] rowEntities = new int[noOfEdges];
+        final int[] columnEntities = new int[noOfEdges];
+        final int[] rowStarts = new int[noOfEdges + 1];
+        for (int i = firstEdge; i < lastEdge; i++) {
+            int entityId1 = entityIds1[edgeIds[i]];
+            int entityId2 = entityIds2[edgeIds[i]] + datasetLimit;
+            if (localIds[entityId1] < 0) {
+                localIds[entityId1] = noOfRows;
+                rowEntities[noOfRows++] = entityId1;
+            }
+            if (localIds[entityId2] < 0) {
+                localIds[entityId2] = noOfColumns;
+                columnEntities[noOfColumns++] = entityId2 - datasetLimit;
+            }
+            rowStarts[localIds[entityId1] + 1]++;
+        }
+
+        for (int row = 0; row < noOfRows; row++) {
+            rowStarts[row + 1] += rowStarts[row];
+        }
+
+        final int[] nextPosition = new int[noOfRows];
+        final int[] columnIds = new int[noOfEdges];
+        final float[] weights = new float[noOfEdges];
+        for (int i = firstEdge; i < lastEdge; i++) {
+            int row = localIds[entityIds1[edgeIds[i]]];
+            int position = rowStarts[row] + nextPosition[row]++;
+            columnIds[position] = localIds[entityIds2[edgeIds[i]] + datasetLimit];
+            weights[position] = similarities[edgeIds[i]];
+        }
+
+        final int[] assignment = new SparseAssignment(noOfRows, noOfColumns, rowStarts, columnIds, weights).solve();
+        for (int row = 0; row < noOfRows; row++) {
+            if (0 <= assignment[row]) {
+                matchedPairs.add(rowEntities[row]);
+                matchedPairs.add(columnEntities[assignment[row]]);
+            }
+        }
+    }
+
+    /**
+     * Solves the assignment problem on the thresholded similarity graph and
+     * adds the selected pairs to the similarity graph. The components of the
+     * graph are processed in parallel, but the pairs are added in the order of
+     * the components, so that the output does not depend on the number of
+     * threads.
+     *
+     * @param simPairs the similarities of the input comparisons
+     */
+    protected void getSparseAssignment(SimilarityPairs simPairs) {
+        final int[] entityIds1 = simPairs.getEntityIds1();
+        final int[] entityIds2 = simPairs.getEntityIds2();
+        final float[] similarities = simPairs.getSimilarities();
+
+        int noOfEdges = 0;
+        final UnionFind components = new UnionFind(noOfEntities);
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            if (threshold < similarities[i]) {
+                components.union(entityIds1[i], entityIds2[i] + datasetLimit);
+                noOfEdges++;
+            }
+        }
+
+        // the edges are grouped by component through a counting sort on the root of their D1 entity
+        final int[] componentStarts = new int[noOfEntities + 1];
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            if (threshold < similarities[i]) {
+                componentStarts[components.find(entityIds1[i]) + 1]++;
+            }
+        }
+
+        final TIntList roots = new TIntArrayList();
+        for (int root = 0; root < noOfEntities; root++) {
+            if (0 < componentStarts[root + 1]) {
+                roots.add(root);
+            }
+            componentStarts[root + 1] += componentStarts[root];
+        }
+
+        final int[] edgeIds = new int[noOfEdges];
+        final int[] nextPosition = new int[noOfEntities];
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            if (threshold < similarities[i]) {
+                int root = components.find(entityIds1[i]);
+                edgeIds[componentStarts[root] + nextPosition[root]++] = i;
+            }
+        }
+
+        // every entity belongs to a single component, so the threads write disjoint cells
+        final int[] localIds = nextPosition;
+        Arrays.fill(localIds, -1);
+        final List<TIntList> partialPairs = ParallelRangeExecutor.execute(noOfThreads, 4 * noOfThreads, roots.size(), (partitionId, startId, endId) -> {
+            final TIntList matchedPairs = new TIntArrayList();
+            for (int i = startId; i < endId; i++) {
+                int root = roots.get(i);
+                assignComponent(edgeIds, componentStarts[root], componentStarts[root + 1], localIds, simPairs, matchedPairs);
+            }
+            return matchedPairs;
+        });
+
+        for (TIntList matchedPairs : partialPairs) {
+            for (int i = 0; i < matchedPairs.size(); i += 2) {
+                int entityId1 = matchedPairs.get(i);
+                int entityId2 = matchedPairs.get(i + 1) + datasetLimit;
+                similarityGraph.addEdge(entityId1, entityId2);
+                matchedIds.add(entityId1);
+                matchedIds.add(entityId2);
+            }
+        }
+    }
+
+    public int getNoOfThreads() {
+        return noOfThreads;
+    }
+
+    public boolean isSparseAssignment() {
+        return sparseAssignment;
+    }
+
+    /**
+     * Sets the number of threads that solve the assignment problems of the
+     * connected components. It applies only to the sparse assignment.
+     *
+     * @param noOfThreads the number of threads that process disjoint components
+     */
+    public void setNoOfThreads(int noOfThreads) {
+        this.noOfThreads = Math.max(1, noOfThreads);
+    }
+
+    /**
+     * Determines how the assignment problem is solved. The dense matrix of the
+     * default approach requires memory quadratic in the size of the datasets.
+     * The sparse one requires memory linear in the number of comparisons with
+     * a similarity above the threshold, and it finds the assignment of maximum
+     * total similarity.
+     *
+     * @param sparseAssignment true for solving the assignment problem per
+     * connected component of the similarity graph, false for the dense matrix
+     */
+    public void setSparseAssignment(boolean sparseAssignment) {
+        this.sparseAssignment = sparseAssignment;
+    }
+}
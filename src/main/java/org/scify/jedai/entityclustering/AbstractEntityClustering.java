@@ -141,6 +141,12 @@ public abstract class AbstractEntityClustering implements IEntityClustering {
     }
 
     protected void initializeData(SimilarityPairs simPairs) {
+        initializeEntities(simPairs);
+        similarityGraph = new UndirectedGraph(noOfEntities);
+    }
+
+    // sets the number of entities and the offset of D2 in the similarity graph, without allocating it
+    protected void initializeEntities(SimilarityPairs simPairs) {
         Log.info("Applying " + getMethodName() + " with the following configuration : " + getMethodConfiguration());
         
 //        simPairs.normalizeSimilarities();
@@ -155,8 +161,6 @@ public abstract class AbstractEntityClustering implements IEntityClustering {
             datasetLimit = 0;
             noOfEntities = Math.max(maxEntity1, maxEntity2) + 1;
         }
-
-        similarityGraph = new UndirectedGraph(noOfEntities);
     }
 
     @Override
@@ -16,18 +16,16 @@
 package org.scify.jedai.entityclustering;
 
 import com.esotericsoftware.minlog.Log;
-import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.EquivalenceCluster;
 import org.scify.jedai.datamodel.SimilarityPairs;
 
-import java.util.Iterator;
 import java.util.Random;
 
 /**
  *
  * @author Manos
  */
-public class BestAssignmentHeuristic extends AbstractCcerEntityClustering {
+public class BestAssignmentHeuristic extends AbstractAssignmentClustering {
 
     protected float[][] matrix; // inverted similarity matrix (cost matrix)
 
@@ -74,13 +72,19 @@ public class BestAssignmentHeuristic extends AbstractCcerEntityClustering {
             return null; //the method is only applicable to Clean-Clean ER
         }
 
-        final Iterator<Comparison> iterator = simPairs.getPairIterator();
+        if (sparseAssignment) {
+            getSparseAssignment(simPairs);
+            return getConnectedComponents();
+        }
+
         int matrixSize = Math.max(noOfEntities - datasetLimit, datasetLimit);
         float[][] simMatrix = new float[matrixSize][matrixSize];
-        while (iterator.hasNext()) {
-            final Comparison comparison = iterator.next();
-            if (threshold < comparison.getUtilityMeasure()) {
-                simMatrix[comparison.getEntityId1()][comparison.getEntityId2()] = comparison.getUtilityMeasure();
+        final int[] entityIds1 = simPairs.getEntityIds1();
+        final int[] entityIds2 = simPairs.getEntityIds2();
+        final float[] similarities = simPairs.getSimilarities();
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            if (threshold < similarities[i]) {
+                simMatrix[entityIds1[i]][entityIds2[i]] = similarities[i];
             }
         }
         init(getNegative(simMatrix));
@@ -15,7 +15,6 @@
  */
 package org.scify.jedai.entityclustering;
 
-import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.EquivalenceCluster;
 import org.scify.jedai.datamodel.SimilarityEdge;
 import org.scify.jedai.datamodel.SimilarityPairs;
@@ -24,7 +23,6 @@ import org.scify.jedai.utilities.comparators.DecSimilarityEdgeComparator;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 
-import java.util.Iterator;
 import java.util.PriorityQueue;
 import java.util.Queue;
 
@@ -50,18 +48,20 @@ public class CenterClustering extends AbstractEntityClustering {
         final float[] edgesAttached = new float[noOfEntities];
         final Queue<SimilarityEdge> SEqueue = new PriorityQueue<>(simPairs.getNoOfComparisons(), new DecSimilarityEdgeComparator());
 
-        final Iterator<Comparison> iterator = simPairs.getPairIterator();
+        final int[] entityIds1 = simPairs.getEntityIds1();
+        final int[] entityIds2 = simPairs.getEntityIds2();
+        final float[] similarities = simPairs.getSimilarities();
         // add a similarity edge to the queue for every pair of entities with a weight higher than the threshold
-        while (iterator.hasNext()) { 
-            final Comparison comparison = iterator.next();
-            if (threshold < comparison.getUtilityMeasure()) {
-                SEqueue.add(new SimilarityEdge(comparison.getEntityId1(), comparison.getEntityId2() + datasetLimit, comparison.getUtilityMeasure()));
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            if (threshold < similarities[i]) {
+                final int entityId2 = entityIds2[i] + datasetLimit;
+                SEqueue.add(new SimilarityEdge(entityIds1[i], entityId2, similarities[i]));
 
-                edgesWeight[comparison.getEntityId1()] += comparison.getUtilityMeasure();
-                edgesWeight[comparison.getEntityId2() + datasetLimit] += comparison.getUtilityMeasure();
+                edgesWeight[entityIds1[i]] += similarities[i];
+                edgesWeight[entityId2] += similarities[i];
 
-                edgesAttached[comparison.getEntityId1()]++;
-                edgesAttached[comparison.getEntityId2() + datasetLimit]++;
+                edgesAttached[entityIds1[i]]++;
+                edgesAttached[entityId2]++;
             }
         }
 
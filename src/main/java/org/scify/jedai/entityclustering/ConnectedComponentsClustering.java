@@ -15,16 +15,30 @@
  */
 package org.scify.jedai.entityclustering;
 
-import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.EquivalenceCluster;
+import org.scify.jedai.datamodel.ISimilarityConsumer;
 import org.scify.jedai.datamodel.SimilarityPairs;
-import java.util.Iterator;
+import org.scify.jedai.utilities.graph.UnionFind;
+
+import java.util.Arrays;
 
 /**
+ * Returns the connected components of the similarity graph as equivalence
+ * clusters. The graph is never materialized: its edges are merged into a
+ * disjoint-set forest in a single pass over the similarity pairs.
+ *
+ * As the forest can only merge clusters, the method can also be used
+ * incrementally: after initializeClusters, it consumes the comparisons of a
+ * streaming or progressive Entity Matching run through addSimilarity, while
+ * getClusters returns the current clusters at any time. Similarly, a sweep
+ * over descending similarity thresholds can reuse the clusters of the
+ * previous threshold by adding only the newly qualified pairs.
  *
  * @author G.A.P. II
  */
-public class ConnectedComponentsClustering extends AbstractEntityClustering {
+public class ConnectedComponentsClustering extends AbstractEntityClustering implements ISimilarityConsumer {
+
+    protected UnionFind clusters;
 
     public ConnectedComponentsClustering() {
         this(0.5f);
@@ -34,20 +48,65 @@ public class ConnectedComponentsClustering extends AbstractEntityClustering {
         super(simTh);
     }
 
+    /**
+     * Adds an edge between the given entities, if their similarity exceeds
+     * the threshold, merging their clusters.
+     *
+     * @param entityId1 the id of the first entity, which belongs to D1 in Clean-Clean ER
+     * @param entityId2 the id of the second entity, which belongs to D2 in Clean-Clean ER
+     * @param similarity the similarity of the two entities
+     */
+    @Override
+    public void addSimilarity(int entityId1, int entityId2, float similarity) {
+        if (threshold < similarity) {
+            clusters.union(entityId1, entityId2 + datasetLimit);
+        }
+    }
+
+    /**
+     * Returns the current clusters, without affecting the ones that will be
+     * formed by any subsequent comparisons. Like the connected components of
+     * the similarity graph, they are ordered by their smallest entity id.
+     *
+     * @return the current equivalence clusters, including the singleton ones
+     */
+    public EquivalenceCluster[] getClusters() {
+        final int[] clusterIds = new int[noOfEntities];
+        Arrays.fill(clusterIds, -1);
+        final EquivalenceCluster[] equivalenceClusters = new EquivalenceCluster[clusters.count()];
+
+        int counter = 0;
+        for (int i = 0; i < noOfEntities; i++) {
+            final int root = clusters.find(i);
+            if (clusterIds[root] < 0) {
+                clusterIds[root] = counter;
+                equivalenceClusters[counter++] = new EquivalenceCluster();
+            }
+
+            if (isCleanCleanER && datasetLimit <= i) {
+                equivalenceClusters[clusterIds[root]].addEntityIdD2(i - datasetLimit);
+            } else {
+                equivalenceClusters[clusterIds[root]].addEntityIdD1(i);
+            }
+        }
+
+        return equivalenceClusters;
+    }
+
     @Override
     public EquivalenceCluster[] getDuplicates(SimilarityPairs simPairs) {
-        initializeData(simPairs);
+        initializeEntities(simPairs);
+        clusters = new UnionFind(noOfEntities);
         
         // add an edge for every pair of entities with a weight higher than the thrshold
-        final Iterator<Comparison> iterator = simPairs.getPairIterator();
-        while (iterator.hasNext()) {
-            final Comparison comparison = iterator.next();
-            if (threshold < comparison.getUtilityMeasure()) {
-                similarityGraph.addEdge(comparison.getEntityId1(), comparison.getEntityId2() + datasetLimit);
-            }
+        final int[] entityIds1 = simPairs.getEntityIds1();
+        final int[] entityIds2 = simPairs.getEntityIds2();
+        final float[] similarities = simPairs.getSimilarities();
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            addSimilarity(entityIds1[i], entityIds2[i], similarities[i]);
         }
         
-        return getConnectedComponents();
+        return getClusters();
     }
 
     @Override
@@ -59,4 +118,19 @@ public class ConnectedComponentsClustering extends AbstractEntityClustering {
     public String getMethodName() {
         return "Connected Components Clustering";
     }
+
+    /**
+     * Starts an incremental clustering, in which every entity forms a
+     * singleton cluster, until the comparisons passed to addSimilarity merge
+     * them.
+     *
+     * @param noOfEntitiesD1 the number of entities in D1
+     * @param noOfEntitiesD2 the number of entities in D2, or 0 for Dirty ER
+     */
+    public void initializeClusters(int noOfEntitiesD1, int noOfEntitiesD2) {
+        isCleanCleanER = 0 < noOfEntitiesD2;
+        datasetLimit = isCleanCleanER ? noOfEntitiesD1 : 0;
+        noOfEntities = noOfEntitiesD1 + noOfEntitiesD2;
+        clusters = new UnionFind(noOfEntities);
+    }
 }
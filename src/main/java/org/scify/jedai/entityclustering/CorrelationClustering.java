@@ -15,30 +15,35 @@
  */
 package org.scify.jedai.entityclustering;
 
-import gnu.trove.iterator.TIntIterator;
 import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
-import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.EquivalenceCluster;
 import org.scify.jedai.datamodel.SimilarityPairs;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
 /**
+ * The similarity graph is stored as a sparse adjacency structure that contains
+ * only the pairs of SimilarityPairs. All other pairs of entities have zero
+ * similarity and are, thus, considered not similar. The objective function is
+ * computed once and then updated incrementally by every local-search move,
+ * based on the neighbourhoods of the moved entities.
  *
  * @author G.A.P. II
  */
 public class CorrelationClustering extends AbstractEntityClustering {
 
     private int[] verticesToClusters;
+    private int[] positionsInClusters;
     private int numClusters;
     private int maxNumClusters;
-    private EquivalenceCluster[] clustersCreated;
-    private boolean[][] areSimilar;
-    private boolean[][] areNotSimilar;
+    private TIntList[] clusterMembers;
+    private int[] neighborStarts;
+    private int[] neighbors;
+    private float[] neighborSimilarities;
     private final float thresholdForInitialClusters = 0.5f;
     private final float thresholdForSimilar = 0.8f;
     private final float thresholdForNotSimilar = 0.2f;
@@ -53,150 +58,229 @@ public class CorrelationClustering extends AbstractEntityClustering {
     public CorrelationClustering(float simTh) {
         super(simTh);
     }
-    
+
     @Override
     public EquivalenceCluster[] getDuplicates(SimilarityPairs simPairs) {
         initializeData(simPairs);
 
         // add an edge for every pair of entities with a weight higher than the threshold
-        final Iterator<Comparison> iterator = simPairs.getPairIterator();
-//        float totalSimilarity = 0.0f;
-//        int numComparisons = 0;
-        float[][] similarities = new float[noOfEntities][noOfEntities];
-        while (iterator.hasNext()) {
-            final Comparison comparison = iterator.next();
-
-            float utilityMeasure = comparison.getUtilityMeasure();
-            int id1 = comparison.getEntityId1();
-            int id2 = comparison.getEntityId2();
-            similarities[id1][id2 + datasetLimit] = utilityMeasure;
-            similarities[id2 + datasetLimit][id1] = utilityMeasure;
-//            totalSimilarity += utilityMeasure;
-//            numComparisons++;
-            if (thresholdForInitialClusters < utilityMeasure) {
-                similarityGraph.addEdge(id1, id2 + datasetLimit);
+        final int[] entityIds1 = simPairs.getEntityIds1();
+        final int[] entityIds2 = simPairs.getEntityIds2();
+        final float[] similarities = simPairs.getSimilarities();
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            if (thresholdForInitialClusters < similarities[i]) {
+                similarityGraph.addEdge(entityIds1[i], entityIds2[i] + datasetLimit);
             }
         }
+        buildAdjacencyLists(simPairs);
 
         simPairs = null;
         //start from connected components
 
-        EquivalenceCluster[] initialClusters = getConnectedComponents();
+        final EquivalenceCluster[] initialClusters = getConnectedComponents();
         numClusters = initialClusters.length;
         maxNumClusters = 10 + numClusters;
-        clustersCreated = new EquivalenceCluster[maxNumClusters];
-        System.arraycopy(initialClusters, 0, clustersCreated, 0, initialClusters.length);
+        clusterMembers = new TIntList[maxNumClusters];
 
         //map vertices to clusters
         verticesToClusters = new int[noOfEntities];
+        positionsInClusters = new int[noOfEntities];
         for (int clCounter = 0; clCounter < numClusters; clCounter++) {
-            for (int i = 0; i < noOfEntities; i++) {
-                if (clustersCreated[clCounter].getEntityIdsD1().contains(i)) {
-                    if (verticesToClusters[i] > 0) {
-                        System.err.println("Float entrance ");
-                    }
-                    verticesToClusters[i] = clCounter;
-                }
+            clusterMembers[clCounter] = new TIntArrayList();
+            for (int i = 0; i < initialClusters[clCounter].getEntityIdsD1().size(); i++) {
+                addToCluster(initialClusters[clCounter].getEntityIdsD1().get(i), clCounter);
             }
-        }
-
-        //initialize similarity boolean arrays
-        //entities are considered similar (+1) if they have similarity above the threshold
-        //and not similar when they have similarity less than 1-threshold
-        areSimilar = new boolean[noOfEntities][noOfEntities];
-        areNotSimilar = new boolean[noOfEntities][noOfEntities];
-        for (int i = 0; i < noOfEntities; i++) {
-            for (int j = i + 1; j < noOfEntities; j++) {
-                areNotSimilar[i][j] = false;
-                areNotSimilar[j][i] = false;
-                if (similarities[i][j] > thresholdForSimilar) {
-                    areSimilar[i][j] = true;
-                    areSimilar[j][i] = true;
-                } else {
-                    areSimilar[i][j] = false;
-                    areSimilar[j][i] = false;
-                    if (similarities[i][j] < thresholdForNotSimilar) {
-                        areNotSimilar[i][j] = true;
-                        areNotSimilar[j][i] = true;
-                    }
-                }
+            for (int i = 0; i < initialClusters[clCounter].getEntityIdsD2().size(); i++) {
+                addToCluster(initialClusters[clCounter].getEntityIdsD2().get(i) + datasetLimit, clCounter);
             }
         }
 
         //Optimization step for maximizing Objective function
-        int prevOF = getOF();
-        //System.out.println("average similarity = "+averageSimilarity);
-//        System.out.println("old value=" + prevOF);
-//        float time0 = System.currentTimeMillis();
+        long prevOF = getOF();
         rand = new Random();
         int moveLimit = 1;//only change-cluster moves
         for (int t = 0; t < numOfLSIterations; t++) {
-
             int moveIndex = rand.nextInt(moveLimit);
-            int OF = doMove(moveIndex, prevOF);
-            /*if (prevOF <OF)
-        	{
-        		System.out.println("new best = "+OF+" at iteration "+t);
-        	}*/
-            prevOF = OF;
+            prevOF = doMove(moveIndex, prevOF);
         }
-//        float time1 = System.currentTimeMillis();
-//        System.out.println("optimization step: " + (time1 - time0));
-//        System.out.println("new OF value=" + prevOF);
 
         //return array after removing empty clusters
-        List<EquivalenceCluster> list = new ArrayList<>();
+        final List<EquivalenceCluster> list = new ArrayList<>();
         for (int clCounter = 0; clCounter < numClusters; clCounter++) {
-            if (clustersCreated[clCounter].getEntityIdsD1().isEmpty()) {
+            if (clusterMembers[clCounter].isEmpty()) {
                 continue;
             }
-            list.add(clustersCreated[clCounter]);
+
+            final EquivalenceCluster cluster = new EquivalenceCluster();
+            for (int i = 0; i < clusterMembers[clCounter].size(); i++) {
+                int entity = clusterMembers[clCounter].get(i);
+                if (isCleanCleanER && datasetLimit <= entity) {
+                    cluster.addEntityIdD2(entity - datasetLimit);
+                } else {
+                    cluster.addEntityIdD1(entity);
+                }
+            }
+            list.add(cluster);
         }
-        int numFinalClusters = list.size();
-        EquivalenceCluster[] finalClusters = new EquivalenceCluster[numFinalClusters];
-        for (int clCounter = 0; clCounter < numFinalClusters; clCounter++) {
-            finalClusters[clCounter] = list.get(clCounter);
+
+        return list.toArray(new EquivalenceCluster[list.size()]);
+    }
+
+    // the agreements of the given entity with the other members of the given cluster minus its disagreements with them
+    private long getClusterScore(int entity, int cluster) {
+        int similarNeighbors = 0;
+        int nonNegativeNeighbors = 0;
+        for (int i = neighborStarts[entity]; i < neighborStarts[entity + 1]; i++) {
+            if (verticesToClusters[neighbors[i]] == cluster) {
+                if (thresholdForSimilar < neighborSimilarities[i]) {
+                    similarNeighbors++;
+                }
+                if (!(neighborSimilarities[i] < thresholdForNotSimilar)) {
+                    nonNegativeNeighbors++;
+                }
+            }
         }
 
-        return finalClusters;
-        //return getConnectedComponents();
+        int otherMembers = clusterMembers[cluster].size();
+        if (verticesToClusters[entity] == cluster) {
+            otherMembers--;
+        }
+        return similarNeighbors - (otherMembers - nonNegativeNeighbors);
     }
 
-    private int getOF() {
-        int OFvalue = 0;
+    // the number of pairs that are similar and co-clustered or not similar and separated; all non-adjacent pairs are not similar
+    private long getOF() {
+        long similarInClusters = 0;
+        long nonNegativeInClusters = 0;
+        long nonNegativePairs = 0;
         for (int i = 0; i < noOfEntities; i++) {
-            for (int j = i + 1; j < noOfEntities; j++) {
-                if (((areSimilar[i][j]) && (verticesToClusters[i] == verticesToClusters[j]))
-                        || ((areNotSimilar[i][j]) && (verticesToClusters[i] != verticesToClusters[j]))) {
-                    OFvalue++;
+            for (int j = neighborStarts[i]; j < neighborStarts[i + 1]; j++) {
+                if (neighbors[j] < i) {
+                    continue;
+                }
+
+                boolean sameCluster = verticesToClusters[i] == verticesToClusters[neighbors[j]];
+                if (sameCluster && thresholdForSimilar < neighborSimilarities[j]) {
+                    similarInClusters++;
+                }
+                if (!(neighborSimilarities[j] < thresholdForNotSimilar)) {
+                    nonNegativePairs++;
+                    if (sameCluster) {
+                        nonNegativeInClusters++;
+                    }
                 }
             }
         }
-        return OFvalue;
+
+        long pairsInClusters = 0;
+        for (int clCounter = 0; clCounter < numClusters; clCounter++) {
+            long size = clusterMembers[clCounter].size();
+            pairsInClusters += size * (size - 1) / 2;
+        }
+
+        long notSimilarPairs = (long) noOfEntities * (noOfEntities - 1) / 2 - nonNegativePairs;
+        long notSimilarInClusters = pairsInClusters - nonNegativeInClusters;
+        return similarInClusters + notSimilarPairs - notSimilarInClusters;
     }
 
-    private int doMove(int moveIndex, int prevOF) {
+    private void addToCluster(int entity, int cluster) {
+        verticesToClusters[entity] = cluster;
+        positionsInClusters[entity] = clusterMembers[cluster].size();
+        clusterMembers[cluster].add(entity);
+    }
+
+    // builds the symmetric adjacency lists of the similarity graph; for repeated pairs, the last similarity is retained
+    private void buildAdjacencyLists(SimilarityPairs simPairs) {
+        final int[] entityIds1 = simPairs.getEntityIds1();
+        final int[] entityIds2 = simPairs.getEntityIds2();
+        final float[] similarities = simPairs.getSimilarities();
+
+        final int[] listStarts = new int[noOfEntities + 1];
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            int id1 = entityIds1[i];
+            int id2 = entityIds2[i] + datasetLimit;
+            if (id1 != id2) {
+                listStarts[id1 + 1]++;
+                listStarts[id2 + 1]++;
+            }
+        }
+        for (int i = 0; i < noOfEntities; i++) {
+            listStarts[i + 1] += listStarts[i];
+        }
+
+        final int[] nextCell = Arrays.copyOf(listStarts, noOfEntities);
+        final int[] allNeighbors = new int[listStarts[noOfEntities]];
+        final float[] allSimilarities = new float[listStarts[noOfEntities]];
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            int id1 = entityIds1[i];
+            int id2 = entityIds2[i] + datasetLimit;
+            if (id1 != id2) {
+                allNeighbors[nextCell[id1]] = id2;
+                allSimilarities[nextCell[id1]++] = similarities[i];
+                allNeighbors[nextCell[id2]] = id1;
+                allSimilarities[nextCell[id2]++] = similarities[i];
+            }
+        }
+
+        int noOfCells = 0;
+        long[] sortedCells = new long[0];
+        neighborStarts = new int[noOfEntities + 1];
+        for (int i = 0; i < noOfEntities; i++) {
+            int listSize = listStarts[i + 1] - listStarts[i];
+            if (sortedCells.length < listSize) {
+                sortedCells = new long[listSize];
+            }
+            for (int j = 0; j < listSize; j++) {
+                sortedCells[j] = ((long) allNeighbors[listStarts[i] + j] << 32) | j;
+            }
+            Arrays.sort(sortedCells, 0, listSize);
+
+            neighborStarts[i] = noOfCells;
+            for (int j = 0; j < listSize; j++) {
+                int neighbor = (int) (sortedCells[j] >>> 32);
+                if (j + 1 < listSize && neighbor == (int) (sortedCells[j + 1] >>> 32)) {
+                    continue;
+                }
+                allNeighbors[noOfCells] = neighbor;
+                allSimilarities[noOfCells++] = allSimilarities[listStarts[i] + (int) sortedCells[j]];
+            }
+        }
+        neighborStarts[noOfEntities] = noOfCells;
+        neighbors = allNeighbors;
+        neighborSimilarities = allSimilarities;
+    }
+
+    private void removeFromCluster(int entity) {
+        final TIntList members = clusterMembers[verticesToClusters[entity]];
+        int lastEntity = members.removeAt(members.size() - 1);
+        if (lastEntity != entity) {
+            members.set(positionsInClusters[entity], lastEntity);
+            positionsInClusters[lastEntity] = positionsInClusters[entity];
+        }
+    }
+
+    private long doMove(int moveIndex, long prevOF) {
         switch (moveIndex) {
             case 0:
                 int randomEntity = rand.nextInt(noOfEntities);
                 int randomCluster = rand.nextInt(numClusters);
-                while (clustersCreated[randomCluster].getEntityIdsD1().isEmpty()) {
+                while (clusterMembers[randomCluster].isEmpty()) {
                     randomCluster = rand.nextInt(numClusters);
                 }
                 return changeCluster(prevOF, randomEntity, randomCluster);
-            case 1: 
+            case 1:
                 int prevCluster = rand.nextInt(numClusters);
-                while (clustersCreated[prevCluster].getEntityIdsD1().isEmpty()) {
+                while (clusterMembers[prevCluster].isEmpty()) {
                     prevCluster = rand.nextInt(numClusters);
                 }
                 int newCluster = rand.nextInt(numClusters);
-                while ((prevCluster == newCluster) || (clustersCreated[newCluster].getEntityIdsD1().isEmpty())) {
+                while ((prevCluster == newCluster) || (clusterMembers[newCluster].isEmpty())) {
                     newCluster = rand.nextInt(numClusters);
                 }
                 return unifyClusters(prevOF, prevCluster, newCluster);
-            case 2: 
+            case 2:
                 prevCluster = rand.nextInt(numClusters);
-                while (clustersCreated[prevCluster].getEntityIdsD1().isEmpty()) {
+                while (clusterMembers[prevCluster].isEmpty()) {
                     prevCluster = rand.nextInt(numClusters);
                 }
                 return separateClusters(prevOF, prevCluster);
@@ -206,93 +290,100 @@ public class CorrelationClustering extends AbstractEntityClustering {
         }
     }
 
-    private int changeCluster(int prevOF, int entity, int newCluster) {
+    private long changeCluster(long prevOF, int entity, int newCluster) {
         int prevCluster = verticesToClusters[entity];
-        verticesToClusters[entity] = newCluster;
-
-        int newOF = getOF();
-        if (newOF > prevOF) {
-            clustersCreated[prevCluster].getEntityIdsD1().remove(entity);
-            clustersCreated[newCluster].addEntityIdD1(entity);
-            return newOF;
-        } else {
-            verticesToClusters[entity] = prevCluster;
-            /*if (prevOF!=getOF())
-        	{
-        		System.out.println("prevOF="+prevOF);
-        	}*/
-
+        if (prevCluster == newCluster) {
             return prevOF;
         }
-    }
-
-    private int unifyClusters(int prevOF, int prevCluster, int newCluster) {
-        final TIntList tobeRemoved = new TIntArrayList();
 
-        for (int i = 0; i < clustersCreated[prevCluster].getEntityIdsD1().size(); i++) {
-            int entity = clustersCreated[prevCluster].getEntityIdsD1().get(i);
-            tobeRemoved.add(entity);
+        long gain = getClusterScore(entity, newCluster) - getClusterScore(entity, prevCluster);
+        if (0 < gain) {
+            removeFromCluster(entity);
+            addToCluster(entity, newCluster);
+            return prevOF + gain;
+        }
+        return prevOF;
+    }
 
-            verticesToClusters[entity] = newCluster;
+    private long unifyClusters(long prevOF, int prevCluster, int newCluster) {
+        int similarPairs = 0;
+        int nonNegativePairs = 0;
+        final TIntList members = clusterMembers[prevCluster];
+        for (int i = 0; i < members.size(); i++) {
+            int entity = members.get(i);
+            for (int j = neighborStarts[entity]; j < neighborStarts[entity + 1]; j++) {
+                if (verticesToClusters[neighbors[j]] == newCluster) {
+                    if (thresholdForSimilar < neighborSimilarities[j]) {
+                        similarPairs++;
+                    }
+                    if (!(neighborSimilarities[j] < thresholdForNotSimilar)) {
+                        nonNegativePairs++;
+                    }
+                }
+            }
         }
-        int newOF = getOF();
 
-        final TIntIterator iterator = tobeRemoved.iterator();
-        if (newOF > prevOF) {
+        long gain = similarPairs - ((long) members.size() * clusterMembers[newCluster].size() - nonNegativePairs);
+        if (0 < gain) {
             //if solution is accepted update clusters
-            while (iterator.hasNext()) {
-                int entity1 = iterator.next();
-                clustersCreated[prevCluster].getEntityIdsD1().remove(entity1);
-                clustersCreated[newCluster].addEntityIdD1(entity1);
-            }
-            return newOF;
-        } else {
-            //else undo move
-            while (iterator.hasNext()) {
-                int entity1 = iterator.next();
-                verticesToClusters[entity1] = prevCluster;
+            final TIntList tobeMoved = new TIntArrayList(members);
+            for (int i = 0; i < tobeMoved.size(); i++) {
+                removeFromCluster(tobeMoved.get(i));
+                addToCluster(tobeMoved.get(i), newCluster);
             }
-            return prevOF;
+            return prevOF + gain;
         }
+        return prevOF;
     }
 
-    private int separateClusters(int prevOF, int prevCluster) {
+    private long separateClusters(long prevOF, int prevCluster) {
         //create additional cluster
         int newCluster = numClusters;
-        //try
-        final TIntList tobeRemoved = new TIntArrayList();
-        for (int i = 0; i < clustersCreated[prevCluster].getEntityIdsD1().size(); i += 2) {
-            int entity = clustersCreated[prevCluster].getEntityIdsD1().get(i);
-            tobeRemoved.add(entity);
-            verticesToClusters[entity] = newCluster;
+        //try by temporarily marking every second member as part of the new cluster
+        final TIntList members = clusterMembers[prevCluster];
+        final TIntList tobeMoved = new TIntArrayList();
+        for (int i = 0; i < members.size(); i += 2) {
+            tobeMoved.add(members.get(i));
+            verticesToClusters[members.get(i)] = newCluster;
+        }
+
+        int similarPairs = 0;
+        int nonNegativePairs = 0;
+        for (int i = 0; i < tobeMoved.size(); i++) {
+            int entity = tobeMoved.get(i);
+            for (int j = neighborStarts[entity]; j < neighborStarts[entity + 1]; j++) {
+                if (verticesToClusters[neighbors[j]] == prevCluster) {
+                    if (thresholdForSimilar < neighborSimilarities[j]) {
+                        similarPairs++;
+                    }
+                    if (!(neighborSimilarities[j] < thresholdForNotSimilar)) {
+                        nonNegativePairs++;
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < tobeMoved.size(); i++) {
+            verticesToClusters[tobeMoved.get(i)] = prevCluster;
         }
-        final TIntIterator iterator = tobeRemoved.iterator();
-        int newOF = getOF();
-        if (newOF > prevOF) {
+
+        long remainingMembers = members.size() - tobeMoved.size();
+        long gain = (tobeMoved.size() * remainingMembers - nonNegativePairs) - similarPairs;
+        if (0 < gain) {
             //update
-            clustersCreated[newCluster] = new EquivalenceCluster();
-            numClusters++;
-            while (iterator.hasNext()) {
-                int entity1 = iterator.next();
-                clustersCreated[prevCluster].getEntityIdsD1().remove(entity1);
-                clustersCreated[newCluster].addEntityIdD1(entity1);
+            if (numClusters == maxNumClusters) {
+                maxNumClusters *= 2;
+                clusterMembers = Arrays.copyOf(clusterMembers, maxNumClusters);
             }
-            return newOF;
-        } else {
-            //undo
-            while (iterator.hasNext()) {
-                int entity1 = iterator.next();
-                verticesToClusters[entity1] = prevCluster;
+            clusterMembers[newCluster] = new TIntArrayList();
+            numClusters++;
+            for (int i = 0; i < tobeMoved.size(); i++) {
+                removeFromCluster(tobeMoved.get(i));
+                addToCluster(tobeMoved.get(i), newCluster);
             }
-            /*int nowOF = getOF();
-        	if (prevOF!=nowOF)
-        	{
-        		System.out.println("prevOFinSEPARATION="+prevOF);
-        		System.out.println("nowOF             ="+nowOF);
-        		System.out.println();
-        	}*/
-            return prevOF;
+            return prevOF + gain;
         }
+        return prevOF;
     }
 
     @Override
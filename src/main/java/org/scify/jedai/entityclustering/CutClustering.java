@@ -15,28 +15,37 @@
  */
 package org.scify.jedai.entityclustering;
 
-import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.EquivalenceCluster;
-import org.scify.jedai.datamodel.GomoryHuTree;
 import org.scify.jedai.datamodel.SimilarityPairs;
+import org.scify.jedai.utilities.ParallelRangeExecutor;
+import org.scify.jedai.utilities.graph.FlowNetwork;
+import org.scify.jedai.utilities.graph.UnionFind;
 
 import com.esotericsoftware.minlog.Log;
-import gnu.trove.set.hash.TIntHashSet;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
 import org.apache.jena.atlas.json.JsonArray;
 import org.apache.jena.atlas.json.JsonObject;
-import org.jgrapht.alg.connectivity.ConnectivityInspector;
 
-import org.jgrapht.graph.DefaultWeightedEdge;
-import org.jgrapht.graph.SimpleGraph;
-import org.jgrapht.graph.SimpleWeightedGraph;
 import org.scify.jedai.configuration.gridsearch.DblGridSearchConfiguration;
 import org.scify.jedai.configuration.randomsearch.DblRandomSearchConfiguration;
 
 /**
+ * Implements the cut clustering algorithm of Flake et al.: an artificial sink
+ * is connected with every vertex of the similarity graph through an edge of
+ * weight Acap, and the clusters are the components of the minimum cut
+ * (Gomory-Hu) tree of the expanded graph after removing the sink. They are
+ * computed without building the entire tree, through a single minimum cut
+ * between the sink and the first vertex of every cluster.
+ *
+ * The sink-side edges make the minimum cut of a vertex independent of all
+ * connected components of the similarity graph except its own. Hence, every
+ * component is clustered separately on a primitive flow network, with the
+ * components distributed among threads.
  *
  * @author G.A.P. II
  */
@@ -44,10 +53,10 @@ public class CutClustering extends AbstractEntityClustering {
 
     protected float Acap;
     
+    protected int noOfThreads;
+
     protected final DblGridSearchConfiguration gridAcap;
     protected final DblRandomSearchConfiguration randomAcap;
-    protected SimpleGraph duplicatesGraph;
-    protected SimpleWeightedGraph weightedGraph;
 
     public CutClustering() {
         this(0.3f, 0.5f);
@@ -56,48 +65,155 @@ public class CutClustering extends AbstractEntityClustering {
     public CutClustering(float ac, float simTh) {
         super(simTh);
         Acap = ac;
+        noOfThreads = 1;
         
         gridAcap = new DblGridSearchConfiguration(0.95f, 0.1f, 0.05f);
         randomAcap = new DblRandomSearchConfiguration(0.99f, 0.01f);
     }
 
-    @Override
-    protected EquivalenceCluster[] getConnectedComponents() {
-        // get connected components
-        final ConnectivityInspector ci = new ConnectivityInspector(duplicatesGraph);
-        final List<Set<Integer>> connectedComponents = ci.connectedSets();
+    // clusters the given component, whose vertices and edges are stored in the given ranges
+    private void clusterComponent(int[] vertices, int firstVertex, int lastVertex, int[] edgeIds, int firstEdge, int lastEdge,
+            int[] localIds, int[] vertices1, int[] vertices2, float[] weights, List<EquivalenceCluster> clusters) {
+        final int noOfVertices = lastVertex - firstVertex;
+        if (noOfVertices == 1) {
+            final EquivalenceCluster cluster = new EquivalenceCluster();
+            cluster.addEntityIdD1(vertices[firstVertex]);
+            clusters.add(cluster);
+            return;
+        }
 
-        // prepare output
+        // the local ids of the vertices are [0, noOfVertices), while the sink has the id noOfVertices
+        final int sink = noOfVertices;
+        for (int i = firstVertex; i < lastVertex; i++) {
+            localIds[vertices[i]] = i - firstVertex;
+        }
+
+        final int noOfEdges = lastEdge - firstEdge + noOfVertices;
+        final int[] localVertices1 = new int[noOfEdges];
+        final int[] localVertices2 = new int[noOfEdges];
+        final double[] capacities = new double[noOfEdges];
         int counter = 0;
-        final EquivalenceCluster[] equivalenceClusters = new EquivalenceCluster[connectedComponents.size()];
-        for (Set<Integer> componentIds : connectedComponents) {
-            equivalenceClusters[counter] = new EquivalenceCluster();
-            equivalenceClusters[counter++].loadBulkEntityIdsD1(new TIntHashSet(componentIds));
+        for (int i = firstEdge; i < lastEdge; i++) {
+            localVertices1[counter] = localIds[vertices1[edgeIds[i]]];
+            localVertices2[counter] = localIds[vertices2[edgeIds[i]]];
+            capacities[counter++] = weights[edgeIds[i]];
+        }
+        for (int v = 0; v < noOfVertices; v++) {
+            localVertices1[counter] = v;
+            localVertices2[counter] = sink;
+            capacities[counter++] = Acap;
         }
+        final FlowNetwork network = new FlowNetwork(noOfVertices + 1, localVertices1, localVertices2, capacities, noOfEdges);
+
+        // GomoryHuTree builds the tree with the sink as its first vertex, so every vertex that does not lie in
+        // the smallest source side of an earlier vertex is cut from the sink and its tree edge leads to the sink.
+        // The uncovered vertices of its source side are attached to it and all later cuts move them only between
+        // adjacent vertices of the tree, i.e., within its component. Hence, the vertices are processed in the
+        // order of their ids and every uncovered one yields a new cluster with the uncovered vertices of its
+        // smallest source side. Covered vertices keep their earlier cluster, so the clusters form a partition
+        // even if the source sides A and B of two vertices crossed. Submodularity makes them nested, if one vertex
+        // lies in the side of the other, while c(A) + c(B) >= c(A \ B) + c(B \ A) + 2 Acap |A n B| makes them
+        // disjoint otherwise, as both differences are cuts of their vertices
+        final int[] seeds = new int[noOfVertices];
+        Arrays.fill(seeds, -1);
+        final int[] sourceSide = new int[noOfVertices];
+        for (int seed = 0; seed < noOfVertices; seed++) {
+            if (0 <= seeds[seed]) {
+                continue;
+            }
 
-        return equivalenceClusters;
+            network.getMaxFlow(seed, sink);
+            final int sourceSideSize = network.getMinimalSourceSide(sourceSide);
+            for (int j = 0; j < sourceSideSize; j++) {
+                if (seeds[sourceSide[j]] < 0) {
+                    seeds[sourceSide[j]] = seed;
+                }
+            }
+        }
+
+        final EquivalenceCluster[] seedClusters = new EquivalenceCluster[noOfVertices];
+        for (int i = firstVertex; i < lastVertex; i++) {
+            final int seed = seeds[i - firstVertex];
+            if (seedClusters[seed] == null) {
+                seedClusters[seed] = new EquivalenceCluster();
+                clusters.add(seedClusters[seed]);
+            }
+            seedClusters[seed].addEntityIdD1(vertices[i]);
+        }
     }
 
     @Override
     public EquivalenceCluster[] getDuplicates(SimilarityPairs simPairs) {
         initializeData(simPairs);
         similarityGraph = null;
-        initializeGraph();
-
-        final Iterator<Comparison> iterator = simPairs.getPairIterator();
-        while (iterator.hasNext()) {	// add an edge for every pair of entities with a weight higher than the threshold
-            Comparison comparison = iterator.next();
-            if (threshold < comparison.getUtilityMeasure()) {
-                DefaultWeightedEdge e = (DefaultWeightedEdge) weightedGraph.addEdge(comparison.getEntityId1() + "", (comparison.getEntityId2() + datasetLimit) + "");
-                weightedGraph.setEdgeWeight(e, comparison.getUtilityMeasure());
+
+        // add an edge for every pair of entities with a weight higher than the threshold
+        final int[] entityIds1 = simPairs.getEntityIds1();
+        final int[] entityIds2 = simPairs.getEntityIds2();
+        final float[] similarities = simPairs.getSimilarities();
+        int noOfEdges = 0;
+        final int[] vertices1 = new int[simPairs.getNoOfComparisons()];
+        final int[] vertices2 = new int[simPairs.getNoOfComparisons()];
+        final float[] weights = new float[simPairs.getNoOfComparisons()];
+        final UnionFind components = new UnionFind(noOfEntities);
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            if (threshold < similarities[i]) {
+                vertices1[noOfEdges] = entityIds1[i];
+                vertices2[noOfEdges] = entityIds2[i] + datasetLimit;
+                weights[noOfEdges] = similarities[i];
+                components.union(vertices1[noOfEdges], vertices2[noOfEdges]);
+                noOfEdges++;
+            }
+        }
+        Log.info("Added " + noOfEntities + " nodes and " + noOfEdges + " edges in the graph");
+
+        // group the vertices and the edges by component through a counting sort on their roots
+        final int[] roots = new int[noOfEntities];
+        final int[] vertexStarts = new int[noOfEntities + 1];
+        for (int v = 0; v < noOfEntities; v++) {
+            roots[v] = components.find(v);
+            vertexStarts[roots[v] + 1]++;
+        }
+        final int[] edgeStarts = new int[noOfEntities + 1];
+        for (int i = 0; i < noOfEdges; i++) {
+            edgeStarts[roots[vertices1[i]] + 1]++;
+        }
+
+        final TIntList componentRoots = new TIntArrayList(components.count());
+        for (int v = 0; v < noOfEntities; v++) {
+            if (roots[v] == v) {
+                componentRoots.add(v);
             }
+            vertexStarts[v + 1] += vertexStarts[v];
+            edgeStarts[v + 1] += edgeStarts[v];
         }
 
-        GomoryHuTree ght = new GomoryHuTree(weightedGraph); //take the minimum cut (Gomory-Hu) tree from the similarity graph
-        duplicatesGraph = ght.MinCutTree();
-        duplicatesGraph.removeVertex(noOfEntities); //remove the artificial sink
+        final int[] vertices = new int[noOfEntities];
+        final int[] nextVertex = Arrays.copyOf(vertexStarts, noOfEntities);
+        for (int v = 0; v < noOfEntities; v++) {
+            vertices[nextVertex[roots[v]]++] = v;
+        }
+        final int[] edgeIds = new int[noOfEdges];
+        final int[] nextEdge = Arrays.copyOf(edgeStarts, noOfEntities);
+        for (int i = 0; i < noOfEdges; i++) {
+            edgeIds[nextEdge[roots[vertices1[i]]]++] = i;
+        }
+
+        // every vertex belongs to a single component, so the threads write disjoint cells
+        final int[] localIds = nextVertex;
+        final List<List<EquivalenceCluster>> partialClusters = ParallelRangeExecutor.execute(noOfThreads, 4 * noOfThreads, componentRoots.size(), (partitionId, startId, endId) -> {
+            final List<EquivalenceCluster> clusters = new ArrayList<>();
+            for (int i = startId; i < endId; i++) {
+                final int root = componentRoots.get(i);
+                clusterComponent(vertices, vertexStarts[root], vertexStarts[root + 1], edgeIds, edgeStarts[root], edgeStarts[root + 1],
+                        localIds, vertices1, vertices2, weights, clusters);
+            }
+            return clusters;
+        });
 
-        return getConnectedComponents();
+        final List<EquivalenceCluster> equivalenceClusters = new ArrayList<>();
+        partialClusters.forEach(equivalenceClusters::addAll);
+        return equivalenceClusters.toArray(new EquivalenceCluster[0]);
     }
 
     @Override
@@ -123,6 +239,10 @@ public class CutClustering extends AbstractEntityClustering {
                 + "2)" + getParameterDescription(1) + ".";
     }
 
+    public int getNoOfThreads() {
+        return noOfThreads;
+    }
+
     @Override
     public int getNumberOfGridConfigurations() {
         return super.getNumberOfGridConfigurations() * gridAcap.getNumberOfConfigurations();
@@ -178,24 +298,19 @@ public class CutClustering extends AbstractEntityClustering {
         }
     }
 
-    protected void initializeGraph() {
-        weightedGraph = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
-
-        String sinkLabel = "" + noOfEntities;
-        weightedGraph.addVertex(sinkLabel); //add the artificial sink
-        for (int i = 0; i < noOfEntities; i++) {
-            String edgeLabel = i + "";
-            weightedGraph.addVertex(edgeLabel);
-            DefaultWeightedEdge e = (DefaultWeightedEdge) weightedGraph.addEdge(sinkLabel, edgeLabel); // add the capacity edges "a"
-            weightedGraph.setEdgeWeight(e, Acap); //connecting the artificial sink with all vertices
-        }
-
-        Log.info("Added " + noOfEntities + " nodes in the graph");
-    }
-
     public void setA(float Acap) {
         this.Acap = Acap;
     }
+
+    /**
+     * Sets the number of threads that cluster the connected components of the
+     * similarity graph in parallel.
+     *
+     * @param noOfThreads the number of threads that process disjoint components
+     */
+    public void setNoOfThreads(int noOfThreads) {
+        this.noOfThreads = Math.max(1, noOfThreads);
+    }
     
     @Override
     public void setNextRandomConfiguration() {
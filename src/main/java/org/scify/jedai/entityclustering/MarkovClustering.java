@@ -21,18 +21,31 @@ import org.scify.jedai.configuration.gridsearch.DblGridSearchConfiguration;
 import org.scify.jedai.configuration.gridsearch.IntGridSearchConfiguration;
 import org.scify.jedai.configuration.randomsearch.DblRandomSearchConfiguration;
 import org.scify.jedai.configuration.randomsearch.IntRandomSearchConfiguration;
-import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.EquivalenceCluster;
 import org.scify.jedai.datamodel.SimilarityPairs;
+import org.scify.jedai.utilities.ParallelRangeExecutor;
+import org.scify.jedai.utilities.datastructures.SparseMatrix;
 
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.List;
 
 /**
+ * The similarity matrix is stored in sparse (CSC) format, so that its size is
+ * linear with the number of similarity pairs, rather than quadratic with the
+ * number of entities. After every inflation, the cells with a value lower
+ * than the matrix similarity threshold are pruned and the columns are
+ * renormalized, as in the original MCL implementation. This is an
+ * approximation of the dense process: the pruned mass is redistributed to the
+ * remaining cells and can no longer propagate through subsequent expansions,
+ * so both the convergence check and the final matrix may differ slightly from
+ * those of the unpruned matrices.
  *
  * @author G.A.P. II
  */
 public class MarkovClustering extends AbstractEntityClustering {
 
+    protected int noOfThreads;
+
     protected float clusterThreshold;//define similarity threshold for including in final graph
     protected float matrixSimThreshold;//define similarity threshold for matrix comparison
     protected int similarityChecksLimit;//define check repetitions limit for the expansion-inflation process
@@ -53,6 +66,7 @@ public class MarkovClustering extends AbstractEntityClustering {
         clusterThreshold = ct;
         matrixSimThreshold = mst;
         similarityChecksLimit = scl;
+        noOfThreads = 1;
 
         gridCThreshold = new DblGridSearchConfiguration(0.100f, 0.002f, 0.002f);
         gridMSThreshold = new DblGridSearchConfiguration(0.001f, 0.00001f, 0.00001f);
@@ -62,86 +76,64 @@ public class MarkovClustering extends AbstractEntityClustering {
         randomSCLimit = new IntRandomSearchConfiguration(10, 1);
     }
 
-    private void addSelfLoop(float[][] a) {
-        int m1 = a.length;
-        for (int i = 0; i < m1; i++) {
-            a[i][i] = 1.0f;
-        }
-    }
-
-    private boolean areSimilar(float[][] a, float[][] b) {
-        int m1 = a.length;
-        int m2 = b.length;
-        if (m1 != m2) {
-            return false;
-        }
+    private SparseMatrix expand2(SparseMatrix matrix) {
+        final ThreadLocal<ExpansionBuffer> buffers = ThreadLocal.withInitial(ExpansionBuffer::new);
+        // more partitions than threads balance the load, as column densities vary significantly
+        final List<SparseMatrix> partialResults = ParallelRangeExecutor.execute(noOfThreads, 4 * noOfThreads, noOfEntities,
+                (partitionId, firstColumn, lastColumn) -> buffers.get().multiply(matrix, firstColumn, lastColumn));
 
-        int n1 = a[0].length;
-        int n2 = b[0].length;
-        if (n1 != n2) {
-            return false;
+        int noOfNonZeros = 0;
+        for (SparseMatrix partialResult : partialResults) {
+            noOfNonZeros += partialResult.getNoOfNonZeros();
         }
 
-        for (int i = 0; i < m1; i++) {
-            for (int j = 0; j < n1; j++) {
-                if (Math.abs(a[i][j] - b[i][j]) > matrixSimThreshold) {
-                    return false;
-                }
+        int columnId = 0;
+        int offset = 0;
+        final int[] columnStarts = new int[noOfEntities + 1];
+        final int[] rowIds = new int[noOfNonZeros];
+        final float[] values = new float[noOfNonZeros];
+        for (SparseMatrix partialResult : partialResults) {
+            for (int j = 0; j < partialResult.getNoOfColumns(); j++) {
+                columnStarts[columnId++] = offset + partialResult.getColumnStart(j);
             }
+            System.arraycopy(partialResult.getRowIds(), 0, rowIds, offset, partialResult.getNoOfNonZeros());
+            System.arraycopy(partialResult.getValues(), 0, values, offset, partialResult.getNoOfNonZeros());
+            offset += partialResult.getNoOfNonZeros();
         }
-
-        return true;
-    }
-
-    private void expand2(float[][] inputMatrix) {
-        final float[][] input = multiply(inputMatrix, inputMatrix);
-        for (int i = 0; i < inputMatrix.length; i++) {
-            System.arraycopy(input[i], 0, inputMatrix[i], 0, inputMatrix[0].length);
-        }
+        columnStarts[noOfEntities] = offset;
+        return new SparseMatrix(noOfEntities, columnStarts, rowIds, values);
     }
 
     @Override
     public EquivalenceCluster[] getDuplicates(SimilarityPairs simPairs) {
         initializeData(simPairs);
 
-        // add an edge for every pair of entities with a weight higher than the threshold
-        final Iterator<Comparison> iterator = simPairs.getPairIterator();
-        float[][] simMatrix = new float[noOfEntities][noOfEntities];
-        while (iterator.hasNext()) {
-            final Comparison comparison = iterator.next();
-            if (threshold < comparison.getUtilityMeasure()) {
-                simMatrix[comparison.getEntityId1()][comparison.getEntityId2() + datasetLimit] = comparison.getUtilityMeasure();
-            }
-        }
-
-        addSelfLoop(simMatrix);
-        normalizeColumns(simMatrix);
-        float[][] atStart = new float[noOfEntities][noOfEntities];
+        SparseMatrix simMatrix = getSimilarityMatrix(simPairs);
+        simMatrix.normalizeColumns();
+        SparseMatrix atStart;
         int count = 0;
         do {
-            for (int i = 0; i < noOfEntities; i++) {
-                System.arraycopy(simMatrix[i], 0, atStart[i], 0, noOfEntities);
+            atStart = simMatrix;
+            simMatrix = expand2(simMatrix);
+            simMatrix.normalizeColumns();
+            simMatrix.hadamard(2);
+            simMatrix.normalizeColumns();
+            final SparseMatrix prunedMatrix = simMatrix.prune(matrixSimThreshold);
+            if (prunedMatrix != simMatrix) {
+                simMatrix = prunedMatrix;
+                simMatrix.normalizeColumns();
             }
-            expand2(simMatrix);
-            normalizeColumns(simMatrix);
-            hadamard(simMatrix, 2);
-            normalizeColumns(simMatrix);
             count++;
-        } while ((!areSimilar(atStart, simMatrix)) && (count < similarityChecksLimit));
-
-        int n1 = simMatrix.length;
-        int upLimit = n1;
-        int lowLimit = 0;
-        if (datasetLimit != 0) {
-            upLimit = datasetLimit;
-            lowLimit = datasetLimit;
-        }
-
-        for (int i = 0; i < upLimit; i++) {
-            for (int j = lowLimit; j < n1; j++) {
-                float sim = Math.max(simMatrix[i][j], simMatrix[j][i]);
-                if ((sim > clusterThreshold) && (i != j)) {
-                    similarityGraph.addEdge(i, j);
+        } while ((!atStart.isSimilar(simMatrix, matrixSimThreshold)) && (count < similarityChecksLimit));
+
+        // the edge i-j is added if max(M[i][j], M[j][i]) exceeds the threshold, i.e., if any of the two cells does
+        final int[] rowIds = simMatrix.getRowIds();
+        final float[] values = simMatrix.getValues();
+        for (int j = 0; j < noOfEntities; j++) {
+            for (int i = simMatrix.getColumnStart(j); i < simMatrix.getColumnEnd(j); i++) {
+                if (clusterThreshold < values[i] && rowIds[i] != j
+                        && (datasetLimit == 0 || (rowIds[i] < datasetLimit) != (j < datasetLimit))) {
+                    similarityGraph.addEdge(rowIds[i], j);
                 }
             }
         }
@@ -260,64 +252,68 @@ public class MarkovClustering extends AbstractEntityClustering {
         }
     }
 
-    private void hadamard(float[][] a, int pow) {
-        int m1 = a.length;
-        int n1 = a[0].length;
-        for (int i = 0; i < m1; i++) {
-            for (int j = 0; j < n1; j++) {
-                a[i][j] = (float) Math.pow(a[i][j], pow);
+    // builds the column-stochastic matrix with an edge for every pair of entities with a weight higher than the threshold
+    private SparseMatrix getSimilarityMatrix(SimilarityPairs simPairs) {
+        final int[] entityIds1 = simPairs.getEntityIds1();
+        final int[] entityIds2 = simPairs.getEntityIds2();
+        final float[] similarities = simPairs.getSimilarities();
+
+        // every column has an extra cell for the self-loop
+        final int[] columnStarts = new int[noOfEntities + 1];
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            if (threshold < similarities[i]) {
+                columnStarts[entityIds2[i] + datasetLimit + 1]++;
             }
         }
-    }
-
-    private float[][] multiply(float[][] a, float[][] b) {
-        int n1 = a.length;
-        if (n1 != a[0].length) {
-            throw new RuntimeException("Illegal matrix dimensions.");
-        }
-
-        int upLimit = n1;
-        int lowLimit = 0;
-        if (datasetLimit != 0) {
-            upLimit = datasetLimit;
-            lowLimit = datasetLimit;
+        for (int j = 0; j < noOfEntities; j++) {
+            columnStarts[j + 1] += columnStarts[j] + 1;
         }
 
-        final float[][] c = new float[n1][n1];
-        for (int i = 0; i < upLimit; i++) {
-            for (int j = lowLimit; j < n1; j++) {
-                for (int k = 0; k < n1; k++) {
-                    c[i][j] += a[i][k] * b[k][j];
-                }
+        final int[] nextCell = Arrays.copyOf(columnStarts, noOfEntities);
+        final int[] rowIds = new int[columnStarts[noOfEntities]];
+        final float[] values = new float[columnStarts[noOfEntities]];
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            if (threshold < similarities[i]) {
+                int columnId = entityIds2[i] + datasetLimit;
+                rowIds[nextCell[columnId]] = entityIds1[i];
+                values[nextCell[columnId]++] = similarities[i];
             }
         }
-
-        if (datasetLimit == 0) {
-            return c;
-        }
-
-        for (int i = 0; i < upLimit; i++) {
-            c[i][i] += a[i][i] * b[i][i];
-        }
-        for (int j = lowLimit; j < n1; j++) {
-            c[j][j] += a[j][j] * b[j][j];
+        for (int j = 0; j < noOfEntities; j++) {
+            rowIds[nextCell[j]] = j;
+            values[nextCell[j]] = 1.0f;
         }
-        return c;
-    }
 
-    private void normalizeColumns(float[][] a) {
-        int m1 = a.length;
-        int n1 = a[0].length;
-        for (int j = 0; j < n1; j++) {
-            float sumCol = 0.0f;
-            for (float[] floats : a) {
-                sumCol += floats[j];
+        // sorts every column by row id; for repeated cells, the last value is retained, so the self-loops prevail
+        int noOfCells = 0;
+        long[] sortedCells = new long[0];
+        final int[] newColumnStarts = new int[noOfEntities + 1];
+        for (int j = 0; j < noOfEntities; j++) {
+            int columnSize = columnStarts[j + 1] - columnStarts[j];
+            if (sortedCells.length < columnSize) {
+                sortedCells = new long[columnSize];
+            }
+            for (int i = 0; i < columnSize; i++) {
+                sortedCells[i] = ((long) rowIds[columnStarts[j] + i] << 32) | i;
             }
+            Arrays.sort(sortedCells, 0, columnSize);
 
-            for (int i = 0; i < m1; i++) {
-                a[i][j] /= sumCol;
+            newColumnStarts[j] = noOfCells;
+            for (int i = 0; i < columnSize; i++) {
+                int rowId = (int) (sortedCells[i] >>> 32);
+                if (i + 1 < columnSize && rowId == (int) (sortedCells[i + 1] >>> 32)) {
+                    continue;
+                }
+                rowIds[noOfCells] = rowId;
+                values[noOfCells++] = values[columnStarts[j] + (int) sortedCells[i]];
             }
         }
+        newColumnStarts[noOfEntities] = noOfCells;
+        return new SparseMatrix(noOfEntities, newColumnStarts, rowIds, values);
+    }
+
+    public int getNoOfThreads() {
+        return noOfThreads;
     }
 
     public void setClusterThreshold(float clusterThreshold) {
@@ -368,4 +364,93 @@ public class MarkovClustering extends AbstractEntityClustering {
     public void setSimilarityChecksLimit(int similarityChecksLimit) {
         this.similarityChecksLimit = similarityChecksLimit;
     }
+
+    /**
+     * Sets the number of threads that perform the expansion step, i.e., the
+     * sparse matrix multiplication, in parallel.
+     *
+     * @param noOfThreads the number of threads that multiply disjoint ranges of columns
+     */
+    public void setNoOfThreads(int noOfThreads) {
+        this.noOfThreads = Math.max(1, noOfThreads);
+    }
+
+    // the per-thread workspace of the sparse matrix multiplication
+    private class ExpansionBuffer {
+
+        private final float[] accumulator;
+        private final int[] touchedRows;
+        private final boolean[] isTouched;
+
+        ExpansionBuffer() {
+            accumulator = new float[noOfEntities];
+            touchedRows = new int[noOfEntities];
+            isTouched = new boolean[noOfEntities];
+        }
+
+        private float getDiagonalCell(SparseMatrix matrix, int columnId) {
+            final int position = Arrays.binarySearch(matrix.getRowIds(), matrix.getColumnStart(columnId), matrix.getColumnEnd(columnId), columnId);
+            return position < 0 ? 0 : matrix.getValues()[position];
+        }
+
+        // computes the columns [firstColumn, lastColumn) of the product of the given matrix with itself
+        SparseMatrix multiply(SparseMatrix matrix, int firstColumn, int lastColumn) {
+            final int[] rowIds = matrix.getRowIds();
+            final float[] values = matrix.getValues();
+
+            int noOfCells = 0;
+            int[] newRowIds = new int[Math.max(16, matrix.getColumnStart(lastColumn) - matrix.getColumnStart(firstColumn))];
+            float[] newValues = new float[newRowIds.length];
+            final int[] columnStarts = new int[lastColumn - firstColumn + 1];
+            for (int j = firstColumn; j < lastColumn; j++) {
+                columnStarts[j - firstColumn] = noOfCells;
+
+                int noOfTouchedRows = 0;
+                // in Clean-Clean ER, only the cells from the first to the second dataset and the diagonal are computed
+                if (datasetLimit == 0 || datasetLimit <= j) {
+                    for (int k = matrix.getColumnStart(j); k < matrix.getColumnEnd(j); k++) {
+                        final int middleId = rowIds[k];
+                        for (int l = matrix.getColumnStart(middleId); l < matrix.getColumnEnd(middleId); l++) {
+                            final int rowId = rowIds[l];
+                            if (datasetLimit != 0 && datasetLimit <= rowId) {
+                                continue;
+                            }
+
+                            if (!isTouched[rowId]) {
+                                isTouched[rowId] = true;
+                                touchedRows[noOfTouchedRows++] = rowId;
+                            }
+                            accumulator[rowId] += values[l] * values[k];
+                        }
+                    }
+                }
+
+                if (datasetLimit != 0) {
+                    float diagonalCell = getDiagonalCell(matrix, j);
+                    if (!isTouched[j]) {
+                        isTouched[j] = true;
+                        touchedRows[noOfTouchedRows++] = j;
+                    }
+                    accumulator[j] += diagonalCell * diagonalCell;
+                }
+
+                if (newRowIds.length < noOfCells + noOfTouchedRows) {
+                    int newLength = Math.max(2 * newRowIds.length, noOfCells + noOfTouchedRows);
+                    newRowIds = Arrays.copyOf(newRowIds, newLength);
+                    newValues = Arrays.copyOf(newValues, newLength);
+                }
+
+                Arrays.sort(touchedRows, 0, noOfTouchedRows);
+                for (int i = 0; i < noOfTouchedRows; i++) {
+                    final int rowId = touchedRows[i];
+                    newRowIds[noOfCells] = rowId;
+                    newValues[noOfCells++] = accumulator[rowId];
+                    accumulator[rowId] = 0;
+                    isTouched[rowId] = false;
+                }
+            }
+            columnStarts[lastColumn - firstColumn] = noOfCells;
+            return new SparseMatrix(lastColumn - firstColumn, columnStarts, newRowIds, newValues);
+        }
+    }
 }
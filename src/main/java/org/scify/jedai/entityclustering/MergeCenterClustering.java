@@ -15,7 +15,6 @@
  */
 package org.scify.jedai.entityclustering;
 
-import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.EquivalenceCluster;
 import org.scify.jedai.datamodel.SimilarityEdge;
 import org.scify.jedai.datamodel.SimilarityPairs;
@@ -24,7 +23,6 @@ import org.scify.jedai.utilities.comparators.DecSimilarityEdgeComparator;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 
-import java.util.Iterator;
 import java.util.PriorityQueue;
 import java.util.Queue;
 
@@ -48,11 +46,12 @@ public class MergeCenterClustering extends AbstractEntityClustering {
         
         // add an edge for every pair of entities with a weight higher than the thrshold
         final Queue<SimilarityEdge> SEqueue = new PriorityQueue<>(simPairs.getNoOfComparisons(), new DecSimilarityEdgeComparator());
-        final Iterator<Comparison> iterator = simPairs.getPairIterator();
-        while (iterator.hasNext()) {
-            final Comparison comparison = iterator.next();
-            if (threshold < comparison.getUtilityMeasure()) {
-                SEqueue.add(new SimilarityEdge(comparison.getEntityId1(), (comparison.getEntityId2() + datasetLimit), comparison.getUtilityMeasure()));
+        final int[] entityIds1 = simPairs.getEntityIds1();
+        final int[] entityIds2 = simPairs.getEntityIds2();
+        final float[] similarities = simPairs.getSimilarities();
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            if (threshold < similarities[i]) {
+                SEqueue.add(new SimilarityEdge(entityIds1[i], (entityIds2[i] + datasetLimit), similarities[i]));
             }
         }
         
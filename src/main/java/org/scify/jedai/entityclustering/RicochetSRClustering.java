@@ -15,7 +15,6 @@
  */
 package org.scify.jedai.entityclustering;
 
-import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.EquivalenceCluster;
 import org.scify.jedai.datamodel.SimilarityPairs;
 import org.scify.jedai.datamodel.VertexWeight;
@@ -29,7 +28,6 @@ import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Queue;
@@ -61,19 +59,20 @@ public class RicochetSRClustering extends AbstractEntityClustering {
             connections.add(i, new TIntFloatHashMap());
         }
 
-        final Iterator<Comparison> iterator = simPairs.getPairIterator();
-        while (iterator.hasNext()) {	// add an edge for every pair of entities with a weight higher than the threshold
-            final Comparison comparison = iterator.next();
-            int entityId2 = comparison.getEntityId2() + datasetLimit;
-            if (threshold < comparison.getUtilityMeasure()) {
-                edgesWeight[comparison.getEntityId1()] += comparison.getUtilityMeasure();
-                edgesWeight[entityId2] += comparison.getUtilityMeasure();
+        final int[] entityIds1 = simPairs.getEntityIds1();
+        final int[] entityIds2 = simPairs.getEntityIds2();
+        final float[] similarities = simPairs.getSimilarities();
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {	// add an edge for every pair of entities with a weight higher than the threshold
+            int entityId2 = entityIds2[i] + datasetLimit;
+            if (threshold < similarities[i]) {
+                edgesWeight[entityIds1[i]] += similarities[i];
+                edgesWeight[entityId2] += similarities[i];
 
-                edgesAttached[comparison.getEntityId1()]++;
+                edgesAttached[entityIds1[i]]++;
                 edgesAttached[entityId2]++;
 
-                connections.get(comparison.getEntityId1()).put(entityId2, comparison.getUtilityMeasure());
-                connections.get(entityId2).put(comparison.getEntityId1(), comparison.getUtilityMeasure());
+                connections.get(entityIds1[i]).put(entityId2, similarities[i]);
+                connections.get(entityId2).put(entityIds1[i], similarities[i]);
             }
         }
 
@@ -16,17 +16,15 @@
 package org.scify.jedai.entityclustering;
 
 import com.esotericsoftware.minlog.Log;
-import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.EquivalenceCluster;
 import org.scify.jedai.datamodel.SimilarityPairs;
 
-import java.util.Iterator;
 
 /**
  *
  * @author Manos
  */
-public class RowColumnClustering extends AbstractCcerEntityClustering {
+public class RowColumnClustering extends AbstractAssignmentClustering {
 
     protected float[][] matrix; // inverted similarity matrix (cost matrix)
 
@@ -83,13 +81,19 @@ public class RowColumnClustering extends AbstractCcerEntityClustering {
             return null; //the method is only applicable to Clean-Clean ER
         }
 
-        final Iterator<Comparison> iterator = simPairs.getPairIterator();
+        if (sparseAssignment) {
+            getSparseAssignment(simPairs);
+            return getConnectedComponents();
+        }
+
         int matrixSize = Math.max(noOfEntities - datasetLimit, datasetLimit);
         float[][] simMatrix = new float[matrixSize][matrixSize];
-        while (iterator.hasNext()) {
-            final Comparison comparison = iterator.next();
-            if (threshold < comparison.getUtilityMeasure()) {
-                simMatrix[comparison.getEntityId1()][comparison.getEntityId2()] = comparison.getUtilityMeasure();
+        final int[] entityIds1 = simPairs.getEntityIds1();
+        final int[] entityIds2 = simPairs.getEntityIds2();
+        final float[] similarities = simPairs.getSimilarities();
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            if (threshold < similarities[i]) {
+                simMatrix[entityIds1[i]][entityIds2[i]] = similarities[i];
             }
         }
 
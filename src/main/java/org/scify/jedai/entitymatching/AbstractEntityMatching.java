@@ -15,7 +15,14 @@
  */
 package org.scify.jedai.entitymatching;
 
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.ComparisonIterator;
 import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datamodel.IComparisonStream;
+import org.scify.jedai.datamodel.ISimilarityConsumer;
+import org.scify.jedai.datamodel.SimilarityPairs;
+import org.scify.jedai.utilities.ParallelRangeExecutor;
 import org.scify.jedai.utilities.enumerations.RepresentationModel;
 import org.scify.jedai.utilities.enumerations.SimilarityMetric;
 
@@ -30,7 +37,11 @@ import org.scify.jedai.configuration.randomsearch.IntRandomSearchConfiguration;
  */
 public abstract class AbstractEntityMatching implements IEntityMatching {
 
+    // the maximum number of comparisons buffered by all threads before passing them to the consumer
+    protected final static int MAX_BUFFERED_COMPARISONS = 10_000_000;
+
     protected boolean isCleanCleanER;
+    protected int noOfThreads;
 
     protected final IntGridSearchConfiguration gridCombo;
     protected final IntRandomSearchConfiguration randomCombo;
@@ -44,6 +55,7 @@ public abstract class AbstractEntityMatching implements IEntityMatching {
         representationModel = model;
         simMetric = sMetric;
 
+        noOfThreads = 1;
         this.profilesD1 = profilesD1;
         this.profilesD2 = profilesD2;
         modelMetricCombinations = RepModelSimMetricCombo.getAllValidCombos();
@@ -53,6 +65,76 @@ public abstract class AbstractEntityMatching implements IEntityMatching {
     
     protected abstract void buildModels();
 
+    @Override
+    public float executeComparison(Comparison comparison) {
+        return executeComparison(comparison.getEntityId1(), comparison.getEntityId2());
+    }
+
+    @Override
+    public SimilarityPairs executeComparisons(List<AbstractBlock> blocks) {
+        final SimilarityPairs simPairs = new SimilarityPairs(profilesD2 != null, blocks);
+        executeComparisons(blocks, 0, simPairs);
+        return simPairs;
+    }
+
+    @Override
+    public void executeComparisons(List<AbstractBlock> blocks, float similarityThreshold, ISimilarityConsumer consumer) {
+        if (noOfThreads == 1) {
+            executeComparisons(blocks, 0, blocks.size(), similarityThreshold, consumer);
+            return;
+        }
+
+        // the blocks are processed in consecutive windows of bounded size, so that the buffers of all threads fit in memory
+        int windowStart = 0;
+        float windowComparisons = 0;
+        for (int i = 0; i < blocks.size(); i++) {
+            windowComparisons += blocks.get(i).getNoOfComparisons();
+            if (MAX_BUFFERED_COMPARISONS <= windowComparisons || i == blocks.size() - 1) {
+                executeComparisonsInParallel(blocks.subList(windowStart, i + 1), similarityThreshold, consumer);
+                windowStart = i + 1;
+                windowComparisons = 0;
+            }
+        }
+    }
+
+    private void executeComparisons(List<AbstractBlock> blocks, int firstBlock, int lastBlock, float similarityThreshold, ISimilarityConsumer consumer) {
+        for (AbstractBlock block : blocks.subList(firstBlock, lastBlock)) {
+            final ComparisonIterator iterator = block.getComparisonIterator();
+            while (iterator.hasNext()) {
+                final long pair = iterator.nextPair();
+                final int entityId1 = IComparisonStream.getEntityId1(pair);
+                final int entityId2 = IComparisonStream.getEntityId2(pair);
+                if (!isCleanCleanER && entityId1 == entityId2) { // repeated entity id in a unilateral block
+                    continue;
+                }
+
+                float similarity = executeComparison(entityId1, entityId2);
+                if (similarityThreshold < similarity) {
+                    consumer.addSimilarity(entityId1, entityId2, similarity);
+                }
+            }
+        }
+    }
+
+    private void executeComparisonsInParallel(List<AbstractBlock> blocks, float similarityThreshold, ISimilarityConsumer consumer) {
+        // more partitions than threads balance the load, as block sizes vary significantly
+        final List<SimilarityPairs> partialPairs = ParallelRangeExecutor.execute(noOfThreads, 4 * noOfThreads, blocks.size(), (partitionId, startId, endId) -> {
+            final SimilarityPairs localPairs = new SimilarityPairs(isCleanCleanER, blocks.subList(startId, endId));
+            executeComparisons(blocks, startId, endId, similarityThreshold, localPairs);
+            return localPairs;
+        });
+
+        // the partial results are merged in the order of blocks, yielding the same output as sequential execution
+        for (SimilarityPairs localPairs : partialPairs) {
+            final int[] entityIds1 = localPairs.getEntityIds1();
+            final int[] entityIds2 = localPairs.getEntityIds2();
+            final float[] similarities = localPairs.getSimilarities();
+            for (int i = 0; i < localPairs.getNoOfComparisons(); i++) {
+                consumer.addSimilarity(entityIds1[i], entityIds2[i], similarities[i]);
+            }
+        }
+    }
+
     @Override
     public int getNumberOfGridConfigurations() {
         return gridCombo.getNumberOfConfigurations();
@@ -84,4 +166,19 @@ public abstract class AbstractEntityMatching implements IEntityMatching {
         simMetric = selectedCombo.getSimMetric();
         buildModels();
     }
+
+    public int getNoOfThreads() {
+        return noOfThreads;
+    }
+
+    /**
+     * Sets the number of threads that execute the comparisons of the input blocks.
+     * The models of the entity profiles are only read during the comparisons,
+     * thus they are shared by all threads.
+     *
+     * @param noOfThreads the number of threads that execute comparisons in parallel
+     */
+    public void setNoOfThreads(int noOfThreads) {
+        this.noOfThreads = Math.max(1, noOfThreads);
+    }
 }
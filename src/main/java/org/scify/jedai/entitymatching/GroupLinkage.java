@@ -21,6 +21,7 @@ import org.apache.jena.atlas.json.JsonObject;
 import org.jgrapht.graph.DefaultWeightedEdge;
 import org.jgrapht.graph.SimpleDirectedWeightedGraph;
 import org.scify.jedai.datamodel.*;
+import org.scify.jedai.textmodels.CorpusStatistics;
 import org.scify.jedai.textmodels.ITextModel;
 import org.scify.jedai.utilities.comparators.DecSimilarityEdgeComparator;
 import org.scify.jedai.utilities.enumerations.RepresentationModel;
@@ -72,45 +73,29 @@ public class GroupLinkage extends AbstractEntityMatching {
             Log.info("Applying " + getMethodName() + " with the following configuration : " + getMethodConfiguration());
 
             isCleanCleanER = false;
-            entityModelsD1 = getModels(DATASET_1, profilesD1);
+            final CorpusStatistics statistics = new CorpusStatistics();
+            entityModelsD1 = getModels(DATASET_1, profilesD1, statistics);
             if (profilesD2 != null) {
                 isCleanCleanER = true;
-                entityModelsD2 = getModels(DATASET_2, profilesD2);
+                entityModelsD2 = getModels(DATASET_2, profilesD2, statistics);
             }
         }
     }
     
     @Override
-    public float executeComparison(Comparison comparison) {
-        final Queue<SimilarityEdge> similarityQueue = getSimilarityEdges(comparison);
+    public float executeComparison(int entityId1, int entityId2) {
+        final Queue<SimilarityEdge> similarityQueue = getSimilarityEdges(entityId1, entityId2);
         final SimpleDirectedWeightedGraph<String, DefaultWeightedEdge> similarityGraph = getSimilarityGraph(similarityQueue);
-        int verticesNum = entityModelsD1[comparison.getEntityId1()].length;
+        int verticesNum = entityModelsD1[entityId1].length;
         if (isCleanCleanER) {
-            verticesNum += entityModelsD2[comparison.getEntityId2()].length;
+            verticesNum += entityModelsD2[entityId2].length;
         } else {
-            verticesNum += entityModelsD1[comparison.getEntityId2()].length;
+            verticesNum += entityModelsD1[entityId2].length;
         }
 
         return getSimilarity(similarityGraph, verticesNum);
     }
 
-    @Override
-    public SimilarityPairs executeComparisons(List<AbstractBlock> blocks) {
-        final SimilarityPairs simPairs = new SimilarityPairs(profilesD2 != null, blocks);
-        blocks.stream().map(AbstractBlock::getComparisonIterator).forEachOrdered((iterator) -> {
-            while (iterator.hasNext()) {
-                final Comparison currentComparison = iterator.next();
-                float similarity = executeComparison(currentComparison);
-                if (0 < similarity) {
-                    currentComparison.setUtilityMeasure(similarity);
-                    simPairs.addComparison(currentComparison);
-                }
-            }
-        });
-
-        return simPairs;
-    }
-
     @Override
     public String getMethodConfiguration() {
         return getParameterName(0) + "=" + representationModel + "\t"
@@ -138,10 +123,9 @@ public class GroupLinkage extends AbstractEntityMatching {
 
     //Every element of the getModels list is an ITextModel[] array, corresponding to 
     //a profile. Every element of these arrays is a text-model corresponding to an attribute.
-    private ITextModel[][] getModels(int datasetId, List<EntityProfile> profiles) {
+    private ITextModel[][] getModels(int datasetId, List<EntityProfile> profiles, CorpusStatistics statistics) {
         int entityCounter = 0;
         final ITextModel[][] ModelsList = new ITextModel[profiles.size()][];
-        RepresentationModel.resetGlobalValues(datasetId, representationModel);
         for (EntityProfile profile : profiles) {
             int validAttributes = profile.getAttributes().stream().filter((attribute) -> (!attribute.getValue().isEmpty())).mapToInt(_item -> 1).sum();
 
@@ -149,7 +133,7 @@ public class GroupLinkage extends AbstractEntityMatching {
             ModelsList[entityCounter] = new ITextModel[validAttributes];
             for (Attribute attribute : profile.getAttributes()) {
                 if (!attribute.getValue().isEmpty()) {
-                    ModelsList[entityCounter][counter] = RepresentationModel.getModel(datasetId, representationModel, simMetric, attribute.getName());
+                    ModelsList[entityCounter][counter] = RepresentationModel.getModel(datasetId, representationModel, simMetric, attribute.getName(), statistics);
                     ModelsList[entityCounter][counter].updateModel(attribute.getValue());
                     ModelsList[entityCounter][counter].finalizeModel();
                     counter++;
@@ -235,13 +219,13 @@ public class GroupLinkage extends AbstractEntityMatching {
         return numerator / denominator;
     }
 
-    private Queue<SimilarityEdge> getSimilarityEdges(Comparison comparison) {
-        final ITextModel[] model1 = entityModelsD1[comparison.getEntityId1()];
+    private Queue<SimilarityEdge> getSimilarityEdges(int entityId1, int entityId2) {
+        final ITextModel[] model1 = entityModelsD1[entityId1];
         ITextModel[] model2;
         if (isCleanCleanER) {
-            model2 = entityModelsD2[comparison.getEntityId2()];
+            model2 = entityModelsD2[entityId2];
         } else {
-            model2 = entityModelsD1[comparison.getEntityId2()];
+            model2 = entityModelsD1[entityId2];
         }
 
         int s1 = model1.length;
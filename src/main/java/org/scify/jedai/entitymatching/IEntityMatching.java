@@ -18,6 +18,7 @@ package org.scify.jedai.entitymatching;
 import org.scify.jedai.configuration.IConfiguration;
 import org.scify.jedai.datamodel.AbstractBlock;
 import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.ISimilarityConsumer;
 import org.scify.jedai.datamodel.SimilarityPairs;
 import org.scify.jedai.utilities.IConstants;
 import org.scify.jedai.utilities.IDocumentation;
@@ -31,6 +32,28 @@ import java.util.List;
 public interface IEntityMatching extends IConfiguration, IConstants, IDocumentation {
     
     float executeComparison(Comparison comparison);
+
+    /**
+     * Compares the given entities without creating a Comparison object. In
+     * Clean-Clean ER, the first entity belongs to D1 and the second one to D2.
+     *
+     * @param entityId1 the id of the first entity
+     * @param entityId2 the id of the second entity
+     * @return the similarity of the two entities
+     */
+    float executeComparison(int entityId1, int entityId2);
     
     SimilarityPairs executeComparisons(List<AbstractBlock> blocks);
+
+    /**
+     * Executes the comparisons of the given blocks lazily, one block at a time,
+     * and passes to the consumer those with a similarity higher than the given
+     * threshold. Unlike executeComparisons(blocks), no similarity pairs are kept
+     * in memory and the number of comparisons is not bounded.
+     *
+     * @param blocks the blocks whose comparisons will be executed
+     * @param similarityThreshold the similarity over which a comparison is passed to the consumer
+     * @param consumer the recipient of the executed comparisons
+     */
+    void executeComparisons(List<AbstractBlock> blocks, float similarityThreshold, ISimilarityConsumer consumer);
 }
@@ -19,6 +19,7 @@ import com.esotericsoftware.minlog.Log;
 import org.apache.jena.atlas.json.JsonArray;
 import org.apache.jena.atlas.json.JsonObject;
 import org.scify.jedai.datamodel.*;
+import org.scify.jedai.textmodels.CorpusStatistics;
 import org.scify.jedai.textmodels.ITextModel;
 import org.scify.jedai.utilities.enumerations.RepresentationModel;
 import org.scify.jedai.utilities.enumerations.SimilarityMetric;
@@ -63,37 +64,21 @@ public class ProfileMatcher extends AbstractEntityMatching {
         Log.info("Applying " + getMethodName() + " with the following configuration : " + getMethodConfiguration());
 
         isCleanCleanER = false;
-        entityModelsD1 = getModels(DATASET_1, profilesD1);
+        final CorpusStatistics statistics = new CorpusStatistics();
+        entityModelsD1 = getModels(DATASET_1, profilesD1, statistics);
         if (profilesD2 != null) {
             isCleanCleanER = true;
-            entityModelsD2 = getModels(DATASET_2, profilesD2);
+            entityModelsD2 = getModels(DATASET_2, profilesD2, statistics);
         }
     }
 
     @Override
-    public float executeComparison(Comparison comparison) {
+    public float executeComparison(int entityId1, int entityId2) {
         if (isCleanCleanER) {
-            return entityModelsD1[comparison.getEntityId1()].getSimilarity(entityModelsD2[comparison.getEntityId2()]);
+            return entityModelsD1[entityId1].getSimilarity(entityModelsD2[entityId2]);
         }
 
-        return entityModelsD1[comparison.getEntityId1()].getSimilarity(entityModelsD1[comparison.getEntityId2()]);
-    }
-
-    @Override
-    public SimilarityPairs executeComparisons(List<AbstractBlock> blocks) {
-        final SimilarityPairs simPairs = new SimilarityPairs(profilesD2 != null, blocks);
-        blocks.stream().map(AbstractBlock::getComparisonIterator).forEachOrdered((iterator) -> {
-            while (iterator.hasNext()) {
-                final Comparison currentComparison = iterator.next();
-                float similarity = executeComparison(currentComparison);
-                if (0 < similarity) {
-                    currentComparison.setUtilityMeasure(similarity);
-                    simPairs.addComparison(currentComparison);
-                }
-            }
-        });
-
-        return simPairs;
+        return entityModelsD1[entityId1].getSimilarity(entityModelsD1[entityId2]);
     }
 
     @Override
@@ -120,12 +105,11 @@ public class ProfileMatcher extends AbstractEntityMatching {
                 + "2)" + getParameterDescription(1) + ".";
     }
 
-    private ITextModel[] getModels(int datasetId, List<EntityProfile> profiles) {
+    private ITextModel[] getModels(int datasetId, List<EntityProfile> profiles, CorpusStatistics statistics) {
         int counter = 0;
         final ITextModel[] models = new ITextModel[profiles.size()];
-        RepresentationModel.resetGlobalValues(datasetId, representationModel);
         for (EntityProfile profile : profiles) {
-            models[counter] = RepresentationModel.getModel(datasetId, representationModel, simMetric, profile.getEntityUrl());
+            models[counter] = RepresentationModel.getModel(datasetId, representationModel, simMetric, profile.getEntityUrl(), statistics);
             for (Attribute attribute : profile.getAttributes()) {
                 models[counter].updateModel(attribute.getValue());
             }
@@ -17,15 +17,16 @@ package org.scify.jedai.prioritization;
 
 import com.esotericsoftware.minlog.Log;
 import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.BilateralBlock;
 import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.ComparisonIterator;
 import org.scify.jedai.datamodel.DecomposedBlock;
+import org.scify.jedai.datamodel.PrunedBlockingGraph;
 import org.scify.jedai.prioritization.utilities.BlockcentricEntityIndex;
-import org.scify.jedai.utilities.comparators.DecComparisonWeightComparator;
+import org.scify.jedai.utilities.datastructures.ComparisonHeap;
 import org.scify.jedai.utilities.comparators.IncBlockCardinalityComparator;
 import org.scify.jedai.utilities.enumerations.WeightingScheme;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -41,6 +42,7 @@ public class ProgressiveBlockScheduling extends AbstractHashBasedPrioritization
 
     private AbstractBlock[] blocksArray;
     private BlockcentricEntityIndex entityIndex;
+    private ComparisonHeap topComparisons;
     
     public ProgressiveBlockScheduling(int budget, WeightingScheme wScheme) {
         super(budget, wScheme);
@@ -55,32 +57,43 @@ public class ProgressiveBlockScheduling extends AbstractHashBasedPrioritization
 
         blocks.sort(new IncBlockCardinalityComparator());
         blocksArray = blocks.toArray(new AbstractBlock[0]);
-        isDecomposedBlock = blocksArray[0] instanceof DecomposedBlock;
+        isDecomposedBlock = blocksArray[0] instanceof DecomposedBlock || blocksArray[0] instanceof PrunedBlockingGraph;
         if (!isDecomposedBlock) {
             entityIndex = new BlockcentricEntityIndex(blocks, wScheme);
         }
 
         blockCounter = 0;
         comparisonCounter = 0;
+        boolean cleanCleanER = blocksArray[0] instanceof BilateralBlock;
+        if (blocksArray[0] instanceof DecomposedBlock) {
+            cleanCleanER = ((DecomposedBlock) blocksArray[0]).isCleanCleanER();
+        } else if (blocksArray[0] instanceof PrunedBlockingGraph) {
+            cleanCleanER = ((PrunedBlockingGraph) blocksArray[0]).isCleanCleanER();
+        }
+        topComparisons = new ComparisonHeap(cleanCleanER, (int) blocksArray[0].getNoOfComparisons());
+        compIterator = topComparisons;
         filterComparisons();
     }
 
+    // the comparisons of the current block are heapified in linear time and are sorted lazily, as they are emitted
     private void filterComparisons() {
-        final List<Comparison> topComparisons = new ArrayList<>();
-        final ComparisonIterator iterator = blocksArray[blockCounter].getComparisonIterator();
-        while (iterator.hasNext()) {
-            final Comparison comparison = iterator.next();
-            if (!isDecomposedBlock) {
+        topComparisons.clear();
+        if (blocksArray[blockCounter] instanceof PrunedBlockingGraph) {
+            topComparisons.appendAll((PrunedBlockingGraph) blocksArray[blockCounter]);
+        } else if (isDecomposedBlock) {
+            topComparisons.appendAll((DecomposedBlock) blocksArray[blockCounter]);
+        } else {
+            final ComparisonIterator iterator = blocksArray[blockCounter].getComparisonIterator();
+            while (iterator.hasNext()) {
+                final Comparison comparison = iterator.next();
                 float weight = entityIndex.getWeight(blockCounter, comparison);
                 if (weight < 0) {
                     continue;
                 }
-                comparison.setUtilityMeasure(weight);
+                topComparisons.append(comparison.getEntityId1(), comparison.getEntityId2(), weight);
             }
-            topComparisons.add(comparison);
         }
-        topComparisons.sort(new DecComparisonWeightComparator());
-        compIterator = topComparisons.iterator();
+        topComparisons.heapify();
     }
 
     @Override
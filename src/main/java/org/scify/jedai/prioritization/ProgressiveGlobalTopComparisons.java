@@ -16,18 +16,14 @@
 package org.scify.jedai.prioritization;
 
 import com.esotericsoftware.minlog.Log;
-import java.util.ArrayList;
 import java.util.Iterator;
+import org.scify.jedai.utilities.datastructures.ComparisonHeap;
 import org.scify.jedai.prioritization.utilities.ProgressiveCEP;
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Queue;
 import org.scify.jedai.datamodel.AbstractBlock;
 import org.scify.jedai.datamodel.Comparison;
-import org.scify.jedai.datamodel.ComparisonIterator;
 import org.scify.jedai.datamodel.DecomposedBlock;
-import org.scify.jedai.utilities.comparators.DecComparisonWeightComparator;
-import org.scify.jedai.utilities.comparators.IncComparisonWeightComparator;
+import org.scify.jedai.datamodel.PrunedBlockingGraph;
 import org.scify.jedai.utilities.enumerations.WeightingScheme;
 
 /**
@@ -51,7 +47,7 @@ public class ProgressiveGlobalTopComparisons extends AbstractHashBasedPrioritiza
             System.exit(-1);
         }
 
-        if (blocks.get(0) instanceof DecomposedBlock) {
+        if (blocks.get(0) instanceof DecomposedBlock || blocks.get(0) instanceof PrunedBlockingGraph) {
             Log.warn("Decomposed blocks were given as input!");
             Log.warn("The pre-computed comparison weights will be used!");
             
@@ -84,23 +80,24 @@ public class ProgressiveGlobalTopComparisons extends AbstractHashBasedPrioritiza
     }
 
     protected Iterator<Comparison> processDecomposedBlocks(List<AbstractBlock> blocks) {
-        float minimumWeight = -1;
-        final Queue<Comparison> topComparisons = new PriorityQueue<>((int) (2 * comparisonsBudget), new IncComparisonWeightComparator());
+        long totalComparisons = 0;
         for (AbstractBlock block : blocks) {
-            final ComparisonIterator cIterator = block.getComparisonIterator();
-            while (cIterator.hasNext()) {
-                final Comparison currentComparison = cIterator.next();
-                if (minimumWeight < currentComparison.getUtilityMeasure()) {
-                    topComparisons.add(currentComparison);
-                    if (comparisonsBudget < topComparisons.size()) {
-                        final Comparison lastComparison = topComparisons.poll();
-                        minimumWeight = lastComparison.getUtilityMeasure();
-                    }
-                }
+            totalComparisons += (long) block.getNoOfComparisons();
+        }
+
+        final boolean cleanCleanER = blocks.get(0) instanceof DecomposedBlock ? ((DecomposedBlock) blocks.get(0)).isCleanCleanER() : ((PrunedBlockingGraph) blocks.get(0)).isCleanCleanER();
+        final ComparisonHeap topComparisons = new ComparisonHeap(cleanCleanER, (int) Math.min(comparisonsBudget, totalComparisons));
+        topComparisons.setMinHeap();
+        for (AbstractBlock block : blocks) {
+            if (block instanceof PrunedBlockingGraph) {
+                topComparisons.offerAll((PrunedBlockingGraph) block, comparisonsBudget);
+            } else {
+                topComparisons.offerAll((DecomposedBlock) block, comparisonsBudget);
             }
         }
-        final List<Comparison> sortedTopComparisons = new ArrayList<>(topComparisons);
-        sortedTopComparisons.sort(new DecComparisonWeightComparator());
-        return sortedTopComparisons.iterator();
+
+        // instead of sorting all top comparisons, they are ordered lazily, as they are emitted
+        topComparisons.heapify();
+        return topComparisons;
     }
 }
@@ -21,6 +21,7 @@ import java.util.List;
 import org.scify.jedai.datamodel.AbstractBlock;
 import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.DecomposedBlock;
+import org.scify.jedai.datamodel.PrunedBlockingGraph;
 import org.scify.jedai.prioritization.utilities.ProgressiveCNPDecomponsedBlocks;
 import org.scify.jedai.utilities.enumerations.WeightingScheme;
 
@@ -45,7 +46,7 @@ public class ProgressiveLocalTopComparisons extends AbstractHashBasedPrioritizat
             System.exit(-1);
         }
 
-        if (blocks.get(0) instanceof DecomposedBlock) {
+        if (blocks.get(0) instanceof DecomposedBlock || blocks.get(0) instanceof PrunedBlockingGraph) {
             Log.warn("Decomposed blocks were given as input!");
             Log.warn("The pre-computed comparison weights will be used!");
 
@@ -26,6 +26,7 @@ import org.scify.jedai.datamodel.BilateralBlock;
 import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.ComparisonIterator;
 import org.scify.jedai.datamodel.DecomposedBlock;
+import org.scify.jedai.datamodel.PrunedBlockingGraph;
 import org.scify.jedai.datamodel.UnilateralBlock;
 import org.scify.jedai.utilities.enumerations.WeightingScheme;
 
@@ -56,7 +57,7 @@ public class BlockcentricEntityIndex implements Serializable {
             return;
         }
 
-        if (blocks.get(0) instanceof DecomposedBlock) {
+        if (blocks.get(0) instanceof DecomposedBlock || blocks.get(0) instanceof PrunedBlockingGraph) {
             System.err.println("The entity index is incompatible with a set of decomposed blocks!");
             System.err.println("Its functionalities can be carried out with same efficiency through a linear search of all comparisons!");
             return;
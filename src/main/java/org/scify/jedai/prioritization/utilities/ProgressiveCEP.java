@@ -19,6 +19,7 @@ import com.esotericsoftware.minlog.Log;
 import org.scify.jedai.blockprocessing.comparisoncleaning.CardinalityEdgePruning;
 import org.scify.jedai.datamodel.AbstractBlock;
 import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.IComparisonStream;
 import org.scify.jedai.utilities.comparators.DecComparisonWeightComparator;
 import org.scify.jedai.utilities.enumerations.WeightingScheme;
 
@@ -52,7 +53,13 @@ public class ProgressiveCEP extends CardinalityEdgePruning {
     @Override
     protected List<AbstractBlock> pruneEdges() {
         setTopKEdges();
-        topComparisons = new ArrayList<>(topKEdges);
+        topComparisons = new ArrayList<>(topKEdges.size());
+        for (int i = 0; i < topKEdges.size(); i++) {
+            final long pair = topKEdges.getPair(i);
+            final Comparison comparison = new Comparison(cleanCleanER, IComparisonStream.getEntityId1(pair), IComparisonStream.getEntityId2(pair));
+            comparison.setUtilityMeasure(topKEdges.getWeight(i));
+            topComparisons.add(comparison);
+        }
         topComparisons.sort(new DecComparisonWeightComparator());
         return null;
     }
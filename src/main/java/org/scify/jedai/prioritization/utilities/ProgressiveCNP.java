@@ -20,6 +20,7 @@ import gnu.trove.iterator.TIntIterator;
 import org.scify.jedai.blockprocessing.comparisoncleaning.CardinalityNodePruning;
 import org.scify.jedai.datamodel.AbstractBlock;
 import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.IComparisonStream;
 import org.scify.jedai.utilities.comparators.DecComparisonWeightComparator;
 import org.scify.jedai.utilities.enumerations.WeightingScheme;
 
@@ -60,6 +61,11 @@ public class ProgressiveCNP extends CardinalityNodePruning {
         return null;
     }
     
+    @Override
+    public void setNoOfThreads(int threads) {
+        Log.warn("Multi-threading is inapplicable! " + getMethodName() + " collects all top comparisons in a single set!");
+    }
+
     @Override
     protected void setThreshold() {
         threshold = Math.max(1, 2 * comparisonsBudget / noOfEntities);
@@ -72,22 +78,27 @@ public class ProgressiveCNP extends CardinalityNodePruning {
             return;
         }
 
-        topKEdges.clear();
+        topKNeighbors.clear();
+        topKNeighbors.setMinHeap();
         minimumWeight = Float.MIN_VALUE;
         for (TIntIterator iterator = validEntities.iterator(); iterator.hasNext();) {
             int neighborId = iterator.next();
             float weight = getWeight(entityId, neighborId);
             if (minimumWeight <= weight) {
-                final Comparison comparison = getComparison(entityId, neighborId);
-                comparison.setUtilityMeasure(weight);
-                topKEdges.add(comparison);
-                if (threshold < topKEdges.size()) {
-                    Comparison lastComparison = topKEdges.poll();
-                    minimumWeight = lastComparison.getUtilityMeasure();
+                final long pair = getPair(entityId, neighborId);
+                topKNeighbors.add(IComparisonStream.getEntityId1(pair), IComparisonStream.getEntityId2(pair), weight);
+                if (threshold < topKNeighbors.size()) {
+                    topKNeighbors.nextPair(); // removes the comparison of the lowest weight
+                    minimumWeight = topKNeighbors.getWeight();
                 }
             }
         }
         
-        topComparisons.addAll(topKEdges);
+        for (int i = 0; i < topKNeighbors.size(); i++) {
+            final long pair = topKNeighbors.getPair(i);
+            final Comparison comparison = new Comparison(cleanCleanER, IComparisonStream.getEntityId1(pair), IComparisonStream.getEntityId2(pair));
+            comparison.setUtilityMeasure(topKNeighbors.getWeight(i));
+            topComparisons.add(comparison);
+        }
     }
 }
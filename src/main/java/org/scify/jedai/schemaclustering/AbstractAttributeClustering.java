@@ -35,6 +35,7 @@ import org.scify.jedai.datamodel.EntityProfile;
 import org.scify.jedai.datamodel.RepModelSimMetricCombo;
 import org.scify.jedai.configuration.randomsearch.IntRandomSearchConfiguration;
 import org.scify.jedai.datamodel.AttributeClusters;
+import org.scify.jedai.textmodels.CorpusStatistics;
 import org.scify.jedai.textmodels.ITextModel;
 import org.scify.jedai.utilities.enumerations.RepresentationModel;
 import org.scify.jedai.utilities.enumerations.SimilarityMetric;
@@ -55,6 +56,7 @@ public abstract class AbstractAttributeClustering implements ISchemaClustering {
 
     protected final IntGridSearchConfiguration gridCombo;
     protected final IntRandomSearchConfiguration randomCombo;
+    protected CorpusStatistics statistics;
     protected ITextModel[][] attributeModels;
     protected final List<RepModelSimMetricCombo> modelMetricCombinations;
     protected Map<String, TIntList> invertedIndex;
@@ -86,7 +88,7 @@ public abstract class AbstractAttributeClustering implements ISchemaClustering {
         final TObjectIntIterator<String> it = attrNameIndex.iterator();
         while (it.hasNext()) {
             it.advance();
-            attributeModels[datasetId][it.value() - 1] = RepresentationModel.getModel(datasetId, repModel, simMetric, it.key());
+            attributeModels[datasetId][it.value() - 1] = RepresentationModel.getModel(datasetId, repModel, simMetric, it.key(), statistics);
         }
 
         profiles.forEach((profile) -> {
@@ -274,6 +276,7 @@ public abstract class AbstractAttributeClustering implements ISchemaClustering {
 
     @Override
     public AttributeClusters[] getClusters(List<EntityProfile> profilesD1, List<EntityProfile> profilesD2) {
+        statistics = new CorpusStatistics();
         buildAttributeModels(DATASET_1, profilesD1);
         attributesDelimiter = -1;
         noOfAttributes = attrNameIndex.size();
@@ -77,10 +77,24 @@ public class FuzzySetSimJoin {
      * @return
      */
     HashMap<String, Float> join(int[][][] collection1, int[][][] collection2, float simThreshold) {
+        return join(collection1, collection2, tokenDict.size(), simThreshold);
+    }
+
+    /**
+     * Computes the join between two collections whose tokens have already been
+     * encoded as integers in [0, noOfTokens)
+     *
+     * @param collection1
+     * @param collection2
+     * @param noOfTokens
+     * @param simThreshold
+     * @return
+     */
+    public HashMap<String, Float> join(int[][][] collection1, int[][][] collection2, int noOfTokens, float simThreshold) {
         final HashMap<String, Float> matchingPairs = new HashMap<>();
 
         /* CREATE INDEX */
-        TIntObjectMap<TIntList>[] idx = buildSetInvertedIndex(collection2, tokenDict.size());
+        TIntObjectMap<TIntList>[] idx = buildSetInvertedIndex(collection2, noOfTokens);
 
         /* EXECUTE THE JOIN ALGORITHM */
         for (int i = 0; i < collection1.length; i++) {
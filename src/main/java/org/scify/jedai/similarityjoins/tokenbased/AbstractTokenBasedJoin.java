@@ -16,11 +16,22 @@
 
 package org.scify.jedai.similarityjoins.tokenbased;
 
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import org.apache.jena.atlas.json.JsonArray;
 import org.apache.jena.atlas.json.JsonObject;
 import org.scify.jedai.configuration.gridsearch.DblGridSearchConfiguration;
 import org.scify.jedai.configuration.randomsearch.DblRandomSearchConfiguration;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.EntityProfile;
 import org.scify.jedai.similarityjoins.AbstractSimilarityJoin;
+import org.scify.jedai.utilities.ParallelRangeExecutor;
 
 /**
  *
@@ -28,7 +39,17 @@ import org.scify.jedai.similarityjoins.AbstractSimilarityJoin;
  */
 public abstract class AbstractTokenBasedJoin extends AbstractSimilarityJoin {
     
+    private final static int NO_ID = -1;
+
     protected float threshold;
+
+    protected int noOfThreads;
+    protected int noOfTokens;
+    protected int[] indexedIds;
+    protected int[] indexedPositions;
+    protected int[] indexStarts;
+    protected int[] originalId;
+    protected int[][] records;
     
     protected final DblGridSearchConfiguration gridThreshold;
     protected final DblRandomSearchConfiguration randomThreshold;
@@ -37,26 +58,161 @@ public abstract class AbstractTokenBasedJoin extends AbstractSimilarityJoin {
     AbstractTokenBasedJoin(float thr) {
         super();
         threshold = thr;
+        noOfThreads = 1;
         
         gridThreshold = new DblGridSearchConfiguration(1.0f, 0.025f, 0.025f);
         randomThreshold = new DblRandomSearchConfiguration(1.0f, 0.01f);
     }
     
+    /**
+     * Builds an inverted index that maps every token to the records containing
+     * it in their indexing prefix, along with its position in them. The
+     * records of token t are stored in the positions [indexStarts[t],
+     * indexStarts[t+1]) of indexedIds and indexedPositions, in increasing id,
+     * i.e., in increasing length. As it is built before the probing starts,
+     * it can be probed by many threads concurrently.
+     */
+    protected void buildPrefixIndex() {
+        indexStarts = new int[noOfTokens + 1];
+        for (int[] record : records) {
+            final int indexLength = Math.min(record.length, indexLength(record.length));
+            for (int t = 0; t < indexLength; t++) {
+                indexStarts[record[t] + 1]++;
+            }
+        }
+
+        for (int i = 0; i < noOfTokens; i++) {
+            indexStarts[i + 1] += indexStarts[i];
+        }
+
+        final int[] nextPositions = Arrays.copyOf(indexStarts, noOfTokens);
+        indexedIds = new int[indexStarts[noOfTokens]];
+        indexedPositions = new int[indexStarts[noOfTokens]];
+        for (int k = 0; k < records.length; k++) {
+            final int indexLength = Math.min(records[k].length, indexLength(records[k].length));
+            for (int t = 0; t < indexLength; t++) {
+                final int position = nextPositions[records[k][t]]++;
+                indexedIds[position] = k;
+                indexedPositions[position] = t;
+            }
+        }
+    }
+
     protected float calcSimilarity(int l1, int l2, float overlap) {
         return overlap / (l1 + l2 - overlap) + 1e-6f;
     }
     
-    protected int djbHash(String str) {
-        int hash = 5381;
-        int len = str.length();
+    /**
+     * Encodes every token with its rank in increasing order of document
+     * frequency, i.e., the rarest token gets the id 0. Every token is mapped to
+     * a distinct id, thus there are no collisions. The returned records
+     * contain the ids of their tokens in increasing order, so that their
+     * prefixes comprise their rarest tokens. Sets the number of distinct
+     * tokens, as well.
+     *
+     * @param tokenizedValues the tokens of every record
+     * @param setVersion true if duplicate tokens are removed from every record
+     * @return the sorted token ids of every record
+     */
+    protected int[][] getFrequencyOrderedRecords(List<? extends Collection<String>> tokenizedValues, boolean setVersion) {
+        final TIntList frequencies = new TIntArrayList();
+        final TObjectIntMap<String> tokenIds = new TObjectIntHashMap<>(10, 0.5f, NO_ID);
+        final int[][] tokenRecords = new int[tokenizedValues.size()][];
+        for (int i = 0; i < tokenRecords.length; i++) {
+            int index = 0;
+            final Collection<String> tokens = tokenizedValues.get(i);
+            tokenRecords[i] = new int[tokens.size()];
+            for (String token : tokens) {
+                int tokenId = tokenIds.putIfAbsent(token, frequencies.size());
+                if (tokenId == NO_ID) {
+                    tokenId = frequencies.size();
+                    frequencies.add(0);
+                }
+                tokenRecords[i][index++] = tokenId;
+            }
+
+            Arrays.sort(tokenRecords[i]);
+            for (int j = 0; j < tokenRecords[i].length; j++) {
+                if (j == 0 || tokenRecords[i][j - 1] != tokenRecords[i][j]) {
+                    frequencies.set(tokenRecords[i][j], frequencies.get(tokenRecords[i][j]) + 1);
+                }
+            }
+        }
+
+        // rank the tokens by document frequency, breaking ties by order of appearance
+        noOfTokens = frequencies.size();
+        final long[] sortedTokens = new long[noOfTokens];
+        for (int i = 0; i < noOfTokens; i++) {
+            sortedTokens[i] = ((long) frequencies.get(i)) << 32 | i;
+        }
+        Arrays.sort(sortedTokens);
+
+        final int[] ranks = new int[noOfTokens];
+        for (int i = 0; i < noOfTokens; i++) {
+            ranks[(int) sortedTokens[i]] = i;
+        }
 
-        for (int k = 0; k < len; k++) {
-            hash += (hash << 5) + str.charAt(k);
+        for (int i = 0; i < tokenRecords.length; i++) {
+            int length = 0;
+            int previousId = NO_ID;
+            for (int j = 0; j < tokenRecords[i].length; j++) {
+                final int tokenId = tokenRecords[i][j];
+                if (!setVersion || tokenId != previousId) {
+                    tokenRecords[i][length++] = ranks[tokenId];
+                }
+                previousId = tokenId;
+            }
+
+            if (length < tokenRecords[i].length) {
+                tokenRecords[i] = Arrays.copyOf(tokenRecords[i], length);
+            }
+            Arrays.sort(tokenRecords[i]);
+        }
+        return tokenRecords;
+    }
+
+    /**
+     * Tokenizes the attribute values of all input entities on whitespace and
+     * stores them as frequency-ordered records, sorted in increasing length.
+     * The original id of every record is stored in originalId.
+     */
+    protected void initRecords() {
+        final List<List<String>> tokenizedValues = new ArrayList<>(noOfEntities);
+        for (EntityProfile profile : profilesD1) {
+            tokenizedValues.add(getTokens(getAttributeValue(attributeNameD1, profile)));
         }
 
-        return (hash & 0x7FFFFFFF);
+        if (isCleanCleanER) {
+            for (EntityProfile profile : profilesD2) {
+                tokenizedValues.add(getTokens(getAttributeValue(attributeNameD2, profile)));
+            }
+        }
+
+        final int[][] tokenRecords = getFrequencyOrderedRecords(tokenizedValues, SetVersion);
+
+        // stable sort in increasing length, as required by the length filter
+        final long[] sortedRecords = new long[noOfEntities];
+        for (int i = 0; i < noOfEntities; i++) {
+            sortedRecords[i] = ((long) tokenRecords[i].length) << 32 | i;
+        }
+        Arrays.sort(sortedRecords);
+
+        originalId = new int[noOfEntities];
+        records = new int[noOfEntities][];
+        for (int i = 0; i < noOfEntities; i++) {
+            originalId[i] = (int) sortedRecords[i];
+            records[i] = tokenRecords[originalId[i]];
+        }
     }
- 
+
+    private List<String> getTokens(String attributeValue) {
+        final String value = attributeValue.trim();
+        if (value.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return Arrays.asList(value.split(" "));
+    }
+
     @Override
     public String getMethodConfiguration() {
         return getParameterName(0) + "=" + threshold;
@@ -111,10 +267,21 @@ public abstract class AbstractTokenBasedJoin extends AbstractSimilarityJoin {
         }
     }
     
+    public int getNoOfThreads() {
+        return noOfThreads;
+    }
+
     protected int indexLength(int l) {
         return (int) ((1 - 2 * threshold / (1 + threshold)) * l + 1 + 1e-6);
     }
 
+    protected boolean areComparable(int recordId1, int recordId2) {
+        if (!isCleanCleanER) {
+            return true;
+        }
+        return (originalId[recordId1] < datasetDelimiter) != (originalId[recordId2] < datasetDelimiter);
+    }
+
     protected int maxPossibleLength(int l) {
         return (int) (l / threshold + 1e-6);
     }
@@ -123,6 +290,40 @@ public abstract class AbstractTokenBasedJoin extends AbstractSimilarityJoin {
         return (int) Math.ceil(l * threshold - 1e-6);
     }
     
+    /**
+     * Probes the prefix index with every record, comparing it with the
+     * preceding ones, i.e., those of smaller or equal length. The records are
+     * split into ranges that are probed in parallel, each with a thread-local
+     * candidate buffer and result list; the results are concatenated in the
+     * order of the records.
+     *
+     * @param probe the method that verifies the candidates of a record
+     * @return the comparisons that exceed the similarity threshold
+     */
+    protected List<Comparison> performPrefixJoin(RecordProbe probe) {
+        buildPrefixIndex();
+
+        final ThreadLocal<CandidateBuffer> buffers = ThreadLocal.withInitial(() -> new CandidateBuffer(noOfEntities));
+        // more partitions than threads balance the load, as longer records have more candidates
+        final List<List<Comparison>> partialComparisons = ParallelRangeExecutor.execute(noOfThreads, 4 * noOfThreads, noOfEntities, (partitionId, startId, endId) -> {
+            final CandidateBuffer buffer = buffers.get();
+            final List<Comparison> localComparisons = new ArrayList<>();
+            for (int k = startId; k < endId; k++) {
+                probe.probe(k, buffer, localComparisons);
+                buffer.clear();
+            }
+            return localComparisons;
+        });
+
+        final List<Comparison> executedComparisons = new ArrayList<>();
+        partialComparisons.forEach(executedComparisons::addAll);
+
+        indexedIds = null;
+        indexedPositions = null;
+        indexStarts = null;
+        return executedComparisons;
+    }
+
     protected int probeLength(int l) {
         if (l==0) return 0;
         return (int) ((1 - threshold) * l + 1 + 1e-6);
@@ -147,8 +348,65 @@ public abstract class AbstractTokenBasedJoin extends AbstractSimilarityJoin {
         threshold = (Float) randomThreshold.getNumberedRandom(iterationNumber);
     }
 
+    /**
+     * Sets the number of threads that probe the prefix index. It applies to
+     * PPJoin and AllPairs; the rest of the token-based joins are always
+     * single-threaded.
+     *
+     * @param threads the number of threads; values lower than 2 restore the
+     * single-threaded processing
+     */
+    public void setNoOfThreads(int threads) {
+        noOfThreads = Math.max(1, threads);
+    }
+
     public void setSetVersion(boolean setVersion) {
         SetVersion = setVersion;
     }
 
+    /**
+     * Keeps the candidates of the record that is currently probed, along with
+     * their overlap so far. It is reused for all records probed by the same
+     * thread, so that it is allocated only once.
+     */
+    protected static class CandidateBuffer {
+
+        private int noOfCandidates;
+        private final int[] candidates;
+        private final int[] overlaps;
+
+        CandidateBuffer(int noOfRecords) {
+            candidates = new int[noOfRecords];
+            overlaps = new int[noOfRecords];
+        }
+
+        void addCandidate(int recordId) {
+            candidates[noOfCandidates++] = recordId;
+        }
+
+        void clear() {
+            for (int i = 0; i < noOfCandidates; i++) {
+                overlaps[candidates[i]] = 0;
+            }
+            noOfCandidates = 0;
+        }
+
+        int getCandidate(int index) {
+            return candidates[index];
+        }
+
+        int getNoOfCandidates() {
+            return noOfCandidates;
+        }
+
+        int[] getOverlaps() {
+            return overlaps;
+        }
+    }
+
+    protected interface RecordProbe {
+
+        void probe(int recordId, CandidateBuffer buffer, List<Comparison> comparisons);
+    }
+
 }
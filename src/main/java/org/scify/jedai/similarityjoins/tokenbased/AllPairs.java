@@ -15,19 +15,8 @@
  */
 package org.scify.jedai.similarityjoins.tokenbased;
 
-import gnu.trove.list.TIntList;
-import gnu.trove.list.array.TIntArrayList;
-import gnu.trove.map.TIntIntMap;
-import gnu.trove.map.TIntObjectMap;
-import gnu.trove.map.hash.TIntIntHashMap;
-import gnu.trove.map.hash.TIntObjectHashMap;
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
 import org.scify.jedai.datamodel.Comparison;
-import org.scify.jedai.datamodel.EntityProfile;
 import org.scify.jedai.datamodel.SimilarityPairs;
-import org.scify.jedai.datamodel.joins.IntPair;
-import org.scify.jedai.datamodel.joins.ListItemPPJ;
 
 import java.util.*;
 
@@ -37,19 +26,14 @@ import java.util.*;
  */
 public class AllPairs extends AbstractTokenBasedJoin {
 
-    private int[] originalId;
-    private final List<String> attributeValues;
-    private TIntList[] records;
-
     public AllPairs(float thr) {
         super(thr);
-        attributeValues = new ArrayList<>();
     }
 
     @Override
     protected SimilarityPairs applyJoin() {
-        init();
-        final List<Comparison> comparisons = performJoin();
+        initRecords();
+        final List<Comparison> comparisons = performPrefixJoin(this::probeRecord);
         return getSimilarityPairs(comparisons);
     }
 
@@ -58,16 +42,16 @@ public class AllPairs extends AbstractTokenBasedJoin {
         int posy = poslen.length > 1 ? poslen[1] : 0;
         int currentOverlap = poslen.length > 2 ? poslen[2] : 0;
 
-        while (posx < records[x].size() && posy < records[y].size()) {
-            if (records[x].size() - posx + currentOverlap < requireOverlap
-                    || records[y].size() - posy + currentOverlap < requireOverlap) {
+        while (posx < records[x].length && posy < records[y].length) {
+            if (records[x].length - posx + currentOverlap < requireOverlap
+                    || records[y].length - posy + currentOverlap < requireOverlap) {
                 return -1;
             }
-            if (records[x].get(posx) == records[y].get(posy)) {
+            if (records[x][posx] == records[y][posy]) {
                 currentOverlap++;
                 posx++;
                 posy++;
-            } else if (records[x].get(posx) < records[y].get(posy)) {
+            } else if (records[x][posx] < records[y][posy]) {
                 posx++;
             } else {
                 posy++;
@@ -76,152 +60,68 @@ public class AllPairs extends AbstractTokenBasedJoin {
         return currentOverlap;
     }
 
-    private void init() {
-
-        int counter = 0;
-        final List<Pair<String, Integer>> idIdentifier = new ArrayList<>();
-        for (EntityProfile profile : profilesD1) {
-            final String nextValue = getAttributeValue(attributeNameD1, profile);
-            idIdentifier.add(new ImmutablePair<>(nextValue, counter++));
-        }
-
-        if (isCleanCleanER) {
-            for (EntityProfile profile : profilesD2) {
-                final String nextValue = getAttributeValue(attributeNameD2, profile);
-                idIdentifier.add(new ImmutablePair<>(nextValue, counter++));
-
-            }
-        }
-
-        if (this.SetVersion)
-        {
-            int[] setversionsizes = new int[idIdentifier.size()];
-            for (int i=0;i<idIdentifier.size();i++)
-            {
-                String togetSize = idIdentifier.get(i).getKey();
-                String[] split = togetSize.split(" ");
-                Set<String> settogetsize=  new HashSet<>();
-                for (String s:split) settogetsize.add(s);
-                setversionsizes[idIdentifier.get(i).getValue()] = settogetsize.size();
-
-            }
-            idIdentifier.sort((s1, s2) -> setversionsizes[s1.getValue()] - setversionsizes[s2.getValue()]);
-        }
-        else
-        {
-            idIdentifier.sort(Comparator.comparingInt(s -> s.getKey().split(" ").length));
-
-        }
-        attributeValues.clear();
-        originalId = new int[noOfEntities];
-        records = new TIntList[noOfEntities];
-        for (int i = 0; i < noOfEntities; i++) {
-            final Pair<String, Integer> currentPair = idIdentifier.get(i);
-            attributeValues.add(currentPair.getKey());
-            originalId[i] = currentPair.getValue();
-            records[i] = new TIntArrayList();
-        }
-
-        for (int sIndex = 0; sIndex < noOfEntities; sIndex++) {
-
-            final String s = attributeValues.get(sIndex).trim();
-            if (s.length() < 1) {
-                continue;
-            }
+    private void probeRecord(int k, CandidateBuffer buffer, List<Comparison> executedComparisons) {
+        final int[] record = records[k];
 
-            String[] split = s.split(" ");
-            for (String value : split) {
-                int token = djbHash(value);
-                if (this.SetVersion&&(records[sIndex].contains(token))) continue; //case where Set is used instead of Bag
-                records[sIndex].add(token);
-            }
-            records[sIndex].sort();
+        int minLength = minPossibleLength(record.length);
+        int probeLength = probeLength(record.length);
 
+        final int[] requireOverlaps = new int[record.length + 1];
+        for (int l = minLength; l <= record.length; l++) {
+            requireOverlaps[l] = requireOverlap(record.length, l);
         }
-    }
-
-    private List<Comparison> performJoin() {
-        final List<Comparison> executedComparisons = new ArrayList<>();
-        final TIntObjectMap<ListItemPPJ> index = new TIntObjectHashMap<>();
-        for (int k = 0; k < noOfEntities; k++) {
-            final TIntList record = records[k];
 
-            int minLength = minPossibleLength(record.size());
-            int probeLength = probeLength(record.size());
-            int indexLength = indexLength(record.size());
+        final int[] occurances = buffer.getOverlaps();
+        for (int t = 0; t < probeLength; t++) {
+            int token = record[t];
 
-            final int[] requireOverlaps = new int[record.size() + 1];
-            for (int l = minLength; l <= record.size(); l++) {
-                requireOverlaps[l] = requireOverlap(record.size(), l);
+            int pos = indexStarts[token];
+            int noOfIds = indexStarts[token + 1];
+            while (pos < noOfIds && records[indexedIds[pos]].length < minLength) {
+                pos++;
             }
 
-            final TIntIntMap occurances = new TIntIntHashMap();
-            for (int t = 0; t < probeLength; t++) {
-                int token = record.get(t);
-
-                ListItemPPJ item = index.get(token);
-                if (item == null) {
-                    item = new ListItemPPJ();
-                    index.put(token, item);
-                }
-
-                int pos = item.getPos();
-                final List<IntPair> ids = item.getIds();
-                int noOfIds = ids.size();
-                while (pos < noOfIds && records[ids.get(pos).getKey()].size() < minLength) {
-                    pos++;
+            for (int p = pos; p < noOfIds; p++) {
+                int candId = indexedIds[p];
+                if (k <= candId) { // only the preceding records are candidates
+                    break;
                 }
 
-                for (int p = pos; p < noOfIds; p++) {
-                    int candId = ids.get(p).getKey();
-                    int oldValue = occurances.get(candId);
-                    occurances.put(candId, (oldValue + 1));
+                if (!areComparable(k, candId)) {
+                    continue;
                 }
 
-                if (t < indexLength) {
-                    ids.add(new IntPair(k, t));
+                if (occurances[candId] == 0) {
+                    buffer.addCandidate(candId);
                 }
+                occurances[candId]++;
             }
+        }
 
-            for (int cand : occurances.keys()) {
-                if (k == cand) {
+        for (int i = 0; i < buffer.getNoOfCandidates(); i++) {
+            int cand = buffer.getCandidate(i);
+            int noOfCandidates = records[cand].length;
+            int newindexLength = indexLength(noOfCandidates);
+            if (records[cand][newindexLength - 1] < record[probeLength - 1]) {
+                if (occurances[cand] + noOfCandidates - newindexLength < requireOverlaps[noOfCandidates]) {
                     continue;
                 }
-
-                if (isCleanCleanER) {
-                    if (originalId[k] < datasetDelimiter && originalId[cand] < datasetDelimiter) { // both belong to dataset 1
-                        continue;
-                    }
-
-                    if (datasetDelimiter <= originalId[k] && datasetDelimiter <= originalId[cand]) { // both belong to dataset 2
-                        continue;
-                    }
-                }
-
-                int noOfCandidates = records[cand].size();
-                int newindexLength = indexLength(noOfCandidates);
-                if (records[cand].get(newindexLength - 1) < records[k].get(probeLength - 1)) {
-                    if (occurances.get(cand) + noOfCandidates - newindexLength < requireOverlaps[noOfCandidates]) {
-                        continue;
-                    }
-                } else {
-                    if (occurances.get(cand) + records[k].size() - probeLength < requireOverlaps[noOfCandidates]) {
-                        continue;
-                    }
+            } else {
+                if (occurances[cand] + record.length - probeLength < requireOverlaps[noOfCandidates]) {
+                    continue;
                 }
+            }
 
-                int realOverlap = getOverlap(k, cand, requireOverlaps[noOfCandidates]);
-                if (realOverlap != -1) {
-                    float jaccardSim = calcSimilarity(records[k].size(), noOfCandidates, realOverlap);
-                    if (jaccardSim >= threshold) {
-                        final Comparison currentComp = getComparison(originalId[k], originalId[cand]);
-                        currentComp.setUtilityMeasure(jaccardSim); // is this correct?
-                        executedComparisons.add(currentComp);
-                    }
+            int realOverlap = getOverlap(k, cand, requireOverlaps[noOfCandidates]);
+            if (realOverlap != -1) {
+                float jaccardSim = calcSimilarity(record.length, noOfCandidates, realOverlap);
+                if (jaccardSim >= threshold) {
+                    final Comparison currentComp = getComparison(originalId[k], originalId[cand]);
+                    currentComp.setUtilityMeasure(jaccardSim); // is this correct?
+                    executedComparisons.add(currentComp);
                 }
             }
         }
-        return executedComparisons;
     }
 
     @Override
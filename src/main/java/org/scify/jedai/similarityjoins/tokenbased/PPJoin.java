@@ -16,19 +16,8 @@
 
 package org.scify.jedai.similarityjoins.tokenbased;
 
-import gnu.trove.list.TIntList;
-import gnu.trove.list.array.TIntArrayList;
-import gnu.trove.map.TIntIntMap;
-import gnu.trove.map.TIntObjectMap;
-import gnu.trove.map.hash.TIntIntHashMap;
-import gnu.trove.map.hash.TIntObjectHashMap;
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
 import org.scify.jedai.datamodel.Comparison;
-import org.scify.jedai.datamodel.EntityProfile;
 import org.scify.jedai.datamodel.SimilarityPairs;
-import org.scify.jedai.datamodel.joins.IntPair;
-import org.scify.jedai.datamodel.joins.ListItemPPJ;
 
 import java.util.*;
 
@@ -40,20 +29,15 @@ public class PPJoin extends AbstractTokenBasedJoin {
 
     private final static int PRUNE_FLAG = -7;
     
-    private int[] originalId;
-    private final List<String> attributeValues;
-    private TIntList[] records;
-
     public PPJoin(float thr) {
         super(thr);
-        attributeValues = new ArrayList<>();
     }
 
     @Override
     public SimilarityPairs applyJoin() {
-        init();
+        initRecords();
 
-        final List<Comparison> comparisons = performJoin();
+        final List<Comparison> comparisons = performPrefixJoin(this::probeRecord);
         return getSimilarityPairs(comparisons);
     }
 
@@ -74,16 +58,16 @@ public class PPJoin extends AbstractTokenBasedJoin {
         int posy = poslen.length > 1 ? poslen[1] : 0;
         int currentOverlap = poslen.length > 2 ? poslen[2] : 0;
 
-        while (posx < records[x].size() && posy < records[y].size()) {
-            if (records[x].size() - posx + currentOverlap < requireOverlap
-                    || records[y].size() - posy + currentOverlap < requireOverlap) {
+        while (posx < records[x].length && posy < records[y].length) {
+            if (records[x].length - posx + currentOverlap < requireOverlap
+                    || records[y].length - posy + currentOverlap < requireOverlap) {
                 return -1;
             }
-            if (records[x].get(posx) == records[y].get(posy)) {
+            if (records[x][posx] == records[y][posy]) {
                 currentOverlap++;
                 posx++;
                 posy++;
-            } else if (records[x].get(posx) < records[y].get(posy)) {
+            } else if (records[x][posx] < records[y][posy]) {
                 posx++;
             } else {
                 posy++;
@@ -92,188 +76,97 @@ public class PPJoin extends AbstractTokenBasedJoin {
         return currentOverlap;
     }
     
-    private void init() {
-        int counter = 0;
-        final List<Pair<String, Integer>> idIdentifier = new ArrayList<>();
-        for (EntityProfile profile : profilesD1) {
-            final String nextValue = getAttributeValue(attributeNameD1, profile);
-            idIdentifier.add(new ImmutablePair<>(nextValue, counter++));
-        }
-
-        if (isCleanCleanER) {
-            for (EntityProfile profile : profilesD2) {
-                final String nextValue = getAttributeValue(attributeNameD2, profile);
-                idIdentifier.add(new ImmutablePair<>(nextValue, counter++));
-            }
+    private void probeRecord(int k, CandidateBuffer buffer, List<Comparison> executedComparisons) {
+        final int[] record = records[k];
+        int minLength = minPossibleLength(record.length);
+        int probeLength = probeLength(record.length);
+
+        int[] requireOverlaps = new int[record.length + 1];
+        for (int l = minLength; l <= record.length; l++) {
+            requireOverlaps[l] = requireOverlap(record.length, l);
         }
 
-        if (this.SetVersion)
-        {
-            int[] setversionsizes = new int[idIdentifier.size()];
-            for (int i=0;i<idIdentifier.size();i++)
-            {
-                String togetSize = idIdentifier.get(i).getKey();
-                String[] split = togetSize.split(" ");
-                Set<String> settogetsize=  new HashSet<>();
-                for (String s:split) settogetsize.add(s);
-                setversionsizes[idIdentifier.get(i).getValue()] = settogetsize.size();
-
-            }
-            idIdentifier.sort((s1, s2) -> setversionsizes[s1.getValue()] - setversionsizes[s2.getValue()]);
-        }
-        else
-        {
-            idIdentifier.sort(Comparator.comparingInt(s -> s.getKey().split(" ").length));
-        }
-        attributeValues.clear();
-        originalId = new int[noOfEntities];
-        records = new TIntList[noOfEntities];
-        for (int i = 0; i < noOfEntities; i++) {
-            final Pair<String, Integer> currentPair = idIdentifier.get(i);
-            attributeValues.add(currentPair.getKey());
-            originalId[i] = currentPair.getValue();
-            records[i] = new TIntArrayList();
-        }
-
-        for (int sIndex = 0; sIndex < noOfEntities; sIndex++) {
-
-            final String s = attributeValues.get(sIndex).trim();
-            if (s.length()<1) continue;
+        final int[] occurances = buffer.getOverlaps();
+        for (int t = 0; t < probeLength; t++) {
+            int token = record[t];
 
-            String[] split = s.split(" ");
-            for (String value : split) {
-                int token = djbHash(value);
-                if (this.SetVersion&&(records[sIndex].contains(token))) continue; //case where Set is used instead of Bag
-                records[sIndex].add(token);
+            int pos = indexStarts[token];
+            int noOfIds = indexStarts[token + 1];
+            while (pos < noOfIds && records[indexedIds[pos]].length < minLength) {
+                pos++;
             }
-            records[sIndex].sort();
 
-        }
-    }
+            for (int p = pos; p < noOfIds; p++) {
+                int candId = indexedIds[p];
+                if (k <= candId) { // only the preceding records are candidates
+                    break;
+                }
 
-    private List<Comparison> performJoin() {
-        final List<Comparison> executedComparisons = new ArrayList<>();
-        final TIntObjectMap<ListItemPPJ> index = new TIntObjectHashMap<>();
-        for (int k = 0; k < records.length; k++) {
-            /*if (isCleanCleanER) {
-                if (originalId[k] >= datasetDelimiter ) { // dataset 2
+                if (!areComparable(k, candId)) {
                     continue;
                 }
-            }*/
-            final TIntList record = records[k];
-            int minLength = minPossibleLength(record.size());
-            int probeLength = probeLength(record.size());
-            int indexLength = indexLength(record.size());
 
-            int[] requireOverlaps = new int[record.size() + 1];
-            for (int l = minLength; l <= record.size(); l++) {
-                requireOverlaps[l] = requireOverlap(record.size(), l);
-            }
-
-            final TIntIntMap occurances = new TIntIntHashMap();
-            for (int t = 0; t < probeLength; t++) {
-                int token = record.get(t);
+                int candPos = indexedPositions[p];
+                int candLength = records[candId].length;
 
-                ListItemPPJ item = index.get(token);
-                if (item == null) {
-                    item = new ListItemPPJ();
-                    index.put(token, item);
-                }
-                
-                int pos = item.getPos();
-                final List<IntPair> list = item.getIds();
-                int noOfIds = list.size();
-                while (pos < noOfIds && records[list.get(pos).getKey()].size() < minLength) {
-                    pos++;
+                int value = occurances[candId];
+                if (value == PRUNE_FLAG) {
+                    continue;
                 }
 
-                for (int p = pos; p < noOfIds; p++) {
-                    int candId = list.get(p).getKey();
-                    if (isCleanCleanER) {
-                        if (originalId[k] < datasetDelimiter && originalId[candId] < datasetDelimiter) { // both belong to dataset 1
-                            continue;
-                        }
-
-                        if (datasetDelimiter <= originalId[k] && datasetDelimiter <= originalId[candId]) { // both belong to dataset 2
-                            continue;
-                        }
+                if (value == 0) {
+                    if ((record.length - t) < requireOverlaps[candLength]
+                            || (candLength - candPos) < requireOverlaps[candLength]) {
+                        continue;
                     }
-                    int candPos = list.get(p).getValue();
-                    int candLength = records[candId].size();
-
-                    int value = occurances.get(candId);
-                    if (value == 0) {
-                        if ((records[k].size() - t) < requireOverlaps[candLength]
-                                || (candLength - candPos) < requireOverlaps[candLength]) {
-                            continue;
-                        }
-                        value = 1;
+                    value = 1;
+                    buffer.addCandidate(candId);
+                } else {
+                    if (value + (record.length - t) < requireOverlaps[candLength]
+                            || value + (candLength - candPos) < requireOverlaps[candLength]) {
+                        value = PRUNE_FLAG;
                     } else {
-                        if (value + (records[k].size() - t) < requireOverlaps[candLength]
-                                || value + (candLength - candPos) < requireOverlaps[candLength]) {
-                            value = PRUNE_FLAG;
-                        } else {
-                            value++;
-                        }
+                        value++;
                     }
-                    occurances.put(candId, value);//was replace before
-                }
-                
-                if (t < indexLength) {
-                    list.add(new IntPair(k, t));
                 }
+                occurances[candId] = value;
             }
+        }
 
-            for (int cand : occurances.keys()) {
-                if (k == cand) {
-                    continue;
-                }
+        for (int i = 0; i < buffer.getNoOfCandidates(); i++) {
+            int cand = buffer.getCandidate(i);
+            if (occurances[cand] == PRUNE_FLAG) {
+                continue;
+            }
 
-                if (isCleanCleanER) {
-                    if (originalId[k] < datasetDelimiter && originalId[cand] < datasetDelimiter) { // both belong to dataset 1
-                        continue;
-                    }
+            int currentSize = record.length;
+            int candidateSize = records[cand].length;
+            int newindexLength = indexLength(candidateSize);
 
-                    if (datasetDelimiter <= originalId[k] && datasetDelimiter <= originalId[cand]) { // both belong to dataset 2
-                        continue;
-                    }
+            if (records[cand][newindexLength - 1] < record[probeLength - 1]) {
+                if (occurances[cand] + candidateSize - newindexLength < requireOverlaps[candidateSize]) {
+                    continue;
                 }
-
-                if (occurances.get(cand) == PRUNE_FLAG) {
+            } else {
+                if (occurances[cand] + currentSize - probeLength < requireOverlaps[candidateSize]) {
                     continue;
                 }
+            }
 
-                int currentSize = records[k].size();
-                int candidateSize = records[cand].size();
-                int newindexLength = indexLength(candidateSize);
+            int realOverlap = getOverlap(k, cand, requireOverlaps[candidateSize]);
 
-                if (records[cand].get(newindexLength - 1) < records[k].get(probeLength - 1)) {
-                    if (occurances.get(cand) + candidateSize - newindexLength < requireOverlaps[candidateSize]) {
-                        continue;
-                    }
-                } else {
-                    if (occurances.get(cand) + currentSize - probeLength < requireOverlaps[candidateSize]) {
-                        continue;
-                    }
-                }
-                
-                int realOverlap = getOverlap(k, cand, requireOverlaps[candidateSize]);
-
-                if (realOverlap != -1) {
+            if (realOverlap != -1) {
 
 
-                    float jaccardSim = calcSimilarity(currentSize, candidateSize, realOverlap);
+                float jaccardSim = calcSimilarity(currentSize, candidateSize, realOverlap);
 
-                    if (jaccardSim >= threshold) {
+                if (jaccardSim >= threshold) {
 
-                        final Comparison currentComp = getComparison(originalId[k], originalId[cand]);
-                        currentComp.setUtilityMeasure(jaccardSim);
-                        executedComparisons.add(currentComp);
-                    }
+                    final Comparison currentComp = getComparison(originalId[k], originalId[cand]);
+                    currentComp.setUtilityMeasure(jaccardSim);
+                    executedComparisons.add(currentComp);
                 }
             }
         }
-
-        return executedComparisons;
     }
 }
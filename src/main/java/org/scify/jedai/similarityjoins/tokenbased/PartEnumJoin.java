@@ -17,15 +17,11 @@ package org.scify.jedai.similarityjoins.tokenbased;
 
 import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
 import org.scify.jedai.datamodel.Comparison;
-import org.scify.jedai.datamodel.EntityProfile;
 import org.scify.jedai.datamodel.SimilarityPairs;
 import org.scify.jedai.datamodel.joins.Category;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -45,18 +41,14 @@ public class PartEnumJoin extends AbstractTokenBasedJoin {
     private int categoryN;
     private float categoryTHRESHOLD;
 
-    private int[] originalId;
-    private final List<String> attributeValues;
-    private TIntList[] records;
-
     public PartEnumJoin(float thr) {
         super(thr);
-        attributeValues = new ArrayList<>();
     }
 
     @Override
     public SimilarityPairs applyJoin() {
-        init();
+        initRecords();
+        categoryN = noOfTokens; // the token ids range in [0, noOfTokens)
 
         /*try {
             token = getdatafromfile("C:\\Users\\Manos\\Documents\\UOA\\SimilarityJoins\\Similarity-Search-and-Join\\Zinp\\test02int.csv");
@@ -94,64 +86,21 @@ public class PartEnumJoin extends AbstractTokenBasedJoin {
         return "PPJoin";
     }
 
-    private void init() {
-        int counter = 0;
-        final List<Pair<String, Integer>> idIdentifier = new ArrayList<>();
-        for (EntityProfile profile : profilesD1) {
-            final String nextValue = getAttributeValue(attributeNameD1, profile);
-            idIdentifier.add(new ImmutablePair<>(nextValue, counter++));
-        }
-
-        if (isCleanCleanER) {
-            for (EntityProfile profile : profilesD2) {
-                final String nextValue = getAttributeValue(attributeNameD2, profile);
-                idIdentifier.add(new ImmutablePair<>(nextValue, counter++));
-            }
-        }
-
-        idIdentifier.sort(Comparator.comparingInt(s -> s.getKey().split(" ").length));
-
-        attributeValues.clear();
-        originalId = new int[noOfEntities];
-        records = new TIntList[noOfEntities];
-        for (int i = 0; i < noOfEntities; i++) {
-            final Pair<String, Integer> currentPair = idIdentifier.get(i);
-            attributeValues.add(currentPair.getKey());
-            originalId[i] = currentPair.getValue();
-            records[i] = new TIntArrayList();
-        }
-
-        for (int sIndex = 0; sIndex < noOfEntities; sIndex++) {
-
-            final String s = attributeValues.get(sIndex).trim();
-            if (s.length() < 1) {
-                continue;
-            }
-
-            String[] split = s.split(" ");
-            for (String value : split) {
-                int token = djbHash(value);
-                records[sIndex].add(token);
-            }
-            records[sIndex].sort();
-        }
-    }
-
     private List<Comparison> performJoin() {
         return executedComparisons;
     }
 
-    private int check_overlap(TIntList a, TIntList b, int overlap) {
+    private int check_overlap(int[] a, int[] b, int overlap) {
         int posa = 0, posb = 0, count = 0;
-        while (posa < (int) a.size() && posb < (int) b.size()) {
-            if (count + Math.min((int) a.size() - posa, (int) b.size() - posb) < overlap) {
+        while (posa < a.length && posb < b.length) {
+            if (count + Math.min(a.length - posa, b.length - posb) < overlap) {
                 return -1;
             }
-            if (a.get(posa) == b.get(posb)) {
+            if (a[posa] == b[posb]) {
                 count++;
                 posa++;
                 posb++;
-            } else if (a.get(posa) < b.get(posb)) {
+            } else if (a[posa] < b[posb]) {
                 posa++;
             } else {
                 posb++;
@@ -160,15 +109,15 @@ public class PartEnumJoin extends AbstractTokenBasedJoin {
         return count;
     }
 
-    private float verify(TIntList a, TIntList b) {
+    private float verify(int[] a, int[] b) {
         float factor = categoryTHRESHOLD / (1 + categoryTHRESHOLD);
-        int require_overlap = (int) Math.ceil(factor * (a.size() + b.size()) - 1e-6);
+        int require_overlap = (int) Math.ceil(factor * (a.length + b.length) - 1e-6);
         int real_overlap = check_overlap(a, b, require_overlap);
 
         if (real_overlap == -1) {
             return -1;
         }
-        return (real_overlap / (float) (a.size() + b.size() - real_overlap));
+        return (real_overlap / (float) (a.length + b.length - real_overlap));
     }
 
     void perform_join(int k, int id, boolean[] checked_flag) {
@@ -180,28 +129,28 @@ public class PartEnumJoin extends AbstractTokenBasedJoin {
                 TIntList prepare = new TIntArrayList();
                 for (int j = 0; j < sub.size(); j++) {
                     int s_pos = -1;
-                    for (int ppos = 0; ppos < records[id].size(); ppos++) {
-                        if (records[id].get(ppos) >= helper[k].range_start[i][sub.get(j)]) {
+                    for (int ppos = 0; ppos < records[id].length; ppos++) {
+                        if (records[id][ppos] >= helper[k].range_start[i][sub.get(j)]) {
                             s_pos = (ppos);
                             break;
                         }
-                        if (ppos == records[id].size() - 1) {
+                        if (ppos == records[id].length - 1) {
                             s_pos = ppos + 1;
                         }
                     }
                     int e_pos = -1;
-                    for (int ppos = 0; ppos < records[id].size(); ppos++) {
-                        if (records[id].get(ppos) >= helper[k].range_end[i][sub.get(j)]) {
+                    for (int ppos = 0; ppos < records[id].length; ppos++) {
+                        if (records[id][ppos] >= helper[k].range_end[i][sub.get(j)]) {
                             e_pos = (ppos);
                             break;
                         }
-                        if (ppos == records[id].size() - 1) {
+                        if (ppos == records[id].length - 1) {
                             e_pos = ppos + 1;
                         }
                     }
 
                     while (s_pos != e_pos) {
-                        prepare.add(records[id].get(s_pos));
+                        prepare.add(records[id][s_pos]);
                         s_pos++;
                     }
                 }
@@ -214,7 +163,8 @@ public class PartEnumJoin extends AbstractTokenBasedJoin {
                 } else {
                     candidate = (helper[k].sig_map[index].get(hash_value));// [index][hash_value];
                 }
-                for (int cand_id = 0; cand_id < candidate.size(); cand_id++) {
+                for (int cand_pos = 0; cand_pos < candidate.size(); cand_pos++) {
+                    final int cand_id = candidate.get(cand_pos); // the position of the candidate in records
                     if (isCleanCleanER) {
                         if (originalId[id] < datasetDelimiter && originalId[cand_id] < datasetDelimiter) { // both belong to dataset 1
                             continue;
@@ -224,10 +174,10 @@ public class PartEnumJoin extends AbstractTokenBasedJoin {
                             continue;
                         }
                     }
-                    if (!checked_flag[candidate.get(cand_id)]) {
+                    if (!checked_flag[cand_id]) {
                         cand_num++;
                         //System.out.println("cand "+cand_id);
-                        checked_flag[candidate.get(cand_id)] = true;
+                        checked_flag[cand_id] = true;
                         float jacsim = verify(records[cand_id], records[id]);
                         if (jacsim >= threshold) {
                             res_num++;
@@ -255,8 +205,8 @@ public class PartEnumJoin extends AbstractTokenBasedJoin {
         for (int id = 0; id < (int) records.length; id++) {
             int k;
             for (k = 0; k < MAX_CATEGORY; k++) {
-                if (helper[k].s_len <= (int) records[id].size()
-                        && helper[k].e_len >= (int) records[id].size()) {
+                if (helper[k].s_len <= records[id].length
+                        && helper[k].e_len >= records[id].length) {
                     break;
                 }
             }
@@ -31,14 +31,12 @@ public class SilkMoth extends AbstractTokenBasedJoin {
 
     private final int qSize;
 
-    private final Map<String, List<Set<String>>> collection1;
-    private final Map<String, List<Set<String>>> collection2;
+    private int[][][] collection1;
+    private int[][][] collection2;
 
     public SilkMoth(int qSize, float thr) {
         super(thr);
         this.qSize = qSize;
-        collection1 = new LinkedHashMap<>();
-        collection2 = new LinkedHashMap<>();
     }
 
     @Override
@@ -59,9 +57,21 @@ public class SilkMoth extends AbstractTokenBasedJoin {
         return "FuzzySetJoin";
     }
 
+    private int[][][] getCollection(List<EntityProfile> profiles, int[][] elements, int firstElement) {
+        int elementIndex = firstElement;
+        final int[][][] collection = new int[profiles.size()][][];
+        for (int i = 0; i < collection.length; i++) {
+            collection[i] = new int[profiles.get(i).getProfileSize()][];
+            for (int j = 0; j < collection[i].length; j++) {
+                collection[i][j] = elements[elementIndex++];
+            }
+        }
+        return collection;
+    }
+
     private Set<String> getTokens(String attributeValue) {
         if (attributeValue.isEmpty()) {
-            return null;
+            return new HashSet<>();
         }
 
         if (qSize < 0) { // tokenize on whitespace
@@ -84,32 +94,38 @@ public class SilkMoth extends AbstractTokenBasedJoin {
     }
 
     private void init() {
-        int counter = 0;
+        // every attribute value is an element of the set of its entity
+        final List<Set<String>> elements = new ArrayList<>();
         for (EntityProfile profile : profilesD1) {
-            final List<Set<String>> asList = new ArrayList<>();
             for (Attribute attribute : profile.getAttributes()) {
-                final Set<String> tokens = getTokens(attribute.getValue().trim());
-                asList.add(tokens);
+                elements.add(getTokens(attribute.getValue().trim()));
             }
-            collection1.put(Integer.toString(counter), asList);
-            counter++;
         }
-        
-        counter = 0;
-        for (EntityProfile profile : profilesD2) {
-            final List<Set<String>> asList = new ArrayList<>();
-            for (Attribute attribute : profile.getAttributes()) {
-                final Set<String> tokens = getTokens(attribute.getValue().trim());
-                asList.add(tokens);
+
+        if (isCleanCleanER) {
+            for (EntityProfile profile : profilesD2) {
+                for (Attribute attribute : profile.getAttributes()) {
+                    elements.add(getTokens(attribute.getValue().trim()));
+                }
             }
-            collection2.put(Integer.toString(counter), asList);
-            counter++;
+        }
+
+        final int[][] tokenRecords = getFrequencyOrderedRecords(elements, true);
+        collection1 = getCollection(profilesD1, tokenRecords, 0);
+        if (isCleanCleanER) {
+            int noOfElementsD1 = 0;
+            for (int[][] set : collection1) {
+                noOfElementsD1 += set.length;
+            }
+            collection2 = getCollection(profilesD2, tokenRecords, noOfElementsD1);
+        } else {
+            collection2 = collection1;
         }
     }
 
     private List<Comparison> performJoin() {
         final FuzzySetSimJoin fssj = new FuzzySetSimJoin();
-        final Map<String, Float> matchingPairs = fssj.join(collection1, collection2, threshold);
+        final Map<String, Float> matchingPairs = fssj.join(collection1, collection2, noOfTokens, threshold);
         final List<Comparison> executedComparisons = new ArrayList<>();
         for (String allres : matchingPairs.keySet()) {
             String[] res = allres.split("_");
@@ -119,7 +135,7 @@ public class SilkMoth extends AbstractTokenBasedJoin {
 
             if (isCleanCleanER) {
                 id2 += datasetDelimiter;
-            } else if (id1 == id2) {
+            } else if (id2 <= id1) { // the join emits both i_j and j_i, as both collections coincide
                 continue;
             }
             
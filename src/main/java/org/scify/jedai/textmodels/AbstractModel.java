@@ -31,18 +31,19 @@ public abstract class AbstractModel implements ITextModel, Serializable {
 
     protected final int datasetId;
     protected final int nSize;
-    protected static float[] NO_OF_DOCUMENTS = {0, 0};
     
+    protected final CorpusStatistics statistics;
     protected final RepresentationModel modelType;
     protected final SimilarityMetric simMetric;
     protected final String instanceName;
     
-    public AbstractModel(int dId, int n, RepresentationModel md, SimilarityMetric sMetric, String iName) {
+    public AbstractModel(int dId, int n, RepresentationModel md, SimilarityMetric sMetric, String iName, CorpusStatistics statistics) {
         datasetId = dId;
         instanceName = iName;
         modelType = md;
         nSize = n;
         simMetric = sMetric;
+        this.statistics = statistics;
     }
     
     public int getDatasetId() {
@@ -58,10 +59,6 @@ public abstract class AbstractModel implements ITextModel, Serializable {
         return modelType;
     }
     
-    public static float getNoOfDocuments(int datasetId) {
-        return NO_OF_DOCUMENTS[datasetId];
-    }
-    
     public int getNSize() {
         return nSize;
     }
@@ -70,7 +67,7 @@ public abstract class AbstractModel implements ITextModel, Serializable {
         return simMetric;
     }
     
-    public static void resetGlobalValues(int datasetId) {
-        NO_OF_DOCUMENTS[datasetId] = 0;
+    public CorpusStatistics getStatistics() {
+        return statistics;
     }
 }
\ No newline at end of file
@@ -21,6 +21,7 @@ import com.esotericsoftware.minlog.Log;
 import gnu.trove.iterator.TObjectIntIterator;
 import gnu.trove.map.TObjectIntMap;
 import gnu.trove.map.hash.TObjectIntHashMap;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -31,30 +32,56 @@ import java.util.Set;
 public abstract class BagModel extends AbstractModel {
 
     protected float noOfTotalTerms;
-    protected final TObjectIntMap<String> itemsFrequency;
+    // the distinct terms in ascending order of id and their frequencies, set by finalizeModel
+    protected int[] termIds;
+    protected float[] termFrequencies;
+    // used only while the model is being updated; it is released by finalizeModel
+    protected TObjectIntMap<String> itemsFrequency;
+    // computed lazily, once the corpus statistics are complete; immutable, thus safely shared among threads
+    private transient TermWeights termWeights;
 
-    public BagModel(int dId, int n, RepresentationModel md, SimilarityMetric sMetric, String iName) {
-        super(dId, n, md, sMetric, iName);
+    public BagModel(int dId, int n, RepresentationModel md, SimilarityMetric sMetric, String iName, CorpusStatistics statistics) {
+        super(dId, n, md, sMetric, iName, statistics);
 
         itemsFrequency = new TObjectIntHashMap<>();
     }
 
     @Override
     public void finalizeModel() {
+        // every term is packed with its frequency into a long, so that sorting by id needs no extra objects
+        int index = 0;
+        final TermDictionary dictionary = statistics.getTermDictionary();
+        final long[] packedTerms = new long[itemsFrequency.size()];
+        for (TObjectIntIterator<String> iterator = itemsFrequency.iterator(); iterator.hasNext();) {
+            iterator.advance();
+            packedTerms[index++] = ((long) dictionary.getId(iterator.key()) << 32) | iterator.value();
+        }
+        Arrays.sort(packedTerms);
+
+        termIds = new int[packedTerms.length];
+        termFrequencies = new float[packedTerms.length];
+        for (int i = 0; i < packedTerms.length; i++) {
+            termIds[i] = (int) (packedTerms[i] >>> 32);
+            termFrequencies[i] = (int) packedTerms[i];
+        }
+        itemsFrequency = null;
     }
     
     protected float getEnhancedJaccardSimilarity(BagModel oModel) {
-        TObjectIntMap<String> itemVector1 = itemsFrequency;
-        TObjectIntMap<String> itemVector2 = oModel.getItemsFrequency();
-        if (itemVector2.size() < itemVector1.size()) {
-            itemVector1 = oModel.getItemsFrequency();
-            itemVector2 = itemsFrequency;
-        }
+        final int[] termIds2 = oModel.getSortedTermIds();
+        final float[] termFrequencies2 = oModel.getTermFrequencies();
 
+        int i = 0;
+        int j = 0;
         float numerator = 0.0f;
-        for (TObjectIntIterator<String> iterator = itemVector1.iterator(); iterator.hasNext();) {
-            iterator.advance();
-            numerator += Math.min(iterator.value(), itemVector2.get(iterator.key()));
+        while (i < termIds.length && j < termIds2.length) {
+            if (termIds[i] < termIds2[j]) {
+                i++;
+            } else if (termIds2[j] < termIds[i]) {
+                j++;
+            } else {
+                numerator += Math.min(termFrequencies[i++], termFrequencies2[j++]);
+            }
         }
 
         float denominator = noOfTotalTerms + oModel.getNoOfTotalTerms() - numerator;
@@ -64,9 +91,8 @@ public abstract class BagModel extends AbstractModel {
     @Override
     public float getEntropy(boolean normalized) {
         float entropy = 0.0f;
-        for (TObjectIntIterator<String> iterator = itemsFrequency.iterator(); iterator.hasNext();) {
-            iterator.advance();
-            float p_i = (iterator.value() / noOfTotalTerms);
+        for (float frequency : termFrequencies) {
+            float p_i = (frequency / noOfTotalTerms);
             entropy -= (p_i * (Math.log10(p_i) / Math.log10(2.0d)));
         }
         
@@ -78,17 +104,53 @@ public abstract class BagModel extends AbstractModel {
         return entropy;
     }
 
-    public TObjectIntMap<String> getItemsFrequency() {
-        return itemsFrequency;
+    protected float getJaccardSimilarity(BagModel oModel) {
+        final int[] termIds2 = oModel.getSortedTermIds();
+
+        int i = 0;
+        int j = 0;
+        int numerator = 0;
+        while (i < termIds.length && j < termIds2.length) {
+            if (termIds[i] < termIds2[j]) {
+                i++;
+            } else if (termIds2[j] < termIds[i]) {
+                j++;
+            } else {
+                numerator++;
+                i++;
+                j++;
+            }
+        }
+
+        int denominator = termIds.length + termIds2.length - numerator;
+        return (float) numerator / denominator;
     }
 
-    protected float getJaccardSimilarity(BagModel oModel) {
-        final Set<String> commonKeys = new HashSet<>(itemsFrequency.keySet());
-        commonKeys.retainAll(oModel.getItemsFrequency().keySet());
+    /**
+     * Returns the weight of the term at the given position of the sorted term
+     * ids. By default, it is its term frequency.
+     *
+     * @param index the position of the term in the sorted term ids
+     * @return the weight of the term
+     */
+    protected float getTermWeight(int index) {
+        return termFrequencies[index] / noOfTotalTerms;
+    }
 
-        int numerator = commonKeys.size();
-        int denominator = itemsFrequency.size() + oModel.getItemsFrequency().size() - numerator;
-        return numerator / denominator;
+    protected TermWeights getTermWeights() {
+        TermWeights weights = termWeights;
+        // the weights are recomputed only if the corpus has changed since they were cached
+        if (weights == null || weights.noOfDocuments != statistics.getNoOfDocuments(datasetId)) {
+            float magnitude = 0.0f;
+            final float[] values = new float[termIds.length];
+            for (int i = 0; i < termIds.length; i++) {
+                values[i] = getTermWeight(i);
+                magnitude += values[i] * values[i];
+            }
+            weights = new TermWeights(values, (float) Math.sqrt(magnitude), statistics.getNoOfDocuments(datasetId));
+            termWeights = weights;
+        }
+        return weights;
     }
 
     protected float getNoOfTotalTerms() {
@@ -97,7 +159,15 @@ public abstract class BagModel extends AbstractModel {
 
     @Override
     public Set<String> getSignatures() {
-        return itemsFrequency.keySet();
+        if (itemsFrequency != null) {
+            return itemsFrequency.keySet();
+        }
+
+        final Set<String> signatures = new HashSet<>();
+        for (int termId : termIds) {
+            signatures.add(statistics.getTermDictionary().getTerm(termId));
+        }
+        return signatures;
     }
 
     @Override
@@ -118,62 +188,75 @@ public abstract class BagModel extends AbstractModel {
         }
     }
 
-    protected float getTfCosineSimilarity(BagModel oModel) {
-        float totalTerms2 = oModel.getNoOfTotalTerms();
+    public float[] getTermFrequencies() {
+        return termFrequencies;
+    }
 
-        TObjectIntMap<String> itemVector1 = itemsFrequency;
-        TObjectIntMap<String> itemVector2 = oModel.getItemsFrequency();
-        if (itemVector2.size() < itemVector1.size()) {
-            itemVector1 = oModel.getItemsFrequency();
-            itemVector2 = itemsFrequency;
-        }
+    public int[] getSortedTermIds() {
+        return termIds;
+    }
 
+    protected float getTfCosineSimilarity(BagModel oModel) {
+        final TermWeights weights1 = getTermWeights();
+        final TermWeights weights2 = oModel.getTermWeights();
+        final int[] termIds2 = oModel.getSortedTermIds();
+
+        int i = 0;
+        int j = 0;
         float numerator = 0.0f;
-        for (TObjectIntIterator<String> iterator = itemVector1.iterator(); iterator.hasNext();) {
-            iterator.advance();
-            numerator += iterator.value() * itemVector2.get(iterator.key()) / noOfTotalTerms / totalTerms2;
+        while (i < termIds.length && j < termIds2.length) {
+            if (termIds[i] < termIds2[j]) {
+                i++;
+            } else if (termIds2[j] < termIds[i]) {
+                j++;
+            } else {
+                numerator += weights1.values[i++] * weights2.values[j++];
+            }
         }
 
-        float denominator = getVectorMagnitude() * oModel.getVectorMagnitude();
+        float denominator = weights1.magnitude * weights2.magnitude;
         return (float)(numerator / denominator);
     }
 
     protected float getTfGeneralizedJaccardSimilarity(BagModel oModel) {
-        float totalTerms1 = noOfTotalTerms;
-        float totalTerms2 = oModel.getNoOfTotalTerms();
-        TObjectIntMap<String> itemVector1 = itemsFrequency;
-        TObjectIntMap<String> itemVector2 = oModel.getItemsFrequency();
-        if (itemVector2.size() < itemVector1.size()) {
-            itemVector1 = oModel.getItemsFrequency();
-            itemVector2 = itemsFrequency;
-
-            totalTerms1 = oModel.getNoOfTotalTerms();
-            totalTerms2 = noOfTotalTerms;
-        }
+        final float[] weights1 = getTermWeights().values;
+        final float[] weights2 = oModel.getTermWeights().values;
+        final int[] termIds2 = oModel.getSortedTermIds();
 
+        int i = 0;
+        int j = 0;
         float numerator = 0.0f;
-        for (TObjectIntIterator<String> iterator = itemVector1.iterator(); iterator.hasNext(); ) {
-            iterator.advance();
-            numerator += Math.min(iterator.value() / totalTerms1, itemVector2.get(iterator.key()) / totalTerms2);
-        }
-
-        final Set<String> allKeys = new HashSet<>(itemVector1.keySet());
-        allKeys.addAll(itemVector2.keySet());
         float denominator = 0.0f;
-        for (String key : allKeys) {
-            denominator += Math.max(itemVector1.get(key) / totalTerms1, itemVector2.get(key) / totalTerms2);
+        while (i < termIds.length || j < termIds2.length) {
+            if (j == termIds2.length || (i < termIds.length && termIds[i] < termIds2[j])) {
+                denominator += weights1[i++];
+            } else if (i == termIds.length || termIds2[j] < termIds[i]) {
+                denominator += weights2[j++];
+            } else {
+                float weight1 = weights1[i++];
+                float weight2 = weights2[j++];
+                numerator += Math.min(weight1, weight2);
+                denominator += Math.max(weight1, weight2);
+            }
         }
         
         return (float)(numerator / denominator);
     }
 
     protected float getVectorMagnitude() {
-        float magnitude = 0.0f;
-        for (TObjectIntIterator<String> iterator = itemsFrequency.iterator(); iterator.hasNext();) {
-            iterator.advance();
-            magnitude += Math.pow(iterator.value() / noOfTotalTerms, 2.0);
-        }
+        return getTermWeights().magnitude;
+    }
+
+    protected static class TermWeights {
 
-        return (float) Math.sqrt(magnitude);
+        protected final float magnitude;
+        protected final int noOfDocuments;
+        protected final float[] values;
+
+        protected TermWeights(float[] values, float magnitude, int noOfDocuments) {
+            this.magnitude = magnitude;
+            this.noOfDocuments = noOfDocuments;
+            this.values = values;
+        }
     }
 }
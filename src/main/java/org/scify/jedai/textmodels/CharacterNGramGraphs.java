@@ -30,10 +30,10 @@ public class CharacterNGramGraphs extends GraphModel {
     
     private final static int SEGMENTS_UNIT = 100;
     
-    public CharacterNGramGraphs (int dId, int n, RepresentationModel model, SimilarityMetric simMetric, String iName) {
-        super(dId, n, model, simMetric, iName);
+    public CharacterNGramGraphs (int dId, int n, RepresentationModel model, SimilarityMetric simMetric, String iName, CorpusStatistics statistics) {
+        super(dId, n, model, simMetric, iName, statistics);
         
-        NO_OF_DOCUMENTS[datasetId]++;
+        statistics.addDocument(datasetId);
         graphModel = new DocumentNGramHGraph(nSize, nSize, nSize, nSize*SEGMENTS_UNIT);
     }
     
@@ -42,6 +42,7 @@ public class CharacterNGramGraphs extends GraphModel {
         final DocumentNGramGraph tempGraph = new DocumentNGramGraph(nSize, nSize, nSize);
         tempGraph.setDataString(text.toLowerCase());
         
-        graphModel.merge(tempGraph, 1 - (NO_OF_DOCUMENTS[datasetId]-1)/NO_OF_DOCUMENTS[datasetId]);
+        float noOfDocuments = statistics.getNoOfDocuments(datasetId);
+        graphModel.merge(tempGraph, 1 - (noOfDocuments-1)/noOfDocuments);
     }
 }
\ No newline at end of file
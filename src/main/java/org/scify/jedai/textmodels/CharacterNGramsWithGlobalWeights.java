@@ -18,11 +18,6 @@ package org.scify.jedai.textmodels;
 import org.scify.jedai.utilities.enumerations.RepresentationModel;
 import org.scify.jedai.utilities.enumerations.SimilarityMetric;
 import com.esotericsoftware.minlog.Log;
-import gnu.trove.iterator.TObjectIntIterator;
-import gnu.trove.map.TObjectIntMap;
-import gnu.trove.map.hash.TObjectIntHashMap;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  *
@@ -30,74 +25,86 @@ import java.util.Set;
  */
 public class CharacterNGramsWithGlobalWeights extends CharacterNGrams {
 
-    protected final static TObjectIntMap<String>[] DOC_FREQ = new TObjectIntMap[2];
-
-    public CharacterNGramsWithGlobalWeights(int did, int n, RepresentationModel model, SimilarityMetric simMetric, String iName) {
-        super(did, n, model, simMetric, iName);
+    public CharacterNGramsWithGlobalWeights(int did, int n, RepresentationModel model, SimilarityMetric simMetric, String iName, CorpusStatistics statistics) {
+        super(did, n, model, simMetric, iName, statistics);
     }
 
     @Override
     public void finalizeModel() {
-        if (DOC_FREQ[datasetId] == null) {
-            DOC_FREQ[datasetId] = new TObjectIntHashMap<>();
-        }
-
-        itemsFrequency.keySet().stream().filter((keyValue) -> (!DOC_FREQ[datasetId].increment(keyValue))).forEachOrdered((keyValue) -> {
-            DOC_FREQ[datasetId].put(keyValue, 1);
-        });
+        super.finalizeModel();
+        
+        statistics.addDocumentTerms(datasetId, termIds);
     }
 
     protected float getARCSSimilarity(CharacterNGramsWithGlobalWeights oModel) {
-        final Set<String> commonKeys = new HashSet(itemsFrequency.keySet());
-        commonKeys.retainAll(oModel.getItemsFrequency().keySet());
-
-        float similarity = 0;
-        if (datasetId == DATASET_1 && datasetId == oModel.getDatasetId()) { // Dirty ER
-            similarity = commonKeys.stream().map((key) -> DOC_FREQ[DATASET_1].get(key)).map((frequency) -> 1.0f / ((float) Math.log1p(frequency * (frequency - 1.0f) / 2.0f) / (float) Math.log(2))).reduce(similarity, (accumulator, _item) -> accumulator + _item);
-        } else if (datasetId != oModel.getDatasetId()) { // Clean-Clean ER
-            similarity = commonKeys.stream().map((key) -> 1.0f / ((float) Math.log1p(((float) DOC_FREQ[DATASET_1].get(key)) * DOC_FREQ[DATASET_2].get(key)) / (float) Math.log(2))).reduce(similarity, (accumulator, _item) -> accumulator + _item);
-        } else {
+        final int[] termIds2 = oModel.getSortedTermIds();
+        
+        boolean dirtyER = datasetId == DATASET_1 && datasetId == oModel.getDatasetId();
+        if (!dirtyER && datasetId == oModel.getDatasetId()) {
             Log.error("Both models come from dataset 1!");
             System.exit(-1);
         }
 
+        int i = 0;
+        int j = 0;
+        float similarity = 0;
+        while (i < termIds.length && j < termIds2.length) {
+            if (termIds[i] < termIds2[j]) {
+                i++;
+            } else if (termIds2[j] < termIds[i]) {
+                j++;
+            } else {
+                int termId = termIds[i];
+                if (dirtyER) {
+                    float frequency = statistics.getDocumentFrequency(DATASET_1, termId);
+                    similarity += 1.0f / (Math.log1p(frequency * (frequency - 1) / 2.0) / Math.log(2));
+                } else {
+                    similarity += 1.0f / (Math.log1p(((float) statistics.getDocumentFrequency(DATASET_1, termId)) * statistics.getDocumentFrequency(DATASET_2, termId)) / Math.log(2));
+                }
+                i++;
+                j++;
+            }
+        }
+
         return similarity;
     }
 
-    protected float getIdfWeight(String keyValue) {
-        int frequency = DOC_FREQ[datasetId].get(keyValue);
+    protected float getIdfWeight(int termId) {
+        int frequency = statistics.getDocumentFrequency(datasetId, termId);
         if (frequency == 0) {
             return 0;
         }
 
-        if (NO_OF_DOCUMENTS[datasetId] < frequency) {
+        float noOfDocuments = statistics.getNoOfDocuments(datasetId);
+        if (noOfDocuments < frequency) {
             Log.error("Error in the computation of IDF weights!!!");
             return 0;
         }
         
-        return (float) Math.log10(NO_OF_DOCUMENTS[datasetId] / (1.0f + frequency));
+        return (float) Math.log10(noOfDocuments / (1.0f + frequency));
     }
 
     protected float getSigmaSimilarity(CharacterNGramsWithGlobalWeights oModel) {
-        float totalTerms2 = oModel.getNoOfTotalTerms();
-        final TObjectIntMap<String> itemVector2 = oModel.getItemsFrequency();
+        final float[] weights1 = getTermWeights().values;
+        final float[] weights2 = oModel.getTermWeights().values;
+        final int[] termIds2 = oModel.getSortedTermIds();
 
+        int i = 0;
+        int j = 0;
         float numerator = 0.0f;
-        for (TObjectIntIterator<String> iterator = itemsFrequency.iterator(); iterator.hasNext();) {
-            iterator.advance();
-            int frequency2 = itemVector2.get(iterator.key());
-            if (0 < frequency2) {
-                numerator += iterator.value() / noOfTotalTerms * getIdfWeight(iterator.key())
-                           + frequency2 / totalTerms2 * oModel.getIdfWeight(iterator.key());
+        float denominator = 0.0f;
+        while (i < termIds.length || j < termIds2.length) {
+            if (j == termIds2.length || (i < termIds.length && termIds[i] < termIds2[j])) {
+                denominator += weights1[i++];
+            } else if (i == termIds.length || termIds2[j] < termIds[i]) {
+                denominator += weights2[j++];
+            } else {
+                float weight = weights1[i++] + weights2[j++];
+                numerator += weight;
+                denominator += weight;
             }
         }
 
-        final Set<String> allKeys = new HashSet<>(itemsFrequency.keySet());
-        allKeys.addAll(itemVector2.keySet());
-        float denominator = 0.0f;
-        denominator = allKeys.stream().map((key) -> itemsFrequency.get(key) / noOfTotalTerms  * getIdfWeight(key) + 
-                itemVector2.get(key) / totalTerms2 * oModel.getIdfWeight(key)).reduce(denominator, (accumulator, _item) -> accumulator + _item);
-
         return (float)(numerator / denominator);
     }
 
@@ -120,61 +127,54 @@ public class CharacterNGramsWithGlobalWeights extends CharacterNGrams {
     }
 
     protected float getTfIdfCosineSimilarity(CharacterNGramsWithGlobalWeights oModel) {
-        float totalTerms2 = oModel.getNoOfTotalTerms();
-        final TObjectIntMap<String> itemVector2 = oModel.getItemsFrequency();
+        final TermWeights weights1 = getTermWeights();
+        final TermWeights weights2 = oModel.getTermWeights();
+        final int[] termIds2 = oModel.getSortedTermIds();
 
+        int i = 0;
+        int j = 0;
         float numerator = 0.0f;
-        for (TObjectIntIterator<String> iterator = itemsFrequency.iterator(); iterator.hasNext();) {
-            iterator.advance();
-            int frequency2 = itemVector2.get(iterator.key());
-            if (0 < frequency2) {
-                numerator += (iterator.value() / noOfTotalTerms) * getIdfWeight(iterator.key())
-                           * (frequency2 / totalTerms2) * oModel.getIdfWeight(iterator.key());
+        while (i < termIds.length && j < termIds2.length) {
+            if (termIds[i] < termIds2[j]) {
+                i++;
+            } else if (termIds2[j] < termIds[i]) {
+                j++;
+            } else {
+                numerator += weights1.values[i++] * weights2.values[j++];
             }
         }
 
-        float denominator = getVectorMagnitude() * oModel.getVectorMagnitude();
+        float denominator = weights1.magnitude * weights2.magnitude;
         return (float)(numerator / denominator);
     }
 
     protected float getTfIdfGeneralizedJaccardSimilarity(CharacterNGramsWithGlobalWeights oModel) {
-        float totalTerms2 = oModel.getNoOfTotalTerms();
-        final TObjectIntMap<String> itemVector2 = oModel.getItemsFrequency();
+        final float[] weights1 = getTermWeights().values;
+        final float[] weights2 = oModel.getTermWeights().values;
+        final int[] termIds2 = oModel.getSortedTermIds();
 
+        int i = 0;
+        int j = 0;
         float numerator = 0.0f;
-        for (TObjectIntIterator<String> iterator = itemsFrequency.iterator(); iterator.hasNext();) {
-            iterator.advance();
-            int frequency2 = itemVector2.get(iterator.key());
-            if (0 < frequency2) {
-                numerator += Math.min(iterator.value() / noOfTotalTerms * getIdfWeight(iterator.key()),
-                                      frequency2 / totalTerms2 * oModel.getIdfWeight(iterator.key()));
+        float denominator = 0.0f;
+        while (i < termIds.length || j < termIds2.length) {
+            if (j == termIds2.length || (i < termIds.length && termIds[i] < termIds2[j])) {
+                denominator += Math.max(weights1[i++], 0);
+            } else if (i == termIds.length || termIds2[j] < termIds[i]) {
+                denominator += Math.max(0, weights2[j++]);
+            } else {
+                float weight1 = weights1[i++];
+                float weight2 = weights2[j++];
+                numerator += Math.min(weight1, weight2);
+                denominator += Math.max(weight1, weight2);
             }
         }
 
-        final Set<String> allKeys = new HashSet<>(itemsFrequency.keySet());
-        allKeys.addAll(itemVector2.keySet());
-        float denominator = 0.0f;
-        denominator = allKeys.stream().map((key) -> Math.max(itemsFrequency.get(key) / noOfTotalTerms  * getIdfWeight(key),
-                itemVector2.get(key) / totalTerms2 * oModel.getIdfWeight(key))).reduce(denominator, (accumulator, _item) -> accumulator + _item);
-
         return (float)(numerator / denominator);
     }
-
-    @Override
-    protected float getVectorMagnitude() {
-        float magnitude = 0.0f;
-        for (TObjectIntIterator<String> iterator = itemsFrequency.iterator(); iterator.hasNext();) {
-            iterator.advance();
-            magnitude += Math.pow(iterator.value() * getIdfWeight(iterator.key()) / noOfTotalTerms, 2.0);
-        }
-
-        return (float) Math.sqrt(magnitude);
-    }
     
-    public static void resetGlobalValues(int datasetId) {
-        NO_OF_DOCUMENTS[datasetId] = 0;
-        if (DOC_FREQ[datasetId] != null) {
-            DOC_FREQ[datasetId].clear();
-        }
+    @Override
+    protected float getTermWeight(int index) {
+        return termFrequencies[index] / noOfTotalTerms * getIdfWeight(termIds[index]);
     }
 }
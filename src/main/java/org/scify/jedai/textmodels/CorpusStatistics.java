@@ -0,0 +1,78 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.textmodels;
+
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.scify.jedai.utilities.IConstants;
+
+/**
+ * The global statistics of the text models that are compared with each other:
+ * the number of documents (i.e., models) per dataset, the document frequency
+ * of every term per dataset and the term dictionary shared by both datasets.
+ *
+ * Every method that builds a set of models (e.g., an entity matching method)
+ * owns a separate instance, so that several of them can run concurrently in
+ * the same JVM. The statistics are updated in a thread-safe way while the
+ * models are being built; they are only read while the models are compared.
+ *
+ * @author gap2
+ */
+public class CorpusStatistics implements IConstants, Serializable {
+
+    private static final long serialVersionUID = 2207317840291264781L;
+
+    private final AtomicIntegerArray noOfDocuments;
+    private final TIntIntMap[] documentFrequencies;
+    private final TermDictionary termDictionary;
+
+    public CorpusStatistics() {
+        noOfDocuments = new AtomicIntegerArray(2);
+        documentFrequencies = new TIntIntMap[]{new TIntIntHashMap(), new TIntIntHashMap()};
+        termDictionary = new TermDictionary();
+    }
+
+    public void addDocument(int datasetId) {
+        noOfDocuments.incrementAndGet(datasetId);
+    }
+
+    public void addDocumentTerms(int datasetId, int[] termIds) {
+        final TIntIntMap frequencies = documentFrequencies[datasetId];
+        synchronized (frequencies) {
+            for (int termId : termIds) {
+                frequencies.adjustOrPutValue(termId, 1, 1);
+            }
+        }
+    }
+
+    public int getDocumentFrequency(int datasetId, int termId) {
+        return documentFrequencies[datasetId].get(termId);
+    }
+
+    public int getNoOfDocuments(int datasetId) {
+        return noOfDocuments.get(datasetId);
+    }
+
+    public int getNoOfTerms() {
+        return termDictionary.size();
+    }
+
+    public TermDictionary getTermDictionary() {
+        return termDictionary;
+    }
+}
@@ -30,10 +30,11 @@ import java.util.Set;
 public abstract class GraphModel extends AbstractModel {
 
     protected DocumentNGramGraph graphModel;
-    protected final static NGramCachedGraphComparator COMPARATOR = new NGramCachedGraphComparator();
+    // the comparator caches intermediate results, so every matching thread uses its own
+    protected final static ThreadLocal<NGramCachedGraphComparator> COMPARATOR = ThreadLocal.withInitial(NGramCachedGraphComparator::new);
 
-    public GraphModel(int dId, int n, RepresentationModel model, SimilarityMetric simMetric, String iName) {
-        super(dId, n, model, simMetric, iName);
+    public GraphModel(int dId, int n, RepresentationModel model, SimilarityMetric simMetric, String iName, CorpusStatistics statistics) {
+        super(dId, n, model, simMetric, iName, statistics);
     }
 
     @Override
@@ -55,7 +56,7 @@ public abstract class GraphModel extends AbstractModel {
 
     @Override
     public float getSimilarity(ITextModel oModel) {
-        final GraphSimilarity graphSimilarity = COMPARATOR.getSimilarityBetween(this.getGraphModel(), ((GraphModel) oModel).getGraphModel());
+        final GraphSimilarity graphSimilarity = COMPARATOR.get().getSimilarityBetween(this.getGraphModel(), ((GraphModel) oModel).getGraphModel());
         switch (simMetric) {
             case GRAPH_CONTAINMENT_SIMILARITY:
                 return (float)graphSimilarity.ContainmentSimilarity;
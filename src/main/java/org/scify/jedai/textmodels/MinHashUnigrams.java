@@ -15,7 +15,6 @@
  */
 package org.scify.jedai.textmodels;
 
-import gnu.trove.map.hash.TObjectIntHashMap;
 import java.util.HashSet;
 import java.util.Set;
 import org.scify.jedai.utilities.enumerations.RepresentationModel;
@@ -29,32 +28,23 @@ public class MinHashUnigrams extends TokenNGramsWithGlobalWeights {
     
     protected final Set<String> termsList;
     
-    public MinHashUnigrams(String instanceName) {
-        super(DATASET_1, 1, RepresentationModel.TOKEN_UNIGRAMS, SimilarityMetric.JACCARD_SIMILARITY, instanceName);
+    public MinHashUnigrams(String instanceName, CorpusStatistics statistics) {
+        super(DATASET_1, 1, RepresentationModel.TOKEN_UNIGRAMS, SimilarityMetric.JACCARD_SIMILARITY, instanceName, statistics);
         
         termsList = new HashSet<>();
     }
 
     @Override
     public void finalizeModel() {
-        if (DOC_FREQ[datasetId] == null) {
-            DOC_FREQ[datasetId] = new TObjectIntHashMap<>();
-        }
-        
         termsList.forEach((term) -> {
-            int vocabularySize = DOC_FREQ[DATASET_1].size();
-            DOC_FREQ[DATASET_1].putIfAbsent(term, vocabularySize);
+            statistics.getTermDictionary().getId(term);
         });
     }
-
-    public static int getCorpusDimensionality() {
-        return DOC_FREQ[DATASET_1].size();
-    }
     
     public Set<Integer> getTermIds() {
         final Set<Integer> termIds = new HashSet<>();
         termsList.forEach((term) -> {
-            termIds.add(DOC_FREQ[DATASET_1].get(term));
+            termIds.add(statistics.getTermDictionary().getId(term));
         });
         return termIds;
     }
@@ -24,19 +24,15 @@ import org.scify.jedai.utilities.enumerations.SimilarityMetric;
  */
 public class SuperBitUnigrams extends TokenNGramsWithGlobalWeights {
 
-    public SuperBitUnigrams(String instanceName) {
-        super(DATASET_1, 1, RepresentationModel.TOKEN_UNIGRAMS_TF_IDF, SimilarityMetric.COSINE_SIMILARITY, instanceName);
-    }
-
-    public static int getCorpusDimensionality() {
-        return DOC_FREQ[DATASET_1].size();
+    public SuperBitUnigrams(String instanceName, CorpusStatistics statistics) {
+        super(DATASET_1, 1, RepresentationModel.TOKEN_UNIGRAMS_TF_IDF, SimilarityMetric.COSINE_SIMILARITY, instanceName, statistics);
     }
 
     public double[] getVector() {
-        int counter = 0;
-        double[] tfIdfVector = new double[getCorpusDimensionality()];
-        for (String token : DOC_FREQ[DATASET_1].keySet()) {
-            tfIdfVector[counter++] = itemsFrequency.get(token) / noOfTotalTerms * getIdfWeight(token);
+        double[] tfIdfVector = new double[statistics.getNoOfTerms()];
+        final float[] weights = getTermWeights().values;
+        for (int i = 0; i < termIds.length; i++) {
+            tfIdfVector[termIds[i]] = weights[i];
         }
         return tfIdfVector;
     }
@@ -0,0 +1,69 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.textmodels;
+
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps every distinct term (n-gram) to a consecutive integer id, starting from
+ * 0. The bag models of both datasets share the same dictionary, so that their
+ * terms can be compared through their ids. It is thread-safe, so that models
+ * can be built concurrently.
+ *
+ * @author gap2
+ */
+public class TermDictionary implements Serializable {
+
+    private static final long serialVersionUID = 7651234098712345L;
+
+    private final static int NO_ID = -1;
+
+    private final List<String> terms;
+    private final TObjectIntMap<String> termIds;
+
+    public TermDictionary() {
+        terms = new ArrayList<>();
+        termIds = new TObjectIntHashMap<>(10, 0.5f, NO_ID);
+    }
+
+    /**
+     * Returns the id of the given term, assigning a new one if the term has not
+     * been encountered before.
+     *
+     * @param term the term to be encoded
+     * @return the id of the term
+     */
+    public synchronized int getId(String term) {
+        int termId = termIds.putIfAbsent(term, terms.size());
+        if (termId == NO_ID) {
+            termId = terms.size();
+            terms.add(term);
+        }
+        return termId;
+    }
+
+    public synchronized String getTerm(int termId) {
+        return terms.get(termId);
+    }
+
+    public synchronized int size() {
+        return terms.size();
+    }
+}
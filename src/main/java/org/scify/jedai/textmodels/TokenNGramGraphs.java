@@ -27,10 +27,10 @@ import gr.demokritos.iit.jinsect.documentModel.representations.DocumentWordGraph
 
 public class TokenNGramGraphs extends GraphModel {
     
-    public TokenNGramGraphs (int dId, int n, RepresentationModel model, SimilarityMetric simMetric, String iName) {
-        super(dId, n, model, simMetric, iName);
+    public TokenNGramGraphs (int dId, int n, RepresentationModel model, SimilarityMetric simMetric, String iName, CorpusStatistics statistics) {
+        super(dId, n, model, simMetric, iName, statistics);
 
-        NO_OF_DOCUMENTS[datasetId]++;
+        statistics.addDocument(datasetId);
         graphModel = new DocumentWordGraph(nSize, nSize, nSize);
     }
 
@@ -39,6 +39,7 @@ public class TokenNGramGraphs extends GraphModel {
         final DocumentWordGraph tempGraph = new DocumentWordGraph(nSize, nSize, nSize);
         tempGraph.setDataString(text.toLowerCase());
         
-        getGraphModel().merge(tempGraph, 1 - (NO_OF_DOCUMENTS[datasetId]-1)/NO_OF_DOCUMENTS[datasetId]);
+        float noOfDocuments = statistics.getNoOfDocuments(datasetId);
+        getGraphModel().merge(tempGraph, 1 - (noOfDocuments-1)/noOfDocuments);
     }
 }
\ No newline at end of file
@@ -24,10 +24,10 @@ import org.scify.jedai.utilities.enumerations.SimilarityMetric;
  */
 public class TokenNGrams extends BagModel {
 
-    public TokenNGrams(int dId, int n, RepresentationModel model, SimilarityMetric simMetric, String iName) {
-        super(dId, n, model, simMetric, iName);
+    public TokenNGrams(int dId, int n, RepresentationModel model, SimilarityMetric simMetric, String iName, CorpusStatistics statistics) {
+        super(dId, n, model, simMetric, iName, statistics);
 
-        NO_OF_DOCUMENTS[datasetId]++;
+        statistics.addDocument(datasetId);
     }
 
     @Override
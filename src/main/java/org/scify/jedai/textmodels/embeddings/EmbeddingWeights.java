@@ -0,0 +1,86 @@
+package org.scify.jedai.textmodels.embeddings;
+
+import com.esotericsoftware.minlog.Log;
+import com.opencsv.*;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * The pretrained embedding of every element (word or character), loaded from
+ * the file embeddings/weights.txt of the resources (see PretrainedVectors).
+ * It is loaded only once and is immutable afterwards, so it is shared by all
+ * pretrained vector models, regardless of the thread that builds or compares
+ * them.
+ */
+public class EmbeddingWeights {
+
+    private static EmbeddingWeights defaultWeights;
+
+    private final int dimension;
+    private final Map<String, float[]> elementMap;
+
+    private EmbeddingWeights(int dimension, Map<String, float[]> elementMap) {
+        this.dimension = dimension;
+        this.elementMap = Collections.unmodifiableMap(elementMap);
+    }
+
+    /**
+     * Returns the embeddings of the resource file, loading them upon the first
+     * call.
+     *
+     * @return the pretrained embeddings
+     */
+    public static synchronized EmbeddingWeights getDefaultWeights() {
+        if (defaultWeights == null) {
+            defaultWeights = loadWeights();
+        }
+        return defaultWeights;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public Map<String, float[]> getElementMap() {
+        return elementMap;
+    }
+
+    /**
+     * Load pretrained embedding weights autoresolving the embedding dimension
+     */
+    private static EmbeddingWeights loadWeights() {
+        ClassLoader classLoader = EmbeddingWeights.class.getClassLoader();
+        //String fileName = classLoader.getResource("embeddings/weights-full.txt").getFile();
+        String fileName = Objects.requireNonNull(classLoader.getResource("embeddings/weights.txt")).getFile();
+        final Map<String, float[]> elementMap = new HashMap<>();
+
+        int dimension = 0;
+        try {
+            CSVReader reader = new CSVReader(new FileReader(fileName), ' ', CSVParser.NULL_CHARACTER, 0);
+
+            String[] components;
+            int counter = 0;
+            while ((components = reader.readNext()) != null) {
+                counter++;
+                if (counter > 1) {
+                    if (components.length != dimension + 1)
+                        throw new IOException(String.format("Mismatch in embedding vector #%d length : %d.",
+                                counter, components.length));
+                } else {
+                    dimension = components.length - 1;
+                }
+                float[] value = new float[dimension];
+                for (int i = 1; i <= dimension; ++i) {
+                    value[i - 1] = Float.parseFloat(components[i]);
+                }
+                elementMap.put(components[0], value);
+            }
+        } catch (IOException e) {
+            Log.error("Problem loading embedding weights", e);
+            System.exit(-1);
+        }
+        return new EmbeddingWeights(dimension, elementMap);
+    }
+}
@@ -1,6 +1,7 @@
 package org.scify.jedai.textmodels.embeddings;
 
 import com.esotericsoftware.minlog.Log;
+import org.scify.jedai.textmodels.CorpusStatistics;
 import org.scify.jedai.utilities.enumerations.RepresentationModel;
 import org.scify.jedai.utilities.enumerations.SimilarityMetric;
 
@@ -14,9 +15,10 @@ public class PretrainedCharacterVectors extends PretrainedVectors {
      * @param md
      * @param sMetric
      * @param iName
+     * @param statistics
      */
-    public PretrainedCharacterVectors(int dId, int n, RepresentationModel md, SimilarityMetric sMetric, String iName) {
-        super(dId, n, md, sMetric, iName);
+    public PretrainedCharacterVectors(int dId, int n, RepresentationModel md, SimilarityMetric sMetric, String iName, CorpusStatistics statistics) {
+        super(dId, n, md, sMetric, iName, statistics);
         // Log.set(Log.LEVEL_DEBUG);
     }
 
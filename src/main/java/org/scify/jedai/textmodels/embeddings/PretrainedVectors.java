@@ -1,14 +1,10 @@
 package org.scify.jedai.textmodels.embeddings;
 
 import com.esotericsoftware.minlog.Log;
-import com.opencsv.*;
+import org.scify.jedai.textmodels.CorpusStatistics;
 import org.scify.jedai.utilities.enumerations.RepresentationModel;
 import org.scify.jedai.utilities.enumerations.SimilarityMetric;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
 import java.util.*;
 
 /*
@@ -37,10 +33,7 @@ import java.util.*;
 
 public abstract class PretrainedVectors extends VectorSpaceModel {
 
-    char dataSeparator = ' ';
-    static float[] unkownVector;
-    static boolean weightsLoaded = false;
-    static Map<String, float[]> elementMap;
+    final Map<String, float[]> elementMap;
     int numElements;
 
     /**
@@ -50,108 +43,18 @@ public abstract class PretrainedVectors extends VectorSpaceModel {
      * @param md
      * @param sMetric
      * @param iName
+     * @param statistics
      */
-    public PretrainedVectors(int dId, int n, RepresentationModel md, SimilarityMetric sMetric, String iName) {
-        super(dId, n, md, sMetric, iName);
+    public PretrainedVectors(int dId, int n, RepresentationModel md, SimilarityMetric sMetric, String iName, CorpusStatistics statistics) {
+        super(dId, n, md, sMetric, iName, statistics);
         numElements = 0;
-        loadWeights();
+        final EmbeddingWeights weights = EmbeddingWeights.getDefaultWeights();
+        dimension = weights.getDimension();
+        elementMap = weights.getElementMap();
         aggregateVector = getZeroVector();
         //Log.set(Log.LEVEL_DEBUG);
     }
 
-    /**
-     * Load pretrained embedding weights autoresolving the embedding dimension
-     */
-    private void loadWeights() {
-        if (weightsLoaded) return;
-        ClassLoader classLoader = getClass().getClassLoader();
-        //String fileName = classLoader.getResource("embeddings/weights-full.txt").getFile();
-        String fileName = Objects.requireNonNull(classLoader.getResource("embeddings/weights.txt")).getFile();
-        elementMap = new HashMap<>();
-
-        try {
-            BufferedReader br = new BufferedReader(new FileReader(fileName));
-
-            CSVReader reader = new CSVReader(new FileReader(fileName), dataSeparator, CSVParser.NULL_CHARACTER, 0);
-
-            String[] components;
-            int counter = 0;
-            while ((components = reader.readNext()) != null) {
-                counter++;
-                if (counter > 1) {
-                    if (components.length != dimension + 1)
-                        throw new IOException(String.format("Mismatch in embedding vector #%d length : %d.",
-                                counter, components.length));
-                } else {
-                    dimension = components.length - 1;
-                }
-                float[] value = new float[dimension];
-                for (int i = 1; i <= dimension; ++i) {
-                    value[i - 1] = Float.parseFloat(components[i]);
-                }
-                elementMap.put(components[0], value);
-            }
-        } catch (IOException e) {
-            Log.error("Problem loading embedding weights", e);
-            System.exit(-1);
-        }
-    }
-
-    /**
-     * Load pretrained embedding weights supplied with a metadata header.
-     */
-   private void loadWeightsWithHeader(){
-       if (weightsLoaded) return;
-       ClassLoader classLoader = getClass().getClassLoader();
-       //String fileName = classLoader.getResource("embeddings/weights-full.txt").getFile();
-       String fileName = classLoader.getResource("embeddings/weights.txt").getFile();
-       Log.info("Loading weights from " + fileName);
-       elementMap = new HashMap<>();
-
-       try {
-           BufferedReader br = new BufferedReader(new FileReader(fileName));
-           // first read parsing metadata, split by commas
-           String [] header = br.readLine().split(",");
-           try {
-               dimension = Integer.parseInt(header[0]);
-               dataSeparator = header[1].charAt(0);
-           }catch (NumberFormatException ex){
-               Log.error("Pretrained header malformed -- expected:<dimension>");
-               System.exit(-1);
-           }
-           Log.info(String.format("Read dimension: [%d], delimiter: [%c]", dimension, dataSeparator));
-           Log.info(String.format("Reading embedding mapping file. {%s}", Calendar.getInstance().getTime().toString()));
-           CSVReader reader = new CSVReader(new FileReader(fileName), dataSeparator, CSVParser.NULL_CHARACTER, 1);
-           // List<String[]> vectors = reader.readAll();
-           Log.info(String.format("Done reading embedding mapping file. {%s}",  Calendar.getInstance().getTime().toString()));
-
-           String[] components;
-           int counter=0;
-           while((components = reader.readNext()) != null){
-               Log.debug(String.format("Read csv entry # %d: %s",  counter, Arrays.toString(components)));
-               counter++;
-               if (components.length != dimension + 1)
-                   throw new IOException(String.format("Mismatch in embedding vector #%d length : %d.",
-                           counter, components.length));
-               float [] value = new float[dimension];
-               for (int i=1; i<=dimension; ++i){
-                   value[i-1] = Float.parseFloat(components[i]);
-               }
-               elementMap.put(components[0], value);
-           }
-           Log.info(String.format("Done processing %d-line embedding mapping. {%s}",  counter, Calendar.getInstance().getTime().toString()));
-       } catch (FileNotFoundException e) {
-           Log.error("No resource file found:" + fileName, e);
-           System.exit(-1);
-       } catch (IOException e) {
-           Log.error("IO exception when reading:" + fileName, e);
-           System.exit(-1);
-       }
-
-       unkownVector = getZeroVector();
-       weightsLoaded = true;
-   }
-
     /**
      * Zero vector fetcher
      * @return 
@@ -1,6 +1,7 @@
 package org.scify.jedai.textmodels.embeddings;
 
 import com.esotericsoftware.minlog.Log;
+import org.scify.jedai.textmodels.CorpusStatistics;
 import org.scify.jedai.utilities.enumerations.RepresentationModel;
 import org.scify.jedai.utilities.enumerations.SimilarityMetric;
 
@@ -13,9 +14,10 @@ public class PretrainedWordVectors extends PretrainedVectors{
      * @param md
      * @param sMetric
      * @param iName
+     * @param statistics
      */
-    public PretrainedWordVectors(int dId, int n, RepresentationModel md, SimilarityMetric sMetric, String iName) {
-        super(dId, n, md, sMetric, iName);
+    public PretrainedWordVectors(int dId, int n, RepresentationModel md, SimilarityMetric sMetric, String iName, CorpusStatistics statistics) {
+        super(dId, n, md, sMetric, iName, statistics);
     }
 
 
@@ -33,7 +35,7 @@ public class PretrainedWordVectors extends PretrainedVectors{
         int localUpdates=0;
         final String[] tokens = text.toLowerCase().split("[\\W_]");
         for (String token : tokens){
-            if (PretrainedWordVectors.elementMap.containsKey(token)){
+            if (elementMap.containsKey(token)){
                 addVector(elementMap.get(token));
                 localUpdates ++;
             }
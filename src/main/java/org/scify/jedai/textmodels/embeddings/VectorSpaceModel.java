@@ -2,6 +2,7 @@ package org.scify.jedai.textmodels.embeddings;
 
 import com.esotericsoftware.minlog.Log;
 import org.scify.jedai.textmodels.AbstractModel;
+import org.scify.jedai.textmodels.CorpusStatistics;
 import org.scify.jedai.textmodels.ITextModel;
 import org.scify.jedai.utilities.enumerations.RepresentationModel;
 import org.scify.jedai.utilities.enumerations.SimilarityMetric;
@@ -9,10 +10,10 @@ import org.scify.jedai.utilities.enumerations.SimilarityMetric;
 public abstract class VectorSpaceModel extends AbstractModel {
 
     float[] aggregateVector;
-    static int dimension;
+    int dimension;
 
-    public VectorSpaceModel(int dId, int n, RepresentationModel md, SimilarityMetric sMetric, String iName) {
-        super(dId, n, md, sMetric, iName);
+    public VectorSpaceModel(int dId, int n, RepresentationModel md, SimilarityMetric sMetric, String iName, CorpusStatistics statistics) {
+        super(dId, n, md, sMetric, iName, statistics);
     }
 
     float[] getVector() {
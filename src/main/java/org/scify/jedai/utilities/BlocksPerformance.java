@@ -19,10 +19,11 @@ import org.scify.jedai.utilities.datastructures.AbstractDuplicatePropagation;
 import org.scify.jedai.utilities.datastructures.GroundTruthIndex;
 import org.scify.jedai.datamodel.AbstractBlock;
 import org.scify.jedai.datamodel.BilateralBlock;
-import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.ComparisonIterator;
 import org.scify.jedai.datamodel.DecomposedBlock;
+import org.scify.jedai.datamodel.IComparisonStream;
 import org.scify.jedai.datamodel.IdDuplicates;
+import org.scify.jedai.datamodel.PrunedBlockingGraph;
 import org.scify.jedai.datamodel.UnilateralBlock;
 
 import com.esotericsoftware.minlog.Log;
@@ -130,9 +131,9 @@ public class BlocksPerformance {
             final TIntSet entitiesD2 = new TIntHashSet((int) aggregateCardinality);
             blocks.stream().map((block) -> block.getComparisonIterator()).forEachOrdered((iterator) -> {
                 while (iterator.hasNext()) {
-                    Comparison comparison = iterator.next();
-                    entitiesD1.add(comparison.getEntityId1());
-                    entitiesD2.add(comparison.getEntityId2());
+                    final long pair = iterator.nextPair();
+                    entitiesD1.add(IComparisonStream.getEntityId1(pair));
+                    entitiesD2.add(IComparisonStream.getEntityId2(pair));
                 }
             });
             noOfD1Entities = entitiesD1.size();
@@ -140,9 +141,9 @@ public class BlocksPerformance {
         } else {
             blocks.stream().map((block) -> block.getComparisonIterator()).forEachOrdered((iterator) -> {
                 while (iterator.hasNext()) {
-                    Comparison comparison = iterator.next();
-                    entitiesD1.add(comparison.getEntityId1());
-                    entitiesD1.add(comparison.getEntityId2());
+                    final long pair = iterator.nextPair();
+                    entitiesD1.add(IComparisonStream.getEntityId1(pair));
+                    entitiesD1.add(IComparisonStream.getEntityId2(pair));
                 }
             });
             noOfD1Entities = entitiesD1.size();
@@ -157,16 +158,18 @@ public class BlocksPerformance {
         if (isCleanCleanER) {
             blocks.stream().map((block) -> block.getComparisonIterator()).forEachOrdered((iterator) -> {
                 while (iterator.hasNext()) {
-                    final Comparison comp = iterator.next();
-                    abstractDP.isSuperfluous(comp.getEntityId1(), comp.getEntityId2());
+                    final long pair = iterator.nextPair();
+                    abstractDP.isSuperfluous(IComparisonStream.getEntityId1(pair), IComparisonStream.getEntityId2(pair));
                 }
             });
         } else {
             blocks.stream().map((block) -> block.getComparisonIterator()).forEachOrdered((iterator) -> {
                 while (iterator.hasNext()) {
-                    final Comparison comp = iterator.next();
-                    abstractDP.isSuperfluous(comp.getEntityId1(), comp.getEntityId2());
-                    abstractDP.isSuperfluous(comp.getEntityId2(), comp.getEntityId1());
+                    final long pair = iterator.nextPair();
+                    final int entityId1 = IComparisonStream.getEntityId1(pair);
+                    final int entityId2 = IComparisonStream.getEntityId2(pair);
+                    abstractDP.isSuperfluous(entityId1, entityId2);
+                    abstractDP.isSuperfluous(entityId2, entityId1);
                 }
             });
         }
@@ -230,6 +233,12 @@ public class BlocksPerformance {
         return pq;
     }
 
+    // the output of comparison cleaning consists of either decomposed blocks or pruned blocking graphs,
+    // which are both processed through a linear scan of their comparisons
+    private boolean isDecomposed() {
+        return blocks.get(0) instanceof DecomposedBlock || blocks.get(0) instanceof PrunedBlockingGraph;
+    }
+
     public void printDetailedResults(List<EntityProfile> profilesD1, List<EntityProfile> profilesD2) {
         if (blocks.isEmpty()) {
             Log.warn("Empty set of blocks was given as input!");
@@ -239,7 +248,7 @@ public class BlocksPerformance {
         setType();
 
         List<AbstractBlock> blocksToUse = blocks;
-        if (!(blocks.get(0) instanceof DecomposedBlock)) {
+        if (!isDecomposed()) {
             final ComparisonPropagation cp = new ComparisonPropagation();
             blocksToUse = cp.refineBlocks(blocks);
         }
@@ -248,12 +257,14 @@ public class BlocksPerformance {
         for (AbstractBlock block : blocksToUse) {
             final ComparisonIterator iterator = block.getComparisonIterator();
             while (iterator.hasNext()) {
-                final Comparison currentComparison = iterator.next();
-                final EntityProfile profile1 = profilesD1.get(currentComparison.getEntityId1());
-                final EntityProfile profile2 = isCleanCleanER ? profilesD2.get(currentComparison.getEntityId2()) : profilesD1.get(currentComparison.getEntityId2());
+                final long pair = iterator.nextPair();
+                final int entityId1 = IComparisonStream.getEntityId1(pair);
+                final int entityId2 = IComparisonStream.getEntityId2(pair);
+                final EntityProfile profile1 = profilesD1.get(entityId1);
+                final EntityProfile profile2 = isCleanCleanER ? profilesD2.get(entityId2) : profilesD1.get(entityId2);
 
                 final int originalDuplicates = abstractDP.getNoOfDuplicates();
-                abstractDP.isSuperfluous(currentComparison.getEntityId1(), currentComparison.getEntityId2());
+                abstractDP.isSuperfluous(entityId1, entityId2);
                 final int newDuplicates = abstractDP.getNoOfDuplicates();
 
                 System.out.print(profile1.getEntityUrl() + ",");
@@ -304,7 +315,7 @@ public class BlocksPerformance {
         StringBuilder sb = new StringBuilder();
 
         List<AbstractBlock> blocksToUse = blocks;
-        if (!(blocks.get(0) instanceof DecomposedBlock)) {
+        if (!isDecomposed()) {
             final ComparisonPropagation cp = new ComparisonPropagation();
             blocksToUse = cp.refineBlocks(blocks);
         }
@@ -313,8 +324,8 @@ public class BlocksPerformance {
         for (AbstractBlock block : blocksToUse) {
             final ComparisonIterator iterator = block.getComparisonIterator();
             while (iterator.hasNext()) {
-                final Comparison comp = iterator.next();
-                abstractDP.isSuperfluous(comp.getEntityId1(), comp.getEntityId2());
+                final long pair = iterator.nextPair();
+                abstractDP.isSuperfluous(IComparisonStream.getEntityId1(pair), IComparisonStream.getEntityId2(pair));
             }
         }
 
@@ -355,7 +366,7 @@ public class BlocksPerformance {
             System.out.println("iBC_1\t:\t" + d1BlockAssignments / noOfD1Entities);
             System.out.println("iBC_2\t:\t" + d2BlockAssignments / noOfD2Entities);
             System.out.println("oBC\t:\t" + ((d1BlockAssignments + d2BlockAssignments) / (noOfD1Entities + noOfD2Entities)));
-        } else if (blocks.get(0) instanceof DecomposedBlock) {
+        } else if (isDecomposed()) {
             if (isCleanCleanER) {
                 System.out.println("Entities in blocks\t:\t" + (noOfD1Entities + noOfD2Entities));
             } else {
@@ -394,7 +405,7 @@ public class BlocksPerformance {
 
         setType();
         setComparisonsCardinality();
-        if (blocks.get(0) instanceof DecomposedBlock) {
+        if (isDecomposed()) {
             getDecomposedBlocksEntities();
         } else {
             entityIndex = new GroundTruthIndex(blocks, abstractDP.getDuplicates());
@@ -403,7 +414,7 @@ public class BlocksPerformance {
         if (blocks.get(0) instanceof BilateralBlock) {
             getBilateralBlockingCardinality();
         }
-        if (blocks.get(0) instanceof DecomposedBlock) {
+        if (isDecomposed()) {
             getDuplicatesOfDecomposedBlocks();
         } else {
             getDuplicatesWithEntityIndex();
@@ -416,6 +427,8 @@ public class BlocksPerformance {
         } else if (blocks.get(0) instanceof DecomposedBlock) {
             DecomposedBlock deBlock = (DecomposedBlock) blocks.get(0);
             isCleanCleanER = deBlock.isCleanCleanER();
+        } else if (blocks.get(0) instanceof PrunedBlockingGraph) {
+            isCleanCleanER = ((PrunedBlockingGraph) blocks.get(0)).isCleanCleanER();
         } else if (blocks.get(0) instanceof UnilateralBlock) {
             isCleanCleanER = false;
         }
@@ -0,0 +1,88 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Splits a range of ids [0, noOfIds) into contiguous partitions and processes
+ * every partition on a separate thread. The partial results are returned in
+ * the order of the partitions, so that merging them sequentially yields the
+ * same outcome as a single pass over the entire range.
+ *
+ * @author gap2
+ */
+public class ParallelRangeExecutor {
+
+    public interface RangeTask<T> {
+
+        T process(int partitionId, int startId, int endId);
+    }
+
+    public static int getDefaultNoOfThreads() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    public static <T> List<T> execute(int noOfThreads, int noOfIds, RangeTask<T> task) {
+        return execute(noOfThreads, noOfThreads, noOfIds, task);
+    }
+
+    public static <T> List<T> execute(int noOfThreads, int noOfPartitions, int noOfIds, RangeTask<T> task) {
+        final int partitions = Math.max(1, Math.min(noOfPartitions, noOfIds));
+        final List<T> results = new ArrayList<>(partitions);
+        if (noOfThreads <= 1 || partitions == 1) {
+            for (int i = 0; i < partitions; i++) {
+                results.add(task.process(i, getStartId(i, partitions, noOfIds), getStartId(i + 1, partitions, noOfIds)));
+            }
+            return results;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(noOfThreads, partitions));
+        try {
+            final List<Future<T>> futures = new ArrayList<>(partitions);
+            for (int i = 0; i < partitions; i++) {
+                final int partitionId = i;
+                final int startId = getStartId(i, partitions, noOfIds);
+                final int endId = getStartId(i + 1, partitions, noOfIds);
+                futures.add(executor.submit(() -> task.process(partitionId, startId, endId)));
+            }
+
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Parallel execution was interrupted!", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException("Parallel execution failed!", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    private static int getStartId(int partitionId, int noOfPartitions, int noOfIds) {
+        return (int) ((long) partitionId * noOfIds / noOfPartitions);
+    }
+}
@@ -0,0 +1,320 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.utilities.datastructures;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.DecomposedBlock;
+import org.scify.jedai.datamodel.IComparisonStream;
+import org.scify.jedai.datamodel.PrunedBlockingGraph;
+import org.scify.jedai.utilities.IConstants;
+
+/**
+ * A binary heap of comparisons stored in primitive arrays: the entity ids and
+ * the weight of every comparison occupy the same position in three parallel
+ * arrays. Comparison objects are created only when they are emitted.
+ *
+ * The comparisons are either appended in arbitrary order and then heapified
+ * in linear time, or retained in a bounded min-heap that keeps the top ones
+ * seen so far. As an iterator, it emits them lazily in decreasing weight:
+ * the first comparison is available right after heapifying, while the rest
+ * are ordered only if they are requested. As a comparison stream, it emits
+ * them in the same order without creating any objects.
+ *
+ * @author gap2
+ */
+public class ComparisonHeap implements IComparisonStream, IConstants, Iterator<Comparison> {
+
+    private final boolean cleanCleanER;
+    private boolean maxHeap;
+
+    private float lastWeight;
+    private int size;
+    private int[] entityIds1;
+    private int[] entityIds2;
+    private float[] weights;
+
+    public ComparisonHeap(boolean ccER, int capacity) {
+        cleanCleanER = ccER;
+        maxHeap = true;
+
+        size = 0;
+        final int initialCapacity = Math.max(1, capacity);
+        entityIds1 = new int[initialCapacity];
+        entityIds2 = new int[initialCapacity];
+        weights = new float[initialCapacity];
+    }
+
+    /**
+     * Adds the given comparison, restoring the heap order.
+     *
+     * @param entityId1 the id of the first entity
+     * @param entityId2 the id of the second entity
+     * @param weight the matching likelihood of the comparison
+     */
+    public void add(int entityId1, int entityId2, float weight) {
+        append(entityId1, entityId2, weight);
+        siftUp(size - 1);
+    }
+
+    /**
+     * Adds the given comparison without restoring the heap order; heapify has
+     * to be called before emitting any comparison.
+     *
+     * @param entityId1 the id of the first entity
+     * @param entityId2 the id of the second entity
+     * @param weight the matching likelihood of the comparison
+     */
+    public void append(int entityId1, int entityId2, float weight) {
+        if (size == weights.length) {
+            final int newCapacity = 2 * size;
+            entityIds1 = Arrays.copyOf(entityIds1, newCapacity);
+            entityIds2 = Arrays.copyOf(entityIds2, newCapacity);
+            weights = Arrays.copyOf(weights, newCapacity);
+        }
+
+        entityIds1[size] = entityId1;
+        entityIds2[size] = entityId2;
+        weights[size] = weight;
+        size++;
+    }
+
+    /**
+     * Appends all comparisons of the given block, reading their entity ids and
+     * weights directly from its arrays.
+     *
+     * @param block the block whose comparisons are appended
+     */
+    public void appendAll(DecomposedBlock block) {
+        offerAll(block, -1);
+    }
+
+    /**
+     * Appends all comparisons of the given pruned blocking graph, reading
+     * their entity ids and weights directly from its arrays.
+     *
+     * @param graph the graph whose comparisons are appended
+     */
+    public void appendAll(PrunedBlockingGraph graph) {
+        offerAll(graph, -1);
+    }
+
+    /**
+     * Retains the given comparison if it is among the top ones seen so far,
+     * i.e., if the heap holds less than the given number of comparisons or if
+     * its weight exceeds the minimum one in the heap. It requires a min-heap.
+     *
+     * @param entityId1 the id of the first entity
+     * @param entityId2 the id of the second entity
+     * @param weight the matching likelihood of the comparison
+     * @param maxSize the maximum number of retained comparisons
+     */
+    public void offer(int entityId1, int entityId2, float weight, int maxSize) {
+        if (size < maxSize) {
+            add(entityId1, entityId2, weight);
+        } else if (0 < size && weights[0] < weight) {
+            entityIds1[0] = entityId1;
+            entityIds2[0] = entityId2;
+            weights[0] = weight;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Offers all comparisons of the given block, reading their entity ids and
+     * weights directly from its arrays. It requires a min-heap, unless maxSize
+     * is negative, in which case all comparisons are appended.
+     *
+     * @param block the block whose comparisons are offered
+     * @param maxSize the maximum number of retained comparisons
+     */
+    public void offerAll(DecomposedBlock block, int maxSize) {
+        final int[] blockEntities1 = block.getEntities1();
+        final int[] blockEntities2 = block.getEntities2();
+        final int[] blockWeights = block.getWeights();
+        for (int i = 0; i < blockEntities1.length; i++) {
+            offerStoredComparison(blockEntities1[i], blockEntities2[i], blockWeights[i], maxSize);
+        }
+    }
+
+    /**
+     * Offers all comparisons of the given pruned blocking graph, scanning its
+     * rows sequentially. It requires a min-heap, unless maxSize is negative,
+     * in which case all comparisons are appended.
+     *
+     * @param graph the graph whose comparisons are offered
+     * @param maxSize the maximum number of retained comparisons
+     */
+    public void offerAll(PrunedBlockingGraph graph, int maxSize) {
+        final int[] graphWeights = graph.getWeights();
+        for (int row = 0; row < graph.getNoOfRows(); row++) {
+            for (int i = graph.getRowStart(row); i < graph.getRowEnd(row); i++) {
+                final long pair = graph.getPair(row, i);
+                offerStoredComparison(IComparisonStream.getEntityId1(pair), IComparisonStream.getEntityId2(pair), graphWeights[i], maxSize);
+            }
+        }
+    }
+
+    // orders the ids of a Dirty ER comparison and restores its discretized weight
+    private void offerStoredComparison(int entityId1, int entityId2, int discretizedWeight, int maxSize) {
+        if (!cleanCleanER) {
+            if (entityId1 == entityId2) {
+                return;
+            }
+
+            if (entityId2 < entityId1) {
+                final int temp = entityId1;
+                entityId1 = entityId2;
+                entityId2 = temp;
+            }
+        }
+
+        final float weight = ((float) discretizedWeight) / DISCRETIZATION_FACTOR;
+        if (maxSize < 0) {
+            append(entityId1, entityId2, weight);
+        } else {
+            offer(entityId1, entityId2, weight, maxSize);
+        }
+    }
+
+    public long getPair(int position) {
+        return IComparisonStream.pack(entityIds1[position], entityIds2[position]);
+    }
+
+    @Override
+    public float getWeight() {
+        return lastWeight;
+    }
+
+    public float getWeight(int position) {
+        return weights[position];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Restores the heap order in linear time, turning it into a max-heap, so
+     * that the comparisons are emitted in decreasing weight.
+     */
+    public void heapify() {
+        maxHeap = true;
+        for (int i = size / 2 - 1; 0 <= i; i--) {
+            siftDown(i);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return 0 < size;
+    }
+
+    @Override
+    public Comparison next() {
+        final long pair = nextPair();
+        final Comparison comparison = new Comparison(cleanCleanER, IComparisonStream.getEntityId1(pair), IComparisonStream.getEntityId2(pair));
+        comparison.setUtilityMeasure(lastWeight);
+        return comparison;
+    }
+
+    @Override
+    public long nextPair() {
+        if (size == 0) {
+            throw new NoSuchElementException("No comparison is left in the heap!");
+        }
+
+        final long pair = getPair(0);
+        lastWeight = weights[0];
+
+        size--;
+        if (0 < size) {
+            move(size, 0);
+            siftDown(0);
+        }
+        return pair;
+    }
+
+    public float peekWeight() {
+        return weights[0];
+    }
+
+    /**
+     * Turns the heap into a min-heap, so that offer retains the comparisons
+     * of highest weight.
+     */
+    public void setMinHeap() {
+        maxHeap = false;
+        for (int i = size / 2 - 1; 0 <= i; i--) {
+            siftDown(i);
+        }
+    }
+
+    private boolean isAbove(int position1, int position2) {
+        return maxHeap ? weights[position2] < weights[position1] : weights[position1] < weights[position2];
+    }
+
+    private void move(int source, int target) {
+        entityIds1[target] = entityIds1[source];
+        entityIds2[target] = entityIds2[source];
+        weights[target] = weights[source];
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int top = position;
+            final int left = 2 * position + 1;
+            if (left < size && isAbove(left, top)) {
+                top = left;
+            }
+            if (left + 1 < size && isAbove(left + 1, top)) {
+                top = left + 1;
+            }
+            if (top == position) {
+                return;
+            }
+            swap(position, top);
+            position = top;
+        }
+    }
+
+    private void siftUp(int position) {
+        while (0 < position) {
+            final int parent = (position - 1) / 2;
+            if (!isAbove(position, parent)) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void swap(int position1, int position2) {
+        final int id1 = entityIds1[position1];
+        final int id2 = entityIds2[position1];
+        final float weight = weights[position1];
+        move(position2, position1);
+        entityIds1[position2] = id1;
+        entityIds2[position2] = id2;
+        weights[position2] = weight;
+    }
+}
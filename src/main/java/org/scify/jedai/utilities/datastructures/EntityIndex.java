@@ -18,6 +18,7 @@ package org.scify.jedai.utilities.datastructures;
 import org.scify.jedai.datamodel.AbstractBlock;
 import org.scify.jedai.datamodel.BilateralBlock;
 import org.scify.jedai.datamodel.DecomposedBlock;
+import org.scify.jedai.datamodel.PrunedBlockingGraph;
 import org.scify.jedai.datamodel.UnilateralBlock;
 import java.io.Serializable;
 import java.util.List;
@@ -49,7 +50,7 @@ public class EntityIndex implements Serializable {
             return;
         }
 
-        if (blocks.get(0) instanceof DecomposedBlock) {
+        if (blocks.get(0) instanceof DecomposedBlock || blocks.get(0) instanceof PrunedBlockingGraph) {
             System.err.println("The entity index is incompatible with a set of decomposed blocks!");
             System.err.println("Its functionalities can be carried out with same efficiency through a linear search of all comparisons!");
             return;
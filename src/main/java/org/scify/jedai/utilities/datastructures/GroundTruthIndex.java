@@ -19,6 +19,7 @@ import org.scify.jedai.datamodel.AbstractBlock;
 import org.scify.jedai.datamodel.BilateralBlock;
 import org.scify.jedai.datamodel.Comparison;
 import org.scify.jedai.datamodel.DecomposedBlock;
+import org.scify.jedai.datamodel.PrunedBlockingGraph;
 import org.scify.jedai.datamodel.IdDuplicates;
 import org.scify.jedai.datamodel.UnilateralBlock;
 
@@ -47,7 +48,7 @@ public class GroundTruthIndex {
             return;
         }
 
-        if (blocks.get(0) instanceof DecomposedBlock) {
+        if (blocks.get(0) instanceof DecomposedBlock || blocks.get(0) instanceof PrunedBlockingGraph) {
             System.err.println("The entity index is incompatible with a set of decomposed blocks!");
             System.err.println("Its functionalities can be carried out with same efficiency through a linear search of all comparisons!");
             return;
@@ -0,0 +1,165 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.utilities.datastructures;
+
+/**
+ * A square matrix of floats in Compressed Sparse Column (CSC) format: the
+ * non-zero cells of column j are stored in the positions [columnStarts[j],
+ * columnStarts[j+1]) of rowIds and values, in increasing row id.
+ *
+ * @author gap2
+ */
+public class SparseMatrix {
+
+    private final int noOfColumns;
+    private final int[] columnStarts;
+    private final int[] rowIds;
+    private final float[] values;
+
+    public SparseMatrix(int noOfColumns, int[] columnStarts, int[] rowIds, float[] values) {
+        this.noOfColumns = noOfColumns;
+        this.columnStarts = columnStarts;
+        this.rowIds = rowIds;
+        this.values = values;
+    }
+
+    public int getColumnEnd(int columnId) {
+        return columnStarts[columnId + 1];
+    }
+
+    public int getColumnStart(int columnId) {
+        return columnStarts[columnId];
+    }
+
+    public int getNoOfColumns() {
+        return noOfColumns;
+    }
+
+    public int getNoOfNonZeros() {
+        return columnStarts[noOfColumns];
+    }
+
+    public int[] getRowIds() {
+        return rowIds;
+    }
+
+    public float[] getValues() {
+        return values;
+    }
+
+    /**
+     * Raises every cell to the given power (Hadamard power).
+     *
+     * @param power the exponent of every cell
+     */
+    public void hadamard(int power) {
+        for (int i = 0; i < getNoOfNonZeros(); i++) {
+            values[i] = (float) Math.pow(values[i], power);
+        }
+    }
+
+    /**
+     * Checks whether every cell of the given matrix differs from the
+     * corresponding cell of this matrix by at most the given tolerance.
+     * Cells missing from a matrix are considered equal to 0.
+     *
+     * @param other the matrix to be compared with this one
+     * @param tolerance the maximum absolute difference between two cells
+     * @return true if the two matrices are similar, false otherwise
+     */
+    public boolean isSimilar(SparseMatrix other, float tolerance) {
+        if (noOfColumns != other.getNoOfColumns()) {
+            return false;
+        }
+
+        final int[] otherRowIds = other.getRowIds();
+        final float[] otherValues = other.getValues();
+        for (int j = 0; j < noOfColumns; j++) {
+            int i1 = columnStarts[j];
+            int i2 = other.getColumnStart(j);
+            int end1 = columnStarts[j + 1];
+            int end2 = other.getColumnEnd(j);
+            while (i1 < end1 || i2 < end2) {
+                float difference;
+                if (i2 == end2 || (i1 < end1 && rowIds[i1] < otherRowIds[i2])) {
+                    difference = values[i1++];
+                } else if (i1 == end1 || otherRowIds[i2] < rowIds[i1]) {
+                    difference = otherValues[i2++];
+                } else {
+                    difference = values[i1++] - otherValues[i2++];
+                }
+
+                if (tolerance < Math.abs(difference)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Divides every cell by the sum of its column, so that all non-empty
+     * columns sum up to 1.
+     */
+    public void normalizeColumns() {
+        for (int j = 0; j < noOfColumns; j++) {
+            float sumCol = 0.0f;
+            for (int i = columnStarts[j]; i < columnStarts[j + 1]; i++) {
+                sumCol += values[i];
+            }
+
+            for (int i = columnStarts[j]; i < columnStarts[j + 1]; i++) {
+                values[i] /= sumCol;
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of this matrix without the cells whose value is lower than
+     * the given threshold.
+     *
+     * @param minValue the minimum value of a retained cell
+     * @return the pruned matrix, or this matrix if no cell is pruned
+     */
+    public SparseMatrix prune(float minValue) {
+        int retainedCells = 0;
+        for (int i = 0; i < getNoOfNonZeros(); i++) {
+            if (!(values[i] < minValue)) {
+                retainedCells++;
+            }
+        }
+
+        if (retainedCells == getNoOfNonZeros()) {
+            return this;
+        }
+
+        int index = 0;
+        final int[] newColumnStarts = new int[noOfColumns + 1];
+        final int[] newRowIds = new int[retainedCells];
+        final float[] newValues = new float[retainedCells];
+        for (int j = 0; j < noOfColumns; j++) {
+            newColumnStarts[j] = index;
+            for (int i = columnStarts[j]; i < columnStarts[j + 1]; i++) {
+                if (!(values[i] < minValue)) {
+                    newRowIds[index] = rowIds[i];
+                    newValues[index++] = values[i];
+                }
+            }
+        }
+        newColumnStarts[noOfColumns] = index;
+        return new SparseMatrix(noOfColumns, newColumnStarts, newRowIds, newValues);
+    }
+}
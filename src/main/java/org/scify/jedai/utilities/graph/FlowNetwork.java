@@ -0,0 +1,248 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.utilities.graph;
+
+import java.util.Arrays;
+
+/**
+ * An undirected flow network over the vertices [0, V), stored in primitive
+ * arrays: every undirected edge of capacity c corresponds to two opposite arcs
+ * of capacity c, which serve as the residual arcs of each other. The arcs of
+ * vertex v are stored in the positions [arcStarts[v], arcStarts[v+1]).
+ *
+ * The maximum flow between two vertices is computed with Dinic's algorithm,
+ * and the network can be reused for any number of source-sink pairs. Every
+ * computation is local: the level graph is explored only up to the level of
+ * the sink and only the vertices reached by it are reset afterwards, so that
+ * its cost depends on the neighborhood of the source rather than on the size
+ * of the network, whenever the sink is adjacent to most vertices.
+ *
+ * @author gap2
+ */
+public class FlowNetwork {
+
+    private final static double EPSILON = 1E-9;
+
+    private int noOfLabeled;
+    private int noOfTouched;
+    private int sink;
+
+    private final int noOfVertices;
+    private final int[] arcStarts;
+    private final int[] arcTargets;
+    private final int[] reverseArcs;
+    private final double[] capacities;
+    private final double[] flows;
+
+    // the state of the level graph, which is reused across phases
+    private final int[] currentArcs;
+    private final int[] levels;
+    private final int[] path;
+    private final int[] queue;
+
+    // the vertices reached by the current flow, which carry all of its non-zero arcs
+    private final boolean[] isTouched;
+    private final int[] touchedVertices;
+
+    /**
+     * @param V the number of vertices
+     * @param vertices1 the first vertex of every edge
+     * @param vertices2 the second vertex of every edge
+     * @param edgeCapacities the capacity of every edge
+     * @param noOfEdges the number of edges, i.e., the used length of the above arrays
+     */
+    public FlowNetwork(int V, int[] vertices1, int[] vertices2, double[] edgeCapacities, int noOfEdges) {
+        noOfVertices = V;
+        arcStarts = new int[V + 1];
+        for (int i = 0; i < noOfEdges; i++) {
+            arcStarts[vertices1[i] + 1]++;
+            arcStarts[vertices2[i] + 1]++;
+        }
+        for (int v = 0; v < V; v++) {
+            arcStarts[v + 1] += arcStarts[v];
+        }
+
+        final int noOfArcs = 2 * noOfEdges;
+        arcTargets = new int[noOfArcs];
+        reverseArcs = new int[noOfArcs];
+        capacities = new double[noOfArcs];
+        flows = new double[noOfArcs];
+        final int[] nextArc = Arrays.copyOf(arcStarts, V);
+        for (int i = 0; i < noOfEdges; i++) {
+            int arc1 = nextArc[vertices1[i]]++;
+            int arc2 = nextArc[vertices2[i]]++;
+            arcTargets[arc1] = vertices2[i];
+            arcTargets[arc2] = vertices1[i];
+            reverseArcs[arc1] = arc2;
+            reverseArcs[arc2] = arc1;
+            capacities[arc1] = edgeCapacities[i];
+            capacities[arc2] = edgeCapacities[i];
+        }
+
+        currentArcs = new int[V];
+        levels = new int[V];
+        Arrays.fill(levels, -1);
+        path = new int[V];
+        queue = new int[V];
+        isTouched = new boolean[V];
+        touchedVertices = new int[V];
+        noOfLabeled = 0;
+        noOfTouched = 0;
+        sink = -1;
+    }
+
+    // labels every vertex with its distance from the source in the residual network,
+    // without expanding the vertices that are as far from the source as the sink
+    private boolean buildLevelGraph(int source) {
+        for (int i = 0; i < noOfLabeled; i++) {
+            levels[queue[i]] = -1;
+        }
+
+        levels[source] = 0;
+        queue[0] = source;
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            final int v = queue[head++];
+            if (0 <= levels[sink] && levels[sink] <= levels[v]) {
+                break;
+            }
+
+            for (int arc = arcStarts[v]; arc < arcStarts[v + 1]; arc++) {
+                final int w = arcTargets[arc];
+                if (levels[w] < 0 && EPSILON < capacities[arc] - flows[arc]) {
+                    levels[w] = levels[v] + 1;
+                    queue[tail++] = w;
+                }
+            }
+        }
+
+        noOfLabeled = tail;
+        for (int i = 0; i < tail; i++) {
+            final int v = queue[i];
+            currentArcs[v] = arcStarts[v];
+            if (!isTouched[v]) {
+                isTouched[v] = true;
+                touchedVertices[noOfTouched++] = v;
+            }
+        }
+        return 0 <= levels[sink];
+    }
+
+    /**
+     * Computes the maximum flow from the source to the sink, discarding the
+     * flow of any previous computation.
+     *
+     * @param source the source vertex
+     * @param sink the sink vertex
+     * @return the value of the maximum flow, i.e., the weight of the minimum cut
+     */
+    public double getMaxFlow(int source, int sink) {
+        resetFlows();
+        this.sink = sink;
+
+        double maxFlow = 0;
+        while (buildLevelGraph(source)) {
+            double pathFlow;
+            while (EPSILON < (pathFlow = pushFlow(source))) {
+                maxFlow += pathFlow;
+            }
+        }
+        return maxFlow;
+    }
+
+    /**
+     * Returns the source side of the minimum cut that was found by the last
+     * call to getMaxFlow. Among all minimum cuts, it returns the one with the
+     * smallest source side, i.e., all vertices that can be reached from the
+     * source in the residual network. These are the vertices labeled by the
+     * last level graph, which did not reach the sink.
+     *
+     * @param sourceSide the array that receives the vertices of the source side
+     * @return the number of vertices in the source side
+     */
+    public int getMinimalSourceSide(int[] sourceSide) {
+        System.arraycopy(queue, 0, sourceSide, 0, noOfLabeled);
+        return noOfLabeled;
+    }
+
+    public int getNoOfVertices() {
+        return noOfVertices;
+    }
+
+    // sends flow along an augmenting path of the level graph through depth-first search, which keeps the
+    // current path in an explicit stack, as it may contain as many vertices as the network
+    private double pushFlow(int source) {
+        int depth = 0;
+        path[0] = source;
+        while (true) {
+            final int v = path[depth];
+            if (v == sink) {
+                double flow = Double.MAX_VALUE;
+                for (int i = 0; i < depth; i++) {
+                    final int arc = currentArcs[path[i]];
+                    flow = Math.min(flow, capacities[arc] - flows[arc]);
+                }
+                for (int i = 0; i < depth; i++) {
+                    final int arc = currentArcs[path[i]];
+                    flows[arc] += flow;
+                    flows[reverseArcs[arc]] -= flow;
+                }
+                return flow;
+            }
+
+            // advance along the current arc of v, if it is admissible
+            for (; currentArcs[v] < arcStarts[v + 1]; currentArcs[v]++) {
+                final int arc = currentArcs[v];
+                final int w = arcTargets[arc];
+                if (levels[w] == levels[v] + 1 && (w == sink || levels[w] < levels[sink]) && EPSILON < capacities[arc] - flows[arc]) {
+                    path[++depth] = w;
+                    break;
+                }
+            }
+
+            // otherwise, v is a dead end and the arc that leads to it is skipped
+            if (path[depth] == v) {
+                if (depth == 0) {
+                    return 0;
+                }
+                currentArcs[path[--depth]]++;
+            }
+        }
+    }
+
+    // all arcs with non-zero flow start or end at a touched vertex other than the sink
+    private void resetFlows() {
+        for (int i = 0; i < noOfLabeled; i++) {
+            levels[queue[i]] = -1;
+        }
+        noOfLabeled = 0;
+
+        for (int i = 0; i < noOfTouched; i++) {
+            final int v = touchedVertices[i];
+            isTouched[v] = false;
+            if (v == sink) {
+                continue;
+            }
+
+            for (int arc = arcStarts[v]; arc < arcStarts[v + 1]; arc++) {
+                flows[arc] = 0;
+                flows[reverseArcs[arc]] = 0;
+            }
+        }
+        noOfTouched = 0;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.utilities.graph;
+
+import java.util.Arrays;
+
+/**
+ * Solves the assignment problem on a sparse bipartite graph, i.e., it finds
+ * the matching of maximum total weight between its rows and columns. The
+ * edges of row i are stored in the positions [rowStarts[i], rowStarts[i+1])
+ * of columnIds and weights, and only positive weights are considered.
+ *
+ * It implements the Hungarian method with successive shortest paths: the rows
+ * are inserted one at a time and each one is matched through the shortest
+ * augmenting path, which is found by Dijkstra's algorithm on the reduced costs
+ * of the edges. Every row is also connected with a private dummy column of
+ * zero weight, which denotes that it remains unmatched; thus, an augmenting
+ * path always exists and the matching need not be perfect. Unlike the dense
+ * formulation, it requires space linear in the number of edges and time
+ * O(R * E * log(C)) in the worst case, where R, E and C are the numbers of
+ * rows, edges and columns, respectively.
+ *
+ * @author gap2
+ */
+public class SparseAssignment {
+
+    private final int noOfColumns;
+    private final int noOfRows;
+    private final int[] columnIds;
+    private final int[] rowStarts;
+    private final float[] weights;
+
+    // the state of Dijkstra's algorithm, which is reset after every row
+    private int heapSize;
+    private int[] heap;
+    private int[] heapPosition;
+    private double[] distance;
+    private int[] predecessor;
+    private int[] scannedColumns;
+    private int noOfScannedColumns;
+
+    public SparseAssignment(int noOfRows, int noOfColumns, int[] rowStarts, int[] columnIds, float[] weights) {
+        this.noOfColumns = noOfColumns;
+        this.noOfRows = noOfRows;
+        this.columnIds = columnIds;
+        this.rowStarts = rowStarts;
+        this.weights = weights;
+    }
+
+    private void decreaseKey(int column, double newDistance, int row) {
+        distance[column] = newDistance;
+        predecessor[column] = row;
+        if (heapPosition[column] < 0) {
+            heap[heapSize] = column;
+            heapPosition[column] = heapSize;
+            heapSize++;
+        }
+        siftUp(heapPosition[column]);
+    }
+
+    private int pollMin() {
+        final int column = heap[0];
+        heapPosition[column] = -2; // scanned
+        heapSize--;
+        if (0 < heapSize) {
+            heap[0] = heap[heapSize];
+            heapPosition[heap[0]] = 0;
+            siftDown(0);
+        }
+        return column;
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int top = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < heapSize && distance[heap[left]] < distance[heap[top]]) {
+                top = left;
+            }
+            if (right < heapSize && distance[heap[right]] < distance[heap[top]]) {
+                top = right;
+            }
+            if (top == position) {
+                return;
+            }
+            swap(position, top);
+            position = top;
+        }
+    }
+
+    private void siftUp(int position) {
+        while (0 < position) {
+            int parent = (position - 1) / 2;
+            if (!(distance[heap[position]] < distance[heap[parent]])) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    /**
+     * Computes the maximum weight matching.
+     *
+     * @return the column matched with every row, or -1 if the row is unmatched
+     */
+    public int[] solve() {
+        // columns [noOfColumns, noOfColumns + noOfRows) are the dummy ones
+        final int totalColumns = noOfColumns + noOfRows;
+        final int[] rowOfColumn = new int[totalColumns];
+        Arrays.fill(rowOfColumn, -1);
+        final int[] columnOfRow = new int[noOfRows];
+
+        // the costs are the negated weights and the reduced costs, cost(i, j) -
+        // rowPotential[i] - columnPotential[j], are kept non-negative; the free
+        // columns retain a zero potential, so that the reduced length of an
+        // augmenting path differs from its actual cost by the same constant
+        final double[] rowPotential = new double[noOfRows];
+        final double[] columnPotential = new double[totalColumns];
+        for (int row = 0; row < noOfRows; row++) {
+            for (int i = rowStarts[row]; i < rowStarts[row + 1]; i++) {
+                rowPotential[row] = Math.min(rowPotential[row], -weights[i]);
+            }
+        }
+
+        heap = new int[totalColumns];
+        heapPosition = new int[totalColumns];
+        Arrays.fill(heapPosition, -1);
+        distance = new double[totalColumns];
+        predecessor = new int[totalColumns];
+        scannedColumns = new int[totalColumns];
+        for (int row = 0; row < noOfRows; row++) {
+            final int freeColumn = findShortestPath(row, rowOfColumn, rowPotential, columnPotential);
+            final double pathLength = distance[freeColumn];
+
+            // updates the potentials, so that the path consists of tight edges
+            rowPotential[row] += pathLength;
+            for (int i = 0; i < noOfScannedColumns; i++) {
+                final int column = scannedColumns[i];
+                if (column != freeColumn) {
+                    columnPotential[column] += distance[column] - pathLength;
+                    rowPotential[rowOfColumn[column]] -= distance[column] - pathLength;
+                }
+            }
+
+            // augments the matching along the path
+            int column = freeColumn;
+            while (true) {
+                final int pathRow = predecessor[column];
+                final int previousColumn = pathRow == row ? -1 : columnOfRow[pathRow];
+                rowOfColumn[column] = pathRow;
+                columnOfRow[pathRow] = column;
+                if (previousColumn < 0) {
+                    break;
+                }
+                column = previousColumn;
+            }
+
+            // resets the state of Dijkstra's algorithm for the next row
+            for (int i = 0; i < noOfScannedColumns; i++) {
+                heapPosition[scannedColumns[i]] = -1;
+            }
+            for (int i = 0; i < heapSize; i++) {
+                heapPosition[heap[i]] = -1;
+            }
+            heapSize = 0;
+        }
+
+        for (int row = 0; row < noOfRows; row++) {
+            if (noOfColumns <= columnOfRow[row]) {
+                columnOfRow[row] = -1;
+            }
+        }
+        return columnOfRow;
+    }
+
+    // returns the free column at the end of the shortest augmenting path from the given row
+    private int findShortestPath(int row, int[] rowOfColumn, double[] rowPotential, double[] columnPotential) {
+        noOfScannedColumns = 0;
+        relaxEdges(row, 0, rowPotential, columnPotential);
+        while (true) {
+            final int column = pollMin();
+            scannedColumns[noOfScannedColumns++] = column;
+            if (rowOfColumn[column] < 0) {
+                return column;
+            }
+
+            // the matched edge is tight, so the row has the same distance as its column
+            relaxEdges(rowOfColumn[column], distance[column], rowPotential, columnPotential);
+        }
+    }
+
+    private void relaxEdges(int row, double rowDistance, double[] rowPotential, double[] columnPotential) {
+        for (int i = rowStarts[row]; i < rowStarts[row + 1]; i++) {
+            if (weights[i] <= 0) {
+                continue;
+            }
+
+            final int column = columnIds[i];
+            if (heapPosition[column] == -2) {
+                continue;
+            }
+
+            // rounding errors may yield slightly negative reduced costs
+            final double reducedCost = Math.max(0, -weights[i] - rowPotential[row] - columnPotential[column]);
+            if (heapPosition[column] < 0 || rowDistance + reducedCost < distance[column]) {
+                decreaseKey(column, rowDistance + reducedCost, row);
+            }
+        }
+
+        final int dummyColumn = noOfColumns + row;
+        if (heapPosition[dummyColumn] != -2) {
+            final double reducedCost = Math.max(0, -rowPotential[row] - columnPotential[dummyColumn]);
+            if (heapPosition[dummyColumn] < 0 || rowDistance + reducedCost < distance[dummyColumn]) {
+                decreaseKey(dummyColumn, rowDistance + reducedCost, row);
+            }
+        }
+    }
+
+    private void swap(int position1, int position2) {
+        final int column = heap[position1];
+        heap[position1] = heap[position2];
+        heap[position2] = column;
+        heapPosition[heap[position1]] = position1;
+        heapPosition[heap[position2]] = position2;
+    }
+}
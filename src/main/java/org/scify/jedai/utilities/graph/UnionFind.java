@@ -0,0 +1,96 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.utilities.graph;
+
+/**
+ * A disjoint-set forest over the vertices [0, V) with union by size and path
+ * halving, so that a sequence of unions and finds runs in almost linear time.
+ * Unlike ConnectedComponents, it requires no adjacency lists: the edges are
+ * merged one at a time, as they arrive.
+ *
+ * @author gap2
+ */
+public class UnionFind {
+
+    private int count;
+    private final int[] parent;
+    private final int[] size;
+
+    public UnionFind(int V) {
+        count = V;
+        parent = new int[V];
+        size = new int[V];
+        for (int v = 0; v < V; v++) {
+            parent[v] = v;
+            size[v] = 1;
+        }
+    }
+
+    /**
+     * @return the number of disjoint sets, including the singletons
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns the root of the set that contains the given vertex. Two vertices
+     * belong to the same set if and only if they have the same root.
+     *
+     * @param v the vertex
+     * @return the root of its set
+     */
+    public int find(int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    /**
+     * @param v the vertex
+     * @return the number of vertices in the set that contains the given vertex
+     */
+    public int size(int v) {
+        return size[find(v)];
+    }
+
+    /**
+     * Merges the sets of the given vertices.
+     *
+     * @param v one vertex
+     * @param w the other vertex
+     * @return true if the vertices belonged to different sets, false otherwise
+     */
+    public boolean union(int v, int w) {
+        int rootV = find(v);
+        int rootW = find(w);
+        if (rootV == rootW) {
+            return false;
+        }
+
+        if (size[rootV] < size[rootW]) {
+            final int temp = rootV;
+            rootV = rootW;
+            rootW = temp;
+        }
+        parent[rootW] = rootV;
+        size[rootV] += size[rootW];
+        count--;
+        return true;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.blockbuilding;
+
+import java.io.File;
+import java.util.List;
+import org.apache.log4j.BasicConfigurator;
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datareader.entityreader.EntitySerializationReader;
+import org.scify.jedai.datareader.entityreader.IEntityReader;
+import org.scify.jedai.utilities.ParallelRangeExecutor;
+import org.scify.jedai.utilities.enumerations.BlockBuildingMethod;
+
+/**
+ *
+ * @author gap2
+ */
+public class TestParallelBlockBuilding {
+
+    public static void main(String[] args) {
+        BasicConfigurator.configure();
+
+        String mainDirectory = "data" + File.separator + "dirtyErDatasets" + File.separator;
+        String[] datasets = {"abtBuy", "amazonGp", "census", "cora", "dblpAcm"};
+        for (String dataset : datasets) {
+            System.out.println("\n\n\n\nCurrent dataset\t:\t" + dataset);
+
+            IEntityReader eReader = new EntitySerializationReader(mainDirectory + dataset + "Profiles");
+            List<EntityProfile> profiles = eReader.getEntityProfiles();
+            System.out.println("Input Entity Profiles\t:\t" + profiles.size());
+
+            // the remaining methods involve randomness (shuffling or LSH functions)
+            BlockBuildingMethod[] methods = {BlockBuildingMethod.EXTENDED_Q_GRAMS_BLOCKING, BlockBuildingMethod.EXTENDED_SUFFIX_ARRAYS,
+                BlockBuildingMethod.Q_GRAMS_BLOCKING, BlockBuildingMethod.STANDARD_BLOCKING, BlockBuildingMethod.SUFFIX_ARRAYS};
+            for (BlockBuildingMethod blbuMethod : methods) {
+                System.out.println("\n\nCurrent blocking method\t:\t" + blbuMethod);
+
+                AbstractBlockBuilding sequentialMethod = (AbstractBlockBuilding) BlockBuildingMethod.getDefaultConfiguration(blbuMethod);
+                long time1 = System.currentTimeMillis();
+                List<AbstractBlock> sequentialBlocks = sequentialMethod.getBlocks(profiles);
+                long time2 = System.currentTimeMillis();
+
+                AbstractBlockBuilding parallelMethod = (AbstractBlockBuilding) BlockBuildingMethod.getDefaultConfiguration(blbuMethod);
+                parallelMethod.setNoOfThreads(ParallelRangeExecutor.getDefaultNoOfThreads());
+                long time3 = System.currentTimeMillis();
+                List<AbstractBlock> parallelBlocks = parallelMethod.getBlocks(profiles);
+                long time4 = System.currentTimeMillis();
+
+                System.out.println("Sequential time\t:\t" + (time2 - time1));
+                System.out.println("Parallel time\t:\t" + (time4 - time3));
+                System.out.println("Identical blocks\t:\t" + sequentialBlocks.equals(parallelBlocks));
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.blockprocessing.comparisoncleaning;
+
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.BilateralBlock;
+import org.scify.jedai.datamodel.ComparisonIterator;
+import org.scify.jedai.datamodel.PrunedBlockingGraph;
+import org.scify.jedai.datamodel.UnilateralBlock;
+import org.scify.jedai.utilities.enumerations.WeightingScheme;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Applies WEP, CNP, CEP and Comparison Propagation to random Dirty and
+ * Clean-Clean ER blocks with and without pruned blocking graph output, and
+ * checks that both forms yield the same comparisons with the same weights.
+ * It also checks that the pruned blocking graphs support a utility measure.
+ *
+ * @author gap2
+ */
+public class TestPrunedGraphOutput {
+
+    public static void main(String[] args) {
+        final Random random = new Random(42);
+        for (int iteration = 0; iteration < 60; iteration++) {
+            final boolean isCleanCleanER = iteration % 2 == 0;
+            final List<AbstractBlock> blocks = getRandomBlocks(random, 20 + random.nextInt(200), isCleanCleanER);
+            for (WeightingScheme scheme : WeightingScheme.values()) {
+                final String setting = (isCleanCleanER ? "Clean-Clean" : "Dirty") + " ER, iteration " + iteration + ", " + scheme;
+                check(setting, new WeightedEdgePruning(scheme), new WeightedEdgePruning(scheme), blocks);
+                check(setting, new CardinalityNodePruning(scheme), new CardinalityNodePruning(scheme), blocks);
+                check(setting, new CardinalityEdgePruning(scheme), new CardinalityEdgePruning(scheme), blocks);
+            }
+            check((isCleanCleanER ? "Clean-Clean" : "Dirty") + " ER, iteration " + iteration,
+                    new ComparisonPropagation(), new ComparisonPropagation(), blocks);
+        }
+        System.out.println("Pruned blocking graphs agree with decomposed blocks");
+    }
+
+    private static void check(String setting, AbstractComparisonCleaning decomposedCleaning, AbstractComparisonCleaning graphCleaning, List<AbstractBlock> blocks) {
+        graphCleaning.setPrunedGraphOutput(true);
+        final List<String> decomposedComparisons = getComparisons(decomposedCleaning.refineBlocks(blocks));
+        final List<AbstractBlock> graphs = graphCleaning.refineBlocks(blocks);
+        final List<String> graphComparisons = getComparisons(graphs);
+        if (!decomposedComparisons.equals(graphComparisons)) {
+            final TreeSet<String> missingComparisons = new TreeSet<>(decomposedComparisons);
+            missingComparisons.removeAll(graphComparisons);
+            final TreeSet<String> extraComparisons = new TreeSet<>(graphComparisons);
+            extraComparisons.removeAll(decomposedComparisons);
+            throw new IllegalStateException(decomposedCleaning.getMethodName() + " (" + setting + ") retains " + decomposedComparisons.size()
+                    + " comparisons, while its pruned graphs miss " + missingComparisons + " and add " + extraComparisons);
+        }
+
+        for (AbstractBlock graph : graphs) {
+            if (!(graph instanceof PrunedBlockingGraph)) {
+                throw new IllegalStateException(graphCleaning.getMethodName() + " (" + setting + ") returns a " + graph.getClass().getSimpleName());
+            }
+            graph.setUtilityMeasure();
+            if (graph.getUtilityMeasure() <= 0 || 1 < graph.getUtilityMeasure()) {
+                throw new IllegalStateException(graphCleaning.getMethodName() + " (" + setting + ") returns a graph with utility " + graph.getUtilityMeasure());
+            }
+        }
+    }
+
+    // the sorted comparisons of the given blocks along with their weights
+    private static List<String> getComparisons(List<AbstractBlock> blocks) {
+        final List<String> comparisons = new ArrayList<>();
+        for (AbstractBlock block : blocks) {
+            final ComparisonIterator iterator = block.getComparisonIterator();
+            while (iterator.hasNext()) {
+                final long pair = iterator.nextPair();
+                comparisons.add(pair + ":" + iterator.getWeight());
+            }
+        }
+        comparisons.sort(null);
+        return comparisons;
+    }
+
+    // overlapping blocks of random entities, so that many pairs co-occur in several blocks
+    private static List<AbstractBlock> getRandomBlocks(Random random, int noOfEntities, boolean isCleanCleanER) {
+        final List<AbstractBlock> blocks = new ArrayList<>();
+        final int noOfBlocks = noOfEntities / 2;
+        for (int i = 0; i < noOfBlocks; i++) {
+            if (isCleanCleanER) {
+                blocks.add(new BilateralBlock(getRandomEntities(random, noOfEntities, 1 + random.nextInt(6)),
+                        getRandomEntities(random, noOfEntities, 1 + random.nextInt(6))));
+            } else {
+                blocks.add(new UnilateralBlock(getRandomEntities(random, noOfEntities, 2 + random.nextInt(8))));
+            }
+        }
+        return blocks;
+    }
+
+    private static int[] getRandomEntities(Random random, int noOfEntities, int blockSize) {
+        // a small id range, so that the entities co-occur frequently
+        final int idRange = Math.max(blockSize, noOfEntities / 4);
+        final TreeSet<Integer> entityIds = new TreeSet<>();
+        while (entityIds.size() < blockSize) {
+            entityIds.add(random.nextInt(idRange));
+        }
+        return entityIds.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
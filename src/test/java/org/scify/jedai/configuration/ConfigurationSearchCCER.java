@@ -0,0 +1,112 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.configuration;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import org.apache.log4j.BasicConfigurator;
+import org.scify.jedai.blockbuilding.StandardBlocking;
+import org.scify.jedai.blockprocessing.blockcleaning.BlockFiltering;
+import org.scify.jedai.blockprocessing.blockcleaning.SizeBasedBlockPurging;
+import org.scify.jedai.blockprocessing.comparisoncleaning.CardinalityNodePruning;
+import org.scify.jedai.datamodel.AbstractBlock;
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datamodel.EquivalenceCluster;
+import org.scify.jedai.datamodel.IdDuplicates;
+import org.scify.jedai.datamodel.SimilarityPairs;
+import org.scify.jedai.datareader.entityreader.EntitySerializationReader;
+import org.scify.jedai.datareader.groundtruthreader.GtSerializationReader;
+import org.scify.jedai.entityclustering.UniqueMappingClustering;
+import org.scify.jedai.entitymatching.ProfileMatcher;
+import org.scify.jedai.utilities.ClustersPerformance;
+import org.scify.jedai.utilities.ParallelRangeExecutor;
+import org.scify.jedai.utilities.datastructures.AbstractDuplicatePropagation;
+import org.scify.jedai.utilities.datastructures.BilateralDuplicatePropagation;
+
+/**
+ *
+ * @author gap2
+ */
+public class ConfigurationSearchCCER {
+
+    // an empty block collection discards the current configuration
+    private static List<AbstractBlock> getNonEmptyBlocks(List<AbstractBlock> blocks) {
+        return blocks.isEmpty() ? null : blocks;
+    }
+
+    public static void main(String[] args) {
+        BasicConfigurator.configure();
+
+        final String mainDir = "data" + File.separator + "cleanCleanErDatasets" + File.separator;
+        final List<EntityProfile> profiles1 = new EntitySerializationReader(mainDir + "abtProfiles").getEntityProfiles();
+        final List<EntityProfile> profiles2 = new EntitySerializationReader(mainDir + "buyProfiles").getEntityProfiles();
+        final Set<IdDuplicates> duplicates = new GtSerializationReader(mainDir + "abtBuyIdDuplicates").getDuplicatePairs(null);
+
+        // the duplicate propagation is stateful, so every thread evaluates the clusters with its own copy
+        final ThreadLocal<AbstractDuplicatePropagation> duplicatePropagation = ThreadLocal.withInitial(() -> new BilateralDuplicatePropagation(duplicates));
+
+        // the budget corresponds to the same portion of both datasets, whose entity ids remain valid
+        final ConfigurationSearch<List<List<EntityProfile>>, EquivalenceCluster[]> search = new ConfigurationSearch<>(
+                budget -> Arrays.asList(profiles1.subList(0, (int) Math.ceil(budget * profiles1.size())),
+                        profiles2.subList(0, (int) Math.ceil(budget * profiles2.size()))),
+                clusters -> {
+                    final ClustersPerformance clp = new ClustersPerformance(clusters, duplicatePropagation.get());
+                    clp.setStatistics();
+                    return clp.getFMeasure();
+                });
+        search.addStage(new ConfigurationStage<StandardBlocking, List<List<EntityProfile>>, List<AbstractBlock>>(StandardBlocking::new,
+                (bb, profiles) -> getNonEmptyBlocks(bb.getBlocks(profiles.get(0), profiles.get(1)))));
+        search.addStage(new ConfigurationStage<SizeBasedBlockPurging, List<AbstractBlock>, List<AbstractBlock>>(SizeBasedBlockPurging::new,
+                (bp, blocks) -> getNonEmptyBlocks(bp.refineBlocks(blocks))));
+        search.addStage(new ConfigurationStage<BlockFiltering, List<AbstractBlock>, List<AbstractBlock>>(BlockFiltering::new,
+                (bp, blocks) -> getNonEmptyBlocks(bp.refineBlocks(blocks))));
+        search.addStage(new ConfigurationStage<CardinalityNodePruning, List<AbstractBlock>, List<AbstractBlock>>(CardinalityNodePruning::new,
+                (cc, blocks) -> getNonEmptyBlocks(cc.refineBlocks(blocks))));
+        search.addStage(new ConfigurationStage<ProfileMatcher, List<AbstractBlock>, SimilarityPairs>(() -> new ProfileMatcher(profiles1, profiles2),
+                (em, blocks) -> em.executeComparisons(blocks)));
+        search.addStage(new ConfigurationStage<UniqueMappingClustering, SimilarityPairs, EquivalenceCluster[]>(UniqueMappingClustering::new,
+                (ec, sims) -> ec.getDuplicates(sims)));
+        System.out.println("Grid configurations\t:\t" + search.getNumberOfGridConfigurations());
+
+        // the stages share their outputs across threads, so the result should not depend on their number
+        search.setPatience(50);
+        search.setNoOfThreads(1);
+        final ConfigurationResult sequentialResult = search.getBestRandomConfiguration(200, 7);
+        search.setNoOfThreads(ParallelRangeExecutor.getDefaultNoOfThreads());
+        final ConfigurationResult parallelResult = search.getBestRandomConfiguration(200, 7);
+        if (!Arrays.equals(sequentialResult.getConfigurationIds(), parallelResult.getConfigurationIds())
+                || sequentialResult.getScore() != parallelResult.getScore()
+                || sequentialResult.getNoOfEvaluations() != parallelResult.getNoOfEvaluations()
+                || !sequentialResult.getMethodConfigurations().equals(parallelResult.getMethodConfigurations())) {
+            throw new IllegalStateException("The search with " + search.getNoOfThreads() + " threads found "
+                    + Arrays.toString(parallelResult.getConfigurationIds()) + " with score " + parallelResult.getScore()
+                    + " instead of " + Arrays.toString(sequentialResult.getConfigurationIds()) + " with score " + sequentialResult.getScore());
+        }
+
+        search.setPatience(500);
+        final ConfigurationResult randomResult = search.getBestRandomConfiguration(5000, 42);
+        System.out.println("\n\nRandom search evaluations\t:\t" + randomResult.getNoOfEvaluations());
+        System.out.println("Best FMeasure\t:\t" + randomResult.getScore());
+        System.out.println(randomResult.getMethodConfigurations());
+
+        final ConfigurationResult halvingResult = search.getBestConfigurationBySuccessiveHalving(5000, 42, 0.1, 3);
+        System.out.println("\n\nSuccessive halving evaluations\t:\t" + halvingResult.getNoOfEvaluations());
+        System.out.println("Best FMeasure\t:\t" + halvingResult.getScore());
+        System.out.println(halvingResult.getMethodConfigurations());
+    }
+}
@@ -0,0 +1,64 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.scify.jedai.datareader;
+
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datareader.entityreader.EntityBinaryReader;
+import org.scify.jedai.datareader.entityreader.EntitySerializationReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ *
+ * @author gap2
+ */
+
+public class TestEntityBinaryReader {
+    public static void main(String[] args) throws IOException {
+        String entitiesFilePath = "data" + File.separator + "dirtyErDatasets" + File.separator + "coraProfiles";
+        File binaryFile = File.createTempFile("coraProfiles", ".bin");
+        String binaryFilePath = binaryFile.getPath();
+
+        long time1 = System.currentTimeMillis();
+        List<EntityProfile> profiles = new EntitySerializationReader(entitiesFilePath).getEntityProfiles();
+        long time2 = System.currentTimeMillis();
+        System.out.println("Serialized profiles\t:\t" + profiles.size() + "\t" + (time2 - time1) + " ms");
+
+        EntityBinaryReader.storeEntityProfiles(profiles, binaryFilePath);
+
+        long time3 = System.currentTimeMillis();
+        EntityBinaryReader binaryReader = new EntityBinaryReader(binaryFilePath);
+        List<EntityProfile> binaryProfiles = binaryReader.getEntityProfiles();
+        long time4 = System.currentTimeMillis();
+        System.out.println("Binary profiles\t:\t" + binaryProfiles.size() + "\t" + (time4 - time3) + " ms");
+
+        for (int i = 0; i < profiles.size(); i++) {
+            EntityProfile profile = binaryReader.getEntityProfile(i);
+            if (!profile.getEntityUrl().equals(profiles.get(i).getEntityUrl())
+                    || !profile.getAttributes().equals(profiles.get(i).getAttributes())) {
+                System.out.println("Different profile with id " + i);
+            }
+        }
+
+        // the file may still be memory-mapped by the reader on some platforms
+        if (!binaryFile.delete()) {
+            binaryFile.deleteOnExit();
+        }
+    }
+}
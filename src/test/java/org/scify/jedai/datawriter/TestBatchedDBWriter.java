@@ -0,0 +1,116 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.scify.jedai.datawriter;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes rows through a stub connection with and without background writing,
+ * and checks that all rows are committed in batches and that an unexpected
+ * error of the statement is reported by the writer instead of blocking it.
+ *
+ * @author gap2
+ */
+public class TestBatchedDBWriter {
+
+    private final static int BATCH_SIZE = 10;
+    private final static int NO_OF_ROWS = 1005;
+
+    public static void main(String[] args) throws Exception {
+        for (boolean backgroundWriting : new boolean[]{false, true}) {
+            final AtomicInteger committedRows = new AtomicInteger();
+            final BatchedDBWriter writer = new BatchedDBWriter(getConnection(committedRows, -1), "results", BATCH_SIZE, backgroundWriting);
+            for (int i = 0; i < NO_OF_ROWS; i++) {
+                writer.addRow("url" + i, "url" + i, "TP", "profile" + i, "profile" + i);
+            }
+            writer.close();
+            check(writer.getNoOfWrittenRows() == NO_OF_ROWS, "the writer reports " + writer.getNoOfWrittenRows() + " rows");
+            check(committedRows.get() == NO_OF_ROWS, committedRows.get() + " rows were committed");
+        }
+
+        // the statement fails with a runtime exception, which should stop the writer without blocking it
+        final AtomicReference<SQLException> reportedFailure = new AtomicReference<>();
+        final Thread failingWriter = new Thread(() -> {
+            try {
+                final BatchedDBWriter writer = new BatchedDBWriter(getConnection(new AtomicInteger(), 42), "results", BATCH_SIZE, true);
+                try {
+                    for (int i = 0; i < NO_OF_ROWS; i++) {
+                        writer.addRow("url" + i, "url" + i, "TP", "profile" + i, "profile" + i);
+                    }
+                } finally {
+                    writer.close();
+                }
+            } catch (SQLException ex) {
+                reportedFailure.set(ex);
+            }
+        });
+        failingWriter.setDaemon(true);
+        failingWriter.start();
+        failingWriter.join(30000);
+        check(!failingWriter.isAlive(), "the writer is blocked after the failure of its background thread");
+        check(reportedFailure.get() != null && reportedFailure.get().getCause() instanceof SQLException
+                && reportedFailure.get().getCause().getCause() instanceof IllegalArgumentException, "the failure was not reported");
+        System.out.println("Failure\t:\t" + reportedFailure.get().getMessage() + " (" + reportedFailure.get().getCause().getCause() + ")");
+        System.out.println("Batched db writer checks passed");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException("Check failed: " + message);
+        }
+    }
+
+    // a connection whose statement counts the committed rows and throws a runtime exception at the given row, if any
+    private static Connection getConnection(AtomicInteger committedRows, int failingRow) {
+        final AtomicInteger batchedRows = new AtomicInteger();
+        final AtomicInteger boundValues = new AtomicInteger();
+        final PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(TestBatchedDBWriter.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setString":
+                            if (boundValues.incrementAndGet() / 5 == failingRow) {
+                                throw new IllegalArgumentException("Invalid parameter index " + args[0]);
+                            }
+                            return null;
+                        case "addBatch":
+                            batchedRows.incrementAndGet();
+                            return null;
+                        case "executeBatch":
+                            return new int[batchedRows.get()];
+                        default:
+                            return null;
+                    }
+                });
+        return (Connection) Proxy.newProxyInstance(TestBatchedDBWriter.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "prepareStatement":
+                            return statement;
+                        case "commit":
+                            committedRows.addAndGet(batchedRows.getAndSet(0));
+                            return null;
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
@@ -0,0 +1,173 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.scify.jedai.datawriter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Posts triples to a local SPARQL endpoint stub, which throttles or fails
+ * some of the requests on their first attempt, and checks that every triple
+ * is received exactly once, in bounded requests, and that client errors are
+ * reported instead of being retried.
+ *
+ * @author gap2
+ */
+public class TestSparqlUpdateWriter {
+
+    private final static int CONCURRENT_REQUESTS = 4;
+    private final static int NO_OF_TRIPLES = 2050;
+    private final static int TRIPLES_PER_REQUEST = 100;
+
+    private final static Pattern TRIPLE = Pattern.compile("(<[^>]*>) (<[^>]*>) \"([^\"]*)\"\\.");
+
+    private final static AtomicInteger activeRequests = new AtomicInteger();
+    private final static AtomicInteger badRequests = new AtomicInteger();
+    private final static AtomicInteger maxActiveRequests = new AtomicInteger();
+    private final static AtomicInteger maxTriplesPerRequest = new AtomicInteger();
+    private final static AtomicInteger noOfRequests = new AtomicInteger();
+    private final static AtomicInteger noOfRetries = new AtomicInteger();
+    private final static Map<String, Integer> receivedTriples = new ConcurrentHashMap<>();
+    private final static Set<String> rejectedRequests = ConcurrentHashMap.newKeySet();
+
+    public static void main(String[] args) throws IOException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        final ExecutorService serverThreads = Executors.newFixedThreadPool(2 * CONCURRENT_REQUESTS);
+        server.setExecutor(serverThreads);
+        server.createContext("/sparql", TestSparqlUpdateWriter::handleUpdate);
+        server.createContext("/invalid", exchange -> {
+            badRequests.incrementAndGet();
+            readRequest(exchange);
+            respond(exchange, 400);
+        });
+        server.start();
+
+        try {
+            final String baseURL = "http://localhost:" + server.getAddress().getPort();
+
+            final SparqlUpdateWriter writer = new SparqlUpdateWriter(baseURL + "/sparql", "<http://jedai/test>", TRIPLES_PER_REQUEST, CONCURRENT_REQUESTS, 3);
+            for (int i = 0; i < NO_OF_TRIPLES; i++) {
+                writer.addTriple("<obj/record/" + i + ">", "<url1>", "http://entity/" + i);
+            }
+            writer.close();
+
+            System.out.println("Requests\t:\t" + noOfRequests.get() + " (" + noOfRetries.get() + " throttled or failed)");
+            System.out.println("Received triples\t:\t" + receivedTriples.size());
+            System.out.println("Max triples per request\t:\t" + maxTriplesPerRequest.get());
+            System.out.println("Max concurrent requests\t:\t" + maxActiveRequests.get());
+
+            check(writer.getNoOfTriples() == NO_OF_TRIPLES, "the writer reports " + writer.getNoOfTriples() + " triples");
+            check(receivedTriples.size() == NO_OF_TRIPLES, receivedTriples.size() + " distinct triples were received");
+            for (int i = 0; i < NO_OF_TRIPLES; i++) {
+                final Integer copies = receivedTriples.get("<obj/record/" + i + "> <url1> http://entity/" + i);
+                check(copies != null && copies == 1, "triple " + i + " was received " + copies + " times");
+            }
+            check(maxTriplesPerRequest.get() <= TRIPLES_PER_REQUEST, "a request carried " + maxTriplesPerRequest.get() + " triples");
+            check(maxActiveRequests.get() <= CONCURRENT_REQUESTS, maxActiveRequests.get() + " requests were concurrent");
+            check(0 < noOfRetries.get(), "no request was retried");
+
+            // a client error is not transient, so it is reported after a single attempt
+            final SparqlUpdateWriter invalidWriter = new SparqlUpdateWriter(baseURL + "/invalid", "<http://jedai/test>", TRIPLES_PER_REQUEST, 1, 3);
+            boolean failed = false;
+            try {
+                for (int i = 0; i < 3 * TRIPLES_PER_REQUEST; i++) {
+                    invalidWriter.addTriple("<obj/record/" + i + ">", "<url1>", "http://entity/" + i);
+                }
+                invalidWriter.close();
+            } catch (IllegalStateException ex) {
+                System.out.println("Client error\t:\t" + ex.getMessage() + " (" + ex.getCause().getMessage() + ")");
+                failed = true;
+            }
+            check(failed, "the client error was not reported");
+            check(badRequests.get() == 1, "the invalid request was attempted " + badRequests.get() + " times");
+        } finally {
+            server.stop(0);
+            serverThreads.shutdown();
+        }
+        System.out.println("SPARQL update writer checks passed");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException("Check failed: " + message);
+        }
+    }
+
+    // every third request is throttled and every fifth fails with a server error on its first attempt
+    private static void handleUpdate(HttpExchange exchange) throws IOException {
+        final int active = activeRequests.incrementAndGet();
+        maxActiveRequests.accumulateAndGet(active, Math::max);
+        try {
+            final String request = readRequest(exchange);
+            final int requestId = noOfRequests.incrementAndGet();
+            if ((requestId % 3 == 0 || requestId % 5 == 0) && rejectedRequests.add(request)) {
+                noOfRetries.incrementAndGet();
+                respond(exchange, requestId % 3 == 0 ? 429 : 503);
+                return;
+            }
+
+            int noOfTriples = 0;
+            final Matcher matcher = TRIPLE.matcher(request);
+            while (matcher.find()) {
+                receivedTriples.merge(matcher.group(1) + " " + matcher.group(2) + " " + matcher.group(3), 1, Integer::sum);
+                noOfTriples++;
+            }
+            maxTriplesPerRequest.accumulateAndGet(noOfTriples, Math::max);
+            respond(exchange, 200);
+        } finally {
+            activeRequests.decrementAndGet();
+        }
+    }
+
+    // the update is posted either as the request body or as the "update" form parameter
+    private static String readRequest(HttpExchange exchange) throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream input = exchange.getRequestBody()) {
+            final byte[] buffer = new byte[8192];
+            int length;
+            while ((length = input.read(buffer)) != -1) {
+                body.write(buffer, 0, length);
+            }
+        }
+
+        final String request = new String(body.toByteArray(), StandardCharsets.UTF_8);
+        if (request.startsWith("update=")) {
+            return URLDecoder.decode(request.substring("update=".length()), "UTF-8");
+        }
+        return request;
+    }
+
+    private static void respond(HttpExchange exchange, int responseCode) throws IOException {
+        exchange.sendResponseHeaders(responseCode, -1);
+        exchange.close();
+    }
+}
@@ -0,0 +1,153 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.entityclustering;
+
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.EquivalenceCluster;
+import org.scify.jedai.datamodel.SimilarityPairs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the clusters of ConnectedComponentsClustering, including their
+ * order, with the connected components of the similarity graph, as they were
+ * computed by the original implementation, on random Dirty and Clean-Clean ER
+ * graphs. It also checks that the incremental clustering yields the same
+ * clusters when the same pairs are added in a random order.
+ *
+ * @author gap2
+ */
+public class TestConnectedComponentsClustering {
+
+    private final static float[] THRESHOLDS = {0.1f, 0.5f, 0.8f};
+
+    public static void main(String[] args) {
+        final Random random = new Random(42);
+        for (int iteration = 0; iteration < 500; iteration++) {
+            final boolean isCleanCleanER = iteration % 2 == 0;
+            final SimilarityPairs simPairs = getRandomGraph(random, 3 + random.nextInt(60), isCleanCleanER);
+            for (float threshold : THRESHOLDS) {
+                final String setting = (isCleanCleanER ? "Clean-Clean" : "Dirty") + " ER, iteration " + iteration + ", threshold " + threshold;
+                final String expectedClusters = toString(getGraphClusters(simPairs, threshold));
+
+                final ConnectedComponentsClustering ccClustering = new ConnectedComponentsClustering(threshold);
+                check(setting + ", getDuplicates", expectedClusters, toString(ccClustering.getDuplicates(simPairs)));
+
+                check(setting + ", addSimilarity", expectedClusters, toString(getIncrementalClusters(random, simPairs, threshold)));
+            }
+        }
+        System.out.println("Connected Components Clustering checks passed");
+    }
+
+    private static void check(String setting, String expectedClusters, String actualClusters) {
+        if (!expectedClusters.equals(actualClusters)) {
+            throw new IllegalStateException("Connected Components Clustering returned " + actualClusters + " instead of " + expectedClusters + " (" + setting + ")");
+        }
+    }
+
+    // the clusters of the original implementation, i.e., the connected components of the materialized similarity graph
+    private static EquivalenceCluster[] getGraphClusters(SimilarityPairs simPairs, float threshold) {
+        final AbstractEntityClustering graphClustering = new ConnectedComponentsClustering(threshold) {
+            @Override
+            public EquivalenceCluster[] getDuplicates(SimilarityPairs simPairs) {
+                initializeData(simPairs);
+
+                final Iterator<Comparison> iterator = simPairs.getPairIterator();
+                while (iterator.hasNext()) {
+                    final Comparison comparison = iterator.next();
+                    if (threshold < comparison.getUtilityMeasure()) {
+                        similarityGraph.addEdge(comparison.getEntityId1(), comparison.getEntityId2() + datasetLimit);
+                    }
+                }
+
+                return getConnectedComponents();
+            }
+        };
+        return graphClustering.getDuplicates(simPairs);
+    }
+
+    // the clusters formed by adding the same pairs in a random order, while reading the current clusters halfway
+    private static EquivalenceCluster[] getIncrementalClusters(Random random, SimilarityPairs simPairs, float threshold) {
+        int maxEntity1 = 0;
+        int maxEntity2 = 0;
+        final List<Integer> pairIds = new ArrayList<>();
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            maxEntity1 = Math.max(maxEntity1, simPairs.getEntityIds1()[i]);
+            maxEntity2 = Math.max(maxEntity2, simPairs.getEntityIds2()[i]);
+            pairIds.add(i);
+        }
+        Collections.shuffle(pairIds, random);
+
+        final ConnectedComponentsClustering ccClustering = new ConnectedComponentsClustering(threshold);
+        if (simPairs.isCleanCleanER()) {
+            ccClustering.initializeClusters(maxEntity1 + 1, maxEntity2 + 1);
+        } else {
+            ccClustering.initializeClusters(Math.max(maxEntity1, maxEntity2) + 1, 0);
+        }
+
+        for (int i = 0; i < pairIds.size(); i++) {
+            if (i == pairIds.size() / 2) {
+                ccClustering.getClusters();
+            }
+            final int pairId = pairIds.get(i);
+            ccClustering.addSimilarity(simPairs.getEntityIds1()[pairId], simPairs.getEntityIds2()[pairId], simPairs.getSimilarities()[pairId]);
+        }
+        return ccClustering.getClusters();
+    }
+
+    // random similarities between a portion of the entity pairs
+    private static SimilarityPairs getRandomGraph(Random random, int noOfEntities, boolean isCleanCleanER) {
+        final int noOfEntities1 = isCleanCleanER ? Math.max(1, noOfEntities / 2) : noOfEntities;
+        final int noOfEntities2 = isCleanCleanER ? noOfEntities - noOfEntities1 + 1 : noOfEntities;
+        final float density = (0.5f + random.nextFloat()) * 3 / noOfEntities;
+
+        final List<Comparison> comparisons = new ArrayList<>();
+        for (int i = 0; i < noOfEntities1; i++) {
+            for (int j = isCleanCleanER ? 0 : i + 1; j < noOfEntities2; j++) {
+                // the last entities are always compared, so that the graph has the full size
+                final boolean lastPair = i == noOfEntities1 - (isCleanCleanER ? 1 : 2) && j == noOfEntities2 - 1;
+                if (lastPair || random.nextFloat() < density) {
+                    final Comparison comparison = new Comparison(isCleanCleanER, i, j);
+                    comparison.setUtilityMeasure(random.nextFloat());
+                    comparisons.add(comparison);
+                }
+            }
+        }
+        Collections.shuffle(comparisons, random);
+
+        final SimilarityPairs simPairs = new SimilarityPairs(isCleanCleanER, comparisons.size());
+        for (Comparison comparison : comparisons) {
+            simPairs.addComparison(comparison);
+        }
+        return simPairs;
+    }
+
+    // the clusters in their order, with the entity ids of both datasets in their order
+    private static String toString(EquivalenceCluster[] clusters) {
+        final StringBuilder sb = new StringBuilder();
+        for (EquivalenceCluster cluster : clusters) {
+            sb.append(Arrays.toString(cluster.getEntityIdsD1().toArray()));
+            sb.append(Arrays.toString(cluster.getEntityIdsD2().toArray()));
+            sb.append(" ");
+        }
+        return sb.toString();
+    }
+}
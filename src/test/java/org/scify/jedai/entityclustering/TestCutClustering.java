@@ -0,0 +1,174 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.entityclustering;
+
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.EquivalenceCluster;
+import org.scify.jedai.datamodel.GomoryHuTree;
+import org.scify.jedai.datamodel.SimilarityPairs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.jgrapht.alg.connectivity.ConnectivityInspector;
+
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleGraph;
+import org.jgrapht.graph.SimpleWeightedGraph;
+
+/**
+ * Compares the clusters of CutClustering with the components of the minimum
+ * cut (Gomory-Hu) tree of the expanded similarity graph, as they were computed
+ * by the original implementation, on random Dirty and Clean-Clean ER graphs
+ * and for several values of Acap. The graphs either have distinct weights or
+ * weights that are multiples of 0.25, so that many minimum cuts tie.
+ *
+ * @author gap2
+ */
+public class TestCutClustering {
+
+    private final static float THRESHOLD = 0.2f;
+
+    private final static float[] ACAP_VALUES = {0.1f, 0.3f, 0.5f, 0.8f};
+    private final static float[] TIED_ACAP_VALUES = {0.25f, 0.5f, 0.75f};
+
+    public static void main(String[] args) {
+        final Random random = new Random(42);
+        for (int iteration = 0; iteration < 100; iteration++) {
+            final SimilarityPairs simPairs = getRandomGraph(random, 5 + random.nextInt(40), iteration % 2 == 0, false);
+            for (float Acap : ACAP_VALUES) {
+                final String expectedClusters = getGomoryHuClusters(simPairs, Acap);
+                check("distinct weights, iteration " + iteration + ", Acap " + Acap, expectedClusters, simPairs, Acap, 1 + iteration % 4);
+            }
+        }
+
+        for (int iteration = 0; iteration < 300; iteration++) {
+            final SimilarityPairs simPairs = getRandomGraph(random, 3 + random.nextInt(20), iteration % 2 == 0, true);
+            for (float Acap : TIED_ACAP_VALUES) {
+                final String expectedClusters = getGomoryHuClusters(simPairs, Acap);
+                check("tied weights, iteration " + iteration + ", Acap " + Acap, expectedClusters, simPairs, Acap, 1 + iteration % 4);
+            }
+        }
+        System.out.println("Cut Clustering agrees with the minimum cut tree");
+    }
+
+    private static void check(String setting, String expectedClusters, SimilarityPairs simPairs, float Acap, int noOfThreads) {
+        final CutClustering cutClustering = new CutClustering(Acap, THRESHOLD);
+        cutClustering.setNoOfThreads(noOfThreads);
+        final List<int[]> clusters = new ArrayList<>();
+        for (EquivalenceCluster cluster : cutClustering.getDuplicates(simPairs)) {
+            clusters.add(cluster.getEntityIdsD1().toArray());
+        }
+
+        final String actualClusters = toString(clusters);
+        if (!expectedClusters.equals(actualClusters)) {
+            throw new IllegalStateException("Cut Clustering returned " + actualClusters + " instead of " + expectedClusters + " (" + setting + ")");
+        }
+    }
+
+    // the clusters of the original implementation, i.e., the components of the minimum cut tree without the sink
+    private static String getGomoryHuClusters(SimilarityPairs simPairs, float Acap) {
+        final double[][] weights = getWeights(simPairs);
+        final int noOfEntities = weights.length;
+
+        final SimpleWeightedGraph<String, DefaultWeightedEdge> weightedGraph = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
+        final String sinkLabel = "" + noOfEntities;
+        weightedGraph.addVertex(sinkLabel);
+        for (int i = 0; i < noOfEntities; i++) {
+            weightedGraph.addVertex(i + "");
+            weightedGraph.setEdgeWeight(weightedGraph.addEdge(sinkLabel, i + ""), Acap);
+        }
+        for (int i = 0; i < noOfEntities; i++) {
+            for (int j = i + 1; j < noOfEntities; j++) {
+                if (0 < weights[i][j]) {
+                    weightedGraph.setEdgeWeight(weightedGraph.addEdge(i + "", j + ""), weights[i][j]);
+                }
+            }
+        }
+
+        final SimpleGraph<Integer, DefaultEdge> minCutTree = new GomoryHuTree<>(weightedGraph).MinCutTree();
+        minCutTree.removeVertex(noOfEntities);
+        final List<int[]> clusters = new ArrayList<>();
+        for (Set<Integer> component : new ConnectivityInspector<>(minCutTree).connectedSets()) {
+            clusters.add(component.stream().mapToInt(Integer::intValue).toArray());
+        }
+        return toString(clusters);
+    }
+
+    // random similarities, either distinct or multiples of 0.25, between a portion of the entity pairs
+    private static SimilarityPairs getRandomGraph(Random random, int noOfEntities, boolean isCleanCleanER, boolean tiedWeights) {
+        final int noOfEntities1 = isCleanCleanER ? Math.max(1, noOfEntities / 2) : noOfEntities;
+        final int noOfEntities2 = isCleanCleanER ? noOfEntities - noOfEntities1 + 1 : noOfEntities;
+        final float density = (0.5f + random.nextFloat()) * 3 / noOfEntities;
+
+        final List<Comparison> comparisons = new ArrayList<>();
+        for (int i = 0; i < noOfEntities1; i++) {
+            for (int j = isCleanCleanER ? 0 : i + 1; j < noOfEntities2; j++) {
+                // the last entities are always compared, so that the graph has the full size
+                final boolean lastPair = i == noOfEntities1 - (isCleanCleanER ? 1 : 2) && j == noOfEntities2 - 1;
+                if (lastPair || random.nextFloat() < density) {
+                    final Comparison comparison = new Comparison(isCleanCleanER, i, j);
+                    comparison.setUtilityMeasure(tiedWeights ? 0.25f * random.nextInt(5) : random.nextFloat());
+                    comparisons.add(comparison);
+                }
+            }
+        }
+
+        final SimilarityPairs simPairs = new SimilarityPairs(isCleanCleanER, comparisons.size());
+        for (Comparison comparison : comparisons) {
+            simPairs.addComparison(comparison);
+        }
+        return simPairs;
+    }
+
+    // the weights of the similarity graph, where the entities of D2 follow those of D1
+    private static double[][] getWeights(SimilarityPairs simPairs) {
+        int maxEntity1 = 0;
+        int maxEntity2 = 0;
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            maxEntity1 = Math.max(maxEntity1, simPairs.getEntityIds1()[i]);
+            maxEntity2 = Math.max(maxEntity2, simPairs.getEntityIds2()[i]);
+        }
+
+        final int datasetLimit = simPairs.isCleanCleanER() ? maxEntity1 + 1 : 0;
+        final int noOfEntities = simPairs.isCleanCleanER() ? maxEntity1 + maxEntity2 + 2 : Math.max(maxEntity1, maxEntity2) + 1;
+        final double[][] weights = new double[noOfEntities][noOfEntities];
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            if (THRESHOLD < simPairs.getSimilarities()[i]) {
+                final int entityId1 = simPairs.getEntityIds1()[i];
+                final int entityId2 = simPairs.getEntityIds2()[i] + datasetLimit;
+                weights[entityId1][entityId2] = simPairs.getSimilarities()[i];
+                weights[entityId2][entityId1] = simPairs.getSimilarities()[i];
+            }
+        }
+        return weights;
+    }
+
+    // the sorted clusters with their sorted entity ids
+    private static String toString(List<int[]> clusters) {
+        final List<String> sortedClusters = new ArrayList<>();
+        for (int[] cluster : clusters) {
+            final int[] entityIds = cluster.clone();
+            Arrays.sort(entityIds);
+            sortedClusters.add(Arrays.toString(entityIds));
+        }
+        sortedClusters.sort(null);
+        return sortedClusters.toString();
+    }
+}
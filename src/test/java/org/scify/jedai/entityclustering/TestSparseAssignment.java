@@ -0,0 +1,175 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+ */
+package org.scify.jedai.entityclustering;
+
+import org.scify.jedai.datamodel.Comparison;
+import org.scify.jedai.datamodel.EquivalenceCluster;
+import org.scify.jedai.datamodel.SimilarityPairs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Compares the sparse assignment of RowColumnClustering and
+ * BestAssignmentHeuristic with the optimal assignment, which is found
+ * exhaustively, on small random Clean-Clean ER similarity graphs. Every graph
+ * consists of several groups of entities of unequal sizes, so that it has
+ * components with more entities in D1 than in D2 and vice versa.
+ *
+ * @author gap2
+ */
+public class TestSparseAssignment {
+
+    private final static float THRESHOLD = 0.1f;
+
+    public static void main(String[] args) {
+        final Random random = new Random(42);
+        for (int iteration = 0; iteration < 500; iteration++) {
+            final SimilarityPairs simPairs = getRandomGraph(random);
+            final float[][] weights = getWeights(simPairs);
+
+            final int[] optimalMatching = new int[weights.length];
+            final float optimalWeight = getOptimalAssignment(weights, optimalMatching);
+            final Set<String> optimalPairs = new TreeSet<>();
+            for (int i = 0; i < optimalMatching.length; i++) {
+                if (0 <= optimalMatching[i]) {
+                    optimalPairs.add(i + "-" + optimalMatching[i]);
+                }
+            }
+
+            final List<AbstractAssignmentClustering> methods = Arrays.asList(new RowColumnClustering(THRESHOLD), new BestAssignmentHeuristic(THRESHOLD));
+            for (AbstractAssignmentClustering method : methods) {
+                method.setSparseAssignment(true);
+                method.setNoOfThreads(1 + iteration % 4);
+
+                float totalWeight = 0;
+                final Set<String> pairs = new TreeSet<>();
+                for (EquivalenceCluster cluster : method.getDuplicates(simPairs)) {
+                    if (cluster.getEntityIdsD1().isEmpty() || cluster.getEntityIdsD2().isEmpty()) {
+                        continue;
+                    }
+                    if (cluster.getEntityIdsD1().size() != 1 || cluster.getEntityIdsD2().size() != 1) {
+                        throw new IllegalStateException(method.getMethodName() + " returned a cluster that is not a pair");
+                    }
+
+                    final int entityId1 = cluster.getEntityIdsD1().get(0);
+                    final int entityId2 = cluster.getEntityIdsD2().get(0);
+                    totalWeight += weights[entityId1][entityId2];
+                    pairs.add(entityId1 + "-" + entityId2);
+                }
+
+                if (1e-4f < Math.abs(totalWeight - optimalWeight) || !pairs.equals(optimalPairs)) {
+                    throw new IllegalStateException(method.getMethodName() + " in iteration " + iteration + " found the pairs " + pairs
+                            + " of total weight " + totalWeight + " instead of " + optimalPairs + " of total weight " + optimalWeight);
+                }
+            }
+        }
+        System.out.println("The sparse assignments are optimal");
+    }
+
+    // maximizes the total weight over all matchings through dynamic programming on the subsets of matched D2 entities
+    private static float getOptimalAssignment(float[][] weights, int[] matching) {
+        final int noOfRows = weights.length;
+        final int noOfColumns = weights[0].length;
+        final float[][] bestWeight = new float[noOfRows + 1][1 << noOfColumns];
+        for (int row = noOfRows - 1; 0 <= row; row--) {
+            for (int mask = 0; mask < 1 << noOfColumns; mask++) {
+                float best = bestWeight[row + 1][mask];
+                for (int column = 0; column < noOfColumns; column++) {
+                    if (0 < weights[row][column] && (mask & 1 << column) == 0) {
+                        best = Math.max(best, weights[row][column] + bestWeight[row + 1][mask | 1 << column]);
+                    }
+                }
+                bestWeight[row][mask] = best;
+            }
+        }
+
+        int mask = 0;
+        for (int row = 0; row < noOfRows; row++) {
+            matching[row] = -1;
+            if (bestWeight[row][mask] == bestWeight[row + 1][mask]) {
+                continue;
+            }
+
+            for (int column = 0; column < noOfColumns; column++) {
+                if (0 < weights[row][column] && (mask & 1 << column) == 0
+                        && bestWeight[row][mask] == weights[row][column] + bestWeight[row + 1][mask | 1 << column]) {
+                    matching[row] = column;
+                    mask |= 1 << column;
+                    break;
+                }
+            }
+        }
+        return bestWeight[0][0];
+    }
+
+    // splits up to 10 entities per dataset into groups of random sizes and connects only entities of the same group
+    private static SimilarityPairs getRandomGraph(Random random) {
+        final int noOfEntities1 = 2 + random.nextInt(9);
+        final int noOfEntities2 = 2 + random.nextInt(9);
+        final int noOfGroups = 1 + random.nextInt(3);
+        final int[] groups1 = new int[noOfEntities1];
+        for (int i = 0; i < noOfEntities1; i++) {
+            groups1[i] = random.nextInt(noOfGroups);
+        }
+        final int[] groups2 = new int[noOfEntities2];
+        for (int i = 0; i < noOfEntities2; i++) {
+            groups2[i] = random.nextInt(noOfGroups);
+        }
+
+        final List<Comparison> comparisons = new ArrayList<>();
+        final float density = 0.3f + 0.6f * random.nextFloat();
+        for (int i = 0; i < noOfEntities1; i++) {
+            for (int j = 0; j < noOfEntities2; j++) {
+                // the last entities of the two datasets are always compared, so that both datasets have their full size
+                final boolean lastPair = i == noOfEntities1 - 1 && j == noOfEntities2 - 1;
+                if (lastPair || (groups1[i] == groups2[j] && random.nextFloat() < density)) {
+                    final Comparison comparison = new Comparison(true, i, j);
+                    comparison.setUtilityMeasure(random.nextFloat());
+                    comparisons.add(comparison);
+                }
+            }
+        }
+
+        final SimilarityPairs simPairs = new SimilarityPairs(true, comparisons.size());
+        for (Comparison comparison : comparisons) {
+            simPairs.addComparison(comparison);
+        }
+        return simPairs;
+    }
+
+    // the weight of every pair with a similarity above the threshold, and 0 for all other pairs
+    private static float[][] getWeights(SimilarityPairs simPairs) {
+        int noOfEntities1 = 0;
+        int noOfEntities2 = 0;
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            noOfEntities1 = Math.max(noOfEntities1, simPairs.getEntityIds1()[i] + 1);
+            noOfEntities2 = Math.max(noOfEntities2, simPairs.getEntityIds2()[i] + 1);
+        }
+
+        final float[][] weights = new float[noOfEntities1][noOfEntities2];
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            if (THRESHOLD < simPairs.getSimilarities()[i]) {
+                weights[simPairs.getEntityIds1()[i]][simPairs.getEntityIds2()[i]] = simPairs.getSimilarities()[i];
+            }
+        }
+        return weights;
+    }
+}
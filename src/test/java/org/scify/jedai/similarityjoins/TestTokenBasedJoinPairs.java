@@ -0,0 +1,206 @@
+/*
+* Copyright [2016-2020] [George Papadakis (gpapadis@yahoo.gr)]
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package org.scify.jedai.similarityjoins;
+
+import org.scify.jedai.datamodel.EntityProfile;
+import org.scify.jedai.datamodel.SimilarityPairs;
+import org.scify.jedai.similarityjoins.tokenbased.AbstractTokenBasedJoin;
+import org.scify.jedai.similarityjoins.tokenbased.AllPairs;
+import org.scify.jedai.similarityjoins.tokenbased.PPJoin;
+import org.scify.jedai.similarityjoins.tokenbased.PartEnumJoin;
+import org.scify.jedai.similarityjoins.tokenbased.SilkMoth;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Compares the pairs of the token-based joins with those of an exhaustive
+ * Jaccard join over the same tokens, on small random Clean-Clean and Dirty ER
+ * datasets, and checks that SilkMoth reports every Dirty ER pair once. It
+ * also checks that all token-based joins, including SilkMoth, return the same
+ * pairs in the same order with one and with several threads.
+ *
+ * @author gap2
+ */
+public class TestTokenBasedJoinPairs {
+
+    private final static String ATTRIBUTE = "all";
+
+    // no Jaccard similarity of two records with up to 8 tokens each equals any of these thresholds
+    private final static float[] THRESHOLDS = {0.35f, 0.55f, 0.72f};
+
+    public static void main(String[] args) {
+        final Random random = new Random(42);
+        for (int iteration = 0; iteration < 20; iteration++) {
+            final List<EntityProfile> profilesD1 = getRandomProfiles(random, 30 + random.nextInt(30));
+            final List<EntityProfile> profilesD2 = getRandomProfiles(random, 30 + random.nextInt(30));
+            for (float threshold : THRESHOLDS) {
+                final Set<String> dirtyPairs = getExpectedPairs(profilesD1, null, threshold);
+                final Set<String> cleanCleanPairs = getExpectedPairs(profilesD1, profilesD2, threshold);
+                for (AbstractSimilarityJoin join : getJoins(threshold)) {
+                    check(join.getMethodName() + " (Dirty ER, threshold " + threshold + ")", dirtyPairs,
+                            getPairs(join.executeFiltering(ATTRIBUTE, profilesD1)));
+                }
+                for (AbstractSimilarityJoin join : getJoins(threshold)) {
+                    check(join.getMethodName() + " (Clean-Clean ER, threshold " + threshold + ")", cleanCleanPairs,
+                            getPairs(join.executeFiltering(ATTRIBUTE, ATTRIBUTE, profilesD1, profilesD2)));
+                }
+
+                // SilkMoth considers all attributes, so only the uniqueness of its pairs is checked
+                final SimilarityPairs silkMothPairs = new SilkMoth(-1, threshold).executeFiltering(ATTRIBUTE, profilesD1);
+                getPairs(silkMothPairs);
+
+                // the multi-threaded joins should return the same pairs in the same order
+                final int noOfThreads = 2 + iteration % 3;
+                final List<AbstractTokenBasedJoin> serialJoins = getAllJoins(threshold, 1);
+                final List<AbstractTokenBasedJoin> parallelJoins = getAllJoins(threshold, noOfThreads);
+                for (int i = 0; i < serialJoins.size(); i++) {
+                    checkIdentical(serialJoins.get(i).getMethodName() + " (Dirty ER, threshold " + threshold + ", " + noOfThreads + " threads)",
+                            serialJoins.get(i).executeFiltering(ATTRIBUTE, profilesD1),
+                            parallelJoins.get(i).executeFiltering(ATTRIBUTE, profilesD1));
+                }
+                for (int i = 0; i < serialJoins.size(); i++) {
+                    checkIdentical(serialJoins.get(i).getMethodName() + " (Clean-Clean ER, threshold " + threshold + ", " + noOfThreads + " threads)",
+                            serialJoins.get(i).executeFiltering(ATTRIBUTE, ATTRIBUTE, profilesD1, profilesD2),
+                            parallelJoins.get(i).executeFiltering(ATTRIBUTE, ATTRIBUTE, profilesD1, profilesD2));
+                }
+            }
+        }
+        System.out.println("All token-based joins agree with the exhaustive join");
+    }
+
+    private static void check(String method, Set<String> expectedPairs, Set<String> pairs) {
+        if (!expectedPairs.equals(pairs)) {
+            final Set<String> missingPairs = new TreeSet<>(expectedPairs);
+            missingPairs.removeAll(pairs);
+            final Set<String> extraPairs = new TreeSet<>(pairs);
+            extraPairs.removeAll(expectedPairs);
+            throw new IllegalStateException(method + " misses the pairs " + missingPairs + " and returns the extra pairs " + extraPairs);
+        }
+    }
+
+    private static void checkIdentical(String method, SimilarityPairs expectedPairs, SimilarityPairs pairs) {
+        final int noOfComparisons = expectedPairs.getNoOfComparisons();
+        if (noOfComparisons != pairs.getNoOfComparisons()) {
+            throw new IllegalStateException(method + " returns " + pairs.getNoOfComparisons() + " instead of " + noOfComparisons + " pairs");
+        }
+        for (int i = 0; i < noOfComparisons; i++) {
+            if (expectedPairs.getEntityIds1()[i] != pairs.getEntityIds1()[i]
+                    || expectedPairs.getEntityIds2()[i] != pairs.getEntityIds2()[i]
+                    || Float.compare(expectedPairs.getSimilarities()[i], pairs.getSimilarities()[i]) != 0) {
+                throw new IllegalStateException(method + " returns the pair " + pairs.getEntityIds1()[i] + "-" + pairs.getEntityIds2()[i]
+                        + " (" + pairs.getSimilarities()[i] + ") instead of " + expectedPairs.getEntityIds1()[i] + "-"
+                        + expectedPairs.getEntityIds2()[i] + " (" + expectedPairs.getSimilarities()[i] + ") at position " + i);
+            }
+        }
+    }
+
+    // every entity has a single attribute with up to 8 tokens from a small vocabulary, so that many pairs are similar
+    private static List<EntityProfile> getRandomProfiles(Random random, int noOfProfiles) {
+        final List<EntityProfile> profiles = new ArrayList<>();
+        for (int i = 0; i < noOfProfiles; i++) {
+            final StringBuilder value = new StringBuilder();
+            final int noOfTokens = 1 + random.nextInt(8);
+            for (int j = 0; j < noOfTokens; j++) {
+                value.append("token").append(random.nextInt(12)).append(" ");
+            }
+
+            final EntityProfile profile = new EntityProfile("entity" + i);
+            profile.addAttribute(ATTRIBUTE, value.toString().trim());
+            profiles.add(profile);
+        }
+        return profiles;
+    }
+
+    // the pairs of records whose Jaccard similarity over the multisets of their tokens exceeds the threshold
+    private static Set<String> getExpectedPairs(List<EntityProfile> profilesD1, List<EntityProfile> profilesD2, float threshold) {
+        final List<Map<String, Integer>> tokensD1 = getTokenFrequencies(profilesD1);
+        final List<Map<String, Integer>> tokensD2 = profilesD2 == null ? tokensD1 : getTokenFrequencies(profilesD2);
+
+        final Set<String> pairs = new HashSet<>();
+        for (int i = 0; i < tokensD1.size(); i++) {
+            for (int j = profilesD2 == null ? i + 1 : 0; j < tokensD2.size(); j++) {
+                int overlap = 0;
+                int size1 = 0;
+                for (Map.Entry<String, Integer> entry : tokensD1.get(i).entrySet()) {
+                    overlap += Math.min(entry.getValue(), tokensD2.get(j).getOrDefault(entry.getKey(), 0));
+                    size1 += entry.getValue();
+                }
+                int size2 = 0;
+                for (int frequency : tokensD2.get(j).values()) {
+                    size2 += frequency;
+                }
+
+                if (threshold <= ((float) overlap) / (size1 + size2 - overlap)) {
+                    pairs.add(i + "-" + j);
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private static List<AbstractSimilarityJoin> getJoins(float threshold) {
+        return Arrays.asList(new AllPairs(threshold), new PPJoin(threshold), new PartEnumJoin(threshold));
+    }
+
+    private static List<AbstractTokenBasedJoin> getAllJoins(float threshold, int noOfThreads) {
+        final List<AbstractTokenBasedJoin> joins = Arrays.asList(new AllPairs(threshold), new PPJoin(threshold),
+                new PartEnumJoin(threshold), new SilkMoth(-1, threshold));
+        joins.forEach(join -> join.setNoOfThreads(noOfThreads));
+        return joins;
+    }
+
+    private static Set<String> getPairs(SimilarityPairs simPairs) {
+        final int[] entityIds1 = simPairs.getEntityIds1();
+        final int[] entityIds2 = simPairs.getEntityIds2();
+        final Set<String> pairs = new HashSet<>();
+        for (int i = 0; i < simPairs.getNoOfComparisons(); i++) {
+            int id1 = entityIds1[i];
+            int id2 = entityIds2[i];
+            if (!simPairs.isCleanCleanER() && id2 < id1) {
+                id1 = entityIds2[i];
+                id2 = entityIds1[i];
+            }
+
+            if (!simPairs.isCleanCleanER() && id1 == id2) {
+                throw new IllegalStateException("Entity " + id1 + " is compared with itself");
+            }
+            if (!pairs.add(id1 + "-" + id2)) {
+                throw new IllegalStateException("The pair " + id1 + "-" + id2 + " is reported twice");
+            }
+        }
+        return pairs;
+    }
+
+    private static List<Map<String, Integer>> getTokenFrequencies(List<EntityProfile> profiles) {
+        final List<Map<String, Integer>> tokenFrequencies = new ArrayList<>();
+        for (EntityProfile profile : profiles) {
+            final Map<String, Integer> frequencies = new HashMap<>();
+            for (String token : profile.getAttributes().iterator().next().getValue().split(" ")) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+            tokenFrequencies.add(frequencies);
+        }
+        return tokenFrequencies;
+    }
+}